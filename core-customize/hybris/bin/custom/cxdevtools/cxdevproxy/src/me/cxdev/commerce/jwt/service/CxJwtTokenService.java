@@ -1,12 +1,24 @@
 package me.cxdev.commerce.jwt.service;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.PrivateKey;
+import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.nimbusds.jose.JOSEObjectType;
 import com.nimbusds.jose.JWSAlgorithm;
@@ -25,11 +37,17 @@ import com.nimbusds.jwt.SignedJWT;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.util.StringUtils;
 
+import me.cxdev.commerce.proxy.cache.BoundedCache;
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
 import me.cxdev.commerce.proxy.util.ResourcePathUtils;
 import me.cxdev.commerce.proxy.util.TimeUtils;
 
@@ -39,17 +57,49 @@ import me.cxdev.commerce.proxy.util.TimeUtils;
  * It strictly relies on the platform's JWKSource (from the authorizationserver) to sign tokens
  * with the exact same key the backend uses, ensuring native trust without additional configuration.
  * </p>
+ * <p>
+ * Signing is kept off the request path as far as possible: all templates below the template path are
+ * signed in the background at startup, cached tokens that have been read since they were signed are
+ * re-signed in the background once 80% of their cache lifetime has passed, and concurrent requests
+ * for a token that is not cached wait for a single signing operation instead of signing the same
+ * claims in parallel. {@link #getOrGenerateTokenAsync(String, String)} loads the template and signs
+ * tokens that are not cached on a dedicated signing thread, so request threads never wait for them.
+ * </p>
+ * <p>
+ * Parsed claim templates are cached per resource and re-parsed only when the last modification time
+ * of the resource changes. If a {@link FileChangeWatcher} is configured and the templates are located
+ * in a directory, a changed template immediately evicts its parsed claims and the tokens signed from
+ * it, so the next request receives a token with the new claims. Signed tokens are kept in a size-bounded LRU cache. As only tokens that
+ * have been read are refreshed, user ids that are no longer used are no longer re-signed and are
+ * evicted eventually. There is at most one scheduled refresh per user id.
+ * </p>
  */
-public class CxJwtTokenService implements JwtTokenService, InitializingBean, ResourceLoaderAware {
+public class CxJwtTokenService implements JwtTokenService, InitializingBean, DisposableBean, ResourceLoaderAware {
 	private static final Logger LOG = LoggerFactory.getLogger(CxJwtTokenService.class);
+	private static final long EXPIRY_SAFETY_MARGIN_MS = 60000;
+	private static final int REFRESH_PERCENTAGE = 80;
+	private static final long ENTRY_OVERHEAD = 256;
 
 	private ResourceLoader resourceLoader;
 	private String templatePathPrefix = "classpath:cxdevproxy/jwt";
 	private long tokenValidityMs = 3600 * 1000L;
 	private JWKSource<SecurityContext> jwkSource;
 	private String activeKeyId;
+	private boolean prewarmTemplates = true;
+	private long tokenCacheMaxSize = 1024L * 1024L;
 	private PrivateKey privateKey;
-	private final Map<String, CachedToken> tokenCache = new ConcurrentHashMap<>();
+	private JWSSigner signer;
+	private JWSHeader header;
+	private ScheduledExecutorService refreshExecutor;
+	private ExecutorService signingExecutor;
+	private FileChangeWatcher fileChangeWatcher;
+	private FileChangeWatcher.Subscription templateSubscription;
+	private Path watchedTemplateDirectory;
+	private BoundedCache<TokenKey, CachedToken> tokenCache = new BoundedCache<>("JWT", tokenCacheMaxSize, CachedToken::getWeight);
+	private final Map<TokenKey, CompletableFuture<String>> pendingTokens = new ConcurrentHashMap<>();
+	private final Map<TokenKey, ScheduledRefresh> scheduledRefreshes = new ConcurrentHashMap<>();
+	private final Map<String, CachedTemplate> templateCache = new ConcurrentHashMap<>();
+	private final LongAdder templateLoadCount = new LongAdder();
 
 	@Override
 	public String getOrGenerateToken(String userType, String userId) {
@@ -57,20 +107,163 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 			return null;
 		}
 
-		String cacheKey = userType + ":" + userId;
+		TokenKey cacheKey = new TokenKey(userType, userId);
+		String cached = getCachedToken(cacheKey);
+		return cached != null ? cached : mintToken(cacheKey, false);
+	}
+
+	/**
+	 * Returns cached tokens immediately. Otherwise, the template is loaded and the token is signed on
+	 * the signing thread, and concurrent callers receive the same future, so no caller ever waits
+	 * for file IO or a signature on its own thread.
+	 */
+	@Override
+	public CompletableFuture<String> getOrGenerateTokenAsync(String userType, String userId) {
+		if (privateKey == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		TokenKey cacheKey = new TokenKey(userType, userId);
+		String cached = getCachedToken(cacheKey);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		CompletableFuture<String> flight = new CompletableFuture<>();
+		CompletableFuture<String> existing = pendingTokens.putIfAbsent(cacheKey, flight);
+		if (existing != null) {
+			return existing;
+		}
+		ExecutorService executor = this.signingExecutor;
+		try {
+			if (executor == null) {
+				throw new RejectedExecutionException("Signing executor is not running");
+			}
+			executor.execute(() -> sign(cacheKey, flight, false));
+		} catch (RejectedExecutionException e) {
+			LOG.debug("Token for '{}' not signed, the service is shutting down.", cacheKey);
+			pendingTokens.remove(cacheKey, flight);
+			flight.complete(null);
+		}
+		return flight;
+	}
+
+	/**
+	 * @return The cached token if it is still valid, otherwise {@code null}.
+	 */
+	private String getCachedToken(TokenKey cacheKey) {
 		CachedToken cached = tokenCache.get(cacheKey);
+		if (cached != null) {
+			if (cached.isValid()) {
+				cached.markAccessed();
+				return cached.getToken();
+			}
+			tokenCache.remove(cacheKey);
+		}
+		return null;
+	}
 
-		if (cached != null && cached.isValid()) {
-			return cached.getToken();
+	/**
+	 * Signs and caches a token, making sure that only one thread signs the token for a user at a time.
+	 * Concurrent callers wait for the result of the thread that is already signing, so this method
+	 * must not be called on an IO thread (see {@link #getOrGenerateTokenAsync(String, String)}).
+	 *
+	 * @param force {@code true} to sign even if a valid token is cached (background refresh).
+	 */
+	private String mintToken(TokenKey cacheKey, boolean force) {
+		CompletableFuture<String> flight = new CompletableFuture<>();
+		CompletableFuture<String> existing = pendingTokens.putIfAbsent(cacheKey, flight);
+		if (existing != null) {
+			return existing.join();
 		}
+		return sign(cacheKey, flight, force);
+	}
 
-		String newToken = generateSignedToken(userType, userId);
-		if (newToken != null) {
-			// Cache expires 1 minute before the actual token to avoid edge cases
-			long cacheExpiry = System.currentTimeMillis() + this.tokenValidityMs - 60000;
-			tokenCache.put(cacheKey, new CachedToken(newToken, cacheExpiry));
+	/**
+	 * Signs and caches the token of a flight claimed by the caller, and completes the flight.
+	 */
+	private String sign(TokenKey cacheKey, CompletableFuture<String> flight, boolean force) {
+		String newToken = null;
+		try {
+			// Another thread may have cached the token between the cache lookup and claiming the flight
+			CachedToken cached = !force && tokenCache.containsKey(cacheKey) ? tokenCache.get(cacheKey) : null;
+			if (cached != null && cached.isValid()) {
+				newToken = cached.getToken();
+				return newToken;
+			}
+
+			newToken = generateSignedToken(cacheKey.userType(), cacheKey.userId());
+			if (newToken != null) {
+				cacheToken(cacheKey, newToken);
+			}
+			return newToken;
+		} finally {
+			pendingTokens.remove(cacheKey, flight);
+			flight.complete(newToken);
 		}
-		return newToken;
+	}
+
+	private void cacheToken(TokenKey cacheKey, String token) {
+		// Cache expires 1 minute before the actual token to avoid edge cases
+		long cacheLifetime = this.tokenValidityMs - EXPIRY_SAFETY_MARGIN_MS;
+		CachedToken cached = new CachedToken(token, System.currentTimeMillis() + cacheLifetime);
+		tokenCache.put(cacheKey, cached);
+
+		ScheduledExecutorService executor = this.refreshExecutor;
+		if (executor == null || cacheLifetime <= 0) {
+			return;
+		}
+		// Replaces the refresh of a previous token, e.g. one that has been evicted and signed again meanwhile
+		scheduledRefreshes.compute(cacheKey, (key, previous) -> {
+			if (previous != null) {
+				previous.future().cancel(false);
+			}
+			try {
+				return new ScheduledRefresh(cached,
+						executor.schedule(() -> refreshToken(key, cached), cacheLifetime * REFRESH_PERCENTAGE / 100, TimeUnit.MILLISECONDS));
+			} catch (RejectedExecutionException e) {
+				LOG.debug("Token refresh for '{}' not scheduled, the service is shutting down.", key);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Re-signs the token if it is still cached and has been read since it was signed. Evicted or unused
+	 * tokens are not refreshed, they are signed again on demand.
+	 */
+	private void refreshToken(TokenKey cacheKey, CachedToken token) {
+		boolean refreshed = false;
+		ScheduledRefresh scheduled = scheduledRefreshes.get(cacheKey);
+		// Superseded tokens have been replaced by a newer token with its own refresh
+		boolean current = scheduled != null && scheduled.token() == token && tokenCache.containsKey(cacheKey);
+		if (current && token.isAccessed()) {
+			refreshed = mintToken(cacheKey, true) != null;
+		} else {
+			LOG.debug("Stopping the background refresh of the token for '{}', it is unused or no longer cached.", cacheKey);
+		}
+		if (!refreshed) {
+			// A token signed meanwhile has scheduled its own refresh, which must be kept
+			scheduledRefreshes.computeIfPresent(cacheKey, (key, pending) -> pending.token() == token ? null : pending);
+		}
+	}
+
+	/**
+	 * Runs the background refresh of the cached token immediately.
+	 */
+	void refreshNow(String userType, String userId) {
+		TokenKey cacheKey = new TokenKey(userType, userId);
+		ScheduledRefresh scheduled = scheduledRefreshes.get(cacheKey);
+		if (scheduled != null) {
+			refreshToken(cacheKey, scheduled.token());
+		}
+	}
+
+	/**
+	 * @return The number of tokens with a scheduled background refresh.
+	 */
+	public int getScheduledRefreshCount() {
+		return scheduledRefreshes.size();
 	}
 
 	@Override
@@ -79,19 +272,12 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 		String templatePath = normalizedPrefix + userType + "/" + userId + ".json";
 
 		try {
-			Resource resource = resourceLoader.getResource(templatePath);
-			if (!resource.exists()) {
+			JWTClaimsSet templateClaims = loadTemplate(templatePath);
+			if (templateClaims == null) {
 				LOG.warn("No JWT template found for user at path: {}", templatePath);
 				return null;
 			}
 
-			String jsonContent;
-			try (InputStream is = resource.getInputStream()) {
-				jsonContent = IOUtils.toString(is, StandardCharsets.UTF_8);
-			}
-
-			JWTClaimsSet templateClaims = JWTClaimsSet.parse(jsonContent);
-
 			Date now = new Date();
 			Date expiry = new Date(now.getTime() + this.tokenValidityMs);
 
@@ -102,14 +288,8 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 					.issuer("cxdevproxy")
 					.build();
 
-			JWSSigner signer = new RSASSASigner(this.privateKey);
-			JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
-					.type(JOSEObjectType.JWT)
-					.keyID(this.activeKeyId)
-					.build();
-
-			SignedJWT signedJWT = new SignedJWT(header, finalClaims);
-			signedJWT.sign(signer);
+			SignedJWT signedJWT = new SignedJWT(this.header, finalClaims);
+			signedJWT.sign(this.signer);
 
 			LOG.debug("Successfully generated natively-trusted signed JWT for user '{}' of type '{}'", userId, userType);
 			return signedJWT.serialize();
@@ -120,6 +300,65 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 		}
 	}
 
+	/**
+	 * Returns the parsed claims of the template, parsing the resource only if it has not been parsed
+	 * before or has been modified since.
+	 *
+	 * @return The template claims, or {@code null} if the template does not exist.
+	 */
+	private JWTClaimsSet loadTemplate(String templatePath) throws IOException, ParseException {
+		Resource resource = resourceLoader.getResource(templatePath);
+		if (!resource.exists()) {
+			templateCache.remove(templatePath);
+			return null;
+		}
+
+		long lastModified = lastModified(resource);
+		CachedTemplate cached = templateCache.get(templatePath);
+		if (cached != null && cached.lastModified() == lastModified) {
+			return cached.claims();
+		}
+
+		String jsonContent;
+		try (InputStream is = resource.getInputStream()) {
+			jsonContent = IOUtils.toString(is, StandardCharsets.UTF_8);
+		}
+		JWTClaimsSet claims = JWTClaimsSet.parse(jsonContent);
+		templateLoadCount.increment();
+		templateCache.put(templatePath, new CachedTemplate(claims, lastModified));
+		return claims;
+	}
+
+	private static long lastModified(Resource resource) {
+		try {
+			return resource.lastModified();
+		} catch (IOException e) {
+			// Resources without a modification time cannot change at runtime
+			return 0;
+		}
+	}
+
+	/**
+	 * @return The cache of signed tokens, exposing hit/miss/eviction statistics.
+	 */
+	public BoundedCache<?, ?> getTokenCache() {
+		return tokenCache;
+	}
+
+	/**
+	 * @return The number of parsed claim templates currently cached.
+	 */
+	public int getTemplateCacheSize() {
+		return templateCache.size();
+	}
+
+	/**
+	 * @return The number of times a claim template has been read and parsed.
+	 */
+	public long getTemplateLoadCount() {
+		return templateLoadCount.sum();
+	}
+
 	@Override
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourceLoader = resourceLoader;
@@ -137,6 +376,29 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 		this.jwkSource = jwkSource;
 	}
 
+	public void setFileChangeWatcher(FileChangeWatcher fileChangeWatcher) {
+		this.fileChangeWatcher = fileChangeWatcher;
+	}
+
+	public void setPrewarmTemplates(boolean prewarmTemplates) {
+		this.prewarmTemplates = prewarmTemplates;
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "512kb", "1mb".
+	 * Fallback to bytes if no unit is provided.
+	 *
+	 * @param tokenCacheMaxSize The maximum total size of all cached tokens.
+	 */
+	public void setTokenCacheMaxSize(String tokenCacheMaxSize) {
+		try {
+			this.tokenCacheMaxSize = DataSizeUtils.parseSizeToBytes(tokenCacheMaxSize, "JWT cache size");
+			this.tokenCache = new BoundedCache<>("JWT", this.tokenCacheMaxSize, CachedToken::getWeight);
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid JWT cache size {}, using current value '{}'.", tokenCacheMaxSize, this.tokenCacheMaxSize);
+		}
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (jwkSource != null) {
@@ -144,6 +406,142 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 		} else {
 			LOG.warn("No JWKSource injected. JWT signing will be disabled for the proxy.");
 		}
+
+		if (privateKey != null) {
+			refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "CxDevProxy-JwtRefresher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			signingExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "CxDevProxy-JwtSigner");
+				thread.setDaemon(true);
+				return thread;
+			});
+			if (prewarmTemplates) {
+				refreshExecutor.execute(this::prewarmTemplates);
+			}
+			watchTemplates();
+		}
+	}
+
+	/**
+	 * Subscribes the template directory, if it is located in the filesystem.
+	 */
+	private void watchTemplates() {
+		if (fileChangeWatcher == null) {
+			return;
+		}
+		File templateDirectory;
+		try {
+			templateDirectory = resourceLoader.getResource(templatePathPrefix).getFile();
+		} catch (IOException e) {
+			// Packaged in a JAR: the templates cannot change at runtime
+			return;
+		}
+		if (templateDirectory.isDirectory()) {
+			watchedTemplateDirectory = templateDirectory.toPath().toAbsolutePath().normalize();
+			templateSubscription = fileChangeWatcher.watchDirectory(templateDirectory, this::evictTemplate);
+		}
+	}
+
+	/**
+	 * Evicts the parsed claims and the tokens of a changed template ({@code <userType>/<userId>.json}),
+	 * or of all templates of a user type if its directory has changed.
+	 */
+	private void evictTemplate(Path changed) {
+		Path relativePath = watchedTemplateDirectory.relativize(changed);
+		if (relativePath.toString().isEmpty() || relativePath.getNameCount() > 2) {
+			evictAllTemplates();
+			return;
+		}
+
+		String userType = relativePath.getName(0).toString();
+		String userId = null;
+		if (relativePath.getNameCount() == 2) {
+			String fileName = relativePath.getName(1).toString();
+			if (!fileName.endsWith(".json")) {
+				return;
+			}
+			userId = fileName.substring(0, fileName.length() - ".json".length());
+		}
+
+		String normalizedPrefix = templatePathPrefix.endsWith("/") ? templatePathPrefix : templatePathPrefix + "/";
+		String templatePath = normalizedPrefix + userType + "/" + (userId != null ? userId + ".json" : "");
+		templateCache.keySet().removeIf(path -> path.startsWith(templatePath));
+		String evictedUserId = userId;
+		int removed = tokenCache.removeIf(key -> key.userType().equals(userType) && (evictedUserId == null || key.userId().equals(evictedUserId)));
+		scheduledRefreshes.entrySet().removeIf(entry -> {
+			TokenKey key = entry.getKey();
+			boolean evicted = key.userType().equals(userType) && (evictedUserId == null || key.userId().equals(evictedUserId));
+			if (evicted) {
+				entry.getValue().future().cancel(false);
+			}
+			return evicted;
+		});
+		LOG.debug("Evicted {} token(s) for changed JWT template {}.", removed, relativePath);
+	}
+
+	private void evictAllTemplates() {
+		templateCache.clear();
+		tokenCache.clear();
+		scheduledRefreshes.values().forEach(scheduled -> scheduled.future().cancel(false));
+		scheduledRefreshes.clear();
+		LOG.debug("Evicted all tokens for changed JWT templates.");
+	}
+
+	/**
+	 * Stops the background refresh when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		if (templateSubscription != null) {
+			templateSubscription.close();
+			templateSubscription = null;
+		}
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+		if (signingExecutor != null) {
+			signingExecutor.shutdownNow();
+			signingExecutor = null;
+		}
+		// Requests waiting for a signature that will not happen anymore continue without a token
+		pendingTokens.values().forEach(flight -> flight.complete(null));
+		pendingTokens.clear();
+		scheduledRefreshes.clear();
+		LOG.info("{}", tokenCache);
+		tokenCache.clear();
+		templateCache.clear();
+	}
+
+	/**
+	 * Signs a token for every template found below the template path ({@code <userType>/<userId>.json}),
+	 * so that the first request of a mock user does not have to wait for the signature.
+	 */
+	private void prewarmTemplates() {
+		String normalizedPrefix = templatePathPrefix.endsWith("/") ? templatePathPrefix : templatePathPrefix + "/";
+		String templatePattern = normalizedPrefix + "*/*.json";
+		try {
+			Resource[] templates = ResourcePatternUtils.getResourcePatternResolver(resourceLoader).getResources(templatePattern);
+			int count = 0;
+			for (Resource template : templates) {
+				String[] segments = template.getURI().toString().split("/");
+				if (segments.length < 2) {
+					continue;
+				}
+				String userType = StringUtils.uriDecode(segments[segments.length - 2], StandardCharsets.UTF_8);
+				String fileName = StringUtils.uriDecode(segments[segments.length - 1], StandardCharsets.UTF_8);
+				String userId = fileName.substring(0, fileName.length() - ".json".length());
+				if (mintToken(new TokenKey(userType, userId), false) != null) {
+					count++;
+				}
+			}
+			LOG.info("Pre-signed {} JWT(s) for the templates in {}.", count, normalizedPrefix);
+		} catch (Exception e) {
+			LOG.warn("Failed to pre-sign JWTs for the templates matching {}.", templatePattern, e);
+		}
 	}
 
 	private void loadPrivateKeyFromJwkSource() {
@@ -156,6 +554,12 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 					if (jwk instanceof RSAKey && jwk.isPrivate()) {
 						this.privateKey = ((RSAKey) jwk).toPrivateKey();
 						this.activeKeyId = jwk.getKeyID();
+						// Both are immutable and thread-safe, so they are shared by all signing operations
+						this.signer = new RSASSASigner(this.privateKey);
+						this.header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+								.type(JOSEObjectType.JWT)
+								.keyID(this.activeKeyId)
+								.build();
 						LOG.info("Successfully loaded private key from injected JWKSource (kid: {}). Mock tokens will be natively trusted!", this.activeKeyId);
 						return;
 					}
@@ -170,6 +574,7 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 	private static class CachedToken {
 		private final String token;
 		private final long expiresAt;
+		private volatile boolean accessed;
 
 		public CachedToken(String token, long expiresAt) {
 			this.token = token;
@@ -183,5 +588,31 @@ public class CxJwtTokenService implements JwtTokenService, InitializingBean, Res
 		public boolean isValid() {
 			return System.currentTimeMillis() < expiresAt;
 		}
+
+		void markAccessed() {
+			if (!accessed) {
+				accessed = true;
+			}
+		}
+
+		/**
+		 * @return {@code true} if the token has been read from the cache since it was signed.
+		 */
+		boolean isAccessed() {
+			return accessed;
+		}
+
+		long getWeight() {
+			return ENTRY_OVERHEAD + token.length();
+		}
+	}
+
+	private record TokenKey(String userType, String userId) {
+	}
+
+	private record ScheduledRefresh(CachedToken token, ScheduledFuture<?> future) {
+	}
+
+	private record CachedTemplate(JWTClaimsSet claims, long lastModified) {
 	}
 }
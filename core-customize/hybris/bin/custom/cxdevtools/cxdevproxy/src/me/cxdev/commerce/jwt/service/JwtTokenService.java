@@ -1,5 +1,7 @@
 package me.cxdev.commerce.jwt.service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Core service responsible for managing and provisioning JSON Web Tokens (JWT)
  * for local development and proxy routing.
@@ -26,6 +28,22 @@ public interface JwtTokenService {
 	 */
 	String getOrGenerateToken(String userType, String userId);
 
+	/**
+	 * Retrieves a valid, signed JWT for the specified user without blocking the calling thread.
+	 * <p>
+	 * Cached tokens are returned as completed future. The default implementation generates
+	 * missing tokens on the common pool; implementations should use their own signing thread.
+	 * </p>
+	 *
+	 * @param userType The classification of the user (e.g., "customer", "employee").
+	 * @param userId   The unique identifier of the user.
+	 * @return A future completed with the signed JWT string, or with {@code null} if the token
+	 * could not be generated.
+	 */
+	default CompletableFuture<String> getOrGenerateTokenAsync(String userType, String userId) {
+		return CompletableFuture.supplyAsync(() -> getOrGenerateToken(userType, userId));
+	}
+
 	/**
 	 * Forces the generation of a newly signed JWT for the specified user,
 	 * bypassing any internal caches.
@@ -0,0 +1,174 @@
+package me.cxdev.commerce.proxy.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A size-aware, least-recently-used cache shared by the in-memory caches of the proxy
+ * (static assets, templates, responses, tokens).
+ * <p>
+ * Every entry is weighed by a caller-supplied function (usually its size in bytes). When the
+ * total weight exceeds the configured maximum, the least recently accessed entries are evicted.
+ * Entries heavier than the maximum itself are never stored. Hits, misses and evictions are
+ * counted for diagnostics.
+ * </p>
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class BoundedCache<K, V> {
+	private final String name;
+	private final long maxWeight;
+	private final ToLongFunction<? super V> weigher;
+	private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long weight;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * @param name      A descriptive name for logging (e.g., "static assets").
+	 * @param maxWeight The maximum total weight of all entries, {@code 0} disables the cache.
+	 * @param weigher   Calculates the weight of a value.
+	 */
+	public BoundedCache(String name, long maxWeight, ToLongFunction<? super V> weigher) {
+		this.name = name;
+		this.maxWeight = Math.max(0, maxWeight);
+		this.weigher = weigher;
+	}
+
+	/**
+	 * @return The cached value, or {@code null} if the key is not cached.
+	 */
+	public synchronized V get(K key) {
+		V value = entries.get(key);
+		if (value != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return value;
+	}
+
+	/**
+	 * Checks whether the key is cached, without counting a hit or miss and without updating its recency.
+	 *
+	 * @return {@code true} if the key is cached.
+	 */
+	public synchronized boolean containsKey(K key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * Stores the value and evicts least recently used entries if the maximum weight is exceeded.
+	 *
+	 * @return {@code true} if the value has been stored, {@code false} if it is too heavy for this cache.
+	 */
+	public synchronized boolean put(K key, V value) {
+		long valueWeight = weigher.applyAsLong(value);
+		if (valueWeight > maxWeight) {
+			return false;
+		}
+
+		V previous = entries.put(key, value);
+		if (previous != null) {
+			weight -= weigher.applyAsLong(previous);
+		}
+		weight += valueWeight;
+
+		Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+		while (weight > maxWeight && iterator.hasNext()) {
+			Map.Entry<K, V> eldest = iterator.next();
+			if (eldest.getKey().equals(key)) {
+				continue;
+			}
+			weight -= weigher.applyAsLong(eldest.getValue());
+			iterator.remove();
+			evictionCount++;
+		}
+		return true;
+	}
+
+	/**
+	 * @return The removed value, or {@code null} if the key was not cached.
+	 */
+	public synchronized V remove(K key) {
+		V removed = entries.remove(key);
+		if (removed != null) {
+			weight -= weigher.applyAsLong(removed);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all entries whose key matches the predicate.
+	 *
+	 * @return The number of removed entries.
+	 */
+	public synchronized int removeIf(Predicate<? super K> predicate) {
+		int removed = 0;
+		Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<K, V> entry = iterator.next();
+			if (predicate.test(entry.getKey())) {
+				weight -= weigher.applyAsLong(entry.getValue());
+				iterator.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return The current total weight of all entries.
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * @return {@code true} if the cache is able to store entries at all.
+	 */
+	public boolean isEnabled() {
+		return maxWeight > 0;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%s cache: %d entries, %d/%d bytes, %d hits, %d misses, %d evictions",
+				name, entries.size(), weight, maxWeight, hitCount, missCount, evictionCount);
+	}
+}
@@ -0,0 +1,37 @@
+package me.cxdev.commerce.proxy.encoding;
+
+/**
+ * The content codings supported by the local handlers of the proxy, in order of preference.
+ */
+public enum ContentCoding {
+	/**
+	 * Brotli, only available for pre-compressed assets (there is no Brotli encoder in the JDK).
+	 */
+	BROTLI("br", ".br"),
+
+	GZIP("gzip", ".gz"),
+
+	IDENTITY("identity", "");
+
+	private final String headerValue;
+	private final String fileSuffix;
+
+	ContentCoding(String headerValue, String fileSuffix) {
+		this.headerValue = headerValue;
+		this.fileSuffix = fileSuffix;
+	}
+
+	/**
+	 * @return The token used in the {@code Accept-Encoding} and {@code Content-Encoding} headers.
+	 */
+	public String getHeaderValue() {
+		return headerValue;
+	}
+
+	/**
+	 * @return The file name suffix of pre-compressed sibling files (e.g., {@code app.js.br}).
+	 */
+	public String getFileSuffix() {
+		return fileSuffix;
+	}
+}
@@ -0,0 +1,320 @@
+package me.cxdev.commerce.proxy.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+
+/**
+ * Negotiates and produces compressed response bodies for the local handlers of the proxy.
+ * <p>
+ * Bodies are compressed once into an {@link EncodedContent}, which can be cached and served to any
+ * number of exchanges afterwards. Gzip variants are computed on the fly for compressible MIME types
+ * above a minimum size; Brotli variants are only available if a pre-compressed representation
+ * (e.g., a {@code .br} sibling file of a static asset) is provided, since the JDK has no Brotli encoder.
+ * </p>
+ * <p>
+ * Encoders are immutable, so the {@link #DEFAULT} instance can be shared safely.
+ * </p>
+ */
+public class ContentEncoder {
+	private static final Logger LOG = LoggerFactory.getLogger(ContentEncoder.class);
+
+	private static final long DEFAULT_MIN_SIZE = 1024L;
+
+	/**
+	 * Encoder with the default settings, for components that are not managed by Spring (e.g., interceptors created by rules).
+	 */
+	public static final ContentEncoder DEFAULT = new ContentEncoder();
+
+	private static final String VARY_ACCEPT_ENCODING = Headers.ACCEPT_ENCODING_STRING;
+	private static final float IMPLICIT_IDENTITY_QUALITY = 0.001f;
+
+	private final boolean enabled;
+	private final long minSize;
+
+	/**
+	 * Creates an encoder with the default settings.
+	 */
+	public ContentEncoder() {
+		this.enabled = true;
+		this.minSize = DEFAULT_MIN_SIZE;
+	}
+
+	/**
+	 * Creates an encoder, allowing human-readable minimum sizes like "1kb", "512b".
+	 * Smaller bodies are not worth compressing, as the gzip framing outweighs the savings.
+	 *
+	 * @param enabled {@code false} to serve all bodies uncompressed.
+	 * @param minSize The minimum body size for on-the-fly compression.
+	 */
+	public ContentEncoder(boolean enabled, String minSize) {
+		this.enabled = enabled;
+		this.minSize = parseMinSize(minSize);
+	}
+
+	private static long parseMinSize(String minSize) {
+		try {
+			return DataSizeUtils.parseSizeToBytes(minSize, "Compression minimum size");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid compression minimum size {}, using default value '{}'.", minSize, DEFAULT_MIN_SIZE);
+			return DEFAULT_MIN_SIZE;
+		}
+	}
+
+	/**
+	 * Encodes content without pre-compressed variants.
+	 * The variants are kept on the heap, use {@link EncodedContent#toDirect()} for content that is cached.
+	 *
+	 * @param content  The uncompressed body.
+	 * @param mimeType The MIME type of the body, used to skip already compressed formats like images.
+	 * @return The content with all variants worth serving.
+	 */
+	public EncodedContent encode(byte[] content, String mimeType) {
+		return encode(content, mimeType, Map.of());
+	}
+
+	/**
+	 * Encodes content, preferring the given pre-compressed variants over on-the-fly compression.
+	 * Variants that are not smaller than the uncompressed body are dropped.
+	 *
+	 * @param content       The uncompressed body.
+	 * @param mimeType      The MIME type of the body.
+	 * @param precompressed Pre-compressed representations of the body, keyed by their coding.
+	 * @return The content with all variants worth serving.
+	 */
+	public EncodedContent encode(byte[] content, String mimeType, Map<ContentCoding, byte[]> precompressed) {
+		Map<ContentCoding, ByteBuffer> variants = new EnumMap<>(ContentCoding.class);
+		variants.put(ContentCoding.IDENTITY, EncodedContent.toHeapBuffer(content));
+		if (!enabled) {
+			return new EncodedContent(variants);
+		}
+
+		for (Map.Entry<ContentCoding, byte[]> variant : precompressed.entrySet()) {
+			if (variant.getKey() != ContentCoding.IDENTITY && variant.getValue().length < content.length) {
+				variants.put(variant.getKey(), EncodedContent.toHeapBuffer(variant.getValue()));
+			}
+		}
+
+		if (!variants.containsKey(ContentCoding.GZIP) && shouldCompress(content.length, mimeType)) {
+			byte[] gzipped = gzip(content);
+			if (gzipped.length < content.length) {
+				variants.put(ContentCoding.GZIP, EncodedContent.toHeapBuffer(gzipped));
+			}
+		}
+		return new EncodedContent(variants);
+	}
+
+	/**
+	 * Checks whether on-the-fly compression of a body is enabled and worthwhile.
+	 *
+	 * @param length   The size of the uncompressed body in bytes.
+	 * @param mimeType The MIME type of the body.
+	 * @return {@code true} if the body would get a gzip variant.
+	 */
+	public boolean shouldCompress(int length, String mimeType) {
+		return enabled && length >= minSize && isCompressible(mimeType);
+	}
+
+	/**
+	 * Checks whether compressing content of the given MIME type is worthwhile.
+	 * Images (except SVG), fonts and archives are already compressed.
+	 *
+	 * @param mimeType The MIME type, optionally with parameters like the charset.
+	 * @return {@code true} for textual formats.
+	 */
+	public boolean isCompressible(String mimeType) {
+		if (mimeType == null) {
+			return false;
+		}
+		String type = mimeType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.contains("javascript") || type.contains("json")
+				|| type.contains("xml") || type.contains("svg");
+	}
+
+	/**
+	 * Selects the best available variant for the {@code Accept-Encoding} header of the request.
+	 *
+	 * @param exchange The current exchange.
+	 * @param content  The encoded content to be served.
+	 * @return The selected content coding, {@link ContentCoding#IDENTITY} if nothing else is acceptable.
+	 */
+	public ContentCoding negotiate(HttpServerExchange exchange, EncodedContent content) {
+		HeaderMap requestHeaders = exchange.getRequestHeaders();
+		if (requestHeaders == null || !content.isCompressed()) {
+			return ContentCoding.IDENTITY;
+		}
+		return negotiate(requestHeaders.getFirst(Headers.ACCEPT_ENCODING), content);
+	}
+
+	/**
+	 * Checks whether the client would receive the given coding if a variant was available,
+	 * allowing callers to skip compressing bodies that are not cached.
+	 *
+	 * @param exchange The current exchange.
+	 * @param coding   The content coding.
+	 * @return {@code true} if the coding is preferred over the uncompressed representation.
+	 */
+	public boolean accepts(HttpServerExchange exchange, ContentCoding coding) {
+		HeaderMap requestHeaders = exchange.getRequestHeaders();
+		if (requestHeaders == null) {
+			return coding == ContentCoding.IDENTITY;
+		}
+		String acceptEncoding = requestHeaders.getFirst(Headers.ACCEPT_ENCODING);
+		return negotiate(acceptEncoding, c -> c == coding || c == ContentCoding.IDENTITY) == coding;
+	}
+
+	/**
+	 * Selects the variant with the highest quality value; on ties, the smaller coding wins (br, gzip, identity).
+	 * Codings with {@code q=0} are never selected, and the wildcard {@code *} applies to all codings not listed.
+	 *
+	 * @param acceptEncoding The value of the {@code Accept-Encoding} header, may be {@code null}.
+	 * @param content        The encoded content to be served.
+	 * @return The selected content coding.
+	 */
+	public static ContentCoding negotiate(String acceptEncoding, EncodedContent content) {
+		return negotiate(acceptEncoding, content::hasVariant);
+	}
+
+	private static ContentCoding negotiate(String acceptEncoding, Predicate<ContentCoding> available) {
+		if (acceptEncoding == null || acceptEncoding.isBlank()) {
+			return ContentCoding.IDENTITY;
+		}
+
+		Map<ContentCoding, Float> qualities = new EnumMap<>(ContentCoding.class);
+		Float wildcard = null;
+		for (String element : acceptEncoding.split(",")) {
+			String[] parts = element.split(";");
+			String token = parts[0].trim().toLowerCase(Locale.ROOT);
+			float quality = parseQuality(parts);
+			if ("*".equals(token)) {
+				wildcard = quality;
+				continue;
+			}
+			for (ContentCoding coding : ContentCoding.values()) {
+				if (coding.getHeaderValue().equals(token)) {
+					qualities.put(coding, quality);
+				}
+			}
+		}
+
+		ContentCoding best = ContentCoding.IDENTITY;
+		float bestQuality = 0f;
+		for (ContentCoding coding : ContentCoding.values()) {
+			if (!available.test(coding)) {
+				continue;
+			}
+			Float quality = qualities.get(coding);
+			if (quality == null) {
+				// identity is always acceptable unless excluded explicitly (RFC 9110, section 12.5.3),
+				// but ranks below any compressed coding the client asked for
+				quality = wildcard != null ? wildcard : coding == ContentCoding.IDENTITY ? IMPLICIT_IDENTITY_QUALITY : 0f;
+			}
+			if (quality > bestQuality) {
+				best = coding;
+				bestQuality = quality;
+			}
+		}
+		return best;
+	}
+
+	private static float parseQuality(String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			String parameter = parts[i].trim();
+			if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+				try {
+					return Math.max(0f, Math.min(1f, Float.parseFloat(parameter.substring(2))));
+				} catch (NumberFormatException e) {
+					return 0f;
+				}
+			}
+		}
+		return 1f;
+	}
+
+	/**
+	 * Sets the {@code Content-Encoding}, {@code Vary} and {@code Content-Length} headers for the selected variant.
+	 *
+	 * @param exchange The current exchange.
+	 * @param content  The encoded content to be served.
+	 * @param coding   The negotiated content coding.
+	 */
+	public void applyHeaders(HttpServerExchange exchange, EncodedContent content, ContentCoding coding) {
+		HeaderMap responseHeaders = exchange.getResponseHeaders();
+		addVary(responseHeaders, content);
+		if (coding != ContentCoding.IDENTITY) {
+			responseHeaders.put(Headers.CONTENT_ENCODING, coding.getHeaderValue());
+		}
+		responseHeaders.put(Headers.CONTENT_LENGTH, content.getLength(coding));
+	}
+
+	/**
+	 * Adds {@code Vary: Accept-Encoding} if the response depends on the negotiated coding.
+	 * Must also be sent with 304 responses, so caches keep the variants apart.
+	 *
+	 * @param responseHeaders The response headers.
+	 * @param content         The encoded content to be served.
+	 */
+	public void addVary(HeaderMap responseHeaders, EncodedContent content) {
+		if (content.isCompressed()) {
+			addVary(responseHeaders);
+		}
+	}
+
+	/**
+	 * Adds {@code Vary: Accept-Encoding} unconditionally, keeping other {@code Vary} values.
+	 *
+	 * @param responseHeaders The response headers.
+	 */
+	public void addVary(HeaderMap responseHeaders) {
+		HeaderValues vary = responseHeaders.get(Headers.VARY);
+		if (vary != null) {
+			for (String value : vary) {
+				if (value.contains(VARY_ACCEPT_ENCODING)) {
+					return;
+				}
+			}
+		}
+		responseHeaders.add(Headers.VARY, VARY_ACCEPT_ENCODING);
+	}
+
+	/**
+	 * Compresses the content using gzip.
+	 *
+	 * @param content The uncompressed content.
+	 * @return The gzip compressed content.
+	 */
+	public static byte[] gzip(byte[] content) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		} catch (IOException e) {
+			// Cannot happen for in-memory streams
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long getMinSize() {
+		return minSize;
+	}
+}
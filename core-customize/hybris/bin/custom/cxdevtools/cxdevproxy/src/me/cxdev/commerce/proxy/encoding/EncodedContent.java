@@ -0,0 +1,93 @@
+package me.cxdev.commerce.proxy.encoding;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable response body together with its compressed variants.
+ * <p>
+ * All variants are computed once when the content is encoded and shared by all exchanges afterwards.
+ * They wrap the encoded arrays in read-only heap buffers, which is cheapest for bodies sent only once.
+ * Content that is cached and sent repeatedly should be copied into direct buffers with {@link #toDirect()},
+ * so the channel does not copy it into a temporary native buffer on every write.
+ * Use {@link ContentEncoder} to create instances.
+ * </p>
+ */
+public final class EncodedContent {
+	private final Map<ContentCoding, ByteBuffer> variants;
+
+	EncodedContent(Map<ContentCoding, ByteBuffer> variants) {
+		this.variants = new EnumMap<>(ContentCoding.class);
+		this.variants.putAll(variants);
+	}
+
+	/**
+	 * Copies all variants into read-only direct buffers, for content that is kept in a cache.
+	 *
+	 * @return The content backed by direct buffers, {@code this} if it already is.
+	 */
+	public EncodedContent toDirect() {
+		Map<ContentCoding, ByteBuffer> directVariants = new EnumMap<>(ContentCoding.class);
+		boolean copied = false;
+		for (Map.Entry<ContentCoding, ByteBuffer> variant : variants.entrySet()) {
+			ByteBuffer body = variant.getValue();
+			if (!body.isDirect()) {
+				ByteBuffer direct = ByteBuffer.allocateDirect(body.remaining());
+				direct.put(body.duplicate()).flip();
+				body = direct.asReadOnlyBuffer();
+				copied = true;
+			}
+			directVariants.put(variant.getKey(), body);
+		}
+		return copied ? new EncodedContent(directVariants) : this;
+	}
+
+	/**
+	 * @param coding The content coding.
+	 * @return {@code true} if a variant is available for the coding.
+	 */
+	public boolean hasVariant(ContentCoding coding) {
+		return variants.containsKey(coding);
+	}
+
+	/**
+	 * @return {@code true} if at least one compressed variant exists, so responses vary by {@code Accept-Encoding}.
+	 */
+	public boolean isCompressed() {
+		return variants.size() > 1;
+	}
+
+	/**
+	 * @param coding The content coding.
+	 * @return A new view on the variant, safe to be consumed concurrently, or {@code null} if not available.
+	 */
+	public ByteBuffer getBody(ContentCoding coding) {
+		ByteBuffer body = variants.get(coding);
+		return body != null ? body.duplicate() : null;
+	}
+
+	/**
+	 * @param coding The content coding.
+	 * @return The size of the variant in bytes, or {@code -1} if not available.
+	 */
+	public int getLength(ContentCoding coding) {
+		ByteBuffer body = variants.get(coding);
+		return body != null ? body.capacity() : -1;
+	}
+
+	/**
+	 * @return The total size of all variants in bytes, used to bound caches.
+	 */
+	public long getWeight() {
+		long weight = 0;
+		for (ByteBuffer body : variants.values()) {
+			weight += body.capacity();
+		}
+		return weight;
+	}
+
+	static ByteBuffer toHeapBuffer(byte[] bytes) {
+		return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,103 @@
+package me.cxdev.commerce.proxy.handler;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import io.undertow.util.DateUtils;
+import io.undertow.util.ETag;
+
+import me.cxdev.commerce.proxy.encoding.ContentCoding;
+import me.cxdev.commerce.proxy.encoding.EncodedContent;
+
+/**
+ * An immutable, fully loaded static asset held in the in-memory asset cache of the {@link StaticContentHandler}.
+ * <p>
+ * The content and its compressed variants are stored off-heap in read-only direct {@link ByteBuffer}s,
+ * so serving them does not copy the bytes into the Java heap. The strong ETag is derived from a SHA-256
+ * hash of the content, which keeps it stable across restarts and independent from file timestamps.
+ * Each compressed variant gets its own ETag, as its bytes differ from the uncompressed representation.
+ * </p>
+ */
+final class CachedAsset {
+	private static final int ETAG_HASH_BYTES = 16;
+	private static final long ENTRY_OVERHEAD = 128;
+
+	private final EncodedContent content;
+	private final String mimeType;
+	private final Map<ContentCoding, ETag> etags;
+	private final Date lastModified;
+	private final String lastModifiedHeader;
+
+	private CachedAsset(EncodedContent content, String mimeType, Map<ContentCoding, ETag> etags, Date lastModified) {
+		this.content = content;
+		this.mimeType = mimeType;
+		this.etags = etags;
+		this.lastModified = lastModified;
+		this.lastModifiedHeader = lastModified != null ? DateUtils.toDateString(lastModified) : null;
+	}
+
+	/**
+	 * Creates a cached asset from the loaded bytes.
+	 *
+	 * @param bytes        The uncompressed asset content, used to derive the ETag.
+	 * @param content      The encoded asset content, including all compressed variants.
+	 * @param mimeType     The MIME type of the asset.
+	 * @param lastModified The last modification timestamp of the asset in milliseconds.
+	 * @return The cached asset.
+	 */
+	static CachedAsset of(byte[] bytes, EncodedContent content, String mimeType, long lastModified) {
+		String hash = hash(bytes);
+		Map<ContentCoding, ETag> etags = new EnumMap<>(ContentCoding.class);
+		for (ContentCoding coding : ContentCoding.values()) {
+			if (content.hasVariant(coding)) {
+				String tag = coding == ContentCoding.IDENTITY ? hash : hash + "-" + coding.getHeaderValue();
+				etags.put(coding, new ETag(false, tag));
+			}
+		}
+		// HTTP dates have a precision of seconds
+		Date lastModifiedDate = new Date(lastModified / 1000 * 1000);
+		return new CachedAsset(content, mimeType, etags, lastModifiedDate);
+	}
+
+	private static String hash(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+			return HexFormat.of().formatHex(Arrays.copyOf(digest, ETAG_HASH_BYTES));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	EncodedContent getContent() {
+		return content;
+	}
+
+	String getMimeType() {
+		return mimeType;
+	}
+
+	ETag getETag(ContentCoding coding) {
+		return etags.get(coding);
+	}
+
+	Date getLastModified() {
+		return lastModified;
+	}
+
+	String getLastModifiedHeader() {
+		return lastModifiedHeader;
+	}
+
+	/**
+	 * @return The approximate memory footprint of this entry in bytes, used to bound the cache size.
+	 */
+	long getWeight() {
+		return ENTRY_OVERHEAD + (content != null ? content.getWeight() : 0);
+	}
+}
@@ -0,0 +1,69 @@
+package me.cxdev.commerce.proxy.handler;
+
+import java.util.Deque;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+
+/**
+ * Serves the request metrics recorded by the proxy on a local endpoint (default: {@code /proxy/metrics}).
+ * <p>
+ * The metrics are rendered as JSON by default. Requests with {@code ?format=prometheus} or
+ * accepting {@code text/plain} (as sent by Prometheus scrapers) receive the Prometheus text
+ * exposition format instead. The response is built directly on the IO thread, as it only reads
+ * lock-free counters.
+ * </p>
+ */
+public class MetricsHandler implements ProxyRouteHandler {
+	private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+	private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+	private final ProxyMetrics proxyMetrics;
+	private String path = "/proxy/metrics";
+
+	public MetricsHandler(ProxyMetrics proxyMetrics) {
+		this.proxyMetrics = proxyMetrics;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		return proxyMetrics.isEnabled() && Methods.GET.equals(exchange.getRequestMethod()) && path.equals(exchange.getRequestPath());
+	}
+
+	@Override
+	public void handleRequest(HttpServerExchange exchange) {
+		exchange.setStatusCode(StatusCodes.OK);
+		exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "no-store");
+		if (isPrometheusRequested(exchange)) {
+			exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, PROMETHEUS_CONTENT_TYPE);
+			exchange.getResponseSender().send(proxyMetrics.toPrometheus());
+		} else {
+			exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, JSON_CONTENT_TYPE);
+			exchange.getResponseSender().send(proxyMetrics.toJson());
+		}
+	}
+
+	private static boolean isPrometheusRequested(HttpServerExchange exchange) {
+		Deque<String> format = exchange.getQueryParameters().get("format");
+		if (format != null && !format.isEmpty()) {
+			return "prometheus".equalsIgnoreCase(format.getFirst());
+		}
+		String accept = exchange.getRequestHeaders().getFirst(Headers.ACCEPT);
+		return StringUtils.containsIgnoreCase(accept, "text/plain") && !StringUtils.containsIgnoreCase(accept, "application/json");
+	}
+
+	/**
+	 * @param path The request path the metrics are served on.
+	 */
+	public void setPath(String path) {
+		if (StringUtils.isNotBlank(path)) {
+			this.path = path.trim();
+		}
+	}
+}
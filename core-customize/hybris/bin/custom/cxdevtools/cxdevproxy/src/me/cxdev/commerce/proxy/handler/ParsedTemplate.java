@@ -0,0 +1,164 @@
+package me.cxdev.commerce.proxy.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.configuration2.Configuration;
+import org.springframework.context.MessageSource;
+
+/**
+ * An HTML template of the {@link TemplateRenderingHandler}, parsed once into a list of literal text and
+ * placeholder segments, so rendering is a single concatenation into a pre-sized buffer instead of
+ * two regular expression passes over the whole document.
+ * <p>
+ * Property placeholders ({@code %{key:default}}) are resolved before i18n placeholders ({@code #{key:default}}),
+ * so property values may still contain i18n placeholders. Placeholders cannot be nested into each other.
+ * </p>
+ */
+final class ParsedTemplate {
+	private static final Pattern PROPERTY_PATTERN = Pattern.compile("%\\{([^}]+)\\}");
+	private static final Pattern I18N_PATTERN = Pattern.compile("#\\{([^}]+)\\}");
+
+	// Rough size of a resolved placeholder, used to pre-size the render buffer
+	private static final int PLACEHOLDER_SIZE_HINT = 32;
+
+	private final Segment[] segments;
+	private final List<Placeholder> properties;
+	private final int sizeHint;
+
+	private ParsedTemplate(List<Segment> segments) {
+		this.segments = segments.toArray(new Segment[0]);
+		this.properties = new ArrayList<>();
+		int literalLength = 0;
+		for (Segment segment : segments) {
+			if (segment instanceof Literal literal) {
+				literalLength += literal.text().length();
+			} else if (segment instanceof Placeholder placeholder && placeholder.property()) {
+				properties.add(placeholder);
+			}
+		}
+		this.sizeHint = literalLength + (segments.size() / 2 + 1) * PLACEHOLDER_SIZE_HINT;
+	}
+
+	/**
+	 * Parses the raw template into segments.
+	 *
+	 * @param template The raw template content.
+	 * @return The parsed template.
+	 */
+	static ParsedTemplate parse(String template) {
+		List<Segment> segments = new ArrayList<>();
+		Matcher matcher = PROPERTY_PATTERN.matcher(template);
+		int position = 0;
+		while (matcher.find()) {
+			parseMessages(template.substring(position, matcher.start()), segments);
+			segments.add(Placeholder.of(matcher.group(1), true));
+			position = matcher.end();
+		}
+		parseMessages(template.substring(position), segments);
+		return new ParsedTemplate(segments);
+	}
+
+	private static void parseMessages(String text, List<Segment> segments) {
+		Matcher matcher = I18N_PATTERN.matcher(text);
+		int position = 0;
+		while (matcher.find()) {
+			addLiteral(text.substring(position, matcher.start()), segments);
+			segments.add(Placeholder.of(matcher.group(1), false));
+			position = matcher.end();
+		}
+		addLiteral(text.substring(position), segments);
+	}
+
+	private static void addLiteral(String text, List<Segment> segments) {
+		if (!text.isEmpty()) {
+			segments.add(new Literal(text));
+		}
+	}
+
+	/**
+	 * Resolves the values of all property placeholders, in order of appearance.
+	 * The result identifies the configuration the template is rendered with.
+	 *
+	 * @param configuration The platform configuration.
+	 * @return The resolved property values.
+	 */
+	List<String> resolveProperties(Configuration configuration) {
+		List<String> values = new ArrayList<>(properties.size());
+		for (Placeholder property : properties) {
+			String value = configuration.getString(property.key(), property.defaultValue());
+			values.add(value != null ? value : property.key());
+		}
+		return values;
+	}
+
+	/**
+	 * Renders the template.
+	 *
+	 * @param propertyValues The property values, as returned by {@link #resolveProperties(Configuration)}.
+	 * @param messageSource  The message source resolving i18n placeholders.
+	 * @param locale         The locale of the i18n messages.
+	 * @return The rendered template.
+	 */
+	String render(List<String> propertyValues, MessageSource messageSource, Locale locale) {
+		StringBuilder sb = new StringBuilder(sizeHint);
+		int propertyIndex = 0;
+		for (Segment segment : segments) {
+			if (segment instanceof Literal literal) {
+				sb.append(literal.text());
+			} else if (segment instanceof Placeholder placeholder && placeholder.property()) {
+				String value = propertyValues.get(propertyIndex++);
+				sb.append(value.contains("#{") ? resolveMessages(value, messageSource, locale) : value);
+			} else {
+				sb.append(resolveMessage((Placeholder) segment, messageSource, locale));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String resolveMessages(String text, MessageSource messageSource, Locale locale) {
+		Matcher matcher = I18N_PATTERN.matcher(text);
+		StringBuilder sb = new StringBuilder(text.length());
+		while (matcher.find()) {
+			String message = resolveMessage(Placeholder.of(matcher.group(1), false), messageSource, locale);
+			matcher.appendReplacement(sb, Matcher.quoteReplacement(message));
+		}
+		matcher.appendTail(sb);
+		return sb.toString();
+	}
+
+	private static String resolveMessage(Placeholder placeholder, MessageSource messageSource, Locale locale) {
+		String message = messageSource.getMessage(placeholder.key(), null, placeholder.defaultValue(), locale);
+		return message != null ? message : placeholder.key();
+	}
+
+	/**
+	 * @return The number of segments, for diagnostics.
+	 */
+	int getSegmentCount() {
+		return segments.length;
+	}
+
+	private sealed interface Segment permits Literal, Placeholder {
+	}
+
+	private record Literal(String text) implements Segment {
+	}
+
+	/**
+	 * A property or i18n placeholder. Without an explicit default, i18n messages fall back to their key,
+	 * while properties have no default value.
+	 */
+	private record Placeholder(String key, String defaultValue, boolean property) implements Segment {
+		static Placeholder of(String expression, boolean property) {
+			int separatorIndex = expression.indexOf(':');
+			if (separatorIndex == -1) {
+				return new Placeholder(expression, property ? null : expression, property);
+			}
+			return new Placeholder(expression.substring(0, separatorIndex), expression.substring(separatorIndex + 1), property);
+		}
+	}
+}
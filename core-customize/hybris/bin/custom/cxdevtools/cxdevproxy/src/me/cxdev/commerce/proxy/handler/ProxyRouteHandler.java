@@ -2,6 +2,7 @@ package me.cxdev.commerce.proxy.handler;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
 
 /**
  * Interface for handling requests directly within the Undertow proxy,
@@ -9,6 +10,12 @@ import io.undertow.server.HttpServerExchange;
  * Useful for serving local HTML pages or mocking endpoints.
  */
 public interface ProxyRouteHandler extends HttpHandler {
+	/**
+	 * The regular proxy routing to the frontend or backend server, attached to the exchange before
+	 * a route handler is called. Handlers that suspend a request can pass it on to the upstream servers later.
+	 */
+	AttachmentKey<HttpHandler> UPSTREAM_HANDLER = AttachmentKey.create(HttpHandler.class);
+
 	/**
 	 * Determines if this handler is responsible for the current request.
 	 *
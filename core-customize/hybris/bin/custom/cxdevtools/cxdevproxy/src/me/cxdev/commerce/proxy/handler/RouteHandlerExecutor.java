@@ -0,0 +1,94 @@
+package me.cxdev.commerce.proxy.handler;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Executes the blocking part of {@link ProxyRouteHandler}s (e.g., reading templates or assets
+ * from the disk or classpath) off the IO thread.
+ * <p>
+ * In the {@link Mode#WORKER} mode, requests are dispatched to the fixed-size XNIO worker pool of
+ * Undertow, which is shared with the proxy. In the {@link Mode#VIRTUAL} mode, every dispatched
+ * request runs on its own virtual thread, so slow reads never hold back the worker pool.
+ * </p>
+ */
+public class RouteHandlerExecutor implements InitializingBean, DisposableBean {
+	private static final Logger LOG = LoggerFactory.getLogger(RouteHandlerExecutor.class);
+
+	/**
+	 * Dispatches to the Undertow worker pool, used by handlers without a configured executor.
+	 */
+	public static final RouteHandlerExecutor WORKER = new RouteHandlerExecutor();
+
+	public enum Mode {
+		WORKER, VIRTUAL
+	}
+
+	private Mode mode = Mode.WORKER;
+	private ExecutorService executor;
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Sets the executor mode ("worker" or "virtual"), falling back to the worker pool on unknown values.
+	 *
+	 * @param mode The mode string from Spring properties.
+	 */
+	public void setMode(String mode) {
+		try {
+			this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException | NullPointerException e) {
+			LOG.warn("Invalid route handler executor '{}', using current value '{}'.", mode, this.mode);
+		}
+	}
+
+	/**
+	 * Creates the virtual thread executor, if configured.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		if (mode == Mode.VIRTUAL && executor == null) {
+			ThreadFactory threadFactory = Thread.ofVirtual().name("CxDevProxy-Handler-", 0).factory();
+			executor = Executors.newThreadPerTaskExecutor(threadFactory);
+		}
+		LOG.info("Blocking route handler requests are dispatched to {}.", mode == Mode.VIRTUAL ? "virtual threads" : "the Undertow worker pool");
+	}
+
+	/**
+	 * Stops accepting new requests when the Spring context is destroyed, running requests are completed.
+	 */
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Dispatches the exchange to the configured executor, the handler is called again off the IO thread.
+	 *
+	 * @param exchange the current HTTP server exchange
+	 * @param handler  the handler continuing the request
+	 */
+	public void dispatch(HttpServerExchange exchange, HttpHandler handler) {
+		ExecutorService currentExecutor = executor;
+		if (currentExecutor == null) {
+			exchange.dispatch(handler);
+		} else {
+			exchange.dispatch(currentExecutor, handler);
+		}
+	}
+}
@@ -1,41 +1,120 @@
 package me.cxdev.commerce.proxy.handler;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Queue;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.hybris.platform.core.MasterTenant;
 import de.hybris.platform.core.Registry;
 import de.hybris.platform.core.Tenant;
 import de.hybris.platform.core.TenantListener;
 
+import io.undertow.server.ExchangeCompletionListener;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
 import io.undertow.util.StatusCodes;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.xnio.XnioExecutor;
+
+import me.cxdev.commerce.proxy.util.TimeUtils;
 
 /**
  * Intercepts incoming requests while the SAP Commerce server is still in its startup phase.
  * <p>
  * This handler acts as a {@link TenantListener} to monitor the lifecycle of the 'master' tenant.
  * As long as the master tenant is not fully started, this handler intercepts all traffic and
- * serves an auto-refreshing "503 Service Unavailable" maintenance page using native Java ResourceBundles.
+ * serves a "503 Service Unavailable" maintenance page using native Java ResourceBundles.
+ * </p>
+ * <p>
+ * The page is rendered once per language with a message bundle into a read-only buffer, requests
+ * only select the best match for their quality-weighted {@code Accept-Language} header. Instead of
+ * reloading itself, the page long-polls a JSON status endpoint (default: {@code /proxy/startup/status})
+ * and reloads once the server is ready. Pending status requests are parked without occupying a thread
+ * and answered as soon as the master tenant has started.
+ * </p>
+ * <p>
+ * Optionally, API requests (requests not accepting HTML, e.g. OCC calls of an open storefront) are
+ * parked the same way instead of failing with 503, and passed on to the regular proxy routing as soon
+ * as the master tenant has started. Requests waiting longer than the maximum wait, and requests
+ * exceeding the maximum number of parked requests, are answered with a 503 JSON status.
  * </p>
  */
 public class StartupPageHandler implements ProxyRouteHandler, TenantListener, InitializingBean {
 	private static final Logger LOG = LoggerFactory.getLogger(StartupPageHandler.class);
 	private static final String BUNDLE_BASE_NAME = "cxdevproxy/i18n/messages";
+	private static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+	private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+	private static final String DEFAULT_TITLE = "Starting up...";
+	private static final String DEFAULT_MESSAGE = "SAP Commerce is currently starting. Please wait...";
+	private static final int MAX_CACHED_LANGUAGE_HEADERS = 256;
+
+	private static final String PAGE_TEMPLATE = "<!DOCTYPE html>" +
+			"<html lang=\"en\">" +
+			"<head>" +
+			"<meta charset=\"UTF-8\">" +
+			"<title>%s</title>" +
+			"<noscript><meta http-equiv=\"refresh\" content=\"5\"></noscript>" +
+			"<style>" +
+			"body { font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, Helvetica, Arial, sans-serif; " +
+			"text-align: center; padding-top: 10%%; background-color: #f4f4f9; color: #333; }" +
+			".spinner { margin: 20px auto; width: 40px; height: 40px; border: 4px solid rgba(0,0,0,0.1); " +
+			"border-left-color: #0056b3; border-radius: 50%%; animation: spin 1s linear infinite; }" +
+			"@keyframes spin { 0%% { transform: rotate(0deg); } 100%% { transform: rotate(360deg); } }" +
+			"</style>" +
+			"</head>" +
+			"<body>" +
+			"<h1>%s</h1>" +
+			"<p>%s</p>" +
+			"<div class=\"spinner\"></div>" +
+			"<script>" +
+			"(function poll() {" +
+			"fetch('%s?wait=true', { cache: 'no-store' })" +
+			".then(function (r) { return r.json().catch(function () { return { ready: true }; }); })" +
+			".then(function (s) { if (s.ready) { location.reload(); } else { poll(); } })" +
+			".catch(function () { setTimeout(poll, 5000); });" +
+			"})();" +
+			"</script>" +
+			"</body>" +
+			"</html>";
 
 	// volatile ensures thread visibility between Hybris startup threads and Undertow worker threads
 	private volatile boolean masterTenantReady = false;
+	private volatile Pages pages;
+
+	private final long createdAt = System.currentTimeMillis();
+	private final Queue<ParkedRequest> parkedRequests = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger parkedApiRequestCount = new AtomicInteger();
+	private String statusPath = "/proxy/startup/status";
+	private long longPollTimeoutMs = 25000;
+	private boolean queueApiRequests = false;
+	private int maxQueuedRequests = 200;
+	private long maxQueueWaitMs = 120000;
 
 	@Override
 	public void afterPropertiesSet() {
 		Registry.registerTenantListener(this);
+		getPages();
 	}
 
 	@Override
@@ -43,6 +122,7 @@ public class StartupPageHandler implements ProxyRouteHandler, TenantListener, In
 		if (MasterTenant.getInstance().equals(tenant)) {
 			LOG.info("Master tenant has started. Proxy is now routing traffic.");
 			this.masterTenantReady = true;
+			releaseParkedRequests();
 		}
 	}
 
@@ -64,62 +144,326 @@ public class StartupPageHandler implements ProxyRouteHandler, TenantListener, In
 
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
-		return !masterTenantReady;
+		return !masterTenantReady || statusPath.equals(exchange.getRequestPath());
 	}
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) {
+		if (statusPath.equals(exchange.getRequestPath())) {
+			handleStatusRequest(exchange);
+			return;
+		}
+		if (queueApiRequests && isApiRequest(exchange) && exchange.getAttachment(UPSTREAM_HANDLER) != null) {
+			queueApiRequest(exchange);
+			return;
+		}
+
+		ByteBuffer page = getPages().select(exchange.getRequestHeaders().getFirst(Headers.ACCEPT_LANGUAGE));
 		exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
-		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html; charset=UTF-8");
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, HTML_CONTENT_TYPE);
+		exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "no-store");
+		exchange.setResponseContentLength(page.remaining());
+		exchange.getResponseSender().send(page.duplicate());
+	}
+
+	/**
+	 * Answers status requests immediately, or with {@code ?wait=true} as soon as the server is ready
+	 * or the long-poll timeout has elapsed.
+	 */
+	private void handleStatusRequest(HttpServerExchange exchange) {
+		Deque<String> wait = exchange.getQueryParameters().get("wait");
+		if (masterTenantReady || wait == null || !"true".equalsIgnoreCase(wait.peekFirst())) {
+			sendStatus(exchange);
+			return;
+		}
+
+		park(new ParkedRequest(exchange, false), longPollTimeoutMs);
+	}
+
+	/**
+	 * Requests that do not accept HTML are issued by scripts, which cannot handle the startup page.
+	 */
+	private static boolean isApiRequest(HttpServerExchange exchange) {
+		String accept = exchange.getRequestHeaders().getFirst(Headers.ACCEPT);
+		return !StringUtils.containsIgnoreCase(accept, "text/html");
+	}
+
+	private void queueApiRequest(HttpServerExchange exchange) {
+		if (parkedApiRequestCount.incrementAndGet() > maxQueuedRequests) {
+			parkedApiRequestCount.decrementAndGet();
+			LOG.debug("Rejecting request {} during startup, {} requests are already queued.", exchange.getRequestURI(), maxQueuedRequests);
+			sendStatus(exchange);
+			return;
+		}
+		LOG.debug("Queuing request {} until the master tenant has started.", exchange.getRequestURI());
+		park(new ParkedRequest(exchange, true), maxQueueWaitMs);
+	}
 
-		Locale requestLocale = determineLocale(exchange);
-		String title = "Starting up...";
-		String message = "SAP Commerce is currently starting. Please wait...";
+	/**
+	 * Suspends the exchange without occupying a thread; it is released by the tenant listener or the timeout on its IO thread.
+	 * Exchanges completed meanwhile (e.g. by a client disconnect) are removed as soon as they complete.
+	 */
+	private void park(ParkedRequest request, long timeoutMs) {
+		HttpServerExchange exchange = request.exchange;
+		exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+			parkedRequests.add(request);
+			exchange.addExchangeCompleteListener(request);
+			request.timeoutKey = exchange.getIoThread().executeAfter(request::release, timeoutMs, TimeUnit.MILLISECONDS);
+			if (masterTenantReady) {
+				// The tenant started while the request was being parked
+				releaseParkedRequests();
+			}
+		});
+	}
+
+	private void releaseParkedRequests() {
+		ParkedRequest parked;
+		while ((parked = parkedRequests.poll()) != null) {
+			ParkedRequest request = parked;
+			request.exchange.getIoThread().execute(request::release);
+		}
+	}
+
+	private void sendStatus(HttpServerExchange exchange) {
+		boolean ready = masterTenantReady;
+		long elapsedSeconds = (System.currentTimeMillis() - createdAt) / 1000;
+		exchange.setStatusCode(ready ? StatusCodes.OK : StatusCodes.SERVICE_UNAVAILABLE);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, JSON_CONTENT_TYPE);
+		exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, "no-store");
+		if (!ready) {
+			exchange.getResponseHeaders().put(Headers.RETRY_AFTER, "5");
+		}
+		exchange.getResponseSender().send("{\"ready\":" + ready + ",\"elapsedSeconds\":" + elapsedSeconds + "}");
+	}
+
+	private Pages getPages() {
+		Pages rendered = this.pages;
+		if (rendered == null) {
+			synchronized (this) {
+				rendered = this.pages;
+				if (rendered == null) {
+					rendered = renderPages();
+					this.pages = rendered;
+				}
+			}
+		}
+		return rendered;
+	}
+
+	/**
+	 * Renders the page for every language with a message bundle on the classpath, and the English
+	 * page as fallback for all other languages.
+	 */
+	private Pages renderPages() {
+		Map<Locale, ByteBuffer> rendered = new HashMap<>();
+		for (Locale locale : findBundleLocales()) {
+			rendered.put(locale, render(locale));
+		}
+		ByteBuffer fallback = rendered.containsKey(Locale.ENGLISH) ? rendered.get(Locale.ENGLISH) : render(Locale.ENGLISH);
+		LOG.debug("Rendered startup page for locales {}.", rendered.keySet());
+		return new Pages(Map.copyOf(rendered), List.copyOf(rendered.keySet()), fallback);
+	}
+
+	private List<Locale> findBundleLocales() {
+		List<Locale> locales = new ArrayList<>();
+		String pattern = "classpath*:" + BUNDLE_BASE_NAME + "_*.properties";
+		try {
+			Resource[] resources = new PathMatchingResourcePatternResolver(getClass().getClassLoader()).getResources(pattern);
+			String prefix = StringUtils.substringAfterLast(BUNDLE_BASE_NAME, "/") + "_";
+			for (Resource resource : resources) {
+				String tag = StringUtils.removeEnd(StringUtils.removeStart(resource.getFilename(), prefix), ".properties");
+				Locale locale = Locale.forLanguageTag(StringUtils.defaultString(tag).replace('_', '-'));
+				if (StringUtils.isNotEmpty(locale.getLanguage()) && !locales.contains(locale)) {
+					locales.add(locale);
+				}
+			}
+		} catch (IOException e) {
+			LOG.warn("Could not resolve message bundles '{}'. Falling back to default text.", pattern, e);
+		}
+		return locales;
+	}
+
+	private ByteBuffer render(Locale locale) {
+		String title = DEFAULT_TITLE;
+		String message = DEFAULT_MESSAGE;
 
 		try {
 			// Loads the message bundle natively from the classpath, bypassing the Hybris DB
-			ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_BASE_NAME, requestLocale);
+			ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_BASE_NAME, locale,
+					ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
 			title = bundle.getString("startup.page.title");
 			message = bundle.getString("startup.page.message");
 		} catch (MissingResourceException e) {
-			LOG.warn("Could not find message bundle '{}' or keys for locale '{}'. Falling back to default text.", BUNDLE_BASE_NAME, requestLocale);
-		}
-
-		String html = String.format(
-				"<!DOCTYPE html>" +
-						"<html lang=\"en\">" +
-						"<head>" +
-						"<meta charset=\"UTF-8\">" +
-						"<title>%s</title>" +
-						"<meta http-equiv=\"refresh\" content=\"5\">" +
-						"<style>" +
-						"body { font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, Helvetica, Arial, sans-serif; " +
-						"text-align: center; padding-top: 10%%; background-color: #f4f4f9; color: #333; }" +
-						".spinner { margin: 20px auto; width: 40px; height: 40px; border: 4px solid rgba(0,0,0,0.1); " +
-						"border-left-color: #0056b3; border-radius: 50%%; animation: spin 1s linear infinite; }" +
-						"@keyframes spin { 0%% { transform: rotate(0deg); } 100%% { transform: rotate(360deg); } }" +
-						"</style>" +
-						"</head>" +
-						"<body>" +
-						"<h1>%s</h1>" +
-						"<p>%s</p>" +
-						"<div class=\"spinner\"></div>" +
-						"</body>" +
-						"</html>",
-				title, title, message);
-
-		exchange.getResponseSender().send(html);
+			LOG.warn("Could not find message bundle '{}' or keys for locale '{}'. Falling back to default text.", BUNDLE_BASE_NAME, locale);
+		}
+
+		byte[] html = String.format(PAGE_TEMPLATE, title, title, message, statusPath).getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.wrap(html).asReadOnlyBuffer();
 	}
 
 	/**
-	 * Determines the preferred locale from the browser's Accept-Language header.
-	 * Supports English and German. Defaults to English.
+	 * @param statusPath The request path of the JSON status endpoint polled by the startup page.
 	 */
-	private Locale determineLocale(HttpServerExchange exchange) {
-		String acceptLanguage = exchange.getRequestHeaders().getFirst(Headers.ACCEPT_LANGUAGE);
-		if (StringUtils.isNotBlank(acceptLanguage)) {
-			return Locale.forLanguageTag(acceptLanguage.toLowerCase());
+	public void setStatusPath(String statusPath) {
+		if (StringUtils.isNotBlank(statusPath)) {
+			this.statusPath = statusPath.trim();
+			// The pages embed the status path
+			this.pages = null;
+		}
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "25s", "1m", etc.
+	 * Fallback to milliseconds if no unit is provided.
+	 *
+	 * @param longPollTimeout The maximum time a status request waits for the server to become ready.
+	 */
+	public void setLongPollTimeout(String longPollTimeout) {
+		try {
+			this.longPollTimeoutMs = TimeUtils.parseIntervalToMillis(longPollTimeout, "Startup status long-poll timeout");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid long-poll timeout {}, using current value '{}'.", longPollTimeout, this.longPollTimeoutMs);
+		}
+	}
+
+	/**
+	 * @param queueApiRequests {@code true} to park API requests until the master tenant has started instead of answering them with 503.
+	 */
+	public void setQueueApiRequests(boolean queueApiRequests) {
+		this.queueApiRequests = queueApiRequests;
+	}
+
+	/**
+	 * @param maxQueuedRequests The maximum number of API requests parked at the same time, further requests are answered with 503.
+	 */
+	public void setMaxQueuedRequests(int maxQueuedRequests) {
+		this.maxQueuedRequests = Math.max(0, maxQueuedRequests);
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "30s", "2m", etc.
+	 * Fallback to milliseconds if no unit is provided.
+	 *
+	 * @param maxQueueWait The maximum time an API request is parked before it is answered with 503.
+	 */
+	public void setMaxQueueWait(String maxQueueWait) {
+		try {
+			this.maxQueueWaitMs = TimeUtils.parseIntervalToMillis(maxQueueWait, "Startup request queue wait");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid maximum queue wait {}, using current value '{}'.", maxQueueWait, this.maxQueueWaitMs);
+		}
+	}
+
+	/**
+	 * @return The number of API requests currently parked until the master tenant has started.
+	 */
+	public int getQueuedRequestCount() {
+		return parkedApiRequestCount.get();
+	}
+
+	/**
+	 * The pre-rendered pages per locale. The selected page for a raw {@code Accept-Language} header
+	 * is memorized, as browsers repeat the identical header on every request.
+	 */
+	private static final class Pages {
+		private final Map<Locale, ByteBuffer> pagesByLocale;
+		private final List<Locale> locales;
+		private final ByteBuffer fallback;
+		private final Map<String, ByteBuffer> pagesByHeader = new ConcurrentHashMap<>();
+
+		private Pages(Map<Locale, ByteBuffer> pagesByLocale, List<Locale> locales, ByteBuffer fallback) {
+			this.pagesByLocale = pagesByLocale;
+			this.locales = locales;
+			this.fallback = fallback;
+		}
+
+		ByteBuffer select(String acceptLanguage) {
+			if (StringUtils.isBlank(acceptLanguage)) {
+				return fallback;
+			}
+			ByteBuffer page = pagesByHeader.get(acceptLanguage);
+			if (page == null) {
+				page = lookup(acceptLanguage);
+				if (pagesByHeader.size() < MAX_CACHED_LANGUAGE_HEADERS) {
+					pagesByHeader.put(acceptLanguage, page);
+				}
+			}
+			return page;
+		}
+
+		/**
+		 * Selects the page for the language range with the highest quality, e.g. {@code fr-CH, fr;q=0.9, de;q=0.7}.
+		 */
+		private ByteBuffer lookup(String acceptLanguage) {
+			try {
+				Locale locale = Locale.lookup(Locale.LanguageRange.parse(acceptLanguage), locales);
+				if (locale != null) {
+					return pagesByLocale.get(locale);
+				}
+			} catch (IllegalArgumentException e) {
+				LOG.trace("Could not parse Accept-Language header: {}", acceptLanguage);
+			}
+			return fallback;
+		}
+	}
+
+	/**
+	 * A parked request, released exactly once by either the tenant listener or the timeout. Status requests
+	 * are answered with the current status, API requests are passed on to the upstream servers if the
+	 * master tenant has started meanwhile. If the exchange completes while it is parked, it is just removed.
+	 */
+	private final class ParkedRequest implements ExchangeCompletionListener {
+		private final HttpServerExchange exchange;
+		private final boolean forward;
+		private final AtomicBoolean released = new AtomicBoolean();
+		private volatile XnioExecutor.Key timeoutKey;
+
+		private ParkedRequest(HttpServerExchange exchange, boolean forward) {
+			this.exchange = exchange;
+			this.forward = forward;
+		}
+
+		void release() {
+			if (!unpark()) {
+				return;
+			}
+			if (!forward) {
+				sendStatus(exchange);
+				return;
+			}
+
+			if (masterTenantReady) {
+				exchange.dispatch(SameThreadExecutor.INSTANCE, exchange.getAttachment(UPSTREAM_HANDLER));
+			} else {
+				LOG.debug("Request {} timed out while waiting for the master tenant.", exchange.getRequestURI());
+				sendStatus(exchange);
+			}
+		}
+
+		@Override
+		public void exchangeEvent(HttpServerExchange completedExchange, NextListener nextListener) {
+			if (unpark()) {
+				LOG.debug("Request {} completed while it was parked.", completedExchange.getRequestURI());
+			}
+			nextListener.proceed();
+		}
+
+		/**
+		 * @return {@code true} if the request was still parked and is now owned by the caller.
+		 */
+		private boolean unpark() {
+			if (!released.compareAndSet(false, true)) {
+				return false;
+			}
+			parkedRequests.remove(this);
+			if (forward) {
+				parkedApiRequestCount.decrementAndGet();
+			}
+			XnioExecutor.Key key = timeoutKey;
+			if (key != null) {
+				key.remove();
+			}
+			return true;
 		}
-		return Locale.ENGLISH;
 	}
 }
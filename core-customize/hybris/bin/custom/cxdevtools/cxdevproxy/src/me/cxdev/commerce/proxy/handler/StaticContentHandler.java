@@ -1,33 +1,82 @@
 package me.cxdev.commerce.proxy.handler;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.DateUtils;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
 import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.StreamUtils;
 
+import me.cxdev.commerce.proxy.cache.BoundedCache;
+import me.cxdev.commerce.proxy.encoding.ContentCoding;
+import me.cxdev.commerce.proxy.encoding.ContentEncoder;
+import me.cxdev.commerce.proxy.encoding.EncodedContent;
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
 import me.cxdev.commerce.proxy.util.ResourcePathUtils;
 
 /**
  * Serves static assets (CSS, JS, images, fonts) from the configured base location.
  * Must be registered after the TemplateRenderingHandler to ensure HTML files
  * are interpolated before this handler attempts to serve them as raw bytes.
+ * <p>
+ * Resolved assets are kept in a bounded, size-aware in-memory cache, so cached assets are answered
+ * directly from the IO thread without touching the filesystem. Missing asset-like paths (with a file
+ * extension) are remembered in a separate, small cache; proxied paths such as {@code /occ/v2/...}
+ * are never cached, so they cannot evict assets.
+ * Every response carries a content-hash ETag and a Last-Modified header, and conditional GET
+ * requests ({@code If-None-Match}, {@code If-Modified-Since}) are answered with 304.
+ * The cache is only active if it can be invalidated reliably: either the base location is watched
+ * via the {@link FileChangeWatcher}, or it is packaged and therefore immutable.
+ * </p>
+ * <p>
+ * Compressed variants are negotiated via {@code Accept-Encoding} and cached alongside the asset:
+ * pre-compressed sibling files ({@code app.js.br}, {@code app.js.gz}) are preferred, otherwise
+ * textual assets are gzip compressed once when they are loaded (see {@link ContentEncoder}).
+ * </p>
  */
-public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAware {
+public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAware, InitializingBean, DisposableBean {
 	private static final Logger LOG = LoggerFactory.getLogger(StaticContentHandler.class);
+	private static final AttachmentKey<CachedAsset> CACHED_ASSET = AttachmentKey.create(CachedAsset.class);
+	private static final AttachmentKey<Resource> RESOLVED_RESOURCE = AttachmentKey.create(Resource.class);
+
+	// Browsers may store the assets, but have to revalidate them on every use (cheap thanks to 304)
+	private static final String CACHE_CONTROL = "no-cache";
+	private static final long MISSING_CACHE_MAX_ENTRIES = 1024;
 
 	private final String baseLocation;
 	private ResourceLoader resourceLoader;
+	private FileChangeWatcher fileChangeWatcher;
+	private ContentEncoder contentEncoder = ContentEncoder.DEFAULT;
+	private RouteHandlerExecutor executor = RouteHandlerExecutor.WORKER;
+
+	private long cacheMaxSize = 32L * 1024L * 1024L;
+	private long cacheMaxEntrySize = 1024L * 1024L;
+	private BoundedCache<String, CachedAsset> assetCache = new BoundedCache<>("Static asset", 0, CachedAsset::getWeight);
+	private BoundedCache<String, Boolean> missingCache = new BoundedCache<>("Missing static asset", 0, missing -> 1);
+	private final AtomicLong invalidations = new AtomicLong();
+	private Path watchedDirectory;
+	private FileChangeWatcher.Subscription subscription;
 
 	// A lightweight MIME type map for the most common web assets
 	private static final Map<String, String> MIME_TYPES = new HashMap<>();
@@ -49,7 +98,52 @@ public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAw
 
 	public StaticContentHandler(String baseLocation) {
 		this.baseLocation = ResourcePathUtils.normalizeDirectoryPath(baseLocation, "UI base location");
-		;
+	}
+
+	/**
+	 * Activates the asset cache if its entries can be invalidated reliably.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		Resource baseResource = resourceLoader.getResource(baseLocation);
+		File baseDirectory;
+		try {
+			baseDirectory = baseResource.getFile();
+		} catch (IOException e) {
+			// Packaged in a JAR: the assets cannot change at runtime
+			enableCache("immutable base location " + baseLocation);
+			return;
+		}
+
+		if (fileChangeWatcher != null && baseDirectory.isDirectory()) {
+			subscription = fileChangeWatcher.watchDirectory(baseDirectory, this::invalidate);
+			if (subscription != null) {
+				watchedDirectory = subscription.getPath();
+				enableCache("watched base location " + watchedDirectory);
+				return;
+			}
+		}
+		LOG.info("Static asset cache is disabled, changes in {} cannot be watched.", baseLocation);
+	}
+
+	private void enableCache(String reason) {
+		assetCache = new BoundedCache<>("Static asset", cacheMaxSize, CachedAsset::getWeight);
+		missingCache = new BoundedCache<>("Missing static asset", MISSING_CACHE_MAX_ENTRIES, missing -> 1);
+		LOG.info("Enabled static asset cache ({} bytes) for {}.", cacheMaxSize, reason);
+	}
+
+	/**
+	 * Evicts the changed file (or directory tree) from the asset cache and the missing asset cache.
+	 */
+	private void invalidate(Path changed) {
+		invalidations.incrementAndGet();
+		String relativePath = watchedDirectory.relativize(changed).toString().replace(File.separatorChar, '/');
+		String key = "/" + relativePath;
+		// A changed pre-compressed sibling invalidates the asset it belongs to
+		String assetKey = stripCodingSuffix(key);
+		int removed = assetCache.removeIf(path -> path.equals(key) || path.equals(assetKey) || path.startsWith(key + "/"));
+		missingCache.removeIf(path -> path.equals(key) || path.startsWith(key + "/"));
+		LOG.debug("Invalidated {} cached static asset(s) for changed path {}.", removed, key);
 	}
 
 	@Override
@@ -63,20 +157,54 @@ public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAw
 			return false;
 		}
 
+		CachedAsset asset = assetCache.get(path);
+		if (asset != null) {
+			exchange.putAttachment(CACHED_ASSET, asset);
+			return true;
+		}
+
+		// Only asset-like paths are remembered as missing, unique backend URLs would flood the cache
+		boolean assetPath = !getExtension(path).isEmpty();
+		if (assetPath && missingCache.get(path) != null) {
+			return false;
+		}
+
 		Resource resource = resourceLoader.getResource(baseLocation + path);
 		// isReadable() ensures we don't accidentally match directories
-		return resource.exists() && resource.isReadable();
+		if (resource.exists() && resource.isReadable()) {
+			exchange.putAttachment(RESOLVED_RESOURCE, resource);
+			return true;
+		}
+		if (assetPath) {
+			missingCache.put(path, Boolean.TRUE);
+		}
+		return false;
 	}
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) {
+		String path = exchange.getRequestPath();
+
+		// Cached assets are answered directly from the IO thread
+		CachedAsset asset = exchange.getAttachment(CACHED_ASSET);
+		if (asset == null) {
+			asset = assetCache.get(path);
+		}
+		if (asset != null) {
+			serve(exchange, asset);
+			return;
+		}
+
+		// Loading the asset requires blocking I/O
 		if (exchange.isInIoThread()) {
-			exchange.dispatch(this);
+			executor.dispatch(exchange, this);
 			return;
 		}
 
-		String path = exchange.getRequestPath();
-		Resource resource = resourceLoader.getResource(baseLocation + path);
+		Resource resource = exchange.getAttachment(RESOLVED_RESOURCE);
+		if (resource == null) {
+			resource = resourceLoader.getResource(baseLocation + path);
+		}
 
 		if (!resource.exists() || !resource.isReadable()) {
 			LOG.warn("Static resource matched but could not be read: {}", path);
@@ -84,9 +212,118 @@ public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAw
 			return;
 		}
 
-		String extension = getExtension(path);
-		String mimeType = MIME_TYPES.getOrDefault(extension, "application/octet-stream");
+		String mimeType = MIME_TYPES.getOrDefault(getExtension(path), "application/octet-stream");
+		try {
+			if (contentLength(resource) > cacheMaxEntrySize) {
+				stream(exchange, resource, mimeType);
+				return;
+			}
+
+			long invalidationsBeforeLoad = invalidations.get();
+			asset = load(resource, mimeType, assetCache.isEnabled());
+			// Do not cache content that has been changed while it was loaded
+			if (invalidationsBeforeLoad == invalidations.get()) {
+				assetCache.put(path, asset);
+			}
+			serve(exchange, asset);
+		} catch (IOException e) {
+			LOG.error("Error serving static file: {}", path, e);
+			if (!exchange.isResponseStarted()) {
+				exchange.setStatusCode(500);
+			}
+		}
+	}
+
+	private CachedAsset load(Resource resource, String mimeType, boolean cached) throws IOException {
+		byte[] content;
+		try (InputStream is = resource.getInputStream()) {
+			content = StreamUtils.copyToByteArray(is);
+		}
+
+		Map<ContentCoding, byte[]> precompressed = new EnumMap<>(ContentCoding.class);
+		if (contentEncoder.isEnabled()) {
+			for (ContentCoding coding : ContentCoding.values()) {
+				if (coding != ContentCoding.IDENTITY) {
+					byte[] variant = loadPrecompressed(resource, coding);
+					if (variant != null) {
+						precompressed.put(coding, variant);
+					}
+				}
+			}
+		}
+		EncodedContent encoded = contentEncoder.encode(content, mimeType, precompressed);
+		if (cached) {
+			// Cached assets are sent repeatedly, direct buffers spare the copy into a native buffer per write
+			encoded = encoded.toDirect();
+		}
+		return CachedAsset.of(content, encoded, mimeType, lastModified(resource));
+	}
+
+	/**
+	 * Loads a pre-compressed sibling file (e.g., {@code app.js.br} next to {@code app.js}), if present.
+	 */
+	private byte[] loadPrecompressed(Resource resource, ContentCoding coding) {
+		try {
+			String filename = resource.getFilename();
+			Resource sibling = filename != null ? resource.createRelative(filename + coding.getFileSuffix()) : null;
+			if (sibling == null || !sibling.exists() || !sibling.isReadable()) {
+				return null;
+			}
+			try (InputStream is = sibling.getInputStream()) {
+				return StreamUtils.copyToByteArray(is);
+			}
+		} catch (IOException e) {
+			LOG.debug("Could not load {} variant of {}.", coding.getHeaderValue(), resource, e);
+			return null;
+		}
+	}
+
+	private static String stripCodingSuffix(String path) {
+		for (ContentCoding coding : ContentCoding.values()) {
+			if (coding != ContentCoding.IDENTITY && path.endsWith(coding.getFileSuffix())) {
+				return path.substring(0, path.length() - coding.getFileSuffix().length());
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Answers the request from the cached asset without blocking, or with 304 if the client already has it.
+	 */
+	private void serve(HttpServerExchange exchange, CachedAsset asset) {
+		EncodedContent content = asset.getContent();
+		ContentCoding coding = contentEncoder.negotiate(exchange, content);
+		HeaderMap responseHeaders = exchange.getResponseHeaders();
+		responseHeaders.put(Headers.ETAG, asset.getETag(coding).toString());
+		responseHeaders.put(Headers.LAST_MODIFIED, asset.getLastModifiedHeader());
+		responseHeaders.put(Headers.CACHE_CONTROL, CACHE_CONTROL);
+		contentEncoder.addVary(responseHeaders, content);
+
+		if (isNotModified(exchange.getRequestHeaders(), asset, coding)) {
+			exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+			exchange.endExchange();
+			return;
+		}
+
+		exchange.setStatusCode(200);
+		responseHeaders.put(Headers.CONTENT_TYPE, asset.getMimeType());
+		contentEncoder.applyHeaders(exchange, content, coding);
+		exchange.getResponseSender().send(content.getBody(coding));
+	}
+
+	private boolean isNotModified(HeaderMap requestHeaders, CachedAsset asset, ContentCoding coding) {
+		// If-None-Match takes precedence over If-Modified-Since (RFC 9110)
+		String ifNoneMatch = requestHeaders.getFirst(Headers.IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			return !ETagUtils.handleIfNoneMatch(ifNoneMatch, asset.getETag(coding), true);
+		}
+		return !DateUtils.handleIfModifiedSince(requestHeaders.getFirst(Headers.IF_MODIFIED_SINCE), asset.getLastModified());
+	}
 
+	/**
+	 * Streams assets that are too large for the cache from a worker thread.
+	 */
+	private void stream(HttpServerExchange exchange, Resource resource, String mimeType) throws IOException {
 		exchange.setStatusCode(200);
 		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, mimeType);
 
@@ -95,11 +332,23 @@ public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAw
 
 		try (InputStream is = resource.getInputStream()) {
 			StreamUtils.copy(is, exchange.getOutputStream());
+		}
+	}
+
+	private static long contentLength(Resource resource) {
+		try {
+			return resource.contentLength();
 		} catch (IOException e) {
-			LOG.error("Error serving static file: {}", path, e);
-			if (!exchange.isResponseStarted()) {
-				exchange.setStatusCode(500);
-			}
+			return -1;
+		}
+	}
+
+	private static long lastModified(Resource resource) {
+		try {
+			long lastModified = resource.lastModified();
+			return lastModified > 0 ? lastModified : System.currentTimeMillis();
+		} catch (IOException e) {
+			return System.currentTimeMillis();
 		}
 	}
 
@@ -111,8 +360,68 @@ public class StaticContentHandler implements ProxyRouteHandler, ResourceLoaderAw
 		return "";
 	}
 
+	/**
+	 * Stops watching the base location when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() {
+		if (subscription != null) {
+			subscription.close();
+		}
+		LOG.info("{}", assetCache);
+		assetCache.clear();
+		missingCache.clear();
+	}
+
+	/**
+	 * @return The asset cache, exposing hit/miss statistics.
+	 */
+	public BoundedCache<String, ?> getAssetCache() {
+		return assetCache;
+	}
+
 	@Override
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourceLoader = resourceLoader;
 	}
+
+	public void setFileChangeWatcher(FileChangeWatcher fileChangeWatcher) {
+		this.fileChangeWatcher = fileChangeWatcher;
+	}
+
+	public void setContentEncoder(ContentEncoder contentEncoder) {
+		this.contentEncoder = contentEncoder;
+	}
+
+	public void setExecutor(RouteHandlerExecutor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "512kb", "32mb".
+	 * Fallback to bytes if no unit is provided.
+	 *
+	 * @param cacheMaxSize The maximum total size of all cached assets.
+	 */
+	public void setCacheMaxSize(String cacheMaxSize) {
+		try {
+			this.cacheMaxSize = DataSizeUtils.parseSizeToBytes(cacheMaxSize, "Static asset cache size");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid static asset cache size {}, using current value '{}'.", cacheMaxSize, this.cacheMaxSize);
+		}
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "512kb", "1mb".
+	 * Larger assets are not cached but streamed from the resource on every request.
+	 *
+	 * @param cacheMaxEntrySize The maximum size of a single cached asset.
+	 */
+	public void setCacheMaxEntrySize(String cacheMaxEntrySize) {
+		try {
+			this.cacheMaxEntrySize = DataSizeUtils.parseSizeToBytes(cacheMaxEntrySize, "Static asset cache entry size");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid static asset cache entry size {}, using current value '{}'.", cacheMaxEntrySize, this.cacheMaxEntrySize);
+		}
+	}
 }
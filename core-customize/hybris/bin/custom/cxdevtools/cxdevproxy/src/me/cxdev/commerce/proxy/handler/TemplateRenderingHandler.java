@@ -1,42 +1,81 @@
 package me.cxdev.commerce.proxy.handler;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.hybris.platform.servicelayer.config.ConfigurationService;
 
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
 import io.undertow.util.Headers;
 import io.undertow.util.Methods;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.MessageSource;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.StreamUtils;
 
+import me.cxdev.commerce.proxy.cache.BoundedCache;
+import me.cxdev.commerce.proxy.encoding.ContentCoding;
+import me.cxdev.commerce.proxy.encoding.ContentEncoder;
+import me.cxdev.commerce.proxy.encoding.EncodedContent;
+import me.cxdev.commerce.proxy.i18n.ClasspathMergingMessageSource;
+import me.cxdev.commerce.proxy.livecycle.ConfigurationChangeTracker;
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
 import me.cxdev.commerce.proxy.util.ResourcePathUtils;
 
 /**
  * Intercepts requests for local HTML files, resolves Spring properties (${...})
  * and i18n message bundles (#{...}), and serves the rendered HTML to the browser.
+ * Large pages are gzip compressed if the browser accepts it (see {@link ContentEncoder}).
+ * <p>
+ * Templates are parsed once into a {@link ParsedTemplate}, and rendered pages are cached per
+ * path and locale together with the configuration they were rendered with (the version of the
+ * platform configuration and of the message bundles). Repeated requests are answered from the IO thread.
+ * Without a {@link ConfigurationChangeTracker}, the properties of a cached page are resolved again
+ * for every request to detect configuration changes.
+ * Like the asset cache of the {@link StaticContentHandler}, the caches are only active if the base
+ * location is watched via the {@link FileChangeWatcher} or packaged and therefore immutable.
+ * </p>
  */
-public class TemplateRenderingHandler implements ProxyRouteHandler, ResourceLoaderAware {
+public class TemplateRenderingHandler implements ProxyRouteHandler, ResourceLoaderAware, InitializingBean, DisposableBean {
 	private static final Logger LOG = LoggerFactory.getLogger(TemplateRenderingHandler.class);
-	private static final Pattern PROPERTY_PATTERN = Pattern.compile("%\\{([^}]+)\\}");
-	private static final Pattern I18N_PATTERN = Pattern.compile("#\\{([^}]+)\\}");
+	private static final AttachmentKey<RenderedPage> RENDERED_PAGE = AttachmentKey.create(RenderedPage.class);
+	private static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+	private static final long ENTRY_OVERHEAD = 256;
+	private static final int MAX_PARSED_LANGUAGE_HEADERS = 256;
 
 	private final String baseLocation;
 	private final ConfigurationService configurationService;
 	private final MessageSource messageSource;
 	private ResourceLoader resourceLoader;
+	private ContentEncoder contentEncoder = ContentEncoder.DEFAULT;
+	private FileChangeWatcher fileChangeWatcher;
+	private ConfigurationChangeTracker configurationChangeTracker;
+	private RouteHandlerExecutor executor = RouteHandlerExecutor.WORKER;
+
+	private long renderCacheMaxSize = 8L * 1024L * 1024L;
+	private boolean cacheEnabled;
+	private final ConcurrentHashMap<String, ParsedTemplate> parsedTemplates = new ConcurrentHashMap<>();
+	private BoundedCache<RenderKey, RenderedPage> renderCache = new BoundedCache<>("Rendered template", 0, RenderedPage::getWeight);
+	private final AtomicLong invalidations = new AtomicLong();
+	private final ConcurrentHashMap<String, Locale> parsedLanguageHeaders = new ConcurrentHashMap<>();
+	private Path watchedDirectory;
+	private FileChangeWatcher.Subscription subscription;
 
 	public TemplateRenderingHandler(
 			String baseLocation,
@@ -47,6 +86,50 @@ public class TemplateRenderingHandler implements ProxyRouteHandler, ResourceLoad
 		this.messageSource = messageSource;
 	}
 
+	/**
+	 * Activates the template caches if their entries can be invalidated reliably.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		Resource baseResource = resourceLoader.getResource(baseLocation);
+		File baseDirectory;
+		try {
+			baseDirectory = baseResource.getFile();
+		} catch (IOException e) {
+			// Packaged in a JAR: the templates cannot change at runtime
+			enableCache("immutable base location " + baseLocation);
+			return;
+		}
+
+		if (fileChangeWatcher != null && baseDirectory.isDirectory()) {
+			subscription = fileChangeWatcher.watchDirectory(baseDirectory, this::invalidate);
+			if (subscription != null) {
+				watchedDirectory = subscription.getPath();
+				enableCache("watched base location " + watchedDirectory);
+				return;
+			}
+		}
+		LOG.info("Template cache is disabled, changes in {} cannot be watched.", baseLocation);
+	}
+
+	private void enableCache(String reason) {
+		cacheEnabled = true;
+		renderCache = new BoundedCache<>("Rendered template", renderCacheMaxSize, RenderedPage::getWeight);
+		LOG.info("Enabled template cache ({} bytes of rendered pages) for {}.", renderCacheMaxSize, reason);
+	}
+
+	/**
+	 * Evicts the changed template (or directory tree) and all pages rendered from it.
+	 */
+	private void invalidate(Path changed) {
+		invalidations.incrementAndGet();
+		String relativePath = watchedDirectory.relativize(changed).toString().replace(File.separatorChar, '/');
+		String key = "/" + relativePath;
+		parsedTemplates.keySet().removeIf(path -> path.equals(key) || path.startsWith(key + "/"));
+		int removed = renderCache.removeIf(renderKey -> renderKey.path().equals(key) || renderKey.path().startsWith(key + "/"));
+		LOG.debug("Invalidated {} rendered page(s) for changed path {}.", removed, key);
+	}
+
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
 		if (!Methods.GET.equals(exchange.getRequestMethod())) {
@@ -58,37 +141,50 @@ public class TemplateRenderingHandler implements ProxyRouteHandler, ResourceLoad
 			return false;
 		}
 
+		ParsedTemplate template = parsedTemplates.get(path);
+		if (template != null) {
+			RenderedPage page = lookupRenderedPage(exchange, path, template);
+			if (page != null) {
+				exchange.putAttachment(RENDERED_PAGE, page);
+			}
+			return true;
+		}
+
 		Resource resource = resourceLoader.getResource(baseLocation + path);
 		return resource.exists() && resource.isReadable();
 	}
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) {
+		// Cached pages are answered directly from the IO thread
+		RenderedPage cachedPage = exchange.getAttachment(RENDERED_PAGE);
+		if (cachedPage != null) {
+			send(exchange, cachedPage.content());
+			return;
+		}
+
 		if (exchange.isInIoThread()) {
-			exchange.dispatch(this);
+			executor.dispatch(exchange, this);
 			return;
 		}
 
 		String path = exchange.getRequestPath();
 		String fullLocation = baseLocation + path;
-		Resource resource = resourceLoader.getResource(fullLocation);
-
-		if (!resource.exists()) {
-			LOG.error("Template suddenly not found at: {}", fullLocation);
-			exchange.setStatusCode(404);
-			exchange.getResponseSender().send("404 - Template not found");
-			return;
-		}
+		try {
+			ParsedTemplate template = parsedTemplates.get(path);
+			if (template == null) {
+				Resource resource = resourceLoader.getResource(fullLocation);
+				if (!resource.exists()) {
+					LOG.error("Template suddenly not found at: {}", fullLocation);
+					exchange.setStatusCode(404);
+					exchange.getResponseSender().send("404 - Template not found");
+					return;
+				}
+				template = load(path, resource);
+			}
 
-		try (InputStream is = resource.getInputStream()) {
-			String rawHtml = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
-			String propertiesResolvedHtml = resolveProperties(rawHtml);
 			Locale userLocale = determineLocale(exchange);
-			String fullyRenderedHtml = resolveI18nMessages(propertiesResolvedHtml, userLocale);
-
-			exchange.setStatusCode(200);
-			exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html; charset=UTF-8");
-			exchange.getResponseSender().send(fullyRenderedHtml);
+			send(exchange, render(exchange, path, template, userLocale));
 
 		} catch (IOException e) {
 			LOG.error("Error reading template file: {}", fullLocation, e);
@@ -97,81 +193,191 @@ public class TemplateRenderingHandler implements ProxyRouteHandler, ResourceLoad
 		}
 	}
 
+	private ParsedTemplate load(String path, Resource resource) throws IOException {
+		long invalidationsBeforeLoad = invalidations.get();
+		String rawHtml;
+		try (InputStream is = resource.getInputStream()) {
+			rawHtml = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
+		}
+		ParsedTemplate template = ParsedTemplate.parse(rawHtml);
+		// Do not cache templates that have been changed while they were loaded
+		if (cacheEnabled && invalidationsBeforeLoad == invalidations.get()) {
+			parsedTemplates.put(path, template);
+			LOG.debug("Parsed template {} into {} segments.", path, template.getSegmentCount());
+		}
+		return template;
+	}
+
 	/**
-	 * Resolves custom property placeholders in the format %{property.key:defaultValue}.
-	 * This custom syntax prevents collisions with JavaScript template literals (${...}).
+	 * Returns the cached page if it was rendered with the current template, configuration and messages.
 	 */
-	private String resolveProperties(String template) {
-		if (template == null || !template.contains("%{")) {
-			return template;
+	private RenderedPage lookupRenderedPage(HttpServerExchange exchange, String path, ParsedTemplate template) {
+		long messageVersion = messageVersion();
+		if (!renderCache.isEnabled() || messageVersion < 0) {
+			return null;
 		}
+		RenderedPage page = renderCache.get(new RenderKey(path, determineLocale(exchange)));
+		if (page == null || page.template() != template || page.messageVersion() != messageVersion) {
+			return null;
+		}
+		long configurationVersion = configurationVersion();
+		if (configurationVersion >= 0) {
+			return page.configurationVersion() == configurationVersion ? page : null;
+		}
+		// Configuration changes are not tracked: compare the property values the page was rendered with
+		return page.propertyValues().equals(template.resolveProperties(configurationService.getConfiguration())) ? page : null;
+	}
 
-		Matcher matcher = PROPERTY_PATTERN.matcher(template);
-		StringBuilder sb = new StringBuilder();
-
-		while (matcher.find()) {
-			String expression = matcher.group(1);
-			String key = expression;
-			String defaultValue = null;
+	private EncodedContent render(HttpServerExchange exchange, String path, ParsedTemplate template, Locale locale) {
+		// The versions have to be read before the values, so concurrent changes invalidate the page
+		long messageVersion = messageVersion();
+		long configurationVersion = configurationVersion();
+		List<String> propertyValues = template.resolveProperties(configurationService.getConfiguration());
+		String html = template.render(propertyValues, messageSource, locale);
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
 
-			int colonIndex = expression.indexOf(':');
-			if (colonIndex != -1) {
-				key = expression.substring(0, colonIndex);
-				defaultValue = expression.substring(colonIndex + 1);
+		boolean cacheable = renderCache.isEnabled() && messageVersion >= 0 && parsedTemplates.get(path) == template;
+		if (!cacheable && !contentEncoder.accepts(exchange, ContentCoding.GZIP)) {
+			// Not worth compressing a page that is only sent once in plain text
+			if (contentEncoder.shouldCompress(body.length, HTML_CONTENT_TYPE)) {
+				contentEncoder.addVary(exchange.getResponseHeaders());
 			}
-
-			String resolvedValue = configurationService.getConfiguration().getString(key, defaultValue);
-			if (resolvedValue == null) {
-				resolvedValue = key;
-			}
-			matcher.appendReplacement(sb, java.util.regex.Matcher.quoteReplacement(resolvedValue));
+			return contentEncoder.encode(body, null);
 		}
-		matcher.appendTail(sb);
 
-		return sb.toString();
+		EncodedContent content = contentEncoder.encode(body, HTML_CONTENT_TYPE);
+		if (cacheable) {
+			content = content.toDirect();
+			renderCache.put(new RenderKey(path, locale), new RenderedPage(path, template, propertyValues, configurationVersion, messageVersion, content));
+		}
+		return content;
 	}
 
-	private String resolveI18nMessages(String html, Locale locale) {
-		Matcher matcher = I18N_PATTERN.matcher(html);
-		StringBuilder sb = new StringBuilder();
+	/**
+	 * @return The version of the message bundles, or {@code -1} if the message source cannot report changes.
+	 */
+	private long messageVersion() {
+		if (messageSource instanceof ClasspathMergingMessageSource mergingMessageSource) {
+			return mergingMessageSource.getVersion();
+		}
+		return -1;
+	}
 
-		while (matcher.find()) {
-			String matchContent = matcher.group(1);
-			String key = matchContent;
-			String defaultValue = key;
+	/**
+	 * @return The version of the platform configuration, or {@code -1} if its changes are not tracked.
+	 */
+	private long configurationVersion() {
+		return configurationChangeTracker != null ? configurationChangeTracker.getVersion() : -1;
+	}
 
-			int defaultSeparatorIndex = matchContent.indexOf(':');
-			if (defaultSeparatorIndex != -1) {
-				key = matchContent.substring(0, defaultSeparatorIndex);
-				defaultValue = matchContent.substring(defaultSeparatorIndex + 1);
-			}
+	/**
+	 * Sends the rendered page, gzip compressed if it is large enough and the browser accepts it.
+	 */
+	private void send(HttpServerExchange exchange, EncodedContent content) {
+		exchange.setStatusCode(200);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, HTML_CONTENT_TYPE);
+		ContentCoding coding = contentEncoder.negotiate(exchange, content);
+		contentEncoder.applyHeaders(exchange, content, coding);
+		exchange.getResponseSender().send(content.getBody(coding));
+	}
 
-			String resolvedMessage = messageSource.getMessage(key, null, defaultValue, locale);
-			if (resolvedMessage == null) {
-				resolvedMessage = key;
+	/**
+	 * Determines the locale with the highest quality value of the Accept-Language header.
+	 * Browsers send the same few headers over and over, so the parsed locales are remembered per header value.
+	 */
+	private Locale determineLocale(HttpServerExchange exchange) {
+		String acceptLanguage = exchange.getRequestHeaders().getFirst(Headers.ACCEPT_LANGUAGE);
+		if (StringUtils.isBlank(acceptLanguage)) {
+			return Locale.ENGLISH;
+		}
+		Locale locale = parsedLanguageHeaders.get(acceptLanguage);
+		if (locale == null) {
+			locale = parseAcceptLanguage(acceptLanguage);
+			if (parsedLanguageHeaders.size() >= MAX_PARSED_LANGUAGE_HEADERS) {
+				parsedLanguageHeaders.clear();
 			}
-			matcher.appendReplacement(sb, Matcher.quoteReplacement(resolvedMessage));
+			parsedLanguageHeaders.put(acceptLanguage, locale);
 		}
-		matcher.appendTail(sb);
-
-		return sb.toString();
+		return locale;
 	}
 
-	private Locale determineLocale(HttpServerExchange exchange) {
-		String acceptLanguage = exchange.getRequestHeaders().getFirst(Headers.ACCEPT_LANGUAGE);
-		if (StringUtils.isNotBlank(acceptLanguage)) {
-			String primaryTag = acceptLanguage.split(",")[0].trim();
-			try {
-				return Locale.forLanguageTag(primaryTag);
-			} catch (Exception e) {
-				LOG.trace("Could not parse language tag: {}", primaryTag);
+	static Locale parseAcceptLanguage(String acceptLanguage) {
+		try {
+			// The ranges are sorted by descending quality value, ranges with q=0 are not acceptable
+			for (Locale.LanguageRange range : Locale.LanguageRange.parse(acceptLanguage)) {
+				if (range.getWeight() > 0 && !range.getRange().startsWith("*")) {
+					return Locale.forLanguageTag(range.getRange());
+				}
 			}
+		} catch (IllegalArgumentException e) {
+			LOG.trace("Could not parse Accept-Language header: {}", acceptLanguage);
 		}
 		return Locale.ENGLISH;
 	}
 
+	/**
+	 * Stops watching the base location when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() {
+		if (subscription != null) {
+			subscription.close();
+		}
+		LOG.info("{}", renderCache);
+		renderCache.clear();
+		parsedTemplates.clear();
+		parsedLanguageHeaders.clear();
+	}
+
+	/**
+	 * @return The cache of rendered pages, exposing hit/miss statistics.
+	 */
+	public BoundedCache<?, ?> getRenderCache() {
+		return renderCache;
+	}
+
 	@Override
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourceLoader = resourceLoader;
 	}
+
+	public void setContentEncoder(ContentEncoder contentEncoder) {
+		this.contentEncoder = contentEncoder;
+	}
+
+	public void setFileChangeWatcher(FileChangeWatcher fileChangeWatcher) {
+		this.fileChangeWatcher = fileChangeWatcher;
+	}
+
+	public void setConfigurationChangeTracker(ConfigurationChangeTracker configurationChangeTracker) {
+		this.configurationChangeTracker = configurationChangeTracker;
+	}
+
+	public void setExecutor(RouteHandlerExecutor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "512kb", "8mb".
+	 * Fallback to bytes if no unit is provided.
+	 *
+	 * @param renderCacheMaxSize The maximum total size of all cached pages, including their compressed variants.
+	 */
+	public void setRenderCacheMaxSize(String renderCacheMaxSize) {
+		try {
+			this.renderCacheMaxSize = DataSizeUtils.parseSizeToBytes(renderCacheMaxSize, "Template cache size");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid template cache size {}, using current value '{}'.", renderCacheMaxSize, this.renderCacheMaxSize);
+		}
+	}
+
+	private record RenderKey(String path, Locale locale) {
+	}
+
+	private record RenderedPage(String path, ParsedTemplate template, List<String> propertyValues, long configurationVersion, long messageVersion,
+			EncodedContent content) {
+		long getWeight() {
+			return ENTRY_OVERHEAD + content.getWeight();
+		}
+	}
 }
@@ -4,37 +4,80 @@ import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.support.AbstractMessageSource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
 
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
 import me.cxdev.commerce.proxy.util.TimeUtils;
 
 /**
  * A custom MessageSource that scans the entire classpath across all SAP Commerce extensions,
  * merges all matching property files, and automatically hot-reloads them if they are
  * modified on the local filesystem (exploded extensions).
+ * <p>
+ * The messages of a locale are merged along its fallback chain, more specific files overriding
+ * less specific ones: {@code messages.properties}, {@code messages_de.properties},
+ * {@code messages_de_CH.properties}. Lookups are a plain read of an immutable per-locale map,
+ * parsed {@link MessageFormat}s are cached per code and locale.
+ * </p>
+ * <p>
+ * If a {@link FileChangeWatcher} is configured, modified files evict the merged messages on
+ * filesystem notifications. Otherwise, the files are checked by a background refresher once per
+ * refresh interval, so lookups never touch the filesystem. Evicted messages are merged again on
+ * the next lookup.
+ * </p>
  */
-public class ClasspathMergingMessageSource extends AbstractMessageSource {
+public class ClasspathMergingMessageSource extends AbstractMessageSource implements InitializingBean, DisposableBean {
 	private static final Logger LOG = LoggerFactory.getLogger(ClasspathMergingMessageSource.class);
 
 	private String baseName = "cxdevproxy/i18n/messages";
 	private long cacheRefreshIntervalMillis = 5000;
 
-	private final ConcurrentHashMap<Locale, CachedBundle> cachedBundles = new ConcurrentHashMap<>();
+	private FileChangeWatcher fileChangeWatcher;
+	private ScheduledExecutorService refresher;
+
+	private volatile Map<Locale, LocaleMessages> cachedMessages = Map.of();
+	private final Set<File> subscribedFiles = ConcurrentHashMap.newKeySet();
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * Returns a counter that is incremented whenever a message file changes, allowing callers
+	 * to cache content rendered with the messages of this source.
+	 *
+	 * @return The current version of the merged bundles.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
 
 	public void setBaseName(String baseName) {
 		this.baseName = baseName;
 	}
 
+	public void setFileChangeWatcher(FileChangeWatcher fileChangeWatcher) {
+		this.fileChangeWatcher = fileChangeWatcher;
+	}
+
 	/**
 	 * Smart setter allowing human-readable time intervals like "5s", "10m", "1h", etc.
 	 * Fallback to milliseconds if no unit is provided.
@@ -49,32 +92,96 @@ public class ClasspathMergingMessageSource extends AbstractMessageSource {
 		}
 	}
 
+	/**
+	 * Starts the background refresher polling the message files that are not watched via filesystem notifications.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		if (cacheRefreshIntervalMillis <= 0) {
+			LOG.info("Message files are not polled for changes, the refresh interval is disabled.");
+			return;
+		}
+		refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "CxDevProxy-MessageRefresher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresher.scheduleWithFixedDelay(this::checkForChanges, cacheRefreshIntervalMillis, cacheRefreshIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the background refresher when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+			refresher = null;
+		}
+		cachedMessages = Map.of();
+	}
+
 	@Override
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		String format = resolveCodeWithoutArguments(code, locale);
-		return format != null ? new MessageFormat(format, locale) : null;
+		LocaleMessages messages = getMessages(locale);
+		String format = messages.messages().get(code);
+		if (format == null) {
+			return null;
+		}
+		// Spring synchronizes on the returned instance while formatting, so it can be shared
+		return messages.formats().computeIfAbsent(code, c -> new MessageFormat(format, locale));
 	}
 
 	@Override
 	protected String resolveCodeWithoutArguments(String code, Locale locale) {
-		CachedBundle bundle = cachedBundles.compute(locale, (loc, currentBundle) -> {
-			if (currentBundle == null || currentBundle.isStale(cacheRefreshIntervalMillis)) {
-				if (currentBundle != null) {
-					LOG.info("Detected change in message files for locale '{}'. Reloading merged bundles...", loc.getLanguage());
-				}
-				return loadMergedProperties(loc);
-			}
-			return currentBundle;
-		});
+		return getMessages(locale).messages().get(code);
+	}
 
-		return bundle.getProperties().getProperty(code);
+	private LocaleMessages getMessages(Locale locale) {
+		LocaleMessages messages = cachedMessages.get(locale);
+		return messages != null ? messages : loadMessages(locale);
 	}
 
-	private CachedBundle loadMergedProperties(Locale locale) {
-		String resourcePattern = "classpath*:" + baseName + "_" + locale.getLanguage() + ".properties";
+	/**
+	 * Merges the messages of a locale and publishes them in a new copy of the per-locale map.
+	 * Loading and eviction are serialized, lookups never wait for them.
+	 */
+	private synchronized LocaleMessages loadMessages(Locale locale) {
+		LocaleMessages messages = cachedMessages.get(locale);
+		if (messages != null) {
+			return messages;
+		}
 
-		Properties mergedProps = new Properties();
-		List<WatchedFile> watchedFiles = new ArrayList<>();
+		Map<String, String> mergedMessages = new HashMap<>();
+		Set<WatchedFile> watchedFiles = new LinkedHashSet<>();
+		for (String suffix : fallbackChain(locale)) {
+			loadMergedProperties(suffix, mergedMessages, watchedFiles);
+		}
+		messages = new LocaleMessages(Map.copyOf(mergedMessages), List.copyOf(watchedFiles), new ConcurrentHashMap<>());
+
+		Map<Locale, LocaleMessages> updated = new HashMap<>(cachedMessages);
+		updated.put(locale, messages);
+		cachedMessages = Map.copyOf(updated);
+		return messages;
+	}
+
+	/**
+	 * @return The bundle suffixes of the locale, from the least to the most specific one (e.g., "", "_de", "_de_CH").
+	 */
+	private static List<String> fallbackChain(Locale locale) {
+		List<String> chain = new ArrayList<>(3);
+		chain.add("");
+		if (StringUtils.isNotEmpty(locale.getLanguage())) {
+			chain.add("_" + locale.getLanguage());
+			if (StringUtils.isNotEmpty(locale.getCountry())) {
+				chain.add("_" + locale.getLanguage() + "_" + locale.getCountry());
+			}
+		}
+		return chain;
+	}
+
+	private void loadMergedProperties(String suffix, Map<String, String> mergedMessages, Set<WatchedFile> watchedFiles) {
+		String resourcePattern = "classpath*:" + baseName + suffix + ".properties";
 
 		try {
 			PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
@@ -83,11 +190,15 @@ public class ClasspathMergingMessageSource extends AbstractMessageSource {
 			for (Resource resource : resources) {
 				try {
 					Properties p = PropertiesLoaderUtils.loadProperties(resource);
-					mergedProps.putAll(p);
+					for (String key : p.stringPropertyNames()) {
+						mergedMessages.put(key, p.getProperty(key));
+					}
 
 					try {
 						File file = resource.getFile();
-						watchedFiles.add(new WatchedFile(file, file.lastModified()));
+						if (!subscribeForChanges(file)) {
+							watchedFiles.add(new WatchedFile(file, file.lastModified()));
+						}
 						LOG.debug("Watching message file for changes: {}", file.getAbsolutePath());
 					} catch (IOException e) {
 						LOG.debug("Resource is not a file on the filesystem (likely in a JAR). Not watching: {}", resource.getURI());
@@ -99,50 +210,62 @@ public class ClasspathMergingMessageSource extends AbstractMessageSource {
 		} catch (IOException e) {
 			LOG.error("Failed to resolve message bundle pattern: {}", resourcePattern, e);
 		}
-
-		return new CachedBundle(mergedProps, watchedFiles);
 	}
 
-	private static class CachedBundle {
-		private final Properties properties;
-		private final List<WatchedFile> watchedFiles;
-		private long lastCheckTime;
-
-		CachedBundle(Properties properties, List<WatchedFile> watchedFiles) {
-			this.properties = properties;
-			this.watchedFiles = watchedFiles;
-			this.lastCheckTime = System.currentTimeMillis();
+	/**
+	 * Subscribes the message file at the file change watcher (once per file), evicting the
+	 * merged messages whenever the file changes.
+	 *
+	 * @return {@code true} if the file is watched via filesystem notifications, {@code false} if it has to be polled.
+	 */
+	private boolean subscribeForChanges(File file) {
+		if (fileChangeWatcher == null) {
+			return false;
 		}
-
-		Properties getProperties() {
-			return properties;
+		if (!subscribedFiles.add(file)) {
+			return true;
 		}
 
-		boolean isStale(long debounceMillis) {
-			long now = System.currentTimeMillis();
-			if (now - lastCheckTime < debounceMillis) {
-				return false;
-			}
-			this.lastCheckTime = now;
+		FileChangeWatcher.Subscription subscription = fileChangeWatcher.watchFile(file, () -> invalidate(file));
+		if (subscription == null) {
+			subscribedFiles.remove(file);
+			return false;
+		}
+		return true;
+	}
 
-			for (WatchedFile watchedFile : watchedFiles) {
+	/**
+	 * Checks the polled message files of all loaded locales and evicts the merged messages if one of them has changed.
+	 * Called by the background refresher.
+	 */
+	void checkForChanges() {
+		for (LocaleMessages messages : cachedMessages.values()) {
+			for (WatchedFile watchedFile : messages.watchedFiles()) {
 				if (watchedFile.hasChanged()) {
-					return true;
+					invalidate(watchedFile.file());
+					return;
 				}
 			}
-			return false;
 		}
 	}
 
-	private static class WatchedFile {
-		private final File file;
-		private final long lastModifiedAtLoad;
+	/**
+	 * Evicts the merged messages of all locales, as a file may be part of the fallback chain of several locales.
+	 */
+	private synchronized void invalidate(File changedFile) {
+		cachedMessages = Map.of();
+		// Incremented after the eviction, so content rendered with the old messages is never cached as current
+		version.incrementAndGet();
+		LOG.info("Detected change in message file {}. Reloading merged bundles on next lookup...", changedFile.getName());
+	}
 
-		WatchedFile(File file, long lastModifiedAtLoad) {
-			this.file = file;
-			this.lastModifiedAtLoad = lastModifiedAtLoad;
-		}
+	/**
+	 * The merged messages of a locale, the polled files they have been loaded from and the message formats parsed from them.
+	 */
+	private record LocaleMessages(Map<String, String> messages, List<WatchedFile> watchedFiles, Map<String, MessageFormat> formats) {
+	}
 
+	private record WatchedFile(File file, long lastModifiedAtLoad) {
 		boolean hasChanged() {
 			return file.lastModified() > lastModifiedAtLoad;
 		}
@@ -0,0 +1,196 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.util.StatusCodes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.XnioExecutor;
+
+import jakarta.ws.rs.core.MediaType;
+
+import me.cxdev.commerce.proxy.util.TimeUtils;
+
+/**
+ * Limits the number of requests that are processed concurrently, like the request thread pool of a
+ * saturated backend. Constrained by conditions, the limit applies per route (e.g., only to the OCC
+ * cart endpoints).
+ * <p>
+ * Requests beyond the limit wait in a FIFO queue of the given size and are passed on as soon as a
+ * running request has completed. Waiting requests do not block a thread: the exchange is suspended
+ * and the interceptor chain is resumed on the IO thread of the exchange. Requests exceeding the queue
+ * or the maximum wait are rejected with {@code 503 Service Unavailable}. Requests that complete while
+ * waiting (e.g., aborted by the client) leave the queue without taking a slot.
+ * </p>
+ */
+public class ConcurrencyLimitInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimitInterceptor.class);
+	private static final String REJECTED_BODY = "{\"errors\":[{\"type\":\"ServiceUnavailableError\",\"message\":\"Concurrency limit exceeded\"}]}";
+
+	private final int maxConcurrent;
+	private final int maxQueued;
+	private final long maxWaitMs;
+	private final ProxyExchangeInterceptor rejection = new StaticResponseInterceptor(StatusCodes.SERVICE_UNAVAILABLE, MediaType.APPLICATION_JSON,
+			REJECTED_BODY);
+
+	// Guarded by this, as well as the state of all tickets
+	private final Deque<Ticket> queue = new ArrayDeque<>();
+	private int active;
+	private final LongAdder rejected = new LongAdder();
+
+	private enum State {
+		QUEUED, ADMITTED, DONE
+	}
+
+	ConcurrencyLimitInterceptor(int maxConcurrent, int maxQueued, String maxWait) {
+		if (maxConcurrent <= 0) {
+			throw new IllegalArgumentException("Concurrency limit must be positive, but was " + maxConcurrent);
+		}
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = Math.max(0, maxQueued);
+		this.maxWaitMs = Math.max(1, TimeUtils.parseIntervalToMillis(maxWait, "Concurrency limit wait"));
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		Ticket ticket = new Ticket(exchange);
+		State decision;
+		synchronized (this) {
+			if (active < maxConcurrent) {
+				active++;
+				decision = State.ADMITTED;
+			} else if (queue.size() < maxQueued) {
+				queue.addLast(ticket);
+				decision = State.QUEUED;
+			} else {
+				decision = State.DONE;
+			}
+			ticket.state = decision;
+		}
+
+		if (decision == State.DONE) {
+			reject(exchange, "concurrency limit of " + maxConcurrent + " exceeded");
+			return;
+		}
+		// Registered on the thread of the exchange, so it cannot have completed yet
+		exchange.addExchangeCompleteListener(ticket);
+		if (decision == State.QUEUED) {
+			// Suspends the chain until a running request completes and hands over its slot
+			exchange.dispatch(SameThreadExecutor.INSTANCE, () -> ticket.timeout = exchange.getIoThread().executeAfter(ticket::expire, maxWaitMs,
+					TimeUnit.MILLISECONDS));
+		}
+	}
+
+	private void reject(HttpServerExchange exchange, String reason) {
+		rejected.increment();
+		LOG.debug("Rejecting request {}, {}.", exchange.getRequestPath(), reason);
+		exchange.getResponseHeaders().put(Headers.RETRY_AFTER, 1);
+		rejection.apply(exchange);
+	}
+
+	/**
+	 * Hands the slot of a completed request over to the longest waiting request, or frees it.
+	 */
+	private void release() {
+		Ticket next;
+		synchronized (this) {
+			// Skips requests that completed while waiting, before their completion listener has been called
+			while ((next = queue.pollFirst()) != null && next.exchange.isComplete()) {
+				next.state = State.DONE;
+			}
+			if (next == null) {
+				active--;
+				return;
+			}
+			next.state = State.ADMITTED;
+		}
+		Ticket admitted = next;
+		admitted.exchange.getIoThread().execute(admitted::resume);
+	}
+
+	public synchronized int getActiveCount() {
+		return active;
+	}
+
+	public synchronized int getQueuedCount() {
+		return queue.size();
+	}
+
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ConcurrencyLimitInterceptor[%d/%d active, %d queued, %d rejected]", getActiveCount(), maxConcurrent, getQueuedCount(),
+				getRejectedCount());
+	}
+
+	/**
+	 * Tracks a request from its admission or queuing until it completes. The slot of an admitted
+	 * request is released exactly once, when the exchange completes.
+	 */
+	private final class Ticket implements ExchangeCompletionListener {
+		private final HttpServerExchange exchange;
+		private State state;
+		// Only accessed on the IO thread of the exchange
+		private XnioExecutor.Key timeout;
+
+		private Ticket(HttpServerExchange exchange) {
+			this.exchange = exchange;
+		}
+
+		/**
+		 * Continues the interceptor chain once the request has been admitted, on the IO thread of the exchange.
+		 */
+		void resume() {
+			if (timeout != null) {
+				timeout.remove();
+			}
+			if (!exchange.isComplete()) {
+				InterceptorChain.resume(exchange);
+			}
+		}
+
+		/**
+		 * Rejects the request if it is still waiting after the maximum wait.
+		 */
+		void expire() {
+			synchronized (ConcurrencyLimitInterceptor.this) {
+				if (state != State.QUEUED) {
+					return;
+				}
+				queue.remove(this);
+				state = State.DONE;
+			}
+			reject(exchange, "timed out after waiting " + maxWaitMs + " ms for a slot");
+		}
+
+		@Override
+		public void exchangeEvent(HttpServerExchange completed, NextListener nextListener) {
+			try {
+				boolean admitted;
+				synchronized (ConcurrencyLimitInterceptor.this) {
+					admitted = state == State.ADMITTED;
+					if (state == State.QUEUED) {
+						queue.remove(this);
+					}
+					state = State.DONE;
+				}
+				if (admitted) {
+					release();
+				}
+			} finally {
+				nextListener.proceed();
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import io.undertow.server.HttpServerExchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+
+/**
+ * Closes the client connection without sending a response, as a crashed backend or a dropping
+ * load balancer would. Browsers report the request as failed (e.g., {@code ERR_EMPTY_RESPONSE}).
+ * <p>
+ * Over HTTP/2, all requests multiplexed on the connection are aborted.
+ * </p>
+ */
+class ConnectionResetInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(ConnectionResetInterceptor.class);
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		LOG.debug("Injecting connection reset for request: {}", exchange.getRequestPath());
+		exchange.setPersistent(false);
+		IoUtils.safeClose(exchange.getConnection());
+		// Ending the exchange prevents further routing to the upstream server
+		exchange.endExchange();
+	}
+}
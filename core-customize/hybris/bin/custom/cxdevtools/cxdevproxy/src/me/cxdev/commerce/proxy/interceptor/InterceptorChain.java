@@ -0,0 +1,376 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.HttpString;
+import io.undertow.util.SameThreadExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.cxdev.commerce.proxy.interceptor.condition.ConditionIndex;
+import me.cxdev.commerce.proxy.metrics.LatencyHistogram;
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+
+/**
+ * An immutable, pre-compiled sequence of {@link ProxyExchangeInterceptor}s.
+ * <p>
+ * The interceptor list returned by a Groovy rule script is flattened once at compile time:
+ * conditional interceptors built via {@link Interceptors#interceptor()} are unrolled into a
+ * guard step followed by their delegates, with the guard holding the number of steps to skip
+ * if its conditions do not match. Executing the chain is a single loop over plain arrays,
+ * without iterators, streams or per-request allocations.
+ * </p>
+ * <p>
+ * All guards are additionally compiled into a {@link ConditionIndex}. Before the loop, the index
+ * selects the guards that can match the request method and path at all; the conditions of the
+ * other guards are never evaluated. The selection is repeated if an interceptor changes the
+ * method or path of the request.
+ * </p>
+ * <p>
+ * Execution stops as soon as an interceptor starts or completes the response (e.g., a static
+ * mock response or a CORS preflight answer). Otherwise, the exchange is handed to the next handler.
+ * </p>
+ * <p>
+ * An interceptor may suspend the chain without blocking a thread by dispatching the exchange
+ * (e.g., {@code exchange.dispatch(SameThreadExecutor.INSTANCE, task)}). The chain then remembers
+ * where to continue and returns immediately, releasing the IO thread. Once the asynchronous work
+ * is done, the interceptor calls {@link #resume(HttpServerExchange)} to run the remaining steps.
+ * </p>
+ * <p>
+ * If compiled with {@link ProxyMetrics}, every step records its execution time into its own
+ * {@link LatencyHistogram}, so slow rules and conditions can be identified. Uninstrumented chains
+ * do not read the clock at all.
+ * </p>
+ */
+public final class InterceptorChain {
+	private static final Logger LOG = LoggerFactory.getLogger(InterceptorChain.class);
+	private static final InterceptorChain EMPTY = new InterceptorChain(new ArrayList<>());
+	private static final AttachmentKey<Continuation> CONTINUATION = AttachmentKey.create(Continuation.class);
+
+	private final ProxyExchangeInterceptor[] actions;
+	private final ProxyExchangeInterceptorCondition[][] guards;
+	private final boolean[] requireAll;
+	private final int[] skips;
+	private final int interceptorCount;
+	private final ConditionIndex conditionIndex;
+	private final int[] guardBits;
+	private final LatencyHistogram[] timers;
+
+	private InterceptorChain(List<Step> steps) {
+		this(steps, null, null);
+	}
+
+	private InterceptorChain(List<Step> steps, String chainName, ProxyMetrics metrics) {
+		int length = steps.size();
+		this.actions = new ProxyExchangeInterceptor[length];
+		this.guards = new ProxyExchangeInterceptorCondition[length][];
+		this.requireAll = new boolean[length];
+		this.skips = new int[length];
+
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			Step step = steps.get(i);
+			actions[i] = step.action;
+			guards[i] = step.guard;
+			requireAll[i] = step.requireAll;
+			skips[i] = step.skip;
+			if (step.action != null) {
+				count++;
+			}
+		}
+		this.interceptorCount = count;
+		this.conditionIndex = ConditionIndex.build(guards, requireAll);
+		this.guardBits = new int[length];
+		for (int i = 0; i < length; i++) {
+			guardBits[i] = conditionIndex.getBit(i);
+		}
+		this.timers = metrics != null ? createTimers(steps, chainName, metrics) : null;
+	}
+
+	private static LatencyHistogram[] createTimers(List<Step> steps, String chainName, ProxyMetrics metrics) {
+		LatencyHistogram[] timers = new LatencyHistogram[steps.size()];
+		for (int i = 0; i < timers.length; i++) {
+			timers[i] = metrics.interceptorTimer(chainName, String.format("%03d %s", i, steps.get(i).describe()));
+		}
+		return timers;
+	}
+
+	/**
+	 * @return A chain without any interceptors, passing every exchange straight to the next handler.
+	 */
+	public static InterceptorChain empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Compiles the given interceptors into a flat chain.
+	 *
+	 * @param interceptors The interceptors in execution order, may be {@code null}.
+	 * @return The compiled chain.
+	 */
+	public static InterceptorChain compile(List<ProxyExchangeInterceptor> interceptors) {
+		return compile(interceptors, null, null);
+	}
+
+	/**
+	 * Compiles the given interceptors into a flat chain that records the execution time of every step.
+	 *
+	 * @param interceptors The interceptors in execution order, may be {@code null}.
+	 * @param chainName    The name of the chain the timers are registered with (e.g., "frontend").
+	 * @param metrics      The metrics registry, may be {@code null} to compile an uninstrumented chain.
+	 * @return The compiled chain.
+	 */
+	public static InterceptorChain compile(List<ProxyExchangeInterceptor> interceptors, String chainName, ProxyMetrics metrics) {
+		if (interceptors == null || interceptors.isEmpty()) {
+			return EMPTY;
+		}
+
+		List<Step> steps = new ArrayList<>();
+		for (ProxyExchangeInterceptor interceptor : interceptors) {
+			flatten(interceptor, steps);
+		}
+		return new InterceptorChain(steps, chainName, metrics != null && metrics.isEnabled() ? metrics : null);
+	}
+
+	private static void flatten(ProxyExchangeInterceptor interceptor, List<Step> steps) {
+		if (interceptor == null) {
+			return;
+		}
+
+		if (!(interceptor instanceof ProxyInterceptor conditional)) {
+			steps.add(Step.action(interceptor));
+			return;
+		}
+
+		// Mirrors ProxyInterceptor.apply(): without conditions or delegates, nothing is executed
+		if (conditional.getConditions().isEmpty() || conditional.getInterceptors().isEmpty()) {
+			return;
+		}
+
+		int guardIndex = steps.size();
+		steps.add(null);
+		for (ProxyExchangeInterceptor delegate : conditional.getInterceptors()) {
+			flatten(delegate, steps);
+		}
+
+		int skip = steps.size() - guardIndex - 1;
+		if (skip == 0) {
+			steps.remove(guardIndex);
+		} else {
+			ProxyExchangeInterceptorCondition[] guard = conditional.getConditions().toArray(new ProxyExchangeInterceptorCondition[0]);
+			steps.set(guardIndex, Step.guard(guard, conditional.isRequireAllConditions(), skip));
+		}
+	}
+
+	/**
+	 * Applies all interceptors to the exchange and hands it over to the next handler,
+	 * unless an interceptor has already answered the request.
+	 *
+	 * @param exchange The current HTTP server exchange.
+	 * @param next     The handler to continue with, usually the proxy handler.
+	 * @throws Exception If an interceptor or the next handler fails.
+	 */
+	public void execute(HttpServerExchange exchange, HttpHandler next) throws Exception {
+		if (proceed(exchange, 0, next)) {
+			next.handleRequest(exchange);
+		}
+	}
+
+	/**
+	 * Continues a chain that has been suspended by an interceptor dispatching the exchange.
+	 * The remaining steps and the next handler are executed as a new root handler call on the
+	 * current thread, usually the IO thread of the exchange.
+	 *
+	 * @param exchange The suspended HTTP server exchange.
+	 */
+	public static void resume(HttpServerExchange exchange) {
+		Continuation continuation = exchange.removeAttachment(CONTINUATION);
+		if (continuation == null) {
+			LOG.warn("Cannot resume request {}, the interceptor chain has not been suspended.", exchange.getRequestURI());
+			return;
+		}
+		exchange.dispatch(SameThreadExecutor.INSTANCE, continuation);
+	}
+
+	/**
+	 * Runs the steps starting at the given index.
+	 *
+	 * @return {@code true} if the exchange should be passed on to the next handler,
+	 *         {@code false} if the response has been answered or the chain has been suspended.
+	 */
+	boolean proceed(HttpServerExchange exchange, int from, HttpHandler next) {
+		if (timers != null) {
+			return proceedTimed(exchange, from, next);
+		}
+
+		int length = actions.length;
+		int i = from;
+		HttpString method = exchange.getRequestMethod();
+		String path = exchange.getRequestPath();
+		long candidates = conditionIndex.select(exchange);
+		while (i < length) {
+			ProxyExchangeInterceptorCondition[] guard = guards[i];
+			if (guard != null) {
+				i += isCandidate(candidates, i) && matches(guard, requireAll[i], exchange) ? 1 : 1 + skips[i];
+				continue;
+			}
+
+			actions[i].apply(exchange);
+			if (exchange.isResponseStarted() || exchange.isComplete()) {
+				return false;
+			}
+			if (exchange.getRequestMethod() != method || exchange.getRequestPath() != path) {
+				method = exchange.getRequestMethod();
+				path = exchange.getRequestPath();
+				candidates = conditionIndex.select(exchange);
+			}
+			i++;
+			if (exchange.isDispatched()) {
+				exchange.putAttachment(CONTINUATION, new Continuation(this, i, next));
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean proceedTimed(HttpServerExchange exchange, int from, HttpHandler next) {
+		int length = actions.length;
+		int i = from;
+		HttpString method = exchange.getRequestMethod();
+		String path = exchange.getRequestPath();
+		long candidates = conditionIndex.select(exchange);
+		while (i < length) {
+			long start = System.nanoTime();
+			ProxyExchangeInterceptorCondition[] guard = guards[i];
+			if (guard != null) {
+				boolean matches = isCandidate(candidates, i) && matches(guard, requireAll[i], exchange);
+				timers[i].recordSince(start);
+				i += matches ? 1 : 1 + skips[i];
+				continue;
+			}
+
+			try {
+				actions[i].apply(exchange);
+			} finally {
+				timers[i].recordSince(start);
+			}
+			if (exchange.isResponseStarted() || exchange.isComplete()) {
+				return false;
+			}
+			if (exchange.getRequestMethod() != method || exchange.getRequestPath() != path) {
+				method = exchange.getRequestMethod();
+				path = exchange.getRequestPath();
+				candidates = conditionIndex.select(exchange);
+			}
+			i++;
+			if (exchange.isDispatched()) {
+				exchange.putAttachment(CONTINUATION, new Continuation(this, i, next));
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isCandidate(long candidates, int step) {
+		int bit = guardBits[step];
+		return bit < 0 || (candidates & (1L << bit)) != 0;
+	}
+
+	private static boolean matches(ProxyExchangeInterceptorCondition[] guard, boolean requireAll, HttpServerExchange exchange) {
+		if (requireAll) {
+			for (ProxyExchangeInterceptorCondition condition : guard) {
+				if (!condition.matches(exchange)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		for (ProxyExchangeInterceptorCondition condition : guard) {
+			if (condition.matches(exchange)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The number of executable interceptors after flattening, excluding guard steps.
+	 */
+	public int getInterceptorCount() {
+		return interceptorCount;
+	}
+
+	/**
+	 * @return The total number of compiled steps, including guard steps.
+	 */
+	public int getStepCount() {
+		return actions.length;
+	}
+
+	/**
+	 * The remaining part of a suspended chain, re-entered as root handler on {@link #resume(HttpServerExchange)}.
+	 */
+	private static final class Continuation implements HttpHandler {
+		private final InterceptorChain chain;
+		private final int from;
+		private final HttpHandler next;
+
+		private Continuation(InterceptorChain chain, int from, HttpHandler next) {
+			this.chain = chain;
+			this.from = from;
+			this.next = next;
+		}
+
+		@Override
+		public void handleRequest(HttpServerExchange exchange) throws Exception {
+			if (chain.proceed(exchange, from, next)) {
+				next.handleRequest(exchange);
+			}
+		}
+	}
+
+	private static final class Step {
+		private final ProxyExchangeInterceptor action;
+		private final ProxyExchangeInterceptorCondition[] guard;
+		private final boolean requireAll;
+		private final int skip;
+
+		private Step(ProxyExchangeInterceptor action, ProxyExchangeInterceptorCondition[] guard, boolean requireAll, int skip) {
+			this.action = action;
+			this.guard = guard;
+			this.requireAll = requireAll;
+			this.skip = skip;
+		}
+
+		static Step action(ProxyExchangeInterceptor action) {
+			return new Step(action, null, false, 0);
+		}
+
+		static Step guard(ProxyExchangeInterceptorCondition[] guard, boolean requireAll, int skip) {
+			return new Step(null, guard, requireAll, skip);
+		}
+
+		String describe() {
+			if (action != null) {
+				return nameOf(action);
+			}
+			StringBuilder sb = new StringBuilder(requireAll ? "if all(" : "if any(");
+			for (int i = 0; i < guard.length; i++) {
+				sb.append(i > 0 ? ", " : "").append(nameOf(guard[i]));
+			}
+			return sb.append(')').toString();
+		}
+
+		private static String nameOf(Object object) {
+			String name = object.getClass().getSimpleName();
+			int lambdaIndex = name.indexOf("$$Lambda");
+			return lambdaIndex > 0 ? name.substring(0, lambdaIndex) : name;
+		}
+	}
+}
@@ -3,13 +3,20 @@ package me.cxdev.commerce.proxy.interceptor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
 import jakarta.ws.rs.core.MediaType;
 
+import me.cxdev.commerce.proxy.interceptor.condition.Conditions;
+
 public final class Interceptors {
 	private static final int DEFAULT_STATUS_CODE = 200;
+	private static final String DEFAULT_CACHE_SIZE = "16mb";
+	private static final String DEFAULT_COALESCED_BODY_SIZE = "8mb";
+	private static final String DEFAULT_CONCURRENCY_LIMIT_WAIT = "30s";
+	private static final String FAULT_RESPONSE_BODY = "{\"errors\":[{\"type\":\"InjectedFaultError\",\"message\":\"Fault injected by the proxy\"}]}";
 
 	public static ProxyExchangeInterceptor htmlResponse(String responseBody) {
 		return htmlResponse(DEFAULT_STATUS_CODE, responseBody);
@@ -41,6 +48,70 @@ public final class Interceptors {
 		return new NetworkDelayInterceptor(minDelay, maxDelay);
 	}
 
+	public static ProxyExchangeInterceptor networkDelay(String minDelay, String maxDelay, long bytesPerSecond) {
+		return new NetworkDelayInterceptor(minDelay, maxDelay, bytesPerSecond);
+	}
+
+	public static ProxyExchangeInterceptor bandwidthLimit(long bytesPerSecond) {
+		return new NetworkDelayInterceptor(null, null, bytesPerSecond);
+	}
+
+	public static ResponseCacheInterceptor cache(String ttl) {
+		return cache(ttl, DEFAULT_CACHE_SIZE);
+	}
+
+	public static ResponseCacheInterceptor cache(String ttl, String maxSize) {
+		return new ResponseCacheInterceptor(ttl, maxSize);
+	}
+
+	public static RequestCoalescingInterceptor coalesce() {
+		return coalesce(DEFAULT_COALESCED_BODY_SIZE);
+	}
+
+	public static RequestCoalescingInterceptor coalesce(String maxBodySize) {
+		return new RequestCoalescingInterceptor(maxBodySize);
+	}
+
+	public static ProxyExchangeInterceptor rewriteBody(String search, String replacement) {
+		return rewriteBody(Map.of(search, StringUtils.defaultString(replacement)));
+	}
+
+	public static ProxyExchangeInterceptor rewriteBody(Map<String, String> replacements) {
+		return new ResponseRewriteInterceptor(replacements);
+	}
+
+	public static ProxyExchangeInterceptor failRate(double rate, int statusCode) {
+		return withChance(rate, jsonResponse(statusCode, FAULT_RESPONSE_BODY));
+	}
+
+	public static ProxyExchangeInterceptor withChance(double probability, ProxyExchangeInterceptor... interceptors) {
+		return interceptor().constrainedBy(Conditions.chance(probability)).perform(interceptors);
+	}
+
+	public static ProxyExchangeInterceptor connectionReset() {
+		return new ConnectionResetInterceptor();
+	}
+
+	public static ProxyExchangeInterceptor truncatedBody(String maxSize) {
+		return new TruncatedBodyInterceptor(maxSize);
+	}
+
+	public static ProxyExchangeInterceptor slowDrip(int bytesPerInterval, String interval) {
+		return new SlowDripInterceptor(bytesPerInterval, interval);
+	}
+
+	public static ConcurrencyLimitInterceptor concurrencyLimit(int maxConcurrent) {
+		return concurrencyLimit(maxConcurrent, 0);
+	}
+
+	public static ConcurrencyLimitInterceptor concurrencyLimit(int maxConcurrent, int maxQueued) {
+		return concurrencyLimit(maxConcurrent, maxQueued, DEFAULT_CONCURRENCY_LIMIT_WAIT);
+	}
+
+	public static ConcurrencyLimitInterceptor concurrencyLimit(int maxConcurrent, int maxQueued, String maxWait) {
+		return new ConcurrencyLimitInterceptor(maxConcurrent, maxQueued, maxWait);
+	}
+
 	public static Builder interceptor() {
 		return new Builder();
 	}
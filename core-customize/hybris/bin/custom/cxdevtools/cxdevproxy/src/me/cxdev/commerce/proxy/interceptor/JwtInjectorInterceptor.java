@@ -1,8 +1,11 @@
 package me.cxdev.commerce.proxy.interceptor;
 
+import java.util.concurrent.CompletableFuture;
+
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.Cookie;
 import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -18,6 +21,10 @@ import me.cxdev.commerce.jwt.service.JwtTokenService;
  * proxy's developer portal. If found, it requests a signed JWT from the {@link CxJwtTokenService}
  * and appends it as an standard {@code Authorization: Bearer <token>} header.
  * </p>
+ * <p>
+ * Cached tokens are injected right away. If the token still has to be signed, the interceptor chain
+ * is suspended and resumed on the IO thread of the exchange once the token is available.
+ * </p>
  */
 public class JwtInjectorInterceptor implements ProxyExchangeInterceptor {
 	private static final Logger LOG = LoggerFactory.getLogger(JwtInjectorInterceptor.class);
@@ -40,16 +47,34 @@ public class JwtInjectorInterceptor implements ProxyExchangeInterceptor {
 				userIdCookie != null && StringUtils.isNotBlank(userIdCookie.getValue())) {
 			String userType = userTypeCookie.getValue();
 			String userId = userIdCookie.getValue();
-			String token = jwtTokenService.getOrGenerateToken(userType, userId);
+			CompletableFuture<String> token = jwtTokenService.getOrGenerateTokenAsync(userType, userId);
 
-			if (token != null) {
-				// Remove any existing authorization header from the client to enforce our mock token
-				exchange.getRequestHeaders().remove(Headers.AUTHORIZATION);
-
-				// Inject the mocked token
-				exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
-				LOG.debug("Injected mocked JWT for user '{}' into request to {}", userId, exchange.getRequestPath());
+			if (token.isDone()) {
+				injectToken(exchange, userId, token.isCompletedExceptionally() ? null : token.join());
+				return;
 			}
+
+			// Suspends the chain until the token has been signed, the IO thread is not blocked meanwhile
+			exchange.dispatch(SameThreadExecutor.INSTANCE, () -> token.whenComplete((signed, error) -> {
+				if (error != null) {
+					LOG.warn("Could not sign JWT for user '{}'.", userId, error);
+				}
+				exchange.getIoThread().execute(() -> {
+					injectToken(exchange, userId, error == null ? signed : null);
+					InterceptorChain.resume(exchange);
+				});
+			}));
+		}
+	}
+
+	private static void injectToken(HttpServerExchange exchange, String userId, String token) {
+		if (token != null) {
+			// Remove any existing authorization header from the client to enforce our mock token
+			exchange.getRequestHeaders().remove(Headers.AUTHORIZATION);
+
+			// Inject the mocked token
+			exchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer " + token);
+			LOG.debug("Injected mocked JWT for user '{}' into request to {}", userId, exchange.getRequestPath());
 		}
 	}
 
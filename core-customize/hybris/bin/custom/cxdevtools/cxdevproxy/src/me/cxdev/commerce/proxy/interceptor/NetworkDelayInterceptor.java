@@ -1,8 +1,11 @@
 package me.cxdev.commerce.proxy.interceptor;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+import io.undertow.conduits.RateLimitingStreamSinkConduit;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.SameThreadExecutor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,14 +17,24 @@ import me.cxdev.commerce.proxy.util.TimeUtils;
  * or a slow backend environment. Perfect for testing frontend loading states.
  * <p>
  * Supports a randomized delay between a configured minimum and maximum value.
- * Note: Uses Thread.sleep() which blocks the current worker thread.
+ * The delay does not block any thread: the exchange is suspended and the interceptor chain
+ * is resumed by a timer task on the IO thread of the exchange, so thousands of delayed
+ * requests can be in flight at the same time.
+ * </p>
+ * <p>
+ * Optionally limits the bandwidth of the response body to the given number of bytes per second,
+ * simulating slow mobile connections.
  * </p>
  */
 class NetworkDelayInterceptor implements ProxyExchangeInterceptor {
 	private static final Logger LOG = LoggerFactory.getLogger(NetworkDelayInterceptor.class);
 
-	private long minDelayInMillis;
-	private long maxDelayInMillis;
+	// Bandwidth is enforced in small time frames to avoid bursts at the start of each second
+	private static final long THROTTLE_FRAMES_PER_SECOND = 10;
+
+	private final long minDelayInMillis;
+	private final long maxDelayInMillis;
+	private final long bytesPerSecond;
 
 	/**
 	 * Convenience constructor to assign a fixed delay (sets both min and max to the same value).
@@ -29,27 +42,33 @@ class NetworkDelayInterceptor implements ProxyExchangeInterceptor {
 	NetworkDelayInterceptor(String delay) {
 		this.minDelayInMillis = TimeUtils.parseIntervalToMillis(delay, "Network delay interceptor interval");
 		this.maxDelayInMillis = this.minDelayInMillis;
+		this.bytesPerSecond = 0;
 	}
 
 	NetworkDelayInterceptor(String minDelay, String maxDelay) {
+		this(minDelay, maxDelay, 0);
+	}
+
+	NetworkDelayInterceptor(String minDelay, String maxDelay, long bytesPerSecond) {
 		this.minDelayInMillis = TimeUtils.parseIntervalToMillis(minDelay, "Network minimum delay interceptor interval");
-		;
 		this.maxDelayInMillis = TimeUtils.parseIntervalToMillis(maxDelay, "Network maximum delay interceptor interval");
-		;
+		this.bytesPerSecond = bytesPerSecond;
 	}
 
 	@Override
 	public void apply(HttpServerExchange exchange) {
-		long actualDelay = calculateDelay();
+		if (bytesPerSecond > 0) {
+			int bytesPerFrame = (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytesPerSecond / THROTTLE_FRAMES_PER_SECOND));
+			exchange.addResponseWrapper((factory, ex) -> new RateLimitingStreamSinkConduit(factory.create(), bytesPerFrame,
+					1000 / THROTTLE_FRAMES_PER_SECOND, TimeUnit.MILLISECONDS));
+		}
 
+		long actualDelay = calculateDelay();
 		if (actualDelay > 0) {
-			try {
-				LOG.debug("Simulating network delay of {} ms for request: {}", actualDelay, exchange.getRequestPath());
-				Thread.sleep(actualDelay);
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				LOG.warn("Network delay simulation was interrupted", e);
-			}
+			LOG.debug("Simulating network delay of {} ms for request: {}", actualDelay, exchange.getRequestPath());
+			// Suspends the chain; the timer is scheduled once the current handler call has returned
+			exchange.dispatch(SameThreadExecutor.INSTANCE, () -> exchange.getIoThread()
+					.executeAfter(() -> InterceptorChain.resume(exchange), actualDelay, TimeUnit.MILLISECONDS));
 		}
 	}
 
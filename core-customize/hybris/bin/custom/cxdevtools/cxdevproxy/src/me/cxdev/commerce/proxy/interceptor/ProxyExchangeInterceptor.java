@@ -5,6 +5,11 @@ import io.undertow.server.HttpServerExchange;
 /**
  * Interface for applying custom rules and headers to an Undertow HttpServerExchange
  * before it is proxied to the target server.
+ * <p>
+ * Interceptors are executed on the IO thread and should not block. An interceptor that needs
+ * to wait (e.g., to simulate latency) dispatches the exchange and later continues the chain
+ * via {@link InterceptorChain#resume(HttpServerExchange)}.
+ * </p>
  */
 public interface ProxyExchangeInterceptor {
 	/**
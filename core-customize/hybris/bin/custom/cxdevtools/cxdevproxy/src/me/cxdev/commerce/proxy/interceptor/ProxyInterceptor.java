@@ -45,15 +45,32 @@ class ProxyInterceptor implements ProxyExchangeInterceptor {
 			return;
 		}
 
-		boolean match = requireAllConditions
-				? conditions.stream().allMatch(c -> c.matches(exchange))
-				: conditions.stream().anyMatch(c -> c.matches(exchange));
-
-		if (match) {
+		if (matches(exchange)) {
 			LOG.debug("Conditions met. Executing {} delegate handler(s) for {}", interceptors.size(), exchange.getRequestPath());
 			for (ProxyExchangeInterceptor delegate : interceptors) {
 				delegate.apply(exchange);
 			}
 		}
 	}
+
+	private boolean matches(HttpServerExchange exchange) {
+		for (ProxyExchangeInterceptorCondition condition : conditions) {
+			if (condition.matches(exchange) != requireAllConditions) {
+				return !requireAllConditions;
+			}
+		}
+		return requireAllConditions;
+	}
+
+	List<ProxyExchangeInterceptorCondition> getConditions() {
+		return conditions;
+	}
+
+	List<ProxyExchangeInterceptor> getInterceptors() {
+		return interceptors;
+	}
+
+	boolean isRequireAllConditions() {
+		return requireAllConditions;
+	}
 }
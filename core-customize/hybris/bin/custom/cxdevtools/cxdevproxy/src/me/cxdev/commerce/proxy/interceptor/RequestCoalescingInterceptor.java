@@ -0,0 +1,221 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import io.undertow.util.SameThreadExecutor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.cxdev.commerce.proxy.replay.CapturingStreamSinkConduit;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+
+/**
+ * Collapses simultaneous identical GET requests into a single upstream call.
+ * <p>
+ * Requests are identical if method, host, URI, query, the identity of the caller
+ * ({@code Authorization} and {@code Cookie} headers) and the content negotiation headers match.
+ * The first request is passed on to the upstream server while its response body is buffered.
+ * Identical requests arriving in the meantime are suspended without blocking a thread and
+ * receive a copy of the buffered response (marked with {@code X-CxDevProxy-Coalesced: true})
+ * as soon as the first one has completed.
+ * </p>
+ * <p>
+ * If the first request fails, its response is not a cacheable final response (e.g., a {@code 503} of an
+ * unreachable backend), its body exceeds the maximum size or its response sets a cookie (e.g., a freshly
+ * issued session), the waiting requests continue to the upstream server on their own. Nothing is kept
+ * after the response has been delivered.
+ * </p>
+ * <p>
+ * Conditional and range requests are never coalesced, as their {@code 304} and {@code 206} responses
+ * only fit the validators and ranges of the requesting client.
+ * </p>
+ */
+public class RequestCoalescingInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(RequestCoalescingInterceptor.class);
+	private static final HttpString COALESCED_HEADER = HttpString.tryFromString("X-CxDevProxy-Coalesced");
+	private static final HttpString[] KEY_HEADERS = { Headers.HOST, Headers.AUTHORIZATION, Headers.COOKIE, Headers.ACCEPT,
+			Headers.ACCEPT_LANGUAGE, Headers.ACCEPT_ENCODING };
+	private static final HttpString[] CONDITIONAL_HEADERS = { Headers.RANGE, Headers.IF_RANGE, Headers.IF_NONE_MATCH,
+			Headers.IF_MODIFIED_SINCE, Headers.IF_MATCH, Headers.IF_UNMODIFIED_SINCE };
+	private static final Set<Integer> SHAREABLE_STATUS_CODES = Set.of(200, 203, 204, 300, 301, 404, 410);
+	private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding", "content-length",
+			"upgrade", "trailer");
+
+	private final int maxBodySize;
+	private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder upstreamCount = new LongAdder();
+	private final LongAdder coalescedCount = new LongAdder();
+
+	RequestCoalescingInterceptor(String maxBodySize) {
+		this.maxBodySize = (int) Math.min(Integer.MAX_VALUE, DataSizeUtils.parseSizeToBytes(maxBodySize, "Coalesced body size"));
+	}
+
+	record SharedResponse(int status, HeaderMap headers, byte[] body) {
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		if (!Methods.GET.equals(exchange.getRequestMethod()) || isConditional(exchange.getRequestHeaders())) {
+			return;
+		}
+
+		String key = createKey(exchange);
+		Flight flight = new Flight(key);
+		Flight existing = inFlight.putIfAbsent(key, flight);
+		if (existing != null) {
+			coalescedCount.increment();
+			LOG.debug("Coalescing request {} with a request in flight.", key);
+			// Suspends the chain until the response of the request in flight is available
+			exchange.dispatch(SameThreadExecutor.INSTANCE, () -> existing.join(exchange));
+			return;
+		}
+
+		upstreamCount.increment();
+		exchange.addResponseWrapper((factory, ex) -> {
+			if (!SHAREABLE_STATUS_CODES.contains(ex.getStatusCode()) || ex.getResponseHeaders().contains(Headers.SET_COOKIE)) {
+				// Errors are not shared, and a cookie issued to this client must not be handed out to other clients
+				flight.complete(null);
+				return factory.create();
+			}
+			return new CapturingStreamSinkConduit(factory.create(), maxBodySize,
+					body -> flight.complete(new SharedResponse(ex.getStatusCode(), snapshotHeaders(ex.getResponseHeaders()), body)));
+		});
+		exchange.addExchangeCompleteListener((ex, nextListener) -> {
+			// No-op if the response has been captured, otherwise the waiting requests go upstream themselves
+			flight.complete(null);
+			nextListener.proceed();
+		});
+	}
+
+	private static boolean isConditional(HeaderMap requestHeaders) {
+		for (HttpString header : CONDITIONAL_HEADERS) {
+			if (requestHeaders.contains(header)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	String createKey(HttpServerExchange exchange) {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append(exchange.getRequestMethod()).append(' ').append(exchange.getRequestURI());
+		if (StringUtils.isNotEmpty(exchange.getQueryString())) {
+			sb.append('?').append(exchange.getQueryString());
+		}
+		for (HttpString header : KEY_HEADERS) {
+			HeaderValues values = exchange.getRequestHeaders().get(header);
+			if (values != null) {
+				sb.append('\n').append(header).append(": ").append(String.join(", ", values));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static HeaderMap snapshotHeaders(HeaderMap headers) {
+		HeaderMap snapshot = new HeaderMap();
+		for (HeaderValues values : headers) {
+			if (!SKIPPED_HEADERS.contains(values.getHeaderName().toString().toLowerCase(Locale.ROOT))) {
+				snapshot.putAll(values.getHeaderName(), values);
+			}
+		}
+		return snapshot;
+	}
+
+	private static void deliver(HttpServerExchange exchange, SharedResponse response) {
+		if (response == null) {
+			InterceptorChain.resume(exchange);
+			return;
+		}
+
+		exchange.setStatusCode(response.status());
+		HeaderMap responseHeaders = exchange.getResponseHeaders();
+		for (HeaderValues values : response.headers()) {
+			responseHeaders.putAll(values.getHeaderName(), values);
+		}
+		responseHeaders.put(COALESCED_HEADER, "true");
+		exchange.setResponseContentLength(response.body().length);
+		// The sender completes the exchange once the whole body is written
+		exchange.getResponseSender().send(ByteBuffer.wrap(response.body()).asReadOnlyBuffer());
+	}
+
+	/**
+	 * @return The number of requests that have been passed on to the upstream server.
+	 */
+	public long getUpstreamCount() {
+		return upstreamCount.sum();
+	}
+
+	/**
+	 * @return The number of requests that have been answered with the response of another request.
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * @return The number of distinct requests currently in flight.
+	 */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	/**
+	 * A request in flight and the identical requests waiting for its response.
+	 */
+	private final class Flight {
+		private final String key;
+		private final List<HttpServerExchange> waiters = new ArrayList<>();
+		private boolean done;
+		private SharedResponse response;
+
+		private Flight(String key) {
+			this.key = key;
+		}
+
+		void join(HttpServerExchange exchange) {
+			synchronized (this) {
+				if (!done) {
+					waiters.add(exchange);
+					return;
+				}
+			}
+			deliver(exchange, response);
+		}
+
+		/**
+		 * @param sharedResponse The buffered response, or {@code null} if the waiters have to proceed on their own.
+		 */
+		void complete(SharedResponse sharedResponse) {
+			List<HttpServerExchange> pending;
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				done = true;
+				response = sharedResponse;
+				pending = new ArrayList<>(waiters);
+				waiters.clear();
+			}
+			inFlight.remove(key, this);
+
+			for (HttpServerExchange waiter : pending) {
+				waiter.getIoThread().execute(() -> deliver(waiter, sharedResponse));
+			}
+		}
+	}
+}
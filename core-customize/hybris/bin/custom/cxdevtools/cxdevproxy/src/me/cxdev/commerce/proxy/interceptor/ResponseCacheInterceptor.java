@@ -0,0 +1,314 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.cxdev.commerce.proxy.cache.BoundedCache;
+import me.cxdev.commerce.proxy.replay.CapturingStreamSinkConduit;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+import me.cxdev.commerce.proxy.util.TimeUtils;
+
+/**
+ * Caches upstream responses to GET requests in memory and answers repeated requests without
+ * contacting the upstream server.
+ * <p>
+ * The cache honors HTTP caching semantics as a shared cache would:
+ * </p>
+ * <ul>
+ * <li>Responses with {@code Cache-Control: no-store}, {@code no-cache} or {@code private}, with
+ * {@code Set-Cookie} or {@code Vary: *} are not stored.</li>
+ * <li>{@code s-maxage} and {@code max-age} of the response override the configured time-to-live.</li>
+ * <li>Responses to requests with an {@code Authorization} header are only stored if they are {@code public}.</li>
+ * <li>Requests with {@code Cache-Control: no-store} bypass the cache, {@code no-cache} forces a refresh.</li>
+ * <li>Request headers listed in {@code Vary} become part of the cache key.</li>
+ * </ul>
+ * <p>
+ * Hits are answered on the IO thread with the header {@code X-CxDevProxy-Cache: HIT}. Entries can
+ * be invalidated from the Groovy rules, e.g. by an {@link #invalidator()} constrained to mutating requests.
+ * </p>
+ */
+public class ResponseCacheInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseCacheInterceptor.class);
+	private static final HttpString CACHE_HEADER = HttpString.tryFromString("X-CxDevProxy-Cache");
+	private static final Set<Integer> CACHEABLE_STATUS_CODES = Set.of(200, 203, 204, 300, 301, 404, 410);
+	private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding", "content-length",
+			"date", "age", "upgrade", "trailer");
+	// The Vary index holds one small entry per cached URL, the least recently used URLs are evicted beyond this size
+	private static final int MAX_VARY_INDEX_SIZE = 10_000;
+	private static final long ENTRY_OVERHEAD = 256;
+
+	private final long defaultTtlMillis;
+	private final int maxBodySize;
+	private final BoundedCache<String, CachedResponse> cache;
+	private final Map<String, List<HttpString>> varyIndex = Collections.synchronizedMap(new VaryIndex());
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	ResponseCacheInterceptor(String ttl, String maxSize) {
+		this.defaultTtlMillis = TimeUtils.parseIntervalToMillis(ttl, "Response cache time-to-live");
+		long maxBytes = DataSizeUtils.parseSizeToBytes(maxSize, "Response cache size");
+		this.maxBodySize = (int) Math.min(Integer.MAX_VALUE, maxBytes);
+		this.cache = new BoundedCache<>("response", maxBytes, CachedResponse::weight);
+	}
+
+	/**
+	 * Maps URLs to the request headers their responses vary on. Evicting a URL also evicts its cached
+	 * responses, which cannot be found without the index entry.
+	 */
+	private class VaryIndex extends LinkedHashMap<String, List<HttpString>> {
+		private static final long serialVersionUID = 1L;
+
+		VaryIndex() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<HttpString>> eldest) {
+			if (size() <= MAX_VARY_INDEX_SIZE) {
+				return false;
+			}
+			String primaryKey = eldest.getKey();
+			cache.removeIf(key -> isVariantOf(key, primaryKey));
+			return true;
+		}
+	}
+
+	record CachedResponse(String primaryKey, int status, HeaderMap headers, byte[] body, long storedAt, long expiresAt) {
+		long weight() {
+			return ENTRY_OVERHEAD + body.length;
+		}
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		if (!Methods.GET.equals(exchange.getRequestMethod()) || !cache.isEnabled()) {
+			return;
+		}
+
+		String requestCacheControl = StringUtils.defaultString(exchange.getRequestHeaders().getFirst(Headers.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+		if (requestCacheControl.contains("no-store")) {
+			return;
+		}
+
+		String primaryKey = exchange.getRequestURI() + (StringUtils.isEmpty(exchange.getQueryString()) ? "" : "?" + exchange.getQueryString());
+		boolean refresh = requestCacheControl.contains("no-cache") || "no-cache".equalsIgnoreCase(exchange.getRequestHeaders().getFirst(Headers.PRAGMA));
+		if (!refresh) {
+			List<HttpString> varyHeaders = varyIndex.get(primaryKey);
+			if (varyHeaders != null) {
+				String key = createKey(primaryKey, varyHeaders, exchange);
+				CachedResponse cached = cache.get(key);
+				if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+					hits.increment();
+					sendCached(exchange, cached);
+					return;
+				} else if (cached != null) {
+					cache.remove(key);
+				}
+			}
+		}
+
+		misses.increment();
+		exchange.getResponseHeaders().put(CACHE_HEADER, "MISS");
+		// Always fill the cache with complete responses, a 304 for one client is meaningless for others
+		exchange.getRequestHeaders().remove(Headers.IF_NONE_MATCH);
+		exchange.getRequestHeaders().remove(Headers.IF_MODIFIED_SINCE);
+		boolean authorized = exchange.getRequestHeaders().contains(Headers.AUTHORIZATION);
+		exchange.addResponseWrapper((factory, ex) -> new CapturingStreamSinkConduit(factory.create(), maxBodySize,
+				body -> store(ex, primaryKey, authorized, body)));
+	}
+
+	private void sendCached(HttpServerExchange exchange, CachedResponse cached) {
+		exchange.setStatusCode(cached.status());
+		HeaderMap responseHeaders = exchange.getResponseHeaders();
+		for (HeaderValues values : cached.headers()) {
+			responseHeaders.putAll(values.getHeaderName(), values);
+		}
+		responseHeaders.put(Headers.AGE, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - cached.storedAt()));
+		responseHeaders.put(CACHE_HEADER, "HIT");
+		exchange.setResponseContentLength(cached.body().length);
+
+		// The sender completes the exchange once the whole body is written, the started response stops the chain
+		exchange.getResponseSender().send(ByteBuffer.wrap(cached.body()).asReadOnlyBuffer());
+	}
+
+	private void store(HttpServerExchange exchange, String primaryKey, boolean authorized, byte[] body) {
+		HeaderMap headers = exchange.getResponseHeaders();
+		if (!CACHEABLE_STATUS_CODES.contains(exchange.getStatusCode()) || headers.contains(Headers.SET_COOKIE)) {
+			return;
+		}
+
+		String cacheControl = StringUtils.defaultString(headers.getFirst(Headers.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+		if (cacheControl.contains("no-store") || cacheControl.contains("no-cache") || cacheControl.contains("private")
+				|| (authorized && !cacheControl.contains("public"))) {
+			return;
+		}
+
+		long ttlMillis = resolveTtl(cacheControl);
+		List<HttpString> varyHeaders = resolveVaryHeaders(headers);
+		if (ttlMillis <= 0 || varyHeaders == null) {
+			return;
+		}
+
+		HeaderMap snapshot = new HeaderMap();
+		for (HeaderValues values : headers) {
+			String name = values.getHeaderName().toString().toLowerCase(Locale.ROOT);
+			if (!SKIPPED_HEADERS.contains(name) && !CACHE_HEADER.equals(values.getHeaderName())) {
+				snapshot.putAll(values.getHeaderName(), values);
+			}
+		}
+
+		varyIndex.put(primaryKey, varyHeaders);
+
+		long now = System.currentTimeMillis();
+		String key = createKey(primaryKey, varyHeaders, exchange);
+		if (cache.put(key, new CachedResponse(primaryKey, exchange.getStatusCode(), snapshot, body, now, now + ttlMillis))) {
+			LOG.debug("Cached response for {} for {} ms.", key, ttlMillis);
+		}
+	}
+
+	private long resolveTtl(String cacheControl) {
+		long maxAge = parseDirective(cacheControl, "s-maxage");
+		if (maxAge < 0) {
+			maxAge = parseDirective(cacheControl, "max-age");
+		}
+		return maxAge >= 0 ? TimeUnit.SECONDS.toMillis(maxAge) : defaultTtlMillis;
+	}
+
+	private static long parseDirective(String cacheControl, String directive) {
+		for (String part : cacheControl.split(",")) {
+			String trimmed = part.trim();
+			if (trimmed.startsWith(directive + "=")) {
+				try {
+					return Long.parseLong(StringUtils.strip(trimmed.substring(directive.length() + 1), "\""));
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The request headers the response varies on, or {@code null} if the response must not be cached.
+	 */
+	private static List<HttpString> resolveVaryHeaders(HeaderMap headers) {
+		List<HttpString> varyHeaders = new ArrayList<>();
+		HeaderValues vary = headers.get(Headers.VARY);
+		if (vary != null) {
+			for (String value : vary) {
+				for (String name : value.split(",")) {
+					String trimmed = name.trim();
+					if ("*".equals(trimmed)) {
+						return null;
+					}
+					if (!trimmed.isEmpty()) {
+						varyHeaders.add(HttpString.tryFromString(trimmed));
+					}
+				}
+			}
+		}
+		// Encoded bodies must never be served to clients that did not ask for them
+		if (headers.contains(Headers.CONTENT_ENCODING) && !varyHeaders.contains(Headers.ACCEPT_ENCODING)) {
+			varyHeaders.add(Headers.ACCEPT_ENCODING);
+		}
+		return List.copyOf(varyHeaders);
+	}
+
+	private static boolean isVariantOf(String key, String primaryKey) {
+		return key.startsWith(primaryKey) && (key.length() == primaryKey.length() || key.charAt(primaryKey.length()) == '\n');
+	}
+
+	private static String createKey(String primaryKey, List<HttpString> varyHeaders, HttpServerExchange exchange) {
+		if (varyHeaders.isEmpty()) {
+			return primaryKey;
+		}
+		StringBuilder sb = new StringBuilder(primaryKey);
+		for (HttpString header : varyHeaders) {
+			HeaderValues values = exchange.getRequestHeaders().get(header);
+			sb.append('\n').append(header).append(": ").append(values != null ? String.join(", ", values) : "");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Removes all cached responses.
+	 *
+	 * @return The number of removed responses.
+	 */
+	public int invalidateAll() {
+		int removed = cache.size();
+		cache.clear();
+		varyIndex.clear();
+		LOG.debug("Invalidated all {} cached responses.", removed);
+		return removed;
+	}
+
+	/**
+	 * Removes all cached responses whose request URI starts with the given prefix.
+	 *
+	 * @param uriPrefix The URI prefix, e.g. {@code /occ/v2/electronics/cms}.
+	 * @return The number of removed responses.
+	 */
+	public int invalidate(String uriPrefix) {
+		if (StringUtils.isEmpty(uriPrefix)) {
+			return invalidateAll();
+		}
+		synchronized (varyIndex) {
+			varyIndex.keySet().removeIf(key -> key.startsWith(uriPrefix));
+		}
+		int removed = cache.removeIf(key -> key.startsWith(uriPrefix));
+		LOG.debug("Invalidated {} cached responses for {}.", removed, uriPrefix);
+		return removed;
+	}
+
+	/**
+	 * @return An interceptor removing all cached responses whenever it is applied.
+	 */
+	public ProxyExchangeInterceptor invalidator() {
+		return exchange -> invalidateAll();
+	}
+
+	/**
+	 * @param uriPrefix The URI prefix of the responses to remove.
+	 * @return An interceptor removing the matching cached responses whenever it is applied.
+	 */
+	public ProxyExchangeInterceptor invalidator(String uriPrefix) {
+		return exchange -> invalidate(uriPrefix);
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public int getSize() {
+		return cache.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ResponseCacheInterceptor[%d hits, %d misses, %s]", getHitCount(), getMissCount(), cache);
+	}
+}
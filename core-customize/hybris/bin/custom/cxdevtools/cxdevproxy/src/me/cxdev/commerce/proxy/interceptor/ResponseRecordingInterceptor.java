@@ -0,0 +1,249 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.StatusCodes;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import me.cxdev.commerce.proxy.replay.CapturingStreamSinkConduit;
+import me.cxdev.commerce.proxy.replay.RecordedResponse;
+import me.cxdev.commerce.proxy.replay.ResponseArchive;
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+
+/**
+ * Records backend responses into a {@link ResponseArchive} and replays them without contacting the backend.
+ * <p>
+ * Responses are keyed by the request method, the normalized path, the sorted query parameters
+ * (without ignored parameters such as cache busters) and a configurable set of request headers.
+ * Depending on the mode, the interceptor
+ * </p>
+ * <ul>
+ * <li>{@code off}: does nothing,</li>
+ * <li>{@code record}: lets the request pass to the backend and records the response,</li>
+ * <li>{@code replay}: answers from the archive and never contacts the backend (unrecorded requests receive a 404),</li>
+ * <li>{@code replay-or-record}: answers from the archive, and records what is not recorded yet.</li>
+ * </ul>
+ * <p>
+ * Replayed bodies are sent straight from the memory-mapped archive on the IO thread. Recording
+ * captures the response body as it is streamed to the client, so neither mode blocks a thread.
+ * </p>
+ */
+public class ResponseRecordingInterceptor implements ProxyExchangeInterceptor, InitializingBean {
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseRecordingInterceptor.class);
+	private static final HttpString REPLAY_HEADER = HttpString.tryFromString("X-CxDevProxy-Replay");
+	private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding", "content-length",
+			"set-cookie", "date", "upgrade", "trailer");
+
+	private ResponseArchive responseArchive;
+	private Mode mode = Mode.OFF;
+	private List<HttpString> keyHeaders = List.of(Headers.ACCEPT, Headers.ACCEPT_LANGUAGE, Headers.ACCEPT_ENCODING);
+	private Set<String> ignoredParameters = Set.of("_");
+	private Set<String> recordedMethods = Set.of("GET", "HEAD");
+	private int maxBodySize = 8 * 1024 * 1024;
+
+	/**
+	 * The operating modes of the interceptor.
+	 */
+	public enum Mode {
+		OFF, RECORD, REPLAY, REPLAY_OR_RECORD;
+
+		static Mode parse(String value) {
+			return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+		}
+	}
+
+	/**
+	 * Opens the archive at startup if recording or replay is enabled, so the archive file is never
+	 * scanned and mapped on an IO thread.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		if (mode != Mode.OFF && responseArchive != null) {
+			responseArchive.open();
+		}
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		Mode currentMode = mode;
+		if (currentMode == Mode.OFF || responseArchive == null) {
+			return;
+		}
+
+		String method = exchange.getRequestMethod().toString();
+		if (!recordedMethods.contains(method)) {
+			return;
+		}
+
+		String key = createKey(exchange);
+		if (currentMode != Mode.RECORD) {
+			RecordedResponse recorded = responseArchive.get(key);
+			if (recorded != null) {
+				replay(exchange, recorded);
+				return;
+			}
+			if (currentMode == Mode.REPLAY) {
+				LOG.debug("No recorded response for {}", key);
+				exchange.setStatusCode(StatusCodes.NOT_FOUND);
+				exchange.getResponseHeaders().put(REPLAY_HEADER, "miss");
+				exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain; charset=UTF-8");
+				exchange.getResponseSender().send("No recorded response for " + method + " " + exchange.getRequestURI());
+				return;
+			}
+		}
+		record(exchange, key);
+	}
+
+	private void replay(HttpServerExchange exchange, RecordedResponse recorded) {
+		exchange.setStatusCode(recorded.status());
+		for (RecordedResponse.Header header : recorded.headers()) {
+			exchange.getResponseHeaders().add(HttpString.tryFromString(header.name()), header.value());
+		}
+		exchange.getResponseHeaders().put(REPLAY_HEADER, "hit");
+		exchange.setResponseContentLength(recorded.bodyLength());
+
+		// The sender completes the exchange once the whole body is written, the started response stops the chain
+		ByteBuffer body = responseArchive.getBody(recorded);
+		exchange.getResponseSender().send(body);
+	}
+
+	private void record(HttpServerExchange exchange, String key) {
+		// Always record complete responses, a replayed 304 would be meaningless for other clients
+		exchange.getRequestHeaders().remove(Headers.IF_NONE_MATCH);
+		exchange.getRequestHeaders().remove(Headers.IF_MODIFIED_SINCE);
+
+		exchange.addResponseWrapper((factory, ex) -> new CapturingStreamSinkConduit(factory.create(), maxBodySize, body -> {
+			int status = ex.getStatusCode();
+			if (status < StatusCodes.INTERNAL_SERVER_ERROR && status != StatusCodes.NOT_MODIFIED) {
+				responseArchive.record(key, status, snapshotHeaders(ex), body);
+			}
+		}));
+	}
+
+	private static List<RecordedResponse.Header> snapshotHeaders(HttpServerExchange exchange) {
+		List<RecordedResponse.Header> headers = new ArrayList<>();
+		for (HeaderValues values : exchange.getResponseHeaders()) {
+			String name = values.getHeaderName().toString();
+			if (SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT)) || REPLAY_HEADER.equals(values.getHeaderName())) {
+				continue;
+			}
+			for (String value : values) {
+				headers.add(new RecordedResponse.Header(name, value));
+			}
+		}
+		return headers;
+	}
+
+	/**
+	 * Creates the recording key of the request.
+	 *
+	 * @param exchange The current HTTP server exchange.
+	 * @return The key, e.g. {@code GET /occ/v2/electronics/products/1?fields=FULL&lang=en} followed by the key headers.
+	 */
+	String createKey(HttpServerExchange exchange) {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append(exchange.getRequestMethod()).append(' ').append(normalizePath(exchange.getRequestPath()));
+
+		String query = exchange.getQueryString();
+		if (StringUtils.isNotEmpty(query)) {
+			String normalizedQuery = Arrays.stream(query.split("&"))
+					.filter(StringUtils::isNotEmpty)
+					.filter(parameter -> !ignoredParameters.contains(StringUtils.substringBefore(parameter, "=")))
+					.sorted()
+					.collect(Collectors.joining("&"));
+			if (!normalizedQuery.isEmpty()) {
+				sb.append('?').append(normalizedQuery);
+			}
+		}
+
+		for (HttpString header : keyHeaders) {
+			HeaderValues values = exchange.getRequestHeaders().get(header);
+			if (values != null) {
+				sb.append('\n').append(header.toString().toLowerCase(Locale.ROOT)).append(": ").append(String.join(", ", values));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String normalizePath(String path) {
+		String normalized = path.replaceAll("/{2,}", "/");
+		return normalized.length() > 1 && normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+	}
+
+	public void setResponseArchive(ResponseArchive responseArchive) {
+		this.responseArchive = responseArchive;
+	}
+
+	/**
+	 * @param mode One of {@code off}, {@code record}, {@code replay} or {@code replay-or-record}.
+	 */
+	public void setMode(String mode) {
+		try {
+			this.mode = StringUtils.isBlank(mode) ? Mode.OFF : Mode.parse(mode);
+		} catch (IllegalArgumentException e) {
+			LOG.warn("Invalid response recording mode {}, using current value '{}'.", mode, this.mode);
+		}
+		if (this.mode != Mode.OFF) {
+			LOG.info("Response recording mode: {}.", this.mode);
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @param keyHeaders Comma-separated names of the request headers that are part of the recording key.
+	 */
+	public void setKeyHeaders(String keyHeaders) {
+		this.keyHeaders = splitList(keyHeaders).stream().map(HttpString::tryFromString).toList();
+	}
+
+	/**
+	 * @param ignoredParameters Comma-separated names of query parameters that are not part of the recording key.
+	 */
+	public void setIgnoredParameters(String ignoredParameters) {
+		this.ignoredParameters = Set.copyOf(splitList(ignoredParameters));
+	}
+
+	/**
+	 * @param recordedMethods Comma-separated HTTP methods that are recorded and replayed.
+	 */
+	public void setRecordedMethods(String recordedMethods) {
+		this.recordedMethods = splitList(recordedMethods).stream().map(method -> method.toUpperCase(Locale.ROOT)).collect(Collectors.toUnmodifiableSet());
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "512kb" or "8mb".
+	 *
+	 * @param maxBodySize The maximum size of a recorded response body, larger responses are not recorded.
+	 */
+	public void setMaxBodySize(String maxBodySize) {
+		try {
+			this.maxBodySize = (int) Math.min(Integer.MAX_VALUE, DataSizeUtils.parseSizeToBytes(maxBodySize, "Recorded body size"));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid recorded body size {}, using current value '{}'.", maxBodySize, this.maxBodySize);
+		}
+	}
+
+	private static List<String> splitList(String value) {
+		if (StringUtils.isBlank(value)) {
+			return List.of();
+		}
+		return Arrays.stream(value.split(",")).map(String::trim).filter(StringUtils::isNotEmpty).toList();
+	}
+}
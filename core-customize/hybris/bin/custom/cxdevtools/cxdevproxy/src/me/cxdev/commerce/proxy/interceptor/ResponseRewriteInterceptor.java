@@ -0,0 +1,147 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.conduits.GzipStreamSinkConduit;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ConduitFactory;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.conduits.StreamSinkConduit;
+
+import me.cxdev.commerce.proxy.encoding.ContentCoding;
+import me.cxdev.commerce.proxy.encoding.ContentEncoder;
+import me.cxdev.commerce.proxy.rewrite.BodyRewriter;
+import me.cxdev.commerce.proxy.rewrite.RewritingStreamSinkConduit;
+
+/**
+ * Rewrites the bodies of proxied textual responses (HTML, JSON, JavaScript, CSS, XML), e.g. to replace
+ * absolute backend URLs in OCC responses or to inject a script tag into the {@code index.html} of the frontend.
+ * <p>
+ * The body is rewritten while it is streamed to the client (see {@link RewritingStreamSinkConduit}), it is
+ * never buffered completely. The replacements are literal and applied in the order given; the search strings
+ * are matched in the charset of the response (UTF-8 if none is declared).
+ * </p>
+ * <p>
+ * To be able to decode the upstream response, the {@code Accept-Encoding} of the proxied request is reduced
+ * to gzip (if the client accepts it) or identity. gzip encoded responses are decoded, rewritten and encoded
+ * again; responses in any other encoding are passed through unchanged.
+ * </p>
+ */
+class ResponseRewriteInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseRewriteInterceptor.class);
+
+	private final Map<String, String> replacements;
+	private final List<byte[]> utf8Searches = new ArrayList<>();
+	private final List<byte[]> utf8Replacements = new ArrayList<>();
+	private final LongAdder rewrittenResponses = new LongAdder();
+
+	ResponseRewriteInterceptor(Map<String, String> replacements) {
+		if (replacements == null || replacements.isEmpty()) {
+			throw new IllegalArgumentException("Response rewrite requires at least one replacement.");
+		}
+		this.replacements = new LinkedHashMap<>();
+		replacements.forEach((search, replacement) -> {
+			if (StringUtils.isEmpty(search)) {
+				throw new IllegalArgumentException("Response rewrite search strings must not be empty.");
+			}
+			this.replacements.put(search, StringUtils.defaultString(replacement));
+		});
+		encode(StandardCharsets.UTF_8, utf8Searches, utf8Replacements);
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		if (Methods.HEAD.equals(exchange.getRequestMethod())) {
+			return;
+		}
+
+		boolean gzipAccepted = ContentEncoder.DEFAULT.accepts(exchange, ContentCoding.GZIP);
+		exchange.getRequestHeaders().put(Headers.ACCEPT_ENCODING,
+				gzipAccepted ? ContentCoding.GZIP.getHeaderValue() : ContentCoding.IDENTITY.getHeaderValue());
+		exchange.addResponseWrapper(this::wrap);
+	}
+
+	/**
+	 * Wraps the response conduit once the upstream response headers are known, see {@link ConduitWrapper}.
+	 */
+	private StreamSinkConduit wrap(ConduitFactory<StreamSinkConduit> factory, HttpServerExchange exchange) {
+		HeaderMap headers = exchange.getResponseHeaders();
+		int status = exchange.getStatusCode();
+		String contentType = headers.getFirst(Headers.CONTENT_TYPE);
+		if (status == StatusCodes.NO_CONTENT || status == StatusCodes.NOT_MODIFIED || !ContentEncoder.DEFAULT.isCompressible(contentType)) {
+			return factory.create();
+		}
+
+		String contentEncoding = StringUtils.trimToEmpty(headers.getFirst(Headers.CONTENT_ENCODING));
+		boolean gzipEncoded = ContentCoding.GZIP.getHeaderValue().equalsIgnoreCase(contentEncoding);
+		if (!gzipEncoded && !contentEncoding.isEmpty() && !ContentCoding.IDENTITY.getHeaderValue().equalsIgnoreCase(contentEncoding)) {
+			LOG.debug("Response body of {} is not rewritten, content encoding '{}' is not supported.", exchange.getRequestPath(), contentEncoding);
+			return factory.create();
+		}
+
+		// The length of the rewritten body is unknown, and the upstream validators do not match it any more
+		headers.remove(Headers.CONTENT_LENGTH);
+		headers.remove(Headers.ETAG);
+		headers.remove(Headers.CONTENT_MD5);
+		rewrittenResponses.increment();
+
+		BodyRewriter rewriter = createRewriter(charsetOf(contentType));
+		StreamSinkConduit next = gzipEncoded ? new GzipStreamSinkConduit(factory, exchange) : factory.create();
+		return new RewritingStreamSinkConduit(next, rewriter, gzipEncoded);
+	}
+
+	private BodyRewriter createRewriter(Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+			return new BodyRewriter(utf8Searches, utf8Replacements);
+		}
+		List<byte[]> searches = new ArrayList<>();
+		List<byte[]> encodedReplacements = new ArrayList<>();
+		encode(charset, searches, encodedReplacements);
+		return new BodyRewriter(searches, encodedReplacements);
+	}
+
+	private void encode(Charset charset, List<byte[]> searches, List<byte[]> encodedReplacements) {
+		replacements.forEach((search, replacement) -> {
+			searches.add(search.getBytes(charset));
+			encodedReplacements.add(replacement.getBytes(charset));
+		});
+	}
+
+	private static Charset charsetOf(String contentType) {
+		String charset = Headers.extractQuotedValueFromHeader(contentType, "charset");
+		if (charset == null) {
+			return StandardCharsets.UTF_8;
+		}
+		try {
+			return Charset.forName(charset);
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			LOG.debug("Unsupported charset '{}' of response, matching replacements as UTF-8.", charset);
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	public long getRewrittenResponseCount() {
+		return rewrittenResponses.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ResponseRewriteInterceptor[%d replacements, %d rewritten responses]", replacements.size(), getRewrittenResponseCount());
+	}
+}
@@ -0,0 +1,36 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.conduits.RateLimitingStreamSinkConduit;
+import io.undertow.server.HttpServerExchange;
+
+import me.cxdev.commerce.proxy.util.TimeUtils;
+
+/**
+ * Drips the response body to the client in small portions, e.g. 16 bytes per second, simulating
+ * a backend that is alive but hardly makes progress. Useful to test timeouts and loading states
+ * of the storefront that only trigger while a response is being received.
+ * <p>
+ * Like the bandwidth limit of the {@link NetworkDelayInterceptor}, the pauses do not
+ * block a thread: writes are suspended and resumed by a timer on the IO thread of the exchange.
+ * </p>
+ */
+class SlowDripInterceptor implements ProxyExchangeInterceptor {
+	private final int bytesPerInterval;
+	private final long intervalMillis;
+
+	SlowDripInterceptor(int bytesPerInterval, String interval) {
+		if (bytesPerInterval <= 0) {
+			throw new IllegalArgumentException("Slow drip requires at least one byte per interval, but was " + bytesPerInterval);
+		}
+		this.bytesPerInterval = bytesPerInterval;
+		this.intervalMillis = Math.max(1, TimeUtils.parseIntervalToMillis(interval, "Slow drip interval"));
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		exchange.addResponseWrapper((factory, ex) -> new RateLimitingStreamSinkConduit(factory.create(), bytesPerInterval,
+				intervalMillis, TimeUnit.MILLISECONDS));
+	}
+}
@@ -1,19 +1,28 @@
 package me.cxdev.commerce.proxy.interceptor;
 
+import java.nio.charset.StandardCharsets;
+
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 
 import org.apache.commons.lang3.StringUtils;
 
+import me.cxdev.commerce.proxy.encoding.ContentCoding;
+import me.cxdev.commerce.proxy.encoding.ContentEncoder;
+import me.cxdev.commerce.proxy.encoding.EncodedContent;
+
 /**
  * Short-circuits the request and returns a predefined status code and payload.
  * Useful for mocking endpoints that do not yet exist in the backend API,
  * or for simulating specific error states (e.g., forcing a 500 Internal Server Error).
+ * Large textual payloads are compressed once when the interceptor is created and
+ * served gzip encoded to clients accepting it.
  */
 class StaticResponseInterceptor implements ProxyExchangeInterceptor {
-	private int statusCode;
-	private String contentType;
-	private String responseBody;
+	private final int statusCode;
+	private final String contentType;
+	private final String responseBody;
+	private final EncodedContent encodedBody;
 
 	StaticResponseInterceptor(int statusCode, String contentType, String responseBody) {
 		assert StringUtils.isNotBlank(contentType);
@@ -22,6 +31,7 @@ class StaticResponseInterceptor implements ProxyExchangeInterceptor {
 		this.statusCode = statusCode;
 		this.contentType = contentType;
 		this.responseBody = responseBody;
+		this.encodedBody = ContentEncoder.DEFAULT.encode(responseBody.getBytes(StandardCharsets.UTF_8), contentType).toDirect();
 	}
 
 	@Override
@@ -30,7 +40,16 @@ class StaticResponseInterceptor implements ProxyExchangeInterceptor {
 		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, contentType);
 
 		// Sending the response and ending the exchange prevents further routing to the backend
-		exchange.getResponseSender().send(responseBody);
+		ContentCoding coding = ContentEncoder.DEFAULT.negotiate(exchange, encodedBody);
+		if (coding == ContentCoding.IDENTITY) {
+			if (encodedBody.isCompressed()) {
+				ContentEncoder.DEFAULT.addVary(exchange.getResponseHeaders());
+			}
+			exchange.getResponseSender().send(responseBody);
+		} else {
+			ContentEncoder.DEFAULT.applyHeaders(exchange, encodedBody, coding);
+			exchange.getResponseSender().send(encodedBody.getBody(coding));
+		}
 		exchange.endExchange();
 	}
 }
@@ -0,0 +1,146 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import io.undertow.server.HttpServerExchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+
+/**
+ * Cuts off the response body after the given number of bytes and closes the connection, as an
+ * interrupted transfer would. The response headers (including the {@code Content-Length} of the upstream
+ * response) are sent unchanged, so the client notices the incomplete body.
+ * <p>
+ * The rest of the upstream body is consumed and discarded without waiting for the client.
+ * Bodies not exceeding the limit are passed through unchanged.
+ * </p>
+ */
+class TruncatedBodyInterceptor implements ProxyExchangeInterceptor {
+	private static final Logger LOG = LoggerFactory.getLogger(TruncatedBodyInterceptor.class);
+
+	private final long maxBytes;
+
+	TruncatedBodyInterceptor(String maxSize) {
+		this.maxBytes = DataSizeUtils.parseSizeToBytes(maxSize, "Truncated body size");
+	}
+
+	@Override
+	public void apply(HttpServerExchange exchange) {
+		exchange.addResponseWrapper((factory, ex) -> new TruncatingStreamSinkConduit(factory.create(), ex, maxBytes));
+	}
+
+	/**
+	 * Passes the first bytes of the body on and discards the rest. Instead of completing the response,
+	 * the connection is closed once the passed bytes have been flushed.
+	 */
+	private static final class TruncatingStreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+		private final HttpServerExchange exchange;
+		private long remaining;
+		private boolean truncated;
+		private boolean terminated;
+
+		private TruncatingStreamSinkConduit(StreamSinkConduit next, HttpServerExchange exchange, long maxBytes) {
+			super(next);
+			this.exchange = exchange;
+			this.remaining = maxBytes;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			int count = src.remaining();
+			if (remaining <= 0) {
+				if (count > 0 && !truncated) {
+					truncated = true;
+					exchange.setPersistent(false);
+					LOG.debug("Truncating response body of request: {}", exchange.getRequestPath());
+				}
+				src.position(src.limit());
+				return count;
+			}
+			if (count <= remaining) {
+				int written = next.write(src);
+				remaining -= written;
+				return written;
+			}
+
+			int limit = src.limit();
+			src.limit(src.position() + (int) remaining);
+			try {
+				int written = next.write(src);
+				remaining -= written;
+				return written;
+			} finally {
+				src.limit(limit);
+			}
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			long written = 0;
+			for (int i = offset; i < offset + length; i++) {
+				int expected = srcs[i].remaining();
+				int count = write(srcs[i]);
+				written += count;
+				if (count < expected) {
+					break;
+				}
+			}
+			return written;
+		}
+
+		@Override
+		public int writeFinal(ByteBuffer src) throws IOException {
+			return Conduits.writeFinalBasic(this, src);
+		}
+
+		@Override
+		public long writeFinal(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			return Conduits.writeFinalBasic(this, srcs, offset, length);
+		}
+
+		@Override
+		public long transferFrom(FileChannel src, long position, long count) throws IOException {
+			return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+		}
+
+		@Override
+		public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+			return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+		}
+
+		@Override
+		public void terminateWrites() throws IOException {
+			if (!truncated) {
+				next.terminateWrites();
+				return;
+			}
+			// A truncated body must not be completed (e.g., with the last chunk of a chunked response)
+			terminated = true;
+		}
+
+		@Override
+		public boolean isWriteShutdown() {
+			return terminated || next.isWriteShutdown();
+		}
+
+		@Override
+		public boolean flush() throws IOException {
+			boolean flushed = next.flush();
+			if (flushed && terminated) {
+				IoUtils.safeClose(exchange.getConnection());
+			}
+			return flushed;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
 import java.util.Arrays;
-import java.util.List;
 
 import io.undertow.server.HttpServerExchange;
 
@@ -12,15 +11,34 @@ import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
  * of its underlying conditions match.
  */
 class AndCondition implements ProxyExchangeInterceptorCondition {
-	private final List<ProxyExchangeInterceptorCondition> conditions;
+	private final ProxyExchangeInterceptorCondition[] conditions;
 
 	AndCondition(ProxyExchangeInterceptorCondition[] conditions) {
 		assert conditions != null;
-		this.conditions = Arrays.asList(conditions);
+		this.conditions = conditions.clone();
 	}
 
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
-		return conditions.stream().allMatch(c -> c.matches(exchange));
+		for (ProxyExchangeInterceptorCondition condition : conditions) {
+			if (!condition.matches(exchange)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	ProxyExchangeInterceptorCondition[] getConditions() {
+		return conditions.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof AndCondition other && Arrays.equals(conditions, other.conditions);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(conditions);
 	}
 }
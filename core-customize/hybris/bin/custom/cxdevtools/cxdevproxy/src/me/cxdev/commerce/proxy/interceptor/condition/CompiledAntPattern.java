@@ -0,0 +1,289 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * An Ant-style path pattern compiled once into an array of segment matchers.
+ * <p>
+ * Matching gives the same results as Spring's {@code AntPathMatcher.match(pattern, path)} with its
+ * default settings, but neither tokenizes the pattern nor allocates substrings per call: the
+ * segment boundaries of the path are collected into a reused per-thread buffer and compared in
+ * place. Literal segments are compared via {@link String#regionMatches}, segments with {@code *}
+ * and {@code ?} by a backtracking glob matcher. Only segments with URI template variables
+ * (e.g., {@code {id:\d+}}) fall back to a regular expression.
+ * </p>
+ */
+final class CompiledAntPattern {
+	private static final char SEPARATOR = '/';
+	private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+	private static final ThreadLocal<int[]> SEGMENT_BUFFER = ThreadLocal.withInitial(() -> new int[32]);
+
+	private static final byte LITERAL = 0;
+	private static final byte ANY_SEGMENT = 1;
+	private static final byte ANY_SEGMENTS = 2;
+	private static final byte GLOB = 3;
+	private static final byte REGEX = 4;
+
+	private final String pattern;
+	private final boolean startsWithSeparator;
+	private final boolean endsWithSeparator;
+	private final byte[] kinds;
+	private final String[] literals;
+	private final Pattern[] regexes;
+
+	CompiledAntPattern(String pattern) {
+		this.pattern = pattern;
+		this.startsWithSeparator = pattern.startsWith("/");
+		this.endsWithSeparator = pattern.endsWith("/");
+
+		String[] tokens = StringUtils.tokenizeToStringArray(pattern, "/", false, true);
+		this.kinds = new byte[tokens.length];
+		this.literals = tokens;
+		this.regexes = new Pattern[tokens.length];
+		for (int i = 0; i < tokens.length; i++) {
+			String token = tokens[i];
+			if ("**".equals(token)) {
+				kinds[i] = ANY_SEGMENTS;
+			} else if ("*".equals(token)) {
+				kinds[i] = ANY_SEGMENT;
+			} else if (token.indexOf('{') >= 0) {
+				Pattern regex = toRegex(token);
+				kinds[i] = regex != null ? REGEX : LITERAL;
+				regexes[i] = regex;
+			} else if (token.indexOf('*') >= 0 || token.indexOf('?') >= 0) {
+				kinds[i] = GLOB;
+			} else {
+				kinds[i] = LITERAL;
+			}
+		}
+	}
+
+	/**
+	 * Mirrors the conversion of {@code AntPathStringMatcher}, URI template variables match any characters
+	 * or their custom regular expression.
+	 *
+	 * @return The regular expression for the segment, or {@code null} if the segment is a literal.
+	 */
+	private static Pattern toRegex(String token) {
+		StringBuilder sb = new StringBuilder();
+		Matcher matcher = GLOB_PATTERN.matcher(token);
+		int end = 0;
+		boolean glob = false;
+		while (matcher.find()) {
+			sb.append(quote(token, end, matcher.start()));
+			String match = matcher.group();
+			glob = true;
+			if ("?".equals(match)) {
+				sb.append('.');
+			} else if ("*".equals(match)) {
+				sb.append(".*");
+			} else if (match.startsWith("{") && match.endsWith("}")) {
+				int colonIdx = match.indexOf(':');
+				sb.append(colonIdx == -1 ? "(.*)" : "(" + match.substring(colonIdx + 1, match.length() - 1) + ")");
+			}
+			end = matcher.end();
+		}
+		if (!glob) {
+			return null;
+		}
+		sb.append(quote(token, end, token.length()));
+		return Pattern.compile(sb.toString(), Pattern.DOTALL);
+	}
+
+	private static String quote(String s, int start, int end) {
+		return start == end ? "" : Pattern.quote(s.substring(start, end));
+	}
+
+	/**
+	 * @param path The request path.
+	 * @return {@code true} if the path matches the pattern completely.
+	 */
+	boolean matches(String path) {
+		if (path == null || (path.startsWith("/") != startsWithSeparator)) {
+			return false;
+		}
+
+		int[] segments = segments(path);
+		int pathEnd = segments[0] - 1;
+		int pathStart = 0;
+		int pattStart = 0;
+		int pattEnd = kinds.length - 1;
+
+		// Match all segments up to the first "**"
+		while (pattStart <= pattEnd && pathStart <= pathEnd) {
+			if (kinds[pattStart] == ANY_SEGMENTS) {
+				break;
+			}
+			if (!matchSegment(pattStart, path, segments, pathStart)) {
+				return false;
+			}
+			pattStart++;
+			pathStart++;
+		}
+
+		if (pathStart > pathEnd) {
+			// Path is exhausted, only match if the rest of the pattern is * or **'s
+			if (pattStart > pattEnd) {
+				return endsWithSeparator == path.endsWith("/");
+			}
+			if (pattStart == pattEnd && kinds[pattStart] == ANY_SEGMENT && path.endsWith("/")) {
+				return true;
+			}
+			return onlyAnySegments(pattStart, pattEnd);
+		} else if (pattStart > pattEnd) {
+			// Path not exhausted, but pattern is
+			return false;
+		}
+
+		// Match all segments after the last "**"
+		while (pattStart <= pattEnd && pathStart <= pathEnd) {
+			if (kinds[pattEnd] == ANY_SEGMENTS) {
+				break;
+			}
+			if (!matchSegment(pattEnd, path, segments, pathEnd)) {
+				return false;
+			}
+			if (pattEnd == kinds.length - 1 && endsWithSeparator != path.endsWith("/")) {
+				return false;
+			}
+			pattEnd--;
+			pathEnd--;
+		}
+		if (pathStart > pathEnd) {
+			return onlyAnySegments(pattStart, pattEnd);
+		}
+
+		// Match the segments between multiple "**"
+		while (pattStart != pattEnd && pathStart <= pathEnd) {
+			int nextAnySegments = -1;
+			for (int i = pattStart + 1; i <= pattEnd; i++) {
+				if (kinds[i] == ANY_SEGMENTS) {
+					nextAnySegments = i;
+					break;
+				}
+			}
+			if (nextAnySegments == pattStart + 1) {
+				// "**/**" situation, skip one
+				pattStart++;
+				continue;
+			}
+
+			int patternLength = nextAnySegments - pattStart - 1;
+			int pathLength = pathEnd - pathStart + 1;
+			int found = -1;
+			search: for (int i = 0; i <= pathLength - patternLength; i++) {
+				for (int j = 0; j < patternLength; j++) {
+					if (!matchSegment(pattStart + j + 1, path, segments, pathStart + i + j)) {
+						continue search;
+					}
+				}
+				found = pathStart + i;
+				break;
+			}
+			if (found == -1) {
+				return false;
+			}
+			pattStart = nextAnySegments;
+			pathStart = found + patternLength;
+		}
+		return onlyAnySegments(pattStart, pattEnd);
+	}
+
+	private boolean onlyAnySegments(int from, int to) {
+		for (int i = from; i <= to; i++) {
+			if (kinds[i] != ANY_SEGMENTS) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the boundaries of all non-empty path segments into the per-thread buffer.
+	 *
+	 * @return The buffer, holding the number of segments at index 0 followed by start and end offset of each segment.
+	 */
+	private static int[] segments(String path) {
+		int[] buffer = SEGMENT_BUFFER.get();
+		int count = 0;
+		int length = path.length();
+		int start = 0;
+		while (start < length) {
+			int end = path.indexOf(SEPARATOR, start);
+			if (end < 0) {
+				end = length;
+			}
+			if (end > start) {
+				int index = 1 + 2 * count;
+				if (index + 1 >= buffer.length) {
+					int[] grown = new int[buffer.length * 2];
+					System.arraycopy(buffer, 0, grown, 0, buffer.length);
+					buffer = grown;
+					SEGMENT_BUFFER.set(buffer);
+				}
+				buffer[index] = start;
+				buffer[index + 1] = end;
+				count++;
+			}
+			start = end + 1;
+		}
+		buffer[0] = count;
+		return buffer;
+	}
+
+	private boolean matchSegment(int patternIndex, String path, int[] segments, int segmentIndex) {
+		int start = segments[1 + 2 * segmentIndex];
+		int end = segments[2 + 2 * segmentIndex];
+		return switch (kinds[patternIndex]) {
+			case ANY_SEGMENT, ANY_SEGMENTS -> true;
+			case LITERAL -> {
+				String literal = literals[patternIndex];
+				yield literal.length() == end - start && path.regionMatches(start, literal, 0, literal.length());
+			}
+			case GLOB -> matchGlob(literals[patternIndex], path, start, end);
+			default -> regexes[patternIndex].matcher(path).region(start, end).matches();
+		};
+	}
+
+	/**
+	 * Matches {@code *} (any characters) and {@code ?} (exactly one character) without allocating.
+	 */
+	private static boolean matchGlob(String glob, String path, int start, int end) {
+		int globLength = glob.length();
+		int g = 0;
+		int p = start;
+		int starGlob = -1;
+		int starPath = -1;
+		while (p < end) {
+			char c = g < globLength ? glob.charAt(g) : 0;
+			if (g < globLength && c == '*') {
+				starGlob = g++;
+				starPath = p;
+			} else if (g < globLength && (c == '?' || c == path.charAt(p))) {
+				g++;
+				p++;
+			} else if (starGlob >= 0) {
+				g = starGlob + 1;
+				p = ++starPath;
+			} else {
+				return false;
+			}
+		}
+		while (g < globLength && glob.charAt(g) == '*') {
+			g++;
+		}
+		return g == globLength;
+	}
+
+	String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}
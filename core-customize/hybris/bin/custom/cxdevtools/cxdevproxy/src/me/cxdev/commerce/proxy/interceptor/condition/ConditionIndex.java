@@ -0,0 +1,348 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * A decision structure pre-selecting the guards of a compiled interceptor chain that can match a request.
+ * <p>
+ * At compile time, the conditions of every guard are analyzed for the HTTP methods and path
+ * prefixes they require: {@code isMethod("POST")} requires the method POST, {@code pathStartsWith}
+ * and the literal part of {@code pathMatches} patterns require a prefix, and {@code and}, {@code or}
+ * and the guard semantics combine these requirements. Guards are then grouped by method, and all
+ * prefixes are merged into a single character trie. Repeated slashes are collapsed into one, both
+ * in the prefixes and in the request path, as Ant patterns ignore empty path segments ({@code /occ/**}
+ * matches {@code //occ/v2}). A guard may therefore be selected needlessly, but is never skipped wrongly.
+ * </p>
+ * <p>
+ * Per request, one method lookup and one walk along the request path through the trie result in a
+ * bit mask of candidate guards. All other guards cannot match and are skipped without evaluating
+ * a single condition. Conditions that cannot be analyzed (e.g., header checks or Groovy closures)
+ * do not restrict a guard, so the result is always identical to a full evaluation.
+ * </p>
+ * <p>
+ * Equal conditions used by several guards (e.g., {@code pathMatches("/occ/**")} in multiple rules)
+ * are deduplicated into a single instance. The first 64 guards are indexed, further guards are
+ * always evaluated.
+ * </p>
+ */
+public final class ConditionIndex {
+	private static final int MAX_INDEXED_GUARDS = Long.SIZE;
+	private static final ConditionIndex EMPTY = new ConditionIndex(new int[0], 0, 0, 0, Map.of(), new Node());
+
+	private final int[] bits;
+	private final int indexedCount;
+	private final long unconstrainedPathMask;
+	private final long otherMethodsMask;
+	private final Map<HttpString, Long> methodMasks;
+	private final Node root;
+
+	private ConditionIndex(int[] bits, int indexedCount, long unconstrainedPathMask, long otherMethodsMask, Map<HttpString, Long> methodMasks,
+			Node root) {
+		this.bits = bits;
+		this.indexedCount = indexedCount;
+		this.unconstrainedPathMask = unconstrainedPathMask;
+		this.otherMethodsMask = otherMethodsMask;
+		this.methodMasks = methodMasks;
+		this.root = root;
+	}
+
+	/**
+	 * Builds the index for the guards of a compiled chain. The conditions of the guards are replaced
+	 * in place by deduplicated, equal instances.
+	 *
+	 * @param guards     The guard conditions per step, {@code null} for steps that are not guards.
+	 * @param requireAll Whether all conditions of the guard of the same step must match.
+	 * @return The index.
+	 */
+	public static ConditionIndex build(ProxyExchangeInterceptorCondition[][] guards, boolean[] requireAll) {
+		int[] bits = new int[guards.length];
+		Arrays.fill(bits, -1);
+
+		Map<ProxyExchangeInterceptorCondition, ProxyExchangeInterceptorCondition> canonical = new HashMap<>();
+		Map<HttpString, Long> methodMasks = new HashMap<>();
+		Set<HttpString> methods = new HashSet<>();
+		Requirement[] requirements = new Requirement[Math.min(guards.length, MAX_INDEXED_GUARDS)];
+		int indexedCount = 0;
+		for (int i = 0; i < guards.length; i++) {
+			if (guards[i] == null) {
+				continue;
+			}
+			for (int j = 0; j < guards[i].length; j++) {
+				guards[i][j] = intern(guards[i][j], canonical);
+			}
+			if (indexedCount < MAX_INDEXED_GUARDS) {
+				Requirement requirement = requireAll[i] ? Requirement.all(guards[i]) : Requirement.any(guards[i]);
+				requirements[indexedCount] = requirement;
+				if (requirement.methods() != null) {
+					methods.addAll(requirement.methods());
+				}
+				bits[i] = indexedCount++;
+			}
+		}
+		if (indexedCount == 0) {
+			return EMPTY;
+		}
+
+		long unconstrainedPathMask = 0;
+		long otherMethodsMask = 0;
+		Node root = new Node();
+		for (int bit = 0; bit < indexedCount; bit++) {
+			long mask = 1L << bit;
+			Requirement requirement = requirements[bit];
+			if (requirement.methods() == null) {
+				otherMethodsMask |= mask;
+			}
+			for (HttpString method : methods) {
+				if (requirement.methods() == null || requirement.methods().contains(method)) {
+					methodMasks.merge(method, mask, (a, b) -> a | b);
+				}
+			}
+			if (requirement.prefixes() == null) {
+				unconstrainedPathMask |= mask;
+			} else {
+				for (String prefix : requirement.prefixes()) {
+					root.insert(prefix, mask);
+				}
+			}
+		}
+		for (HttpString method : methods) {
+			methodMasks.putIfAbsent(method, 0L);
+		}
+		return new ConditionIndex(bits, indexedCount, unconstrainedPathMask, otherMethodsMask, Map.copyOf(methodMasks), root);
+	}
+
+	private static ProxyExchangeInterceptorCondition intern(ProxyExchangeInterceptorCondition condition,
+			Map<ProxyExchangeInterceptorCondition, ProxyExchangeInterceptorCondition> canonical) {
+		ProxyExchangeInterceptorCondition rebuilt = condition;
+		if (condition instanceof AndCondition and) {
+			rebuilt = new AndCondition(internAll(and.getConditions(), canonical));
+		} else if (condition instanceof OrCondition or) {
+			rebuilt = new OrCondition(internAll(or.getConditions(), canonical));
+		} else if (condition instanceof NotCondition not) {
+			rebuilt = new NotCondition(intern(not.getCondition(), canonical));
+		}
+		return canonical.computeIfAbsent(rebuilt, key -> key);
+	}
+
+	private static ProxyExchangeInterceptorCondition[] internAll(ProxyExchangeInterceptorCondition[] conditions,
+			Map<ProxyExchangeInterceptorCondition, ProxyExchangeInterceptorCondition> canonical) {
+		for (int i = 0; i < conditions.length; i++) {
+			conditions[i] = intern(conditions[i], canonical);
+		}
+		return conditions;
+	}
+
+	/**
+	 * Selects the guards that can match the request.
+	 *
+	 * @param exchange The current HTTP server exchange.
+	 * @return A bit mask with the bits (see {@link #getBit(int)}) of all guards that have to be evaluated set.
+	 */
+	public long select(HttpServerExchange exchange) {
+		if (indexedCount == 0) {
+			return 0;
+		}
+
+		HttpString method = exchange.getRequestMethod();
+		String path = exchange.getRequestPath();
+		if (method == null || path == null) {
+			// Incomplete exchanges are evaluated completely
+			return -1L;
+		}
+
+		Long methodMask = methodMasks.get(method);
+		long candidates = methodMask != null ? methodMask : otherMethodsMask;
+		if (candidates == 0) {
+			return 0;
+		}
+
+		long pathMask = unconstrainedPathMask;
+		Node node = root;
+		char previous = 0;
+		for (int i = 0, length = path.length(); i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '/' && previous == '/') {
+				continue;
+			}
+			previous = c;
+			node = node.child(c);
+			if (node == null) {
+				break;
+			}
+			pathMask |= node.mask;
+		}
+		return candidates & pathMask;
+	}
+
+	/**
+	 * @param step The index of a step of the compiled chain.
+	 * @return The bit of the guard in the masks returned by {@link #select(HttpServerExchange)},
+	 *         or {@code -1} if the step is not an indexed guard and has to be evaluated in any case.
+	 */
+	public int getBit(int step) {
+		return step < bits.length ? bits[step] : -1;
+	}
+
+	/**
+	 * @return The number of guards covered by the index.
+	 */
+	public int getIndexedCount() {
+		return indexedCount;
+	}
+
+	/**
+	 * The methods and path prefixes a condition requires in order to match, {@code null} meaning unrestricted.
+	 */
+	private record Requirement(Set<HttpString> methods, Set<String> prefixes) {
+		static final Requirement UNRESTRICTED = new Requirement(null, null);
+		static final Requirement UNSATISFIABLE = new Requirement(Set.of(), Set.of());
+
+		static Requirement of(ProxyExchangeInterceptorCondition condition) {
+			if (condition == StaticCondition.NEVER) {
+				return UNSATISFIABLE;
+			} else if (condition instanceof HttpMethodCondition method) {
+				return StringUtils.isBlank(method.getMethod()) ? UNSATISFIABLE
+						: new Requirement(Set.of(HttpString.tryFromString(method.getMethod())), null);
+			} else if (condition instanceof PathStartsWithCondition startsWith) {
+				return StringUtils.isBlank(startsWith.getPrefix()) ? UNRESTRICTED : new Requirement(null, Set.of(startsWith.getPrefix()));
+			} else if (condition instanceof PathAntMatcherCondition antMatcher) {
+				if (StringUtils.isBlank(antMatcher.getPattern())) {
+					return UNSATISFIABLE;
+				}
+				String prefix = literalPrefix(antMatcher.getPattern());
+				return prefix.isEmpty() ? UNRESTRICTED : new Requirement(null, Set.of(prefix));
+			} else if (condition instanceof AndCondition and) {
+				return all(and.getConditions());
+			} else if (condition instanceof OrCondition or) {
+				return any(or.getConditions());
+			}
+			return UNRESTRICTED;
+		}
+
+		static Requirement all(ProxyExchangeInterceptorCondition[] conditions) {
+			Set<HttpString> methods = null;
+			Set<String> prefixes = null;
+			for (ProxyExchangeInterceptorCondition condition : conditions) {
+				Requirement requirement = of(condition);
+				if (requirement.methods() != null) {
+					if (methods == null) {
+						methods = new HashSet<>(requirement.methods());
+					} else {
+						methods.retainAll(requirement.methods());
+					}
+				}
+				// All prefix requirements hold, so the most selective one is sufficient
+				if (requirement.prefixes() != null && (prefixes == null || selectivity(requirement.prefixes()) > selectivity(prefixes))) {
+					prefixes = requirement.prefixes();
+				}
+			}
+			return new Requirement(methods, prefixes);
+		}
+
+		static Requirement any(ProxyExchangeInterceptorCondition[] conditions) {
+			Set<HttpString> methods = new HashSet<>();
+			Set<String> prefixes = new HashSet<>();
+			for (ProxyExchangeInterceptorCondition condition : conditions) {
+				Requirement requirement = of(condition);
+				if (methods != null) {
+					if (requirement.methods() == null) {
+						methods = null;
+					} else {
+						methods.addAll(requirement.methods());
+					}
+				}
+				if (prefixes != null) {
+					if (requirement.prefixes() == null) {
+						prefixes = null;
+					} else {
+						prefixes.addAll(requirement.prefixes());
+					}
+				}
+			}
+			return new Requirement(methods, prefixes);
+		}
+
+		private static int selectivity(Set<String> prefixes) {
+			return prefixes.isEmpty() ? Integer.MAX_VALUE : prefixes.stream().mapToInt(String::length).min().orElse(0);
+		}
+
+		/**
+		 * @return The prefix every path matching the Ant pattern starts with, possibly empty.
+		 */
+		private static String literalPrefix(String pattern) {
+			int wildcard = StringUtils.indexOfAny(pattern, '*', '?', '{');
+			if (wildcard < 0) {
+				return pattern;
+			}
+			String literal = pattern.substring(0, wildcard);
+			// "/occ/**" also matches "/occ", so the separator in front of "**" is optional
+			if (literal.endsWith("/") && pattern.startsWith("**", wildcard)) {
+				literal = literal.substring(0, literal.length() - 1);
+			}
+			return literal;
+		}
+	}
+
+	/**
+	 * A node of the prefix trie, holding the guards whose prefix ends at this node.
+	 */
+	private static final class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private long mask;
+
+		Node child(char c) {
+			int index = Arrays.binarySearch(keys, c);
+			return index >= 0 ? children[index] : null;
+		}
+
+		void insert(String prefix, long bit) {
+			Node node = this;
+			char previous = 0;
+			for (int i = 0; i < prefix.length(); i++) {
+				char c = prefix.charAt(i);
+				// Repeated slashes are collapsed, as in ConditionIndex#select
+				if (c == '/' && previous == '/') {
+					continue;
+				}
+				previous = c;
+				Node next = node.child(c);
+				if (next == null) {
+					next = new Node();
+					int index = -Arrays.binarySearch(node.keys, c) - 1;
+					node.keys = insertAt(node.keys, index, c);
+					node.children = insertAt(node.children, index, next);
+				}
+				node = next;
+			}
+			node.mask |= bit;
+		}
+
+		private static char[] insertAt(char[] array, int index, char value) {
+			char[] result = new char[array.length + 1];
+			System.arraycopy(array, 0, result, 0, index);
+			result[index] = value;
+			System.arraycopy(array, index, result, index + 1, array.length - index);
+			return result;
+		}
+
+		private static Node[] insertAt(Node[] array, int index, Node value) {
+			Node[] result = new Node[array.length + 1];
+			System.arraycopy(array, 0, result, 0, index);
+			result[index] = value;
+			System.arraycopy(array, index, result, index + 1, array.length - index);
+			return result;
+		}
+	}
+}
@@ -1,5 +1,13 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
 import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
 
 /**
@@ -152,4 +160,77 @@ public final class Conditions {
 	public static ProxyExchangeInterceptorCondition isMethod(String httpMethod) {
 		return new HttpMethodCondition(httpMethod);
 	}
+
+	/**
+	 * Matches if one of the values of the specified HTTP header equals the given value (case-sensitive).
+	 *
+	 * @param headerName The exact name of the HTTP header (e.g., "X-Anonymous-Consents").
+	 * @param value      The expected header value.
+	 * @return A header value matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition headerEquals(String headerName, String value) {
+		return new HeaderEqualsCondition(headerName, value);
+	}
+
+	/**
+	 * Matches if one of the values of the specified HTTP header completely matches the regular expression.
+	 * The expression is compiled once when the rules are loaded.
+	 *
+	 * @param headerName The exact name of the HTTP header (e.g., "User-Agent").
+	 * @param regex      The regular expression (e.g., ".*(Android|iPhone).*").
+	 * @return A header regex matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition headerMatches(String headerName, String regex) {
+		return new HeaderRegexCondition(headerName, regex);
+	}
+
+	/**
+	 * Matches if the incoming request contains the specified cookie with the given value (case-sensitive).
+	 *
+	 * @param cookieName The exact name of the cookie (e.g., "baseSite").
+	 * @param value      The expected cookie value.
+	 * @return A cookie value matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition cookieEquals(String cookieName, String value) {
+		return new CookieEqualsCondition(cookieName, value);
+	}
+
+	/**
+	 * Matches if the specified query parameter has one of the given values.
+	 *
+	 * @param parameterName The name of the query parameter (e.g., "fields").
+	 * @param values        The allowed values (e.g., "FULL", "DEFAULT").
+	 * @return A query parameter value matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition parameterIn(String parameterName, String... values) {
+		Set<String> allowedValues = values == null ? Set.of()
+				: Arrays.stream(values).filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+		return new QueryParameterInCondition(parameterName, allowedValues);
+	}
+
+	/**
+	 * Matches if the host name of the incoming request (without port) is one of the given host names, ignoring case.
+	 *
+	 * @param hostNames The host names (e.g., "local.cxdev.me").
+	 * @return A host name matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition hostIs(String... hostNames) {
+		Set<String> allowedHostNames = hostNames == null ? Set.of()
+				: Arrays.stream(hostNames).filter(StringUtils::isNotBlank).map(hostName -> hostName.trim().toLowerCase(Locale.ROOT))
+						.collect(Collectors.toUnmodifiableSet());
+		return new HostCondition(allowedHostNames);
+	}
+
+	/**
+	 * Matches a random share of the requests, e.g. {@code chance(0.05)} matches about every twentieth request.
+	 *
+	 * @param probability The probability of a match, between 0 and 1.
+	 * @return A randomly matching condition.
+	 */
+	public static ProxyExchangeInterceptorCondition chance(double probability) {
+		if (!(probability >= 0.0 && probability <= 1.0)) {
+			throw new IllegalArgumentException("Probability must be between 0 and 1, but was " + probability);
+		}
+		return new RandomCondition(probability);
+	}
 }
@@ -0,0 +1,43 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Objects;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.Cookie;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches if the request contains a specific cookie with the expected value
+ * (e.g., the {@code baseSite} cookie of a multi-site storefront).
+ */
+class CookieEqualsCondition implements ProxyExchangeInterceptorCondition {
+	private final String cookieName;
+	private final String value;
+
+	CookieEqualsCondition(String cookieName, String value) {
+		this.cookieName = cookieName;
+		this.value = value;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		if (StringUtils.isBlank(cookieName) || value == null) {
+			return false;
+		}
+		Cookie cookie = exchange.getRequestCookie(cookieName);
+		return cookie != null && value.equals(cookie.getValue());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CookieEqualsCondition other && Objects.equals(cookieName, other.cookieName) && Objects.equals(value, other.value);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), cookieName, value);
+	}
+}
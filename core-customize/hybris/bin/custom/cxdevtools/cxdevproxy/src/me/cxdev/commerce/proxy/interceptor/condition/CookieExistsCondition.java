@@ -1,5 +1,7 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 
 import org.apache.commons.lang3.StringUtils;
@@ -24,4 +26,18 @@ class CookieExistsCondition implements ProxyExchangeInterceptorCondition {
 		}
 		return exchange.getRequestCookie(cookieName) != null;
 	}
+
+	String getCookieName() {
+		return cookieName;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CookieExistsCondition other && Objects.equals(cookieName, other.cookieName);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), cookieName);
+	}
 }
@@ -0,0 +1,54 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Objects;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches if one of the values of a specific HTTP header equals the expected value.
+ * The header name is converted into an {@link HttpString} once.
+ */
+class HeaderEqualsCondition implements ProxyExchangeInterceptorCondition {
+	private final String headerName;
+	private final String value;
+	private final HttpString header;
+
+	HeaderEqualsCondition(String headerName, String value) {
+		this.headerName = headerName;
+		this.value = value;
+		this.header = StringUtils.isNotBlank(headerName) ? new HttpString(headerName) : null;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		if (header == null || value == null) {
+			return false;
+		}
+		HeaderValues values = exchange.getRequestHeaders().get(header);
+		if (values == null) {
+			return false;
+		}
+		for (int i = 0; i < values.size(); i++) {
+			if (value.equals(values.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof HeaderEqualsCondition other && Objects.equals(headerName, other.headerName) && Objects.equals(value, other.value);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), headerName, value);
+	}
+}
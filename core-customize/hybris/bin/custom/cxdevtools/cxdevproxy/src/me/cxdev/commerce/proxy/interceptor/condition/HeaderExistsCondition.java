@@ -1,5 +1,7 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HttpString;
 
@@ -12,16 +14,32 @@ import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
  */
 class HeaderExistsCondition implements ProxyExchangeInterceptorCondition {
 	private final String headerName;
+	private final HttpString header;
 
 	HeaderExistsCondition(String headerName) {
 		this.headerName = headerName;
+		this.header = StringUtils.isNotBlank(headerName) ? new HttpString(headerName) : null;
 	}
 
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
-		if (StringUtils.isBlank(headerName)) {
+		if (header == null) {
 			return false;
 		}
-		return exchange.getRequestHeaders().contains(new HttpString(headerName));
+		return exchange.getRequestHeaders().contains(header);
+	}
+
+	String getHeaderName() {
+		return headerName;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof HeaderExistsCondition other && Objects.equals(headerName, other.headerName);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), headerName);
 	}
 }
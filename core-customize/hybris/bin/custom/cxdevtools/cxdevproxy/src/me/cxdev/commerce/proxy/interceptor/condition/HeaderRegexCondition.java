@@ -0,0 +1,59 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.HttpString;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches if one of the values of a specific HTTP header matches a regular expression
+ * (e.g., {@code .*Mobile.*} for the {@code User-Agent}). Header name and pattern are compiled once.
+ */
+class HeaderRegexCondition implements ProxyExchangeInterceptorCondition {
+	private final String headerName;
+	private final HttpString header;
+	private final Pattern compiledPattern;
+
+	HeaderRegexCondition(String headerName, String regex) {
+		this.headerName = headerName;
+		this.header = StringUtils.isNotBlank(headerName) ? new HttpString(headerName) : null;
+		this.compiledPattern = StringUtils.isNotBlank(regex) ? Pattern.compile(regex) : null;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		if (header == null || compiledPattern == null) {
+			return false;
+		}
+		HeaderValues values = exchange.getRequestHeaders().get(header);
+		if (values == null) {
+			return false;
+		}
+		for (int i = 0; i < values.size(); i++) {
+			if (compiledPattern.matcher(values.get(i)).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof HeaderRegexCondition other && Objects.equals(headerName, other.headerName) && Objects.equals(regex(), other.regex());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), headerName, regex());
+	}
+
+	private String regex() {
+		return compiledPattern != null ? compiledPattern.pattern() : null;
+	}
+}
@@ -0,0 +1,40 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+import io.undertow.server.HttpServerExchange;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches if the host name of the request (without port) is one of the configured
+ * host names, ignoring case. Useful if several local domains point to the proxy.
+ */
+class HostCondition implements ProxyExchangeInterceptorCondition {
+	private final Set<String> hostNames;
+
+	HostCondition(Set<String> hostNames) {
+		this.hostNames = hostNames;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		if (hostNames.isEmpty()) {
+			return false;
+		}
+		String hostName = exchange.getHostName();
+		return hostName != null && hostNames.contains(hostName.toLowerCase(Locale.ROOT));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof HostCondition other && hostNames.equals(other.hostNames);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), hostNames);
+	}
+}
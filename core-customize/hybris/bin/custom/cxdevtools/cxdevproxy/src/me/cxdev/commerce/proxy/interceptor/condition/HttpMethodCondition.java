@@ -1,5 +1,7 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 
 import org.apache.commons.lang3.StringUtils;
@@ -24,4 +26,18 @@ class HttpMethodCondition implements ProxyExchangeInterceptorCondition {
 		}
 		return exchange.getRequestMethod().toString().equalsIgnoreCase(method);
 	}
+
+	String getMethod() {
+		return method;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof HttpMethodCondition other && Objects.equals(method, other.method);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), method);
+	}
 }
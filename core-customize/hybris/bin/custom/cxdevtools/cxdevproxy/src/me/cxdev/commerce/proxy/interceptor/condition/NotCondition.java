@@ -19,4 +19,18 @@ class NotCondition implements ProxyExchangeInterceptorCondition {
 	public boolean matches(HttpServerExchange exchange) {
 		return !condition.matches(exchange);
 	}
+
+	ProxyExchangeInterceptorCondition getCondition() {
+		return condition;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof NotCondition other && condition.equals(other.condition);
+	}
+
+	@Override
+	public int hashCode() {
+		return ~condition.hashCode();
+	}
 }
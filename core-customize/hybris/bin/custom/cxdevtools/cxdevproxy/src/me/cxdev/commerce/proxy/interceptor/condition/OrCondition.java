@@ -1,7 +1,6 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
 import java.util.Arrays;
-import java.util.List;
 
 import io.undertow.server.HttpServerExchange;
 
@@ -12,15 +11,34 @@ import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
  * of its underlying conditions matches.
  */
 class OrCondition implements ProxyExchangeInterceptorCondition {
-	private final List<ProxyExchangeInterceptorCondition> conditions;
+	private final ProxyExchangeInterceptorCondition[] conditions;
 
 	OrCondition(ProxyExchangeInterceptorCondition... conditions) {
 		assert conditions != null;
-		this.conditions = Arrays.asList(conditions);
+		this.conditions = conditions.clone();
 	}
 
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
-		return conditions.stream().anyMatch(c -> c.matches(exchange));
+		for (ProxyExchangeInterceptorCondition condition : conditions) {
+			if (condition.matches(exchange)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	ProxyExchangeInterceptorCondition[] getConditions() {
+		return conditions.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof OrCondition other && Arrays.equals(conditions, other.conditions);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(conditions);
 	}
 }
@@ -1,32 +1,48 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.util.AntPathMatcher;
 
 import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
 
 /**
- * Condition that matches the request path using Spring's AntPathMatcher.
- * Highly useful for matching paths with standard wildcards.
+ * Condition that matches the request path against an Ant-style pattern, with the same semantics
+ * as Spring's AntPathMatcher. Highly useful for matching paths with standard wildcards.
+ * The pattern is compiled once, so matching neither re-tokenizes the pattern nor allocates.
  */
 class PathAntMatcherCondition implements ProxyExchangeInterceptorCondition {
-	private final AntPathMatcher antPathMatcher;
 	private final String pattern;
+	private final CompiledAntPattern compiledPattern;
 
 	PathAntMatcherCondition(String pattern) {
-		this.antPathMatcher = new AntPathMatcher();
 		this.pattern = pattern;
+		this.compiledPattern = StringUtils.isNotBlank(pattern) ? new CompiledAntPattern(pattern) : null;
 	}
 
 	@Override
 	public boolean matches(HttpServerExchange exchange) {
-		if (StringUtils.isBlank(pattern)) {
+		if (compiledPattern == null) {
 			return false;
 		}
 
 		// Match the resolved path against the configured Ant pattern
-		return antPathMatcher.match(pattern, exchange.getRequestPath());
+		return compiledPattern.matches(exchange.getRequestPath());
+	}
+
+	String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof PathAntMatcherCondition other && Objects.equals(pattern, other.pattern);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), pattern);
 	}
 }
@@ -1,5 +1,6 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 import io.undertow.server.HttpServerExchange;
@@ -32,4 +33,22 @@ class PathRegexCondition implements ProxyExchangeInterceptorCondition {
 		// Match the resolved path (e.g., "/occ/v2/electronics/users/current")
 		return compiledPattern.matcher(exchange.getRequestPath()).matches();
 	}
+
+	Pattern getCompiledPattern() {
+		return compiledPattern;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof PathRegexCondition other && Objects.equals(regex(), other.regex());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), regex());
+	}
+
+	private String regex() {
+		return compiledPattern != null ? compiledPattern.pattern() : null;
+	}
 }
@@ -1,5 +1,7 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 
 import org.apache.commons.lang3.StringUtils;
@@ -10,7 +12,7 @@ import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
  * Condition that matches if the request path starts with a specific prefix.
  */
 class PathStartsWithCondition implements ProxyExchangeInterceptorCondition {
-	private String prefix;
+	private final String prefix;
 
 	PathStartsWithCondition(String prefix) {
 		this.prefix = prefix;
@@ -23,4 +25,18 @@ class PathStartsWithCondition implements ProxyExchangeInterceptorCondition {
 		}
 		return exchange.getRequestPath().startsWith(prefix);
 	}
+
+	String getPrefix() {
+		return prefix;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof PathStartsWithCondition other && Objects.equals(prefix, other.prefix);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), prefix);
+	}
 }
@@ -1,5 +1,7 @@
 package me.cxdev.commerce.proxy.interceptor.condition;
 
+import java.util.Objects;
+
 import io.undertow.server.HttpServerExchange;
 
 import org.apache.commons.lang3.StringUtils;
@@ -10,7 +12,7 @@ import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
  * Condition that matches if the request URL contains a specific query parameter.
  */
 class QueryParameterExistsCondition implements ProxyExchangeInterceptorCondition {
-	private String name;
+	private final String name;
 
 	QueryParameterExistsCondition(String name) {
 		this.name = name;
@@ -23,4 +25,18 @@ class QueryParameterExistsCondition implements ProxyExchangeInterceptorCondition
 		}
 		return exchange.getQueryParameters().containsKey(name);
 	}
+
+	String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof QueryParameterExistsCondition other && Objects.equals(name, other.name);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), name);
+	}
 }
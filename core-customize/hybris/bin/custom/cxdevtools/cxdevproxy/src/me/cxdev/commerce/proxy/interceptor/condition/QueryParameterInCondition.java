@@ -0,0 +1,52 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Set;
+
+import io.undertow.server.HttpServerExchange;
+
+import org.apache.commons.lang3.StringUtils;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches if a query parameter has one of the allowed values
+ * (e.g., {@code fields} is {@code FULL} or {@code DEFAULT}).
+ */
+class QueryParameterInCondition implements ProxyExchangeInterceptorCondition {
+	private final String name;
+	private final Set<String> values;
+
+	QueryParameterInCondition(String name, Set<String> values) {
+		this.name = name;
+		this.values = values;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		if (StringUtils.isBlank(name) || values.isEmpty()) {
+			return false;
+		}
+		Deque<String> parameterValues = exchange.getQueryParameters().get(name);
+		if (parameterValues == null) {
+			return false;
+		}
+		for (String parameterValue : parameterValues) {
+			if (values.contains(parameterValue)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof QueryParameterInCondition other && Objects.equals(name, other.name) && values.equals(other.values);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), name, values);
+	}
+}
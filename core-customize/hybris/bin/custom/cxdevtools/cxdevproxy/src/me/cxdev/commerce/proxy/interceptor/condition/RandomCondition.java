@@ -0,0 +1,35 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.undertow.server.HttpServerExchange;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+/**
+ * Condition that matches a random share of the requests, e.g. to inject faults into some of them only.
+ * Every evaluation is an independent draw.
+ */
+class RandomCondition implements ProxyExchangeInterceptorCondition {
+	private final double probability;
+
+	RandomCondition(double probability) {
+		this.probability = probability;
+	}
+
+	@Override
+	public boolean matches(HttpServerExchange exchange) {
+		return ThreadLocalRandom.current().nextDouble() < probability;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof RandomCondition other && probability == other.probability;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getClass(), probability);
+	}
+}
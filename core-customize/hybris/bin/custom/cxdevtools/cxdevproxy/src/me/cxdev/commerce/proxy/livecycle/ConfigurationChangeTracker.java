@@ -0,0 +1,65 @@
+package me.cxdev.commerce.proxy.livecycle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.util.config.ConfigIntf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Counts changes of the platform configuration (e.g. properties changed via the HAC), so caches of
+ * values derived from the configuration can be validated by comparing a single number instead of
+ * resolving all their properties again.
+ * <p>
+ * The version is {@code -1} as long as no change listener could be registered, consumers have to
+ * validate their entries themselves in that case.
+ * </p>
+ */
+public class ConfigurationChangeTracker implements ConfigIntf.ConfigChangeListener, InitializingBean, DisposableBean {
+	private static final Logger LOG = LoggerFactory.getLogger(ConfigurationChangeTracker.class);
+
+	private final AtomicLong version = new AtomicLong(-1);
+	private ConfigIntf config;
+
+	/**
+	 * Registers the tracker as change listener of the configuration, by default the one of the master tenant.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		if (config == null) {
+			config = Registry.getMasterTenant().getConfig();
+		}
+		config.registerConfigChangeListener(this);
+		version.set(0);
+		LOG.debug("Tracking changes of the platform configuration.");
+	}
+
+	@Override
+	public void configChanged(String key, String newValue) {
+		version.incrementAndGet();
+		LOG.debug("Configuration property {} changed.", key);
+	}
+
+	/**
+	 * @return The number of configuration changes, or {@code -1} if changes are not tracked.
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	@Override
+	public void destroy() {
+		if (config != null) {
+			config.unregisterConfigChangeListener(this);
+		}
+		version.set(-1);
+	}
+
+	public void setConfig(ConfigIntf config) {
+		this.config = config;
+	}
+}
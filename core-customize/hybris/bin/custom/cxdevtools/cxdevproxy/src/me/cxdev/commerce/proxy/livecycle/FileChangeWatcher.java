@@ -0,0 +1,397 @@
+package me.cxdev.commerce.proxy.livecycle;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import me.cxdev.commerce.proxy.util.TimeUtils;
+
+/**
+ * Shared, event-driven file watcher for all hot-reloadable resources of the proxy
+ * (rule scripts, message bundles, templates, static assets, JWT templates).
+ * <p>
+ * Instead of polling {@code lastModified()} timestamps, the directories of all watched resources
+ * are registered once with the native filesystem notification API ({@link WatchService}).
+ * A single daemon thread blocks until the operating system reports a change, so an idle proxy
+ * causes no CPU load and no filesystem calls. Editors typically produce bursts of events per save
+ * (temp file, rename, modify), therefore notifications are debounced per subscription: a listener
+ * is called once per changed path after no further event has arrived within the debounce window.
+ * </p>
+ * <p>
+ * If a watched directory is deleted, its nearest existing ancestor is watched instead, so the
+ * directory is registered again as soon as it is recreated. Directories that are no longer needed
+ * by any subscription are unregistered when a subscription is closed.
+ * </p>
+ * <p>
+ * Listeners are invoked on a dedicated notification thread and must not block for long.
+ * </p>
+ */
+public class FileChangeWatcher implements InitializingBean, DisposableBean {
+	private static final Logger LOG = LoggerFactory.getLogger(FileChangeWatcher.class);
+
+	private long debounceMs = 100;
+
+	private final Map<Path, WatchKey> registeredDirectories = new ConcurrentHashMap<>();
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	private volatile WatchService watchService;
+	private Thread watcherThread;
+	private ScheduledExecutorService notificationExecutor;
+
+	/**
+	 * Opens the watch service and starts the watcher and notification threads.
+	 */
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		watchService = FileSystems.getDefault().newWatchService();
+		if (watchService.getClass().getSimpleName().startsWith("Polling")) {
+			LOG.info("The filesystem of this platform does not provide native change notifications, changes are detected by JDK polling.");
+		}
+
+		notificationExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "CxDevProxy-FileWatcher-Notifier");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		watcherThread = new Thread(this::processEvents, "CxDevProxy-FileWatcher");
+		watcherThread.setDaemon(true);
+		watcherThread.start();
+
+		LOG.info("Started file change watcher with a debounce window of {} ms.", debounceMs);
+	}
+
+	/**
+	 * Watches a single file. The listener is called whenever the file is created, modified or deleted.
+	 *
+	 * @param file     The file to watch.
+	 * @param listener The listener to notify.
+	 * @return The subscription, or {@code null} if the file cannot be watched.
+	 */
+	public Subscription watchFile(File file, Runnable listener) {
+		if (file == null || listener == null) {
+			return null;
+		}
+		return watch(file.toPath(), false, changed -> listener.run());
+	}
+
+	/**
+	 * Watches a directory including all of its subdirectories. The listener is called with the
+	 * path of every changed file or directory below the watched directory.
+	 *
+	 * @param directory The directory to watch.
+	 * @param listener  The listener to notify.
+	 * @return The subscription, or {@code null} if the directory cannot be watched.
+	 */
+	public Subscription watchDirectory(File directory, Consumer<Path> listener) {
+		if (directory == null || listener == null) {
+			return null;
+		}
+		return watch(directory.toPath(), true, listener);
+	}
+
+	private Subscription watch(Path path, boolean recursive, Consumer<Path> listener) {
+		if (watchService == null) {
+			LOG.warn("File change watcher is not started, cannot watch {}.", path);
+			return null;
+		}
+
+		Path normalized = path.toAbsolutePath().normalize();
+		Path parent = normalized.getParent();
+		if (!recursive && (parent == null || !Files.isDirectory(parent))) {
+			LOG.warn("Cannot watch {}, its parent directory does not exist.", normalized);
+			return null;
+		}
+
+		// Subscribed before registering, so a concurrently closed subscription does not unregister the directories
+		Subscription subscription = new Subscription(normalized, recursive, listener);
+		subscriptions.add(subscription);
+		try {
+			if (recursive) {
+				registerRecursively(normalized);
+			} else {
+				register(parent);
+			}
+		} catch (IOException e) {
+			LOG.warn("Cannot watch {} for changes.", normalized, e);
+			subscription.close();
+			return null;
+		}
+		LOG.debug("Watching {} for changes{}.", normalized, recursive ? " (recursive)" : "");
+		return subscription;
+	}
+
+	private void registerRecursively(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			throw new IOException("Not a directory: " + directory);
+		}
+		try (Stream<Path> tree = Files.walk(directory)) {
+			for (Path dir : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator) {
+				register(dir);
+			}
+		}
+	}
+
+	private synchronized void register(Path directory) throws IOException {
+		WatchKey registered = registeredDirectories.get(directory);
+		if (registered == null || !registered.isValid()) {
+			WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+			registeredDirectories.put(directory, key);
+		}
+	}
+
+	/**
+	 * Registers a directory that has been created (or recreated) while it is needed by a subscription,
+	 * together with its needed subdirectories. Files that appeared before the registration are dispatched.
+	 */
+	private void registerCreated(Path directory) {
+		try {
+			register(directory);
+			try (Stream<Path> children = Files.list(directory)) {
+				for (Path child : (Iterable<Path>) children::iterator) {
+					if (Files.isDirectory(child)) {
+						if (isNeeded(child)) {
+							registerCreated(child);
+						}
+					} else {
+						dispatch(child);
+					}
+				}
+			}
+		} catch (IOException e) {
+			LOG.warn("Could not watch newly created directory {}.", directory, e);
+		}
+	}
+
+	/**
+	 * Handles a watched directory that has been deleted. If it is still needed, its nearest existing
+	 * ancestor is watched, so the directory is registered again once it is recreated.
+	 */
+	private void unregisterDeleted(Path directory, WatchKey key) {
+		registeredDirectories.remove(directory, key);
+		// Keys cancelled on close end up here as well, the directory may have been registered again meanwhile
+		if (!isNeeded(directory) || registeredDirectories.containsKey(directory)) {
+			return;
+		}
+
+		Path ancestor = directory.getParent();
+		while (ancestor != null && !Files.isDirectory(ancestor)) {
+			ancestor = ancestor.getParent();
+		}
+		if (ancestor == null) {
+			LOG.warn("Watched directory {} has been deleted, changes can no longer be watched.", directory);
+			return;
+		}
+		LOG.debug("Watched directory {} has been deleted, watching {} for its recreation.", directory, ancestor);
+		if (!registeredDirectories.containsKey(ancestor) || Files.isDirectory(directory)) {
+			// Also covers directories recreated before the ancestor has been registered
+			registerCreated(ancestor);
+		}
+	}
+
+	/**
+	 * Cancels the watch keys of all directories that are no longer needed by any subscription.
+	 */
+	private synchronized void unregisterUnneeded() {
+		registeredDirectories.entrySet().removeIf(entry -> {
+			if (isNeeded(entry.getKey())) {
+				return false;
+			}
+			entry.getValue().cancel();
+			return true;
+		});
+	}
+
+	private void processEvents() {
+		while (!Thread.currentThread().isInterrupted()) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path directory = (Path) key.watchable();
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					// Events were lost, notify everything below this directory
+					dispatch(directory);
+					continue;
+				}
+
+				Path changed = directory.resolve((Path) event.context());
+				if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed) && isNeeded(changed)) {
+					registerCreated(changed);
+				}
+				dispatch(changed);
+			}
+
+			if (!key.reset()) {
+				unregisterDeleted(directory, key);
+			}
+		}
+	}
+
+	private boolean isNeeded(Path directory) {
+		for (Subscription subscription : subscriptions) {
+			if (subscription.needs(directory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void dispatch(Path changed) {
+		for (Subscription subscription : subscriptions) {
+			if (subscription.accepts(changed)) {
+				subscription.schedule(changed);
+			}
+		}
+	}
+
+	/**
+	 * Stops the watcher threads and closes the watch service when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		subscriptions.clear();
+		if (watcherThread != null) {
+			watcherThread.interrupt();
+		}
+		if (notificationExecutor != null) {
+			notificationExecutor.shutdownNow();
+		}
+		if (watchService != null) {
+			watchService.close();
+		}
+		registeredDirectories.clear();
+	}
+
+	/**
+	 * @return The number of directories currently registered with the watch service.
+	 */
+	int getWatchedDirectoryCount() {
+		return registeredDirectories.size();
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "100ms", "1s", etc.
+	 * Fallback to milliseconds if no unit is provided.
+	 *
+	 * @param debounce The debounce window from Spring properties.
+	 */
+	public void setDebounce(String debounce) {
+		try {
+			this.debounceMs = TimeUtils.parseIntervalToMillis(debounce, "File change watcher debounce");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid debounce window {} for file change watcher, using current value '{}'.", debounce, this.debounceMs);
+		}
+	}
+
+	/**
+	 * A registered interest in a file or directory tree. Collects changed paths until the
+	 * debounce window has passed without further events, then notifies the listener.
+	 */
+	public final class Subscription implements AutoCloseable {
+		private final Path path;
+		private final boolean recursive;
+		private final Consumer<Path> listener;
+		private final Set<Path> pendingChanges = new LinkedHashSet<>();
+		private ScheduledFuture<?> pendingNotification;
+
+		private Subscription(Path path, boolean recursive, Consumer<Path> listener) {
+			this.path = path;
+			this.recursive = recursive;
+			this.listener = listener;
+		}
+
+		private boolean accepts(Path changed) {
+			return recursive ? changed.startsWith(path) : changed.equals(path);
+		}
+
+		/**
+		 * @return {@code true} if the directory has to be watched for this subscription, either because
+		 *         it contains watched paths or because it is an ancestor of a watched directory.
+		 */
+		private boolean needs(Path directory) {
+			Path watchedDirectory = recursive ? path : path.getParent();
+			return watchedDirectory.startsWith(directory) || (recursive && directory.startsWith(path));
+		}
+
+		private synchronized void schedule(Path changed) {
+			pendingChanges.add(changed);
+			if (pendingNotification != null) {
+				pendingNotification.cancel(false);
+			}
+			pendingNotification = notificationExecutor.schedule(this::notifyListener, debounceMs, TimeUnit.MILLISECONDS);
+		}
+
+		private void notifyListener() {
+			Set<Path> changes;
+			synchronized (this) {
+				changes = new LinkedHashSet<>(pendingChanges);
+				pendingChanges.clear();
+				pendingNotification = null;
+			}
+
+			for (Path changed : changes) {
+				try {
+					listener.accept(changed);
+				} catch (RuntimeException e) {
+					LOG.error("File change listener for {} failed.", path, e);
+				}
+			}
+		}
+
+		/**
+		 * @return The watched file or directory.
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Stops notifying the listener of this subscription and unregisters the directories no other
+		 * subscription needs.
+		 */
+		@Override
+		public void close() {
+			subscriptions.remove(this);
+			unregisterUnneeded();
+			synchronized (this) {
+				if (pendingNotification != null) {
+					pendingNotification.cancel(false);
+				}
+				pendingChanges.clear();
+			}
+		}
+	}
+}
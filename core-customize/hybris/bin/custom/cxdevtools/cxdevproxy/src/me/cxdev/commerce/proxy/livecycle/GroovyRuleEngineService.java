@@ -1,15 +1,27 @@
 package me.cxdev.commerce.proxy.livecycle;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ResourceLoaderAware;
@@ -17,7 +29,11 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
 import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyCodeSource;
 import groovy.lang.GroovyShell;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
 import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptor;
 import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
 import me.cxdev.commerce.proxy.interceptor.condition.Conditions;
@@ -26,8 +42,8 @@ import me.cxdev.commerce.proxy.interceptor.condition.Conditions;
  * Core service responsible for compiling, evaluating, and hot-reloading Groovy DSL scripts.
  * <p>
  * This engine acts as the bridge between the Spring ApplicationContext and the dynamic
- * Undertow proxy routing. It initializes a {@link groovy.lang.GroovyShell} and populates
- * its binding with pre-configured Spring beans (such as standard proxy handlers and
+ * Undertow proxy routing. It populates the {@link Binding} of every evaluated script
+ * with pre-configured Spring beans (such as standard proxy handlers and
  * pre-defined conditions).
  * </p>
  * <p>
@@ -35,20 +51,31 @@ import me.cxdev.commerce.proxy.interceptor.condition.Conditions;
  * automatic package imports for handlers and static star imports for the {@link Conditions}
  * factory. This enables a clean, fluent, and boilerplate-free DSL for developers to define routing rules.
  * </p>
+ * <p>
+ * Compiled script classes are cached per script file and validated by a SHA-256 hash of the script content,
+ * so unchanged scripts are never recompiled. Every compilation uses its own, disposable {@link GroovyClassLoader}.
+ * Once a script has been recompiled, the loader of the previous version is closed and its meta classes are
+ * removed, allowing outdated rule classes to be garbage collected during long development sessions.
+ * </p>
  */
-public class GroovyRuleEngineService implements ApplicationContextAware, ResourceLoaderAware {
+public class GroovyRuleEngineService implements ApplicationContextAware, ResourceLoaderAware, DisposableBean {
 	private static final Logger LOG = LoggerFactory.getLogger(GroovyRuleEngineService.class);
 	private static final String CONDITION_BEAN_PREFIX = "cxdevproxyCondition";
 	private static final String INTERCEPTOR_BEAN_PREFIX = "cxdevproxyInterceptor";
 
 	private ApplicationContext applicationContext;
 	private ResourceLoader resourceLoader;
-	private GroovyShell shell;
+	private Map<String, Object> bindingVariables;
+	private CompilerConfiguration compilerConfiguration;
+
+	private final Map<String, CompiledScript> compiledScripts = new ConcurrentHashMap<>();
+	private final LongAdder compileCount = new LongAdder();
+	private final LongAdder cacheHitCount = new LongAdder();
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
 		this.applicationContext = applicationContext;
-		initGroovyShell();
+		initCompilerConfiguration();
 	}
 
 	@Override
@@ -56,8 +83,8 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 		this.resourceLoader = resourceLoader;
 	}
 
-	private void initGroovyShell() {
-		Binding binding = new Binding();
+	private void initCompilerConfiguration() {
+		Map<String, Object> variables = new HashMap<>();
 
 		Map<String, ProxyExchangeInterceptor> handlers = applicationContext.getBeansOfType(ProxyExchangeInterceptor.class);
 		for (Map.Entry<String, ProxyExchangeInterceptor> entry : handlers.entrySet()) {
@@ -68,7 +95,7 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 				bindingName = Character.toLowerCase(stripped.charAt(0)) + stripped.substring(1);
 			}
 
-			binding.setVariable(bindingName, entry.getValue());
+			variables.put(bindingName, entry.getValue());
 			LOG.debug("Bound Spring interceptor bean '{}' as '{}' to Groovy Context", beanName, bindingName);
 		}
 
@@ -80,7 +107,7 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 				String stripped = beanName.substring(CONDITION_BEAN_PREFIX.length());
 				bindingName = Character.toLowerCase(stripped.charAt(0)) + stripped.substring(1);
 			}
-			binding.setVariable(bindingName, entry.getValue());
+			variables.put(bindingName, entry.getValue());
 			LOG.debug("Bound Spring condition bean '{}' as '{}' to Groovy Context", beanName, bindingName);
 		}
 
@@ -92,7 +119,8 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 		CompilerConfiguration config = new CompilerConfiguration();
 		config.addCompilationCustomizers(importCustomizer);
 
-		this.shell = new GroovyShell(this.getClass().getClassLoader(), binding, config);
+		this.bindingVariables = Collections.unmodifiableMap(variables);
+		this.compilerConfiguration = config;
 	}
 
 	/**
@@ -122,7 +150,9 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 
 		try {
 			LOG.debug("Evaluating Groovy rules from: {}", scriptFile.getAbsolutePath());
-			Object result = shell.evaluate(scriptFile);
+			Class<? extends Script> scriptClass = compile(scriptFile);
+			Script script = InvokerHelper.createScript(scriptClass, new Binding(new HashMap<>(bindingVariables)));
+			Object result = script.run();
 
 			if (result instanceof List) {
 				return (List<ProxyExchangeInterceptor>) result;
@@ -135,4 +165,115 @@ public class GroovyRuleEngineService implements ApplicationContextAware, Resourc
 
 		return Collections.emptyList();
 	}
+
+	/**
+	 * Returns the compiled script class for the given file, compiling it only if its content has changed
+	 * since the last compilation. A script that fails to compile keeps its previously compiled version cached.
+	 */
+	private Class<? extends Script> compile(File scriptFile) throws IOException {
+		String key = scriptFile.getAbsolutePath();
+		String source = Files.readString(scriptFile.toPath());
+		String contentHash = hash(source);
+
+		CompiledScript cached = compiledScripts.get(key);
+		if (cached != null && cached.contentHash.equals(contentHash)) {
+			cacheHitCount.increment();
+			LOG.debug("Groovy rules {} are unchanged, reusing compiled script class.", scriptFile.getName());
+			return cached.scriptClass;
+		}
+
+		long start = System.nanoTime();
+		GroovyClassLoader classLoader = new GroovyClassLoader(this.getClass().getClassLoader(), compilerConfiguration);
+		Class<? extends Script> scriptClass;
+		try {
+			GroovyCodeSource codeSource = new GroovyCodeSource(source, scriptFile.getName(), GroovyShell.DEFAULT_CODE_BASE);
+			codeSource.setCachable(false);
+			Class<?> parsedClass = classLoader.parseClass(codeSource);
+			scriptClass = parsedClass.asSubclass(Script.class);
+		} catch (RuntimeException e) {
+			closeQuietly(classLoader);
+			throw e;
+		}
+		long compileTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		compileCount.increment();
+		LOG.info("Compiled Groovy rules {} in {} ms.", scriptFile.getName(), compileTimeMs);
+
+		CompiledScript previous = compiledScripts.put(key, new CompiledScript(contentHash, scriptClass, classLoader, compileTimeMs));
+		if (previous != null) {
+			// All classes of a compilation unit are defined eagerly, so exchanges that are still running
+			// the rules of the previous version keep working after their loader has been closed.
+			previous.dispose();
+		}
+		return scriptClass;
+	}
+
+	private static String hash(String source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	private static void closeQuietly(GroovyClassLoader classLoader) {
+		try {
+			classLoader.close();
+		} catch (IOException e) {
+			LOG.debug("Could not close Groovy class loader.", e);
+		}
+	}
+
+	/**
+	 * @return The number of script compilations since startup.
+	 */
+	public long getCompileCount() {
+		return compileCount.sum();
+	}
+
+	/**
+	 * @return The number of evaluations that reused an already compiled script class.
+	 */
+	public long getCacheHitCount() {
+		return cacheHitCount.sum();
+	}
+
+	/**
+	 * @param scriptFile The script file.
+	 * @return The duration of the last compilation of the script in milliseconds, or {@code -1} if it has not been compiled.
+	 */
+	public long getCompileTimeMs(File scriptFile) {
+		CompiledScript compiled = scriptFile != null ? compiledScripts.get(scriptFile.getAbsolutePath()) : null;
+		return compiled != null ? compiled.compileTimeMs : -1;
+	}
+
+	/**
+	 * Releases the class loaders of all compiled scripts when the Spring context is destroyed.
+	 */
+	@Override
+	public void destroy() {
+		compiledScripts.values().forEach(CompiledScript::dispose);
+		compiledScripts.clear();
+	}
+
+	private static final class CompiledScript {
+		private final String contentHash;
+		private final Class<? extends Script> scriptClass;
+		private final GroovyClassLoader classLoader;
+		private final long compileTimeMs;
+
+		CompiledScript(String contentHash, Class<? extends Script> scriptClass, GroovyClassLoader classLoader, long compileTimeMs) {
+			this.contentHash = contentHash;
+			this.scriptClass = scriptClass;
+			this.classLoader = classLoader;
+			this.compileTimeMs = compileTimeMs;
+		}
+
+		void dispose() {
+			for (Class<?> loadedClass : classLoader.getLoadedClasses()) {
+				GroovySystem.getMetaClassRegistry().removeMetaClass(loadedClass);
+			}
+			closeQuietly(classLoader);
+		}
+	}
 }
@@ -2,22 +2,20 @@ package me.cxdev.commerce.proxy.livecycle;
 
 import static java.util.function.Predicate.isEqual;
 import static java.util.function.Predicate.not;
-import static org.apache.commons.collections4.ListUtils.emptyIfNull;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.net.URI;
-import java.security.KeyStore;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
-import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import de.hybris.bootstrap.config.ExtensionInfo;
@@ -27,9 +25,9 @@ import de.hybris.platform.core.Registry;
 import de.hybris.platform.util.Utilities;
 
 import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
 import io.undertow.protocols.ssl.UndertowXnioSsl;
 import io.undertow.server.HttpHandler;
-import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.proxy.LoadBalancingProxyClient;
 import io.undertow.server.handlers.proxy.ProxyHandler;
 
@@ -45,7 +43,12 @@ import org.xnio.ssl.XnioSsl;
 
 import me.cxdev.commerce.proxy.handler.ProxyRouteHandler;
 import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptor;
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+import me.cxdev.commerce.proxy.metrics.RequestMetrics;
+import me.cxdev.commerce.proxy.routing.BackendContextRouter;
+import me.cxdev.commerce.proxy.routing.RouteTarget;
 import me.cxdev.commerce.proxy.ssl.AcceptAllTrustManager;
+import me.cxdev.commerce.proxy.ssl.ReloadableKeyManager;
 import me.cxdev.commerce.proxy.util.ResourcePathUtils;
 import me.cxdev.commerce.proxy.util.TimeUtils;
 
@@ -69,6 +72,12 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	private String sslKeystorePath;
 	private String sslKeystorePassword;
 	private String sslKeystoreAlias;
+	private int sslSessionCacheSize = 1000;
+	private long sslSessionTimeoutMs = 24 * 60 * 60 * 1000L;
+	private FileChangeWatcher.Subscription keystoreSubscription;
+
+	// HTTP/2 on the inbound listener (ALPN for HTTPS, h2c upgrade for HTTP)
+	private boolean serverHttp2Enabled = true;
 
 	// Server Binding Properties
 	private String serverBindAddress = "0.0.0.0";
@@ -86,14 +95,26 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	private int backendPort = 9002;
 	private String backendRulesFilePath;
 	private String backendContexts;
+	private boolean frontendHttp2Enabled = false;
+	private boolean backendHttp2Enabled = false;
+	private long frontendRequestTimeoutMs = 0;
+	private long backendRequestTimeoutMs = 30000;
+
+	// Upstream Connection Pool Properties (per IO thread and target)
+	private int upstreamConnectionsPerThread = 50;
+	private int upstreamSoftMaxConnectionsPerThread = 20;
+	private long upstreamConnectionTtlMs = 60000;
+	private int upstreamMaxQueueSize = 1000;
+	private long upstreamProblemServerRetryMs = 10000;
 
 	// Rule Engine
 	private long groovyRuleReloadIntervalMs = 5000;
 	private GroovyRuleEngineService groovyRuleEngineService;
+	private FileChangeWatcher fileChangeWatcher;
 
-	// Thread-safe references for hot-reloading handlers
-	private final AtomicReference<List<ProxyExchangeInterceptor>> frontendHandlersRef = new AtomicReference<>();
-	private final AtomicReference<List<ProxyExchangeInterceptor>> backendHandlersRef = new AtomicReference<>();
+	// Versioned rule chains, hot-swapped on every reload and read once per request
+	private final VersionedRuleChain frontendRuleChain = new VersionedRuleChain("frontend");
+	private final VersionedRuleChain backendRuleChain = new VersionedRuleChain("backend");
 
 	// Watcher Status
 	private ScheduledExecutorService watcherExecutor;
@@ -101,23 +122,26 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	private File backendScriptFile;
 	private long lastModifiedFrontend = 0;
 	private long lastModifiedBackend = 0;
+	private FileChangeWatcher.Subscription frontendScriptSubscription;
+	private FileChangeWatcher.Subscription backendScriptSubscription;
 
 	// List of Local Routes
 	private List<ProxyRouteHandler> routeHandlers;
 
+	// Request Metrics, disabled if null
+	private ProxyMetrics proxyMetrics;
+
 	private Undertow server;
+	private BackendContextRouter backendContextRouter;
 	private boolean running = false;
 
 	/**
 	 * Initializes the proxy manager after all Spring properties have been set.
-	 * Prepares the atomic handler lists, resolves the Groovy script files,
-	 * triggers the initial script evaluation, and starts the file watcher for hot-reloading.
+	 * Resolves the Groovy script files, triggers the initial script evaluation,
+	 * and starts the file watcher for hot-reloading.
 	 */
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		frontendHandlersRef.set(List.of());
-		backendHandlersRef.set(List.of());
-
 		if (groovyRuleEngineService != null) {
 			frontendScriptFile = groovyRuleEngineService.resolveScriptFile(frontendRulesFilePath);
 			backendScriptFile = groovyRuleEngineService.resolveScriptFile(backendRulesFilePath);
@@ -130,8 +154,9 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	}
 
 	/**
-	 * Starts a daemon thread that periodically checks the Groovy rule scripts for modifications.
-	 * If changes are detected, the scripts are recompiled and smoothly hot-swapped.
+	 * Starts the daemon thread that recompiles and hot-swaps the Groovy rule scripts on change.
+	 * If a {@link FileChangeWatcher} is configured, reloads are triggered by filesystem notifications.
+	 * Otherwise (or if a script cannot be watched), the scripts are polled periodically.
 	 */
 	private void startFileWatcher() {
 		watcherExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -140,6 +165,11 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 			return thread;
 		});
 
+		if (watchRuleScripts()) {
+			LOG.info("Started Groovy Rule Watcher for dynamic hot-reloading on filesystem notifications.");
+			return;
+		}
+
 		watcherExecutor.scheduleWithFixedDelay(() -> {
 			reloadFrontendRulesIfChanged();
 			reloadBackendRulesIfChanged();
@@ -149,38 +179,78 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	}
 
 	/**
-	 * Evaluates the frontend Groovy script if the file has been modified since the last check.
-	 * Replaces the active handlers atomically to ensure zero proxy downtime.
+	 * Subscribes both rule scripts at the file change watcher. Notifications only enqueue the reload
+	 * on the rule watcher thread, so compiling a rule script never blocks other subscribers.
+	 *
+	 * @return {@code true} if all existing rule scripts are watched, {@code false} if polling is required.
+	 */
+	private boolean watchRuleScripts() {
+		if (fileChangeWatcher == null) {
+			return false;
+		}
+
+		if (frontendScriptFile != null) {
+			frontendScriptSubscription = fileChangeWatcher.watchFile(frontendScriptFile, () -> watcherExecutor.execute(this::reloadFrontendRulesIfChanged));
+		}
+		if (backendScriptFile != null) {
+			backendScriptSubscription = fileChangeWatcher.watchFile(backendScriptFile, () -> watcherExecutor.execute(this::reloadBackendRulesIfChanged));
+		}
+
+		boolean frontendWatched = frontendScriptFile == null || frontendScriptSubscription != null;
+		boolean backendWatched = backendScriptFile == null || backendScriptSubscription != null;
+		if (frontendWatched && backendWatched) {
+			return true;
+		}
+
+		LOG.warn("Rule scripts cannot be watched via filesystem notifications, falling back to polling.");
+		closeScriptSubscriptions();
+		return false;
+	}
+
+	private void closeScriptSubscriptions() {
+		if (frontendScriptSubscription != null) {
+			frontendScriptSubscription.close();
+			frontendScriptSubscription = null;
+		}
+		if (backendScriptSubscription != null) {
+			backendScriptSubscription.close();
+			backendScriptSubscription = null;
+		}
+	}
+
+	/**
+	 * Evaluates the frontend Groovy script if the file has been modified since the last load.
+	 * Swaps in a new rule chain generation to ensure zero proxy downtime.
 	 */
 	private void reloadFrontendRulesIfChanged() {
 		if (frontendScriptFile != null && frontendScriptFile.exists()) {
 			long currentModified = frontendScriptFile.lastModified();
-			if (currentModified > lastModifiedFrontend) {
+			if (currentModified != lastModifiedFrontend) {
 				LOG.info("Detected change in frontend rules script. Compiling and reloading...");
 				List<ProxyExchangeInterceptor> newHandlers = groovyRuleEngineService.evaluateScript(frontendScriptFile);
 				if (newHandlers != null && !newHandlers.isEmpty()) {
-					frontendHandlersRef.set(newHandlers); // ATOMIC SWAP!
 					lastModifiedFrontend = currentModified;
-					LOG.info("Frontend rules successfully reloaded. Active handlers: {}", newHandlers.size());
+					long version = frontendRuleChain.swap(newHandlers);
+					LOG.info("Frontend rules successfully reloaded (version {}). Active handlers: {}", version, newHandlers.size());
 				}
 			}
 		}
 	}
 
 	/**
-	 * Evaluates the backend Groovy script if the file has been modified since the last check.
-	 * Replaces the active handlers atomically to ensure zero proxy downtime.
+	 * Evaluates the backend Groovy script if the file has been modified since the last load.
+	 * Swaps in a new rule chain generation to ensure zero proxy downtime.
 	 */
 	private void reloadBackendRulesIfChanged() {
 		if (backendScriptFile != null && backendScriptFile.exists()) {
 			long currentModified = backendScriptFile.lastModified();
-			if (currentModified > lastModifiedBackend) {
+			if (currentModified != lastModifiedBackend) {
 				LOG.info("Detected change in backend rules script. Compiling and reloading...");
 				List<ProxyExchangeInterceptor> newHandlers = groovyRuleEngineService.evaluateScript(backendScriptFile);
 				if (newHandlers != null && !newHandlers.isEmpty()) {
-					backendHandlersRef.set(newHandlers); // ATOMIC SWAP!
 					lastModifiedBackend = currentModified;
-					LOG.info("Backend rules successfully reloaded. Active handlers: {}", newHandlers.size());
+					long version = backendRuleChain.swap(newHandlers);
+					LOG.info("Backend rules successfully reloaded (version {}). Active handlers: {}", version, newHandlers.size());
 				}
 			}
 		}
@@ -202,52 +272,71 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		LOG.info("Starting embedded Undertow proxy (Protocol: {})...", this.serverProtocol);
 
 		try {
-			XnioSsl frontendSslContext = "https".equalsIgnoreCase(frontendProtocol) ? createTrustAllXnioSsl(frontendHostname) : null;
-			String frontendUrl = frontendProtocol + "://" + frontendHostname + ":" + frontendPort;
-			LoadBalancingProxyClient frontendClient = new LoadBalancingProxyClient()
-					.addHost(new URI(frontendUrl), frontendSslContext)
-					.setConnectionsPerThread(20);
-
-			XnioSsl backendSslContext = "https".equalsIgnoreCase(backendProtocol) ? createTrustAllXnioSsl(backendHostname) : null;
-			String backendUrl = backendProtocol + "://" + backendHostname + ":" + backendPort;
-			LoadBalancingProxyClient backendClient = new LoadBalancingProxyClient()
-					.addHost(new URI(backendUrl), backendSslContext)
-					.setConnectionsPerThread(20);
-
-			HttpHandler baseFrontendHandler = ProxyHandler.builder()
-					.setProxyClient(frontendClient)
-					.setReuseXForwarded(true)
-					.build();
-			HttpHandler finalFrontendHandler = applyRules(frontendHandlersRef.get(), baseFrontendHandler);
-
-			HttpHandler baseBackendHandler = ProxyHandler.builder()
-					.setProxyClient(backendClient)
-					.setMaxRequestTime(30000)
-					.setReuseXForwarded(true)
-					.build();
-			HttpHandler finalBackendHandler = applyRules(backendHandlersRef.get(), baseBackendHandler);
-
-			List<String> activeBackendContexts = determineBackendContexts();
-			LOG.info("Active backend routing contexts: {}", activeBackendContexts);
+			LoadBalancingProxyClient frontendClient = createProxyClient("frontend", frontendProtocol, frontendHostname, frontendPort, frontendHttp2Enabled);
+			HttpHandler baseFrontendHandler = createProxyHandler(frontendClient, frontendRequestTimeoutMs);
+			HttpHandler finalFrontendHandler = applyRules(frontendRuleChain, markUpstream(baseFrontendHandler));
+
+			LoadBalancingProxyClient backendClient = createProxyClient("backend", backendProtocol, backendHostname, backendPort, backendHttp2Enabled);
+			HttpHandler baseBackendHandler = createProxyHandler(backendClient, backendRequestTimeoutMs);
+			HttpHandler finalBackendHandler = applyRules(backendRuleChain, markUpstream(baseBackendHandler));
+
+			BackendContextRouter router = new BackendContextRouter(determineBackendContexts());
+			this.backendContextRouter = router;
+			LOG.info("Active backend routing contexts: {}", router.getContexts());
+
+			ProxyRouteHandler[] handlers = routeHandlers != null ? routeHandlers.toArray(new ProxyRouteHandler[0]) : new ProxyRouteHandler[0];
+			RequestMetrics[] handlerMetrics = new RequestMetrics[handlers.length];
+			RequestMetrics frontendMetrics = isMetricsEnabled() ? proxyMetrics.target(ProxyMetrics.TARGET_FRONTEND) : null;
+			RequestMetrics backendMetrics = isMetricsEnabled() ? proxyMetrics.target(ProxyMetrics.TARGET_BACKEND) : null;
+			for (int i = 0; i < handlers.length && isMetricsEnabled(); i++) {
+				handlerMetrics[i] = proxyMetrics.target(ProxyMetrics.HANDLER_PREFIX + handlers[i].getClass().getSimpleName());
+			}
+
+			HttpHandler upstreamHandler = exchange -> {
+				if (router.resolve(exchange.getRequestPath()) == RouteTarget.BACKEND) {
+					finalBackendHandler.handleRequest(exchange);
+				} else {
+					finalFrontendHandler.handleRequest(exchange);
+				}
+			};
 
 			HttpHandler routingHandler = exchange -> {
+				long startNanos = frontendMetrics != null ? System.nanoTime() : 0;
+
 				// 1. Check if a route handler wants to intercept the request
-				if (routeHandlers != null) {
-					for (ProxyRouteHandler handler : routeHandlers) {
-						if (handler.matches(exchange)) {
-							LOG.debug("Serving request {} {} with local handler {}.", exchange.getRequestMethod(), exchange.getRequestURI(),
-									handler.getClass().getSimpleName());
-							handler.handleRequest(exchange);
-							return;
+				for (int i = 0; i < handlers.length; i++) {
+					ProxyRouteHandler handler = handlers[i];
+					if (handler.matches(exchange)) {
+						LOG.debug("Serving request {} {} with local handler {}.", exchange.getRequestMethod(), exchange.getRequestURI(),
+								handler.getClass().getSimpleName());
+						if (handlerMetrics[i] != null) {
+							handlerMetrics[i].start(exchange, startNanos);
 						}
+						exchange.putAttachment(ProxyRouteHandler.UPSTREAM_HANDLER, upstreamHandler);
+						handler.handleRequest(exchange);
+						return;
 					}
 				}
 
 				// 2. Regular proxy routing if no local handler matched
-				routeRequest(exchange, activeBackendContexts, finalBackendHandler, finalFrontendHandler);
+				if (router.resolve(exchange.getRequestPath()) == RouteTarget.BACKEND) {
+					LOG.debug("Serving request {} {} with backend handler.", exchange.getRequestMethod(), exchange.getRequestURI());
+					if (backendMetrics != null) {
+						backendMetrics.start(exchange, startNanos);
+					}
+					finalBackendHandler.handleRequest(exchange);
+				} else {
+					LOG.debug("Serving request {} {} with frontend handler.", exchange.getRequestMethod(), exchange.getRequestURI());
+					if (frontendMetrics != null) {
+						frontendMetrics.start(exchange, startNanos);
+					}
+					finalFrontendHandler.handleRequest(exchange);
+				}
 			};
 
-			Undertow.Builder serverBuilder = Undertow.builder().setHandler(routingHandler);
+			Undertow.Builder serverBuilder = Undertow.builder()
+					.setServerOption(UndertowOptions.ENABLE_HTTP2, serverHttp2Enabled)
+					.setHandler(routingHandler);
 
 			if (sslEnabled) {
 				SSLContext serverSslContext = createServerSSLContext();
@@ -255,10 +344,12 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 					return;
 				}
 				serverBuilder.addHttpsListener(serverPort, serverBindAddress, serverSslContext);
-				LOG.info("Undertow proxy listening securely on {}://{}:{} (HTTPS).", serverProtocol, serverBindAddress, serverPort);
+				LOG.info("Undertow proxy listening securely on {}://{}:{} ({}).", serverProtocol, serverBindAddress, serverPort,
+						serverHttp2Enabled ? "HTTPS, HTTP/2 via ALPN" : "HTTPS");
 			} else {
 				serverBuilder.addHttpListener(serverPort, serverBindAddress);
-				LOG.info("Undertow proxy listening on {}://{}:{} (HTTP).", serverProtocol, serverBindAddress, serverPort);
+				LOG.info("Undertow proxy listening on {}://{}:{} ({}).", serverProtocol, serverBindAddress, serverPort,
+						serverHttp2Enabled ? "HTTP, HTTP/2 via h2c upgrade" : "HTTP");
 			}
 
 			server = serverBuilder.build();
@@ -270,6 +361,58 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		}
 	}
 
+	/**
+	 * Creates the pooled proxy client for an upstream target.
+	 * <p>
+	 * Connections are pooled per IO thread: up to the configured number of connections are opened
+	 * concurrently, the soft maximum of them is kept alive while idle, and idle connections above the
+	 * soft maximum are closed after the TTL. If HTTP/2 is enabled for an HTTPS target, it is negotiated
+	 * via ALPN and a single multiplexed connection serves all concurrent requests, falling back to
+	 * HTTP/1.1 if the target does not support it.
+	 * </p>
+	 *
+	 * @param name     A descriptive name for logging (e.g., "frontend").
+	 * @param protocol The protocol of the target, "http" or "https".
+	 * @param hostname The hostname of the target.
+	 * @param port     The port of the target.
+	 * @param http2    Whether HTTP/2 should be negotiated with the target.
+	 * @return The configured proxy client.
+	 * @throws Exception If the target URI is invalid or the SSL context cannot be created.
+	 */
+	LoadBalancingProxyClient createProxyClient(String name, String protocol, String hostname, int port, boolean http2) throws Exception {
+		boolean https = "https".equalsIgnoreCase(protocol);
+		XnioSsl sslContext = https ? createTrustAllXnioSsl(hostname) : null;
+		URI uri = new URI(protocol + "://" + hostname + ":" + port);
+
+		OptionMap options = OptionMap.EMPTY;
+		if (http2 && https) {
+			options = OptionMap.create(UndertowOptions.ENABLE_HTTP2, true);
+		} else if (http2) {
+			LOG.warn("HTTP/2 to the {} target requires HTTPS (ALPN), using HTTP/1.1 for {}.", name, uri);
+		}
+
+		LoadBalancingProxyClient client = new LoadBalancingProxyClient()
+				.setConnectionsPerThread(upstreamConnectionsPerThread)
+				.setSoftMaxConnectionsPerThread(Math.min(upstreamSoftMaxConnectionsPerThread, upstreamConnectionsPerThread))
+				.setTtl(upstreamConnectionTtlMs > 0 ? (int) Math.min(upstreamConnectionTtlMs, Integer.MAX_VALUE) : -1)
+				.setMaxQueueSize(Math.max(upstreamMaxQueueSize, 0))
+				.setProblemServerRetry((int) Math.max(1, upstreamProblemServerRetryMs / 1000))
+				.addHost(uri, null, sslContext, options);
+
+		LOG.info("Proxying {} requests to {} ({}, {} connections per IO thread, {} kept alive).", name, uri,
+				options.get(UndertowOptions.ENABLE_HTTP2, false) ? "HTTP/2 via ALPN" : "HTTP/1.1",
+				upstreamConnectionsPerThread, Math.min(upstreamSoftMaxConnectionsPerThread, upstreamConnectionsPerThread));
+		return client;
+	}
+
+	private static HttpHandler createProxyHandler(LoadBalancingProxyClient client, long requestTimeoutMs) {
+		return ProxyHandler.builder()
+				.setProxyClient(client)
+				.setMaxRequestTime(requestTimeoutMs > 0 ? (int) Math.min(requestTimeoutMs, Integer.MAX_VALUE) : -1)
+				.setReuseXForwarded(true)
+				.build();
+	}
+
 	/**
 	 * Determines the URL context paths that should be routed to the SAP Commerce backend.
 	 * Uses explicitly configured contexts if provided, otherwise performs auto-discovery
@@ -299,52 +442,43 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	}
 
 	/**
-	 * Routes the incoming HTTP request to either the backend or the frontend proxy handler
-	 * based on the request path and the determined backend contexts.
+	 * Wraps the upstream proxy handler so the proxy overhead (routing and interceptors) of each
+	 * request is recorded right before it is forwarded.
 	 *
-	 * @param exchange        The current HTTP server exchange.
-	 * @param backendContexts The list of context paths mapped to the backend.
-	 * @param backendHandler  The handler responsible for backend routing.
-	 * @param frontendHandler The handler responsible for frontend routing.
-	 * @throws Exception If an error occurs during routing.
+	 * @param proxyHandler The upstream proxy handler.
+	 * @return The wrapped handler, or the proxy handler itself if metrics are disabled.
 	 */
-	private void routeRequest(HttpServerExchange exchange, List<String> backendContexts, HttpHandler backendHandler, HttpHandler frontendHandler) throws Exception {
-		String path = StringUtils.stripToEmpty(exchange.getRequestPath());
-		boolean isBackendRequest = backendContexts.stream().anyMatch(path::startsWith);
-		if (isBackendRequest) {
-			LOG.debug("Serving request {} {} with backend handler.", exchange.getRequestMethod(), exchange.getRequestURI());
-			backendHandler.handleRequest(exchange);
-		} else {
-			LOG.debug("Serving request {} {} with frontend handler.", exchange.getRequestMethod(), exchange.getRequestURI());
-			frontendHandler.handleRequest(exchange);
+	private HttpHandler markUpstream(HttpHandler proxyHandler) {
+		if (!isMetricsEnabled()) {
+			return proxyHandler;
 		}
+		return exchange -> {
+			RequestMetrics.markUpstream(exchange);
+			proxyHandler.handleRequest(exchange);
+		};
+	}
+
+	private boolean isMetricsEnabled() {
+		return proxyMetrics != null && proxyMetrics.isEnabled();
 	}
 
 	/**
-	 * Wraps the base handler with any configured custom interceptors/handlers.
+	 * Wraps the base handler with the given rule chain. The chain is resolved on every request,
+	 * so hot-reloaded rules take effect immediately without restarting the listener.
 	 *
-	 * @param interceptors The custom interceptors.
+	 * @param ruleChain The versioned rule chain.
 	 * @param next The base proxy handler.
-	 * @return A chained HTTP handler applying all configured frontend rules.
+	 * @return A chained HTTP handler applying the currently active rules.
 	 */
-	protected HttpHandler applyRules(List<ProxyExchangeInterceptor> interceptors, HttpHandler next) {
-		return exchange -> {
-			for (ProxyExchangeInterceptor interceptor : emptyIfNull(interceptors)) {
-				interceptor.apply(exchange);
-				if (exchange.isResponseStarted() || exchange.isComplete()) {
-					break;
-				}
-			}
-
-			if (!exchange.isResponseStarted() && !exchange.isComplete()) {
-				next.handleRequest(exchange);
-			}
-		};
+	protected HttpHandler applyRules(VersionedRuleChain ruleChain, HttpHandler next) {
+		return exchange -> ruleChain.handleRequest(exchange, next);
 	}
 
 	/**
 	 * Creates the SSL context used by the Undertow server to accept incoming HTTPS connections.
-	 * Loads the keystore configured in the properties.
+	 * Loads the keystore configured in the properties and configures the TLS session cache, so
+	 * reconnecting browsers resume their sessions instead of performing a full handshake.
+	 * If a {@link FileChangeWatcher} is configured, the keystore is reloaded on change.
 	 *
 	 * @return The configured SSLContext, or null if configuration is invalid.
 	 * @throws Exception If keystore loading or context initialization fails.
@@ -362,19 +496,47 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 			return null;
 		}
 
-		KeyStore keyStore = KeyStore.getInstance("PKCS12");
-		try (InputStream is = new FileInputStream(keystoreFile)) {
-			keyStore.load(is, sslKeystorePassword != null ? sslKeystorePassword.toCharArray() : new char[0]);
-		}
+		ReloadableKeyManager keyManager = ReloadableKeyManager.forKeystore(keystoreFile, sslKeystorePassword, sslKeystoreAlias);
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(new KeyManager[] { keyManager }, null, null);
 
-		KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-		kmf.init(keyStore, sslKeystorePassword != null ? sslKeystorePassword.toCharArray() : new char[0]);
+		SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+		sessionContext.setSessionCacheSize(Math.max(sslSessionCacheSize, 0));
+		sessionContext.setSessionTimeout((int) Math.min(sslSessionTimeoutMs / 1000, Integer.MAX_VALUE));
+		LOG.info("TLS session cache: {} sessions, timeout {} s, session tickets {}.", sslSessionCacheSize, sslSessionTimeoutMs / 1000,
+				Boolean.parseBoolean(System.getProperty("jdk.tls.server.enableSessionTicketExtension", "true")) ? "enabled" : "disabled");
 
-		SSLContext sslContext = SSLContext.getInstance("TLS");
-		sslContext.init(kmf.getKeyManagers(), null, null);
+		if (fileChangeWatcher != null) {
+			closeKeystoreSubscription();
+			keystoreSubscription = fileChangeWatcher.watchFile(keystoreFile, () -> reloadKeystore(keyManager, sessionContext));
+		}
 		return sslContext;
 	}
 
+	/**
+	 * Reloads the keystore after a change and invalidates all cached TLS sessions,
+	 * so reconnecting clients perform a full handshake with the new certificate.
+	 */
+	private void reloadKeystore(ReloadableKeyManager keyManager, SSLSessionContext sessionContext) {
+		if (!keyManager.reload()) {
+			return;
+		}
+		for (byte[] sessionId : Collections.list(sessionContext.getIds())) {
+			SSLSession session = sessionContext.getSession(sessionId);
+			if (session != null) {
+				session.invalidate();
+			}
+		}
+		LOG.info("Reloaded proxy keystore {}, new connections use the updated certificates.", sslKeystorePath);
+	}
+
+	private void closeKeystoreSubscription() {
+		if (keystoreSubscription != null) {
+			keystoreSubscription.close();
+			keystoreSubscription = null;
+		}
+	}
+
 	/**
 	 * Creates a permissive SSL client context for outbound proxy connections to target systems.
 	 * Disables strict certificate validation to allow proxying to local self-signed endpoints.
@@ -402,6 +564,9 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	public void stop() {
 		if (server != null) {
 			LOG.info("Stopping embedded Undertow proxy...");
+			if (backendContextRouter != null) {
+				LOG.info("Routing statistics: {}", backendContextRouter);
+			}
 			server.stop();
 			running = false;
 		}
@@ -412,6 +577,8 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 	 */
 	@Override
 	public void destroy() throws Exception {
+		closeScriptSubscriptions();
+		closeKeystoreSubscription();
 		if (watcherExecutor != null && !watcherExecutor.isShutdown()) {
 			watcherExecutor.shutdownNow();
 		}
@@ -422,6 +589,22 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		return running;
 	}
 
+	/**
+	 * @return The backend context router compiled at {@link #start()}, exposing lookup statistics,
+	 *         or {@code null} if the proxy has not been started.
+	 */
+	public BackendContextRouter getBackendContextRouter() {
+		return backendContextRouter;
+	}
+
+	public VersionedRuleChain getFrontendRuleChain() {
+		return frontendRuleChain;
+	}
+
+	public VersionedRuleChain getBackendRuleChain() {
+		return backendRuleChain;
+	}
+
 	@Override
 	public int getPhase() {
 		return Integer.MAX_VALUE;
@@ -449,6 +632,31 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		this.sslKeystoreAlias = sslKeystoreAlias;
 	}
 
+	/**
+	 * @param sslSessionCacheSize The maximum number of cached TLS sessions, {@code 0} for no limit.
+	 */
+	public void setSslSessionCacheSize(int sslSessionCacheSize) {
+		this.sslSessionCacheSize = sslSessionCacheSize;
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "30m", "24h", "1d", etc.
+	 * TLS sessions are resumed with a granularity of seconds, {@code 0} keeps them without limit.
+	 *
+	 * @param timeout The time a cached TLS session can be resumed.
+	 */
+	public void setSslSessionTimeout(String timeout) {
+		try {
+			this.sslSessionTimeoutMs = TimeUtils.parseIntervalToMillis(timeout, "TLS session timeout");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid TLS session timeout {}, using current value '{}'.", timeout, this.sslSessionTimeoutMs);
+		}
+	}
+
+	public void setServerHttp2Enabled(boolean serverHttp2Enabled) {
+		this.serverHttp2Enabled = serverHttp2Enabled;
+	}
+
 	public void setServerBindAddress(String serverBindAddress) {
 		this.serverBindAddress = serverBindAddress;
 	}
@@ -505,6 +713,86 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		this.backendContexts = backendContexts;
 	}
 
+	public void setFrontendHttp2Enabled(boolean frontendHttp2Enabled) {
+		this.frontendHttp2Enabled = frontendHttp2Enabled;
+	}
+
+	public void setBackendHttp2Enabled(boolean backendHttp2Enabled) {
+		this.backendHttp2Enabled = backendHttp2Enabled;
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "30s", "5m", etc.
+	 * A value of 0 disables the timeout.
+	 *
+	 * @param timeout The maximum time of a proxied frontend request.
+	 */
+	public void setFrontendRequestTimeout(String timeout) {
+		try {
+			this.frontendRequestTimeoutMs = TimeUtils.parseIntervalToMillis(timeout, "Frontend request timeout");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid frontend request timeout {}, using current value '{}'.", timeout, this.frontendRequestTimeoutMs);
+		}
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "30s", "5m", etc.
+	 * A value of 0 disables the timeout.
+	 *
+	 * @param timeout The maximum time of a proxied backend request.
+	 */
+	public void setBackendRequestTimeout(String timeout) {
+		try {
+			this.backendRequestTimeoutMs = TimeUtils.parseIntervalToMillis(timeout, "Backend request timeout");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid backend request timeout {}, using current value '{}'.", timeout, this.backendRequestTimeoutMs);
+		}
+	}
+
+	public void setUpstreamConnectionsPerThread(int upstreamConnectionsPerThread) {
+		this.upstreamConnectionsPerThread = Math.max(1, upstreamConnectionsPerThread);
+	}
+
+	public void setUpstreamSoftMaxConnectionsPerThread(int upstreamSoftMaxConnectionsPerThread) {
+		this.upstreamSoftMaxConnectionsPerThread = Math.max(0, upstreamSoftMaxConnectionsPerThread);
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "60s", "5m", etc.
+	 * A value of 0 keeps idle connections open until the target closes them.
+	 *
+	 * @param ttl The time after which idle connections above the soft maximum are closed.
+	 */
+	public void setUpstreamConnectionTtl(String ttl) {
+		try {
+			this.upstreamConnectionTtlMs = TimeUtils.parseIntervalToMillis(ttl, "Upstream connection TTL");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid upstream connection TTL {}, using current value '{}'.", ttl, this.upstreamConnectionTtlMs);
+		}
+	}
+
+	/**
+	 * @param upstreamMaxQueueSize The number of requests queued per IO thread while all connections are busy.
+	 *                             Further requests are rejected with 503, {@code 0} rejects them immediately.
+	 */
+	public void setUpstreamMaxQueueSize(int upstreamMaxQueueSize) {
+		this.upstreamMaxQueueSize = upstreamMaxQueueSize;
+	}
+
+	/**
+	 * Smart setter allowing human-readable time intervals like "10s", "1m", etc. Undertow retries
+	 * unreachable targets with a granularity of seconds.
+	 *
+	 * @param retry The time after which an unreachable target is tried again.
+	 */
+	public void setUpstreamProblemServerRetry(String retry) {
+		try {
+			this.upstreamProblemServerRetryMs = TimeUtils.parseIntervalToMillis(retry, "Upstream problem server retry");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid upstream problem server retry {}, using current value '{}'.", retry, this.upstreamProblemServerRetryMs);
+		}
+	}
+
 	/**
 	 * Smart setter allowing human-readable time intervals like "5s", "10m", "1h", etc.
 	 * Fallback to milliseconds if no unit is provided.
@@ -523,7 +811,22 @@ public class UndertowProxyManager implements SmartLifecycle, InitializingBean, D
 		this.groovyRuleEngineService = groovyRuleEngineService;
 	}
 
+	public void setFileChangeWatcher(FileChangeWatcher fileChangeWatcher) {
+		this.fileChangeWatcher = fileChangeWatcher;
+	}
+
 	public void setRouteHandlers(List<ProxyRouteHandler> routeHandlers) {
 		this.routeHandlers = routeHandlers;
 	}
+
+	/**
+	 * Sets the registry recording request latencies per route target and the execution times of the rule chains.
+	 *
+	 * @param proxyMetrics The metrics registry, {@code null} to disable metrics.
+	 */
+	public void setProxyMetrics(ProxyMetrics proxyMetrics) {
+		this.proxyMetrics = proxyMetrics;
+		frontendRuleChain.setProxyMetrics(proxyMetrics);
+		backendRuleChain.setProxyMetrics(proxyMetrics);
+	}
 }
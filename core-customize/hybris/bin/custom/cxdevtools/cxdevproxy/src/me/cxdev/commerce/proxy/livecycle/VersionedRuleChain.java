@@ -0,0 +1,104 @@
+package me.cxdev.commerce.proxy.livecycle;
+
+import java.util.List;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import me.cxdev.commerce.proxy.interceptor.InterceptorChain;
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptor;
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+
+/**
+ * Holds the currently active, compiled {@link InterceptorChain} of a rule set and allows it
+ * to be hot-swapped while the Undertow listener keeps running.
+ * <p>
+ * Every swap creates a new numbered generation. The request path reads the active generation
+ * with a single volatile load and keeps using it for the whole chain, so a reload never affects
+ * requests that are already being processed. A swap never waits for the previous generation and
+ * nothing is tracked per request: the previous chain stays reachable only through the exchanges
+ * still running it and is garbage collected afterwards.
+ * </p>
+ */
+public class VersionedRuleChain {
+	private static final Logger LOG = LoggerFactory.getLogger(VersionedRuleChain.class);
+
+	private final String name;
+	private ProxyMetrics proxyMetrics;
+	private volatile Generation current;
+
+	/**
+	 * @param name A descriptive name for logging (e.g., "frontend").
+	 */
+	public VersionedRuleChain(String name) {
+		this.name = name;
+		this.current = new Generation(0, InterceptorChain.empty());
+	}
+
+	/**
+	 * Applies the active rule generation to the exchange and hands it over to the next handler.
+	 *
+	 * @param exchange The current HTTP server exchange.
+	 * @param next     The handler to continue with if no interceptor answered the request.
+	 * @throws Exception If an interceptor or the next handler fails.
+	 */
+	public void handleRequest(HttpServerExchange exchange, HttpHandler next) throws Exception {
+		current.chain().execute(exchange, next);
+	}
+
+	/**
+	 * Compiles the given interceptors into a new generation and activates it atomically. Exchanges
+	 * that are already running the previous generation finish with it.
+	 *
+	 * @param interceptors The interceptors of the new rule set.
+	 * @return The version number of the new generation.
+	 */
+	public synchronized long swap(List<ProxyExchangeInterceptor> interceptors) {
+		Generation previous = current;
+		if (proxyMetrics != null) {
+			// Timers are labeled by step position, so the timings of the previous rules must not be carried over
+			proxyMetrics.removeInterceptorTimers(name);
+		}
+		Generation next = new Generation(previous.version() + 1, InterceptorChain.compile(interceptors, name, proxyMetrics));
+		current = next; // ATOMIC SWAP!
+
+		LOG.info("Activated {} rule chain version {} ({} interceptors in {} compiled steps).",
+				name, next.version(), next.chain().getInterceptorCount(), next.chain().getStepCount());
+		return next.version();
+	}
+
+	/**
+	 * @return The version number of the active generation, {@code 0} if no rules have been loaded yet.
+	 */
+	public long getVersion() {
+		return current.version();
+	}
+
+	/**
+	 * @return The compiled chain of the active generation.
+	 */
+	public InterceptorChain getActiveChain() {
+		return current.chain();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @param proxyMetrics The metrics registry the execution times of the compiled steps are recorded to,
+	 *                     applied with the next swap.
+	 */
+	public void setProxyMetrics(ProxyMetrics proxyMetrics) {
+		this.proxyMetrics = proxyMetrics;
+	}
+
+	/**
+	 * A single, immutable version of the rule chain.
+	 */
+	private record Generation(long version, InterceptorChain chain) {
+	}
+}
@@ -0,0 +1,143 @@
+package me.cxdev.commerce.proxy.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets, in the spirit of HdrHistogram.
+ * <p>
+ * Values are recorded in microseconds. Every power of two is split into {@value #SUB_BUCKETS}
+ * linear sub-buckets, which bounds the relative error of reported percentiles to about 6% over
+ * the whole range from one microsecond to several hours, using a few kilobytes per histogram.
+ * Recording is a single atomic increment and never allocates, so it is safe to be used on
+ * Undertow IO threads. Reading percentiles while values are recorded yields a consistent
+ * enough approximation for monitoring purposes.
+ * </p>
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_MAGNITUDE = 40;
+	private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos The duration in nanoseconds, negative values are ignored.
+	 */
+	public void recordNanos(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+		buckets.incrementAndGet(indexFor(micros));
+		count.increment();
+		sum.add(micros);
+
+		long currentMax = max.get();
+		while (micros > currentMax && !max.compareAndSet(currentMax, micros)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Records the time elapsed since the given start.
+	 *
+	 * @param startNanos The start time as returned by {@link System#nanoTime()}.
+	 */
+	public void recordSince(long startNanos) {
+		recordNanos(System.nanoTime() - startNanos);
+	}
+
+	static int indexFor(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+		if (magnitude > MAX_MAGNITUDE) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the value at the given percentile, i.e., the upper bound of the bucket containing it.
+	 *
+	 * @param percentile The percentile between 0 and 100 (e.g., 99.9).
+	 * @return The value in microseconds, never greater than the recorded maximum, or {@code 0} if empty.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), getMaxMicros());
+			}
+		}
+		return getMaxMicros();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The sum of all recorded values in microseconds.
+	 */
+	public long getSumMicros() {
+		return sum.sum();
+	}
+
+	public long getMaxMicros() {
+		return max.get();
+	}
+
+	/**
+	 * @return The mean of all recorded values in microseconds, or {@code 0} if empty.
+	 */
+	public double getMeanMicros() {
+		long n = getCount();
+		return n == 0 ? 0 : (double) getSumMicros() / n;
+	}
+
+	/**
+	 * Clears all recorded values. Values recorded concurrently may partially survive the reset.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+}
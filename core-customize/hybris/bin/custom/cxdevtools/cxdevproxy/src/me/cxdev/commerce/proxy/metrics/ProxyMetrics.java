@@ -0,0 +1,229 @@
+package me.cxdev.commerce.proxy.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the request and interceptor metrics of the proxy.
+ * <p>
+ * Request metrics are kept per route target (frontend, backend, and each local handler),
+ * interceptor timings per compiled rule step. All metrics are created lazily and recorded
+ * lock-free; the registry can be rendered as JSON or in the Prometheus text exposition format.
+ * </p>
+ */
+public class ProxyMetrics {
+	public static final String TARGET_FRONTEND = "frontend";
+	public static final String TARGET_BACKEND = "backend";
+	public static final String HANDLER_PREFIX = "handler:";
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final long startTimeMillis = System.currentTimeMillis();
+	private final Map<String, RequestMetrics> targets = new ConcurrentHashMap<>();
+	private final Map<InterceptorKey, LatencyHistogram> interceptors = new ConcurrentHashMap<>();
+	private boolean enabled = true;
+
+	/**
+	 * @param name The name of the route target (e.g., {@link #TARGET_FRONTEND} or {@code handler:StaticContentHandler}).
+	 * @return The request metrics of the target, created on first use.
+	 */
+	public RequestMetrics target(String name) {
+		return targets.computeIfAbsent(name, RequestMetrics::new);
+	}
+
+	/**
+	 * @param chain The name of the rule chain (e.g., "frontend").
+	 * @param step  The label of the compiled step, unique within the chain.
+	 * @return The timer of the interceptor step, created on first use.
+	 */
+	public LatencyHistogram interceptorTimer(String chain, String step) {
+		return interceptors.computeIfAbsent(new InterceptorKey(chain, step), key -> new LatencyHistogram());
+	}
+
+	/**
+	 * Removes all interceptor timers of the rule chain, called when the rules are reloaded,
+	 * so the reported timings always belong to the active rules.
+	 *
+	 * @param chain The name of the rule chain.
+	 */
+	public void removeInterceptorTimers(String chain) {
+		interceptors.keySet().removeIf(key -> key.chain().equals(chain));
+	}
+
+	/**
+	 * Clears all recorded values, keeping the registered metrics.
+	 */
+	public void reset() {
+		targets.values().forEach(RequestMetrics::reset);
+		interceptors.values().forEach(LatencyHistogram::reset);
+	}
+
+	/**
+	 * Renders all metrics as a JSON document with latencies in milliseconds.
+	 *
+	 * @return The JSON document.
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder(1024);
+		sb.append("{\"uptimeSeconds\":").append((System.currentTimeMillis() - startTimeMillis) / 1000);
+		sb.append(",\"targets\":{");
+		String separator = "";
+		for (RequestMetrics metrics : sortedTargets()) {
+			sb.append(separator);
+			appendJsonString(sb, metrics.getName());
+			sb.append(":{\"inFlight\":").append(metrics.getInFlight()).append(",\"status\":{");
+			String[] statusClasses = RequestMetrics.getStatusClasses();
+			for (int i = 0; i < statusClasses.length; i++) {
+				sb.append(i > 0 ? "," : "").append('"').append(statusClasses[i]).append("\":").append(metrics.getStatusCount(i));
+			}
+			sb.append("},\"latency\":");
+			appendJsonHistogram(sb, metrics.getLatency());
+			sb.append(",\"overhead\":");
+			appendJsonHistogram(sb, metrics.getOverhead());
+			sb.append('}');
+			separator = ",";
+		}
+		sb.append("},\"interceptors\":[");
+		separator = "";
+		for (Map.Entry<InterceptorKey, LatencyHistogram> entry : sortedInterceptors()) {
+			sb.append(separator).append("{\"chain\":");
+			appendJsonString(sb, entry.getKey().chain());
+			sb.append(",\"step\":");
+			appendJsonString(sb, entry.getKey().step());
+			sb.append(",\"latency\":");
+			appendJsonHistogram(sb, entry.getValue());
+			sb.append('}');
+			separator = ",";
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	private static void appendJsonHistogram(StringBuilder sb, LatencyHistogram histogram) {
+		sb.append("{\"count\":").append(histogram.getCount());
+		sb.append(",\"meanMs\":").append(millis(histogram.getMeanMicros()));
+		for (double quantile : QUANTILES) {
+			sb.append(",\"p").append(percentileLabel(quantile)).append("Ms\":").append(millis(histogram.getValueAtPercentile(quantile * 100)));
+		}
+		sb.append(",\"maxMs\":").append(millis(histogram.getMaxMicros())).append('}');
+	}
+
+	private static void appendJsonString(StringBuilder sb, String value) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * Renders all metrics in the Prometheus text exposition format (version 0.0.4), with latencies as summaries in seconds.
+	 *
+	 * @return The metrics in text format.
+	 */
+	public String toPrometheus() {
+		StringBuilder sb = new StringBuilder(2048);
+		List<RequestMetrics> sortedTargets = sortedTargets();
+
+		sb.append("# HELP cxdevproxy_requests_total Completed requests per route target and status class.\n");
+		sb.append("# TYPE cxdevproxy_requests_total counter\n");
+		String[] statusClasses = RequestMetrics.getStatusClasses();
+		for (RequestMetrics metrics : sortedTargets) {
+			for (int i = 0; i < statusClasses.length; i++) {
+				sb.append("cxdevproxy_requests_total{target=\"").append(escapeLabel(metrics.getName()))
+						.append("\",status=\"").append(statusClasses[i]).append("\"} ").append(metrics.getStatusCount(i)).append('\n');
+			}
+		}
+
+		sb.append("# HELP cxdevproxy_requests_in_flight Requests currently processed per route target.\n");
+		sb.append("# TYPE cxdevproxy_requests_in_flight gauge\n");
+		for (RequestMetrics metrics : sortedTargets) {
+			sb.append("cxdevproxy_requests_in_flight{target=\"").append(escapeLabel(metrics.getName())).append("\"} ")
+					.append(metrics.getInFlight()).append('\n');
+		}
+
+		appendPrometheusSummaryHeader(sb, "cxdevproxy_request_duration_seconds", "Total request latency per route target.");
+		for (RequestMetrics metrics : sortedTargets) {
+			appendPrometheusSummary(sb, "cxdevproxy_request_duration_seconds", "target=\"" + escapeLabel(metrics.getName()) + "\"", metrics.getLatency());
+		}
+
+		appendPrometheusSummaryHeader(sb, "cxdevproxy_proxy_overhead_seconds", "Time spent in the proxy before the request is sent upstream.");
+		for (RequestMetrics metrics : sortedTargets) {
+			if (metrics.getOverhead().getCount() > 0) {
+				appendPrometheusSummary(sb, "cxdevproxy_proxy_overhead_seconds", "target=\"" + escapeLabel(metrics.getName()) + "\"", metrics.getOverhead());
+			}
+		}
+
+		appendPrometheusSummaryHeader(sb, "cxdevproxy_interceptor_duration_seconds", "Execution time per compiled rule step.");
+		for (Map.Entry<InterceptorKey, LatencyHistogram> entry : sortedInterceptors()) {
+			String labels = "chain=\"" + escapeLabel(entry.getKey().chain()) + "\",step=\"" + escapeLabel(entry.getKey().step()) + "\"";
+			appendPrometheusSummary(sb, "cxdevproxy_interceptor_duration_seconds", labels, entry.getValue());
+		}
+		return sb.toString();
+	}
+
+	private static void appendPrometheusSummaryHeader(StringBuilder sb, String name, String help) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(" summary\n");
+	}
+
+	private static void appendPrometheusSummary(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+		for (double quantile : QUANTILES) {
+			sb.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+					.append(seconds(histogram.getValueAtPercentile(quantile * 100))).append('\n');
+		}
+		sb.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSumMicros())).append('\n');
+		sb.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+	}
+
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static String percentileLabel(double quantile) {
+		String label = String.valueOf(quantile * 100);
+		return label.endsWith(".0") ? label.substring(0, label.length() - 2) : label.replace('.', '_');
+	}
+
+	private static String millis(double micros) {
+		return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+	}
+
+	private static String seconds(double micros) {
+		return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+	}
+
+	private List<RequestMetrics> sortedTargets() {
+		List<RequestMetrics> sorted = new ArrayList<>(targets.values());
+		sorted.sort(Comparator.comparing(RequestMetrics::getName));
+		return sorted;
+	}
+
+	private List<Map.Entry<InterceptorKey, LatencyHistogram>> sortedInterceptors() {
+		List<Map.Entry<InterceptorKey, LatencyHistogram>> sorted = new ArrayList<>(interceptors.entrySet());
+		sorted.sort(Map.Entry.comparingByKey(Comparator.comparing(InterceptorKey::chain).thenComparing(InterceptorKey::step)));
+		return sorted;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	private record InterceptorKey(String chain, String step) {
+	}
+}
@@ -0,0 +1,134 @@
+package me.cxdev.commerce.proxy.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+
+/**
+ * Request statistics of a single route target (e.g., the frontend, the backend, or a local handler).
+ * <p>
+ * Tracks the total request latency until the exchange completes, the proxy overhead until the
+ * request is handed to the upstream server, the number of requests in flight, and the responses
+ * per status class. All counters are lock-free. Doubles as the completion listener of the tracked
+ * exchanges, so tracking a request allocates nothing but the timing attachment.
+ * </p>
+ */
+public final class RequestMetrics implements ExchangeCompletionListener {
+	private static final AttachmentKey<Timing> TIMING = AttachmentKey.create(Timing.class);
+	private static final String[] STATUS_CLASSES = { "1xx", "2xx", "3xx", "4xx", "5xx" };
+
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram overhead = new LatencyHistogram();
+	private final LongAdder inFlight = new LongAdder();
+	private final LongAdder[] statusCounts = new LongAdder[STATUS_CLASSES.length];
+
+	RequestMetrics(String name) {
+		this.name = name;
+		for (int i = 0; i < statusCounts.length; i++) {
+			statusCounts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Starts tracking the exchange. The latency is recorded when the exchange completes.
+	 *
+	 * @param exchange   The current HTTP server exchange.
+	 * @param startNanos The time the proxy started processing the request, as returned by {@link System#nanoTime()}.
+	 */
+	public void start(HttpServerExchange exchange, long startNanos) {
+		exchange.putAttachment(TIMING, new Timing(this, startNanos));
+		inFlight.increment();
+		exchange.addExchangeCompleteListener(this);
+	}
+
+	/**
+	 * Records the proxy overhead of a tracked exchange, i.e., the time spent in the proxy before the
+	 * request is handed to the upstream server. Only the first call per exchange is recorded.
+	 *
+	 * @param exchange The current HTTP server exchange.
+	 */
+	public static void markUpstream(HttpServerExchange exchange) {
+		Timing timing = exchange.getAttachment(TIMING);
+		if (timing != null && !timing.upstream) {
+			timing.upstream = true;
+			timing.metrics.overhead.recordSince(timing.startNanos);
+		}
+	}
+
+	@Override
+	public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+		try {
+			Timing timing = exchange.getAttachment(TIMING);
+			if (timing != null) {
+				latency.recordSince(timing.startNanos);
+			}
+			inFlight.decrement();
+			int statusClass = exchange.getStatusCode() / 100 - 1;
+			if (statusClass >= 0 && statusClass < statusCounts.length) {
+				statusCounts[statusClass].increment();
+			}
+		} finally {
+			nextListener.proceed();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The total latency from the start of processing until the exchange has completed.
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return The time spent in the proxy (routing and interceptors) before the request was handed
+	 *         to the upstream server. Empty for local handlers.
+	 */
+	public LatencyHistogram getOverhead() {
+		return overhead;
+	}
+
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	/**
+	 * @param statusClassIndex The index of the status class, {@code 0} for 1xx up to {@code 4} for 5xx.
+	 * @return The number of completed responses in the status class.
+	 */
+	public long getStatusCount(int statusClassIndex) {
+		return statusCounts[statusClassIndex].sum();
+	}
+
+	static String[] getStatusClasses() {
+		return STATUS_CLASSES.clone();
+	}
+
+	void reset() {
+		latency.reset();
+		overhead.reset();
+		for (LongAdder statusCount : statusCounts) {
+			statusCount.reset();
+		}
+	}
+
+	/**
+	 * The per-exchange state, only accessed by the threads processing the exchange in sequence.
+	 */
+	private static final class Timing {
+		private final RequestMetrics metrics;
+		private final long startNanos;
+		private boolean upstream;
+
+		Timing(RequestMetrics metrics, long startNanos) {
+			this.metrics = metrics;
+			this.startNanos = startNanos;
+		}
+	}
+}
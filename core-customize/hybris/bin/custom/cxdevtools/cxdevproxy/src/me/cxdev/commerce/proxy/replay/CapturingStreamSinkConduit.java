@@ -0,0 +1,118 @@
+package me.cxdev.commerce.proxy.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+/**
+ * A response conduit that passes all bytes through unchanged and keeps a copy of them.
+ * <p>
+ * Once the response has been written completely, the captured body is handed to the callback.
+ * Bodies exceeding the maximum size are not captured any further and not reported, as are
+ * responses that are truncated (e.g., because the client has disconnected).
+ * </p>
+ */
+public final class CapturingStreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+	private final int maxSize;
+	private final Consumer<byte[]> callback;
+	private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+	/**
+	 * @param next     The next conduit in the chain.
+	 * @param maxSize  The maximum number of bytes to capture.
+	 * @param callback Receives the complete body once all bytes have been written.
+	 */
+	public CapturingStreamSinkConduit(StreamSinkConduit next, int maxSize, Consumer<byte[]> callback) {
+		super(next);
+		this.maxSize = maxSize;
+		this.callback = callback;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int position = src.position();
+		int written = next.write(src);
+		capture(src, position, written);
+		return written;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		int[] positions = new int[length];
+		for (int i = 0; i < length; i++) {
+			positions[i] = srcs[offset + i].position();
+		}
+		long written = next.write(srcs, offset, length);
+		long remaining = written;
+		for (int i = 0; i < length && remaining > 0; i++) {
+			int count = (int) Math.min(remaining, srcs[offset + i].position() - positions[i]);
+			capture(srcs[offset + i], positions[i], count);
+			remaining -= count;
+		}
+		return written;
+	}
+
+	@Override
+	public int writeFinal(ByteBuffer src) throws IOException {
+		return Conduits.writeFinalBasic(this, src);
+	}
+
+	@Override
+	public long writeFinal(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		return Conduits.writeFinalBasic(this, srcs, offset, length);
+	}
+
+	@Override
+	public long transferFrom(FileChannel src, long position, long count) throws IOException {
+		return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+	}
+
+	@Override
+	public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+		return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+	}
+
+	private void capture(ByteBuffer buffer, int from, int count) {
+		if (captured == null || count <= 0) {
+			return;
+		}
+		if (captured.size() + count > maxSize) {
+			captured = null;
+			return;
+		}
+		ByteBuffer copy = buffer.duplicate();
+		copy.position(from).limit(from + count);
+		if (copy.hasArray()) {
+			captured.write(copy.array(), copy.arrayOffset() + copy.position(), count);
+		} else {
+			byte[] bytes = new byte[count];
+			copy.get(bytes);
+			captured.write(bytes, 0, count);
+		}
+	}
+
+	@Override
+	public void terminateWrites() throws IOException {
+		next.terminateWrites();
+		if (captured != null) {
+			byte[] body = captured.toByteArray();
+			captured = null;
+			callback.accept(body);
+		}
+	}
+
+	@Override
+	public void truncateWrites() throws IOException {
+		captured = null;
+		next.truncateWrites();
+	}
+}
@@ -0,0 +1,27 @@
+package me.cxdev.commerce.proxy.replay;
+
+import java.util.List;
+
+/**
+ * The index entry of a response stored in the {@link ResponseArchive}.
+ * <p>
+ * Status and headers are decoded once when the archive is indexed, the body stays in the
+ * memory-mapped archive file and is served from there without copying.
+ * </p>
+ *
+ * @param status     The HTTP status code.
+ * @param headers    The response headers in recording order, as name-value pairs.
+ * @param bodyOffset The offset of the body in the archive file.
+ * @param bodyLength The length of the body in bytes.
+ */
+public record RecordedResponse(int status, List<Header> headers, long bodyOffset, int bodyLength) {
+
+	/**
+	 * A single recorded response header.
+	 *
+	 * @param name  The header name.
+	 * @param value The header value.
+	 */
+	public record Header(String name, String value) {
+	}
+}
@@ -0,0 +1,379 @@
+package me.cxdev.commerce.proxy.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import me.cxdev.commerce.proxy.util.DataSizeUtils;
+
+/**
+ * An append-only, memory-mapped archive of recorded backend responses.
+ * <p>
+ * Every recording is appended to a single file as a self-describing record (key, status, headers
+ * and body). When the archive is opened, the file is scanned once into an in-memory index; a
+ * truncated record at the end (e.g., after the server has been killed while writing) is cut off.
+ * Recording the same key again appends a new record that supersedes the previous one, unless
+ * the response is unchanged, in which case nothing is written.
+ * </p>
+ * <p>
+ * Bodies are served as read-only slices of a memory mapping of the archive file, so replaying
+ * a response neither copies the body nor performs any file IO on the request path. The archive
+ * is opened at startup, and appends are performed by a single background writer thread that
+ * publishes the grown mapping before the new record is indexed, so lookups never take a lock.
+ * The mapping grows in chunks of 64 MB (the file is extended accordingly and trimmed again when
+ * the archive is closed), so appending a record does not map the whole file again. As a single
+ * mapping is limited to 2 GB, the archive size is limited as well.
+ * </p>
+ * <p>
+ * Record layout (big endian): {@code int magic, int length, short keyLength, key, short status,
+ * short headerCount, (short nameLength, name, int valueLength, value)*, int bodyLength, body}.
+ * </p>
+ */
+public class ResponseArchive implements DisposableBean {
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseArchive.class);
+	private static final int MAGIC = 0x43585250; // "CXRP"
+	private static final int RECORD_PREFIX_SIZE = 8;
+	private static final long MAX_ARCHIVE_SIZE = Integer.MAX_VALUE;
+	private static final long MAPPING_CHUNK_SIZE = 64L * 1024 * 1024;
+
+	private final Map<String, RecordedResponse> index = new ConcurrentHashMap<>();
+	private String archivePath;
+	private long maxSize = 512L * 1024 * 1024;
+
+	// Guarded by this
+	private boolean failed;
+
+	// Written by the opening thread before the archive is published, then only by the writer thread
+	private FileChannel channel;
+	private boolean full;
+
+	private volatile boolean opened;
+	private volatile ExecutorService writer;
+	private volatile long size;
+	private volatile long droppedCount;
+	private volatile ByteBuffer mapping;
+
+	/**
+	 * Opens the archive file and builds the index, if not done yet. Called once at startup, as
+	 * scanning a large archive must not happen on the request path. If the archive cannot be opened,
+	 * it stays disabled (logged once), so recording and replay fall back to proxying.
+	 *
+	 * @return {@code true} if the archive is open.
+	 */
+	public synchronized boolean open() {
+		if (opened || failed) {
+			return opened;
+		}
+		if (StringUtils.isBlank(archivePath)) {
+			LOG.warn("No response archive path configured, recording and replay are disabled.");
+			failed = true;
+			return false;
+		}
+
+		Path path = Path.of(archivePath.trim());
+		try {
+			if (path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long scannedSize = scan(channel);
+			if (scannedSize < channel.size()) {
+				LOG.warn("Response archive {} contains an incomplete record or unused space, truncating it to {} bytes.", path, scannedSize);
+				channel.truncate(scannedSize);
+			}
+			remap(scannedSize);
+			writer = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "CxDevProxy-ResponseArchive");
+				thread.setDaemon(true);
+				return thread;
+			});
+			opened = true;
+			LOG.info("Opened response archive {} with {} recorded responses ({} bytes).", path, index.size(), size);
+		} catch (IOException e) {
+			LOG.error("Could not open response archive {}, recording and replay are disabled.", path, e);
+			failed = true;
+			closeQuietly();
+		}
+		return opened;
+	}
+
+	private long scan(FileChannel fileChannel) throws IOException {
+		long fileSize = Math.min(fileChannel.size(), MAX_ARCHIVE_SIZE);
+		if (fileSize == 0) {
+			return 0;
+		}
+
+		ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+		long position = 0;
+		while (position + RECORD_PREFIX_SIZE <= fileSize) {
+			buffer.position((int) position);
+			int magic = buffer.getInt();
+			int length = buffer.getInt();
+			if (magic != MAGIC || length < 0 || position + RECORD_PREFIX_SIZE + length > fileSize) {
+				break;
+			}
+			try {
+				indexRecord(buffer.slice((int) position + RECORD_PREFIX_SIZE, length), position + RECORD_PREFIX_SIZE);
+			} catch (RuntimeException e) {
+				LOG.warn("Corrupt record at offset {} of the response archive.", position);
+				break;
+			}
+			position += RECORD_PREFIX_SIZE + length;
+		}
+		return position;
+	}
+
+	private void indexRecord(ByteBuffer record, long recordOffset) {
+		String key = readString(record, Short.toUnsignedInt(record.getShort()));
+		int status = Short.toUnsignedInt(record.getShort());
+		int headerCount = Short.toUnsignedInt(record.getShort());
+		List<RecordedResponse.Header> headers = new ArrayList<>(headerCount);
+		for (int i = 0; i < headerCount; i++) {
+			String name = readString(record, Short.toUnsignedInt(record.getShort()));
+			String value = readString(record, record.getInt());
+			headers.add(new RecordedResponse.Header(name, value));
+		}
+		int bodyLength = record.getInt();
+		if (bodyLength < 0 || bodyLength != record.remaining()) {
+			throw new IllegalStateException("Invalid body length " + bodyLength);
+		}
+		index.put(key, new RecordedResponse(status, List.copyOf(headers), recordOffset + record.position(), bodyLength));
+	}
+
+	private static String readString(ByteBuffer buffer, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param key The recording key.
+	 * @return The recorded response, or {@code null} if the key has not been recorded.
+	 */
+	public RecordedResponse get(String key) {
+		return opened ? index.get(key) : null;
+	}
+
+	/**
+	 * Returns the body of a recorded response as a read-only slice of the archive mapping.
+	 *
+	 * @param response The recorded response, as returned by {@link #get(String)}.
+	 * @return The body, positioned at zero.
+	 */
+	public ByteBuffer getBody(RecordedResponse response) {
+		// The mapping is published before the record is indexed, so it always covers the body
+		ByteBuffer current = mapping;
+		if (current == null || response.bodyOffset() + response.bodyLength() > current.capacity()) {
+			throw new IllegalStateException("Response archive " + archivePath + " is not open");
+		}
+		return current.slice((int) response.bodyOffset(), response.bodyLength());
+	}
+
+	/**
+	 * Publishes the new archive size. The file is only mapped again if the size exceeds the current
+	 * mapping, which is then grown by a whole chunk (extending the file, as the channel is writable).
+	 */
+	private void remap(long newSize) throws IOException {
+		ByteBuffer current = mapping;
+		if (current == null || newSize > current.capacity()) {
+			long limit = Math.max(newSize, Math.min(maxSize, MAX_ARCHIVE_SIZE));
+			long capacity = Math.min((newSize / MAPPING_CHUNK_SIZE + 1) * MAPPING_CHUNK_SIZE, limit);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+			this.mapping = mapped.asReadOnlyBuffer();
+		}
+		this.size = newSize;
+	}
+
+	/**
+	 * Records a response asynchronously. The recording becomes visible to {@link #get(String)}
+	 * as soon as it has been written.
+	 *
+	 * @param key     The recording key.
+	 * @param status  The HTTP status code.
+	 * @param headers The response headers to replay.
+	 * @param body    The response body as sent to the client.
+	 */
+	public void record(String key, int status, List<RecordedResponse.Header> headers, byte[] body) {
+		ExecutorService currentWriter = writer;
+		if (!opened || currentWriter == null) {
+			return;
+		}
+		try {
+			currentWriter.execute(() -> append(key, status, headers, body));
+		} catch (RejectedExecutionException e) {
+			LOG.debug("Response archive is closed, dropping recording of {}.", key);
+		}
+	}
+
+	/**
+	 * Writes a record and indexes it. Only called by the writer thread, so it needs no lock and
+	 * never makes a lookup wait for file IO.
+	 */
+	void append(String key, int status, List<RecordedResponse.Header> headers, byte[] body) {
+		if (!opened || isUnchanged(index.get(key), status, headers, body)) {
+			return;
+		}
+		if (full) {
+			droppedCount++;
+			LOG.debug("Response archive is full, not recording {}.", key);
+			return;
+		}
+
+		long currentSize = size;
+		ByteBuffer record = encode(key, status, headers, body);
+		if (currentSize + record.remaining() > Math.min(maxSize, MAX_ARCHIVE_SIZE)) {
+			full = true;
+			droppedCount++;
+			LOG.warn("Response archive {} has reached its maximum size of {} bytes, further responses (starting with {}) are not recorded. "
+					+ "Increase the maximum size or delete the archive to record again.", archivePath, maxSize, key);
+			return;
+		}
+
+		try {
+			long recordOffset = currentSize + RECORD_PREFIX_SIZE;
+			long position = currentSize;
+			while (record.hasRemaining()) {
+				position += channel.write(record, position);
+			}
+			remap(position);
+			record.position(RECORD_PREFIX_SIZE);
+			indexRecord(record.slice(), recordOffset);
+			LOG.debug("Recorded response for {} ({} bytes).", key, body.length);
+		} catch (IOException e) {
+			LOG.warn("Could not record response for {}: {}", key, e.getMessage());
+		}
+	}
+
+	private boolean isUnchanged(RecordedResponse recorded, int status, List<RecordedResponse.Header> headers, byte[] body) {
+		return recorded != null
+				&& recorded.status() == status
+				&& recorded.bodyLength() == body.length
+				&& recorded.headers().equals(headers)
+				&& getBody(recorded).equals(ByteBuffer.wrap(body));
+	}
+
+	private static ByteBuffer encode(String key, int status, List<RecordedResponse.Header> headers, byte[] body) {
+		byte[] keyBytes = truncate(key.getBytes(StandardCharsets.UTF_8), 0xFFFF);
+		List<byte[]> encodedHeaders = new ArrayList<>(headers.size() * 2);
+		int length = 2 + keyBytes.length + 2 + 2 + 4 + body.length;
+		for (RecordedResponse.Header header : headers.subList(0, Math.min(headers.size(), 0xFFFF))) {
+			byte[] name = truncate(header.name().getBytes(StandardCharsets.UTF_8), 0xFFFF);
+			byte[] value = header.value().getBytes(StandardCharsets.UTF_8);
+			encodedHeaders.add(name);
+			encodedHeaders.add(value);
+			length += 2 + name.length + 4 + value.length;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_PREFIX_SIZE + length);
+		buffer.putInt(MAGIC).putInt(length);
+		buffer.putShort((short) keyBytes.length).put(keyBytes);
+		buffer.putShort((short) status);
+		buffer.putShort((short) (encodedHeaders.size() / 2));
+		for (int i = 0; i < encodedHeaders.size(); i += 2) {
+			buffer.putShort((short) encodedHeaders.get(i).length).put(encodedHeaders.get(i));
+			buffer.putInt(encodedHeaders.get(i + 1).length).put(encodedHeaders.get(i + 1));
+		}
+		buffer.putInt(body.length).put(body);
+		return buffer.flip();
+	}
+
+	private static byte[] truncate(byte[] bytes, int maxLength) {
+		if (bytes.length <= maxLength) {
+			return bytes;
+		}
+		byte[] truncated = new byte[maxLength];
+		System.arraycopy(bytes, 0, truncated, 0, maxLength);
+		return truncated;
+	}
+
+	/**
+	 * @return The number of recorded responses (distinct keys).
+	 */
+	public int getRecordCount() {
+		return index.size();
+	}
+
+	/**
+	 * @return The number of responses that have not been recorded because the archive is full.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Waits until all pending recordings have been written and closes the archive file.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		ExecutorService pending = writer;
+		writer = null;
+		if (pending != null) {
+			pending.shutdown();
+			if (!pending.awaitTermination(5, TimeUnit.SECONDS)) {
+				LOG.warn("Response archive writer did not finish in time, pending recordings are lost.");
+			}
+		}
+		synchronized (this) {
+			opened = false;
+			closeQuietly();
+		}
+	}
+
+	private void closeQuietly() {
+		if (channel != null) {
+			try {
+				// Trim the space reserved for the mapping, so only complete records remain
+				if (mapping != null) {
+					channel.truncate(size);
+				}
+				channel.close();
+			} catch (IOException e) {
+				LOG.debug("Could not close response archive.", e);
+			}
+			channel = null;
+		}
+		mapping = null;
+	}
+
+	/**
+	 * @param archivePath The path of the archive file, created if it does not exist.
+	 */
+	public void setArchivePath(String archivePath) {
+		this.archivePath = archivePath;
+	}
+
+	public String getArchivePath() {
+		return archivePath;
+	}
+
+	/**
+	 * Smart setter allowing human-readable sizes like "256mb" or "1gb". Limited to 2 GB.
+	 *
+	 * @param maxSize The maximum size of the archive file.
+	 */
+	public void setMaxSize(String maxSize) {
+		try {
+			this.maxSize = DataSizeUtils.parseSizeToBytes(maxSize, "Response archive size");
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid response archive size {}, using current value '{}'.", maxSize, this.maxSize);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package me.cxdev.commerce.proxy.rewrite;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Replaces literal byte sequences in a body that is passed in chunk by chunk, without buffering the body.
+ * <p>
+ * Matches spanning a chunk boundary are found by keeping the tail of a chunk that may still start a
+ * match (less bytes than the longest search sequence) as carry-over, which is prepended to the next chunk.
+ * At each position, the first search sequence (in the order given) that matches wins, and replaced
+ * content is never searched again.
+ * </p>
+ * <p>
+ * A rewriter holds the state of a single body and is not thread-safe.
+ * </p>
+ */
+public final class BodyRewriter {
+	private final byte[][] searches;
+	private final byte[][] replacements;
+	private final boolean[] firstBytes = new boolean[256];
+	private final int window;
+
+	private byte[] carry = new byte[0];
+	private int replacementCount;
+
+	/**
+	 * @param searches     The byte sequences to search for, none of them empty.
+	 * @param replacements The replacements, in the same order as the search sequences.
+	 */
+	public BodyRewriter(List<byte[]> searches, List<byte[]> replacements) {
+		if (searches.size() != replacements.size()) {
+			throw new IllegalArgumentException("Each search sequence requires exactly one replacement.");
+		}
+		this.searches = searches.toArray(new byte[0][]);
+		this.replacements = replacements.toArray(new byte[0][]);
+
+		int longest = 1;
+		for (byte[] search : this.searches) {
+			if (search.length == 0) {
+				throw new IllegalArgumentException("Search sequences must not be empty.");
+			}
+			firstBytes[search[0] & 0xFF] = true;
+			longest = Math.max(longest, search.length);
+		}
+		this.window = longest;
+	}
+
+	/**
+	 * Rewrites the next chunk of the body. Bytes that may be part of a match continued in the next
+	 * chunk are held back until the next call or {@link #finish(ByteArrayOutputStream)}.
+	 *
+	 * @param chunk  The array holding the chunk.
+	 * @param offset The start of the chunk in the array.
+	 * @param length The length of the chunk.
+	 * @param out    Receives the rewritten bytes.
+	 */
+	public void rewrite(byte[] chunk, int offset, int length, ByteArrayOutputStream out) {
+		if (length <= 0) {
+			return;
+		}
+		if (carry.length == 0) {
+			process(chunk, offset, offset + length, false, out);
+		} else {
+			byte[] data = new byte[carry.length + length];
+			System.arraycopy(carry, 0, data, 0, carry.length);
+			System.arraycopy(chunk, offset, data, carry.length, length);
+			process(data, 0, data.length, false, out);
+		}
+	}
+
+	/**
+	 * Rewrites the held back carry-over at the end of the body.
+	 *
+	 * @param out Receives the rewritten bytes.
+	 */
+	public void finish(ByteArrayOutputStream out) {
+		byte[] remaining = carry;
+		carry = new byte[0];
+		process(remaining, 0, remaining.length, true, out);
+	}
+
+	/**
+	 * @return The number of replacements made so far.
+	 */
+	public int getReplacementCount() {
+		return replacementCount;
+	}
+
+	private void process(byte[] data, int start, int end, boolean last, ByteArrayOutputStream out) {
+		// Matches can only be ruled out for positions followed by at least the longest search sequence
+		int limit = last ? end : end - window + 1;
+		int literalStart = start;
+		int i = start;
+		while (i < limit) {
+			if (firstBytes[data[i] & 0xFF]) {
+				int match = matchAt(data, i, end);
+				if (match >= 0) {
+					out.write(data, literalStart, i - literalStart);
+					out.writeBytes(replacements[match]);
+					replacementCount++;
+					i += searches[match].length;
+					literalStart = i;
+					continue;
+				}
+			}
+			i++;
+		}
+		out.write(data, literalStart, i - literalStart);
+
+		if (i < end) {
+			byte[] tail = new byte[end - i];
+			System.arraycopy(data, i, tail, 0, tail.length);
+			carry = tail;
+		} else {
+			carry = new byte[0];
+		}
+	}
+
+	private int matchAt(byte[] data, int position, int end) {
+		for (int s = 0; s < searches.length; s++) {
+			byte[] search = searches[s];
+			if (position + search.length > end) {
+				continue;
+			}
+			int j = 0;
+			while (j < search.length && data[position + j] == search[j]) {
+				j++;
+			}
+			if (j == search.length) {
+				return s;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,193 @@
+package me.cxdev.commerce.proxy.rewrite;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes a gzip body (RFC 1952) that is passed in chunk by chunk, without buffering the body.
+ * <p>
+ * Unlike {@link java.util.zip.GZIPInputStream}, the decoder is push-based and never blocks, so it can
+ * be fed from a non-blocking response conduit. Concatenated gzip members are decoded one after another,
+ * trailing bytes after the last member that do not start a new member are ignored.
+ * </p>
+ */
+final class GzipDecoder {
+	private static final int MAX_HEADER_SIZE = 64 * 1024;
+	private static final int TRAILER_SIZE = 8;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private enum State {
+		HEADER, BODY, TRAILER, DONE
+	}
+
+	/**
+	 * Receives the decoded bytes.
+	 */
+	@FunctionalInterface
+	interface Output {
+		void write(byte[] data, int offset, int length);
+	}
+
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final byte[] buffer = new byte[16 * 1024];
+	private State state = State.HEADER;
+	private int members;
+
+	/**
+	 * Decodes the next chunk of the gzip body.
+	 *
+	 * @throws ZipException If the body is not valid gzip.
+	 */
+	void decode(byte[] chunk, int offset, int length, Output out) throws ZipException {
+		int position = offset;
+		int end = offset + length;
+		while (position < end) {
+			switch (state) {
+				case HEADER -> {
+					pending.write(chunk, position, end - position);
+					position = end;
+					byte[] header = pending.toByteArray();
+					int headerLength = headerLength(header);
+					if (headerLength > 0) {
+						pending.reset();
+						state = State.BODY;
+						decode(header, headerLength, header.length - headerLength, out);
+					} else if (headerLength == 0) {
+						pending.reset();
+						state = State.DONE;
+					} else if (header.length > MAX_HEADER_SIZE) {
+						throw new ZipException("gzip header exceeds " + MAX_HEADER_SIZE + " bytes");
+					}
+				}
+				case BODY -> {
+					inflater.setInput(chunk, position, end - position);
+					position = inflate(end, out);
+				}
+				case TRAILER -> {
+					int count = Math.min(TRAILER_SIZE - pending.size(), end - position);
+					pending.write(chunk, position, count);
+					position += count;
+					if (pending.size() == TRAILER_SIZE) {
+						verifyTrailer(pending.toByteArray());
+						pending.reset();
+						inflater.reset();
+						crc.reset();
+						members++;
+						state = State.HEADER;
+					}
+				}
+				case DONE -> position = end;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code true} if at least one gzip member has been decoded completely and no further member has been started.
+	 */
+	boolean isComplete() {
+		return members > 0 && (state == State.DONE || state == State.HEADER && pending.size() == 0);
+	}
+
+	/**
+	 * Releases the native resources of the inflater.
+	 */
+	void close() {
+		inflater.end();
+	}
+
+	/**
+	 * Inflates the current input and returns the position of the first byte after the deflated data
+	 * (or the end of the chunk, if the member continues in the next chunk).
+	 */
+	private int inflate(int end, Output out) throws ZipException {
+		try {
+			while (true) {
+				int count = inflater.inflate(buffer);
+				if (count > 0) {
+					crc.update(buffer, 0, count);
+					out.write(buffer, 0, count);
+				} else if (inflater.finished()) {
+					state = State.TRAILER;
+					return end - inflater.getRemaining();
+				} else if (inflater.needsInput()) {
+					return end;
+				} else if (inflater.needsDictionary()) {
+					throw new ZipException("gzip body requires a preset dictionary");
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflate data in gzip body: " + e.getMessage());
+		}
+	}
+
+	private void verifyTrailer(byte[] trailer) throws ZipException {
+		if (readInt(trailer, 0) != (int) crc.getValue()) {
+			throw new ZipException("Corrupt gzip body (CRC mismatch)");
+		}
+		if (readInt(trailer, 4) != (int) inflater.getBytesWritten()) {
+			throw new ZipException("Corrupt gzip body (size mismatch)");
+		}
+	}
+
+	/**
+	 * @return The length of the complete member header, {@code -1} if more bytes are needed,
+	 *         or {@code 0} if the bytes following a decoded member do not start a new member.
+	 */
+	private int headerLength(byte[] header) throws ZipException {
+		if (header.length >= 2 && ((header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B)) {
+			if (members > 0) {
+				return 0;
+			}
+			throw new ZipException("Not in gzip format");
+		}
+		if (header.length < 10) {
+			return -1;
+		}
+		if (header[2] != 8) {
+			throw new ZipException("Unsupported gzip compression method " + header[2]);
+		}
+
+		int flags = header[3] & 0xFF;
+		int position = 10;
+		if ((flags & FEXTRA) != 0) {
+			if (position + 2 > header.length) {
+				return -1;
+			}
+			position += 2 + ((header[position] & 0xFF) | (header[position + 1] & 0xFF) << 8);
+		}
+		if ((flags & FNAME) != 0) {
+			position = skipZeroTerminated(header, position);
+		}
+		if ((flags & FCOMMENT) != 0 && position > 0) {
+			position = skipZeroTerminated(header, position);
+		}
+		if ((flags & FHCRC) != 0 && position > 0) {
+			position += 2;
+		}
+		return position > 0 && position <= header.length ? position : -1;
+	}
+
+	/**
+	 * @return The position after the terminating zero byte, or {@code -1} if it has not been received yet.
+	 */
+	private static int skipZeroTerminated(byte[] header, int position) {
+		for (int i = position; i < header.length; i++) {
+			if (header[i] == 0) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+	}
+}
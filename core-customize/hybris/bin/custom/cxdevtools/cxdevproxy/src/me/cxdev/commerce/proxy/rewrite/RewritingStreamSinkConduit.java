@@ -0,0 +1,191 @@
+package me.cxdev.commerce.proxy.rewrite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+/**
+ * A response conduit that rewrites the body with a {@link BodyRewriter} while it is streamed to the client.
+ * <p>
+ * Every written chunk is consumed completely and rewritten into a pending buffer, which is passed on to
+ * the next conduit. New chunks are only accepted once the pending buffer has been written, so at most
+ * one rewritten chunk (plus the carry-over window of the rewriter) is held in memory per response.
+ * </p>
+ * <p>
+ * gzip encoded bodies are decoded before they are rewritten; the next conduit is expected to encode
+ * the rewritten body again (e.g., Undertow's {@code GzipStreamSinkConduit}).
+ * </p>
+ */
+public final class RewritingStreamSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+	private static final Logger LOG = LoggerFactory.getLogger(RewritingStreamSinkConduit.class);
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final BodyRewriter rewriter;
+	private final GzipDecoder decoder;
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+	private ByteBuffer pending = EMPTY;
+	private boolean terminated;
+	private boolean nextTerminated;
+
+	/**
+	 * @param next        The next conduit in the chain.
+	 * @param rewriter    The rewriter of this response body.
+	 * @param gzipEncoded Whether the written body is gzip encoded and must be decoded before it is rewritten.
+	 */
+	public RewritingStreamSinkConduit(StreamSinkConduit next, BodyRewriter rewriter, boolean gzipEncoded) {
+		super(next);
+		this.rewriter = rewriter;
+		this.decoder = gzipEncoded ? new GzipDecoder() : null;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		if (terminated) {
+			throw new IOException("Response body has already been completed");
+		}
+		if (!writePending()) {
+			return 0;
+		}
+
+		int count = src.remaining();
+		if (count == 0) {
+			return 0;
+		}
+		if (src.hasArray()) {
+			process(src.array(), src.arrayOffset() + src.position(), count);
+			src.position(src.limit());
+		} else {
+			byte[] chunk = new byte[count];
+			src.get(chunk);
+			process(chunk, 0, count);
+		}
+		pending = takeOutput();
+		writePending();
+		return count;
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		long written = 0;
+		for (int i = offset; i < offset + length; i++) {
+			if (!srcs[i].hasRemaining()) {
+				continue;
+			}
+			int count = write(srcs[i]);
+			if (count == 0) {
+				break;
+			}
+			written += count;
+		}
+		return written;
+	}
+
+	@Override
+	public int writeFinal(ByteBuffer src) throws IOException {
+		return Conduits.writeFinalBasic(this, src);
+	}
+
+	@Override
+	public long writeFinal(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		return Conduits.writeFinalBasic(this, srcs, offset, length);
+	}
+
+	@Override
+	public long transferFrom(FileChannel src, long position, long count) throws IOException {
+		return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+	}
+
+	@Override
+	public long transferFrom(StreamSourceChannel source, long count, ByteBuffer throughBuffer) throws IOException {
+		return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+	}
+
+	/**
+	 * Rewrites the carry-over of the rewriter. The next conduit is terminated by {@link #flush()}
+	 * once all pending bytes have been written.
+	 */
+	@Override
+	public void terminateWrites() throws IOException {
+		if (terminated) {
+			return;
+		}
+		terminated = true;
+		if (decoder != null) {
+			if (!decoder.isComplete()) {
+				LOG.debug("gzip encoded response body ended before the end of the gzip stream.");
+			}
+			decoder.close();
+		}
+		rewriter.finish(output);
+		if (output.size() > 0) {
+			ByteBuffer remaining = ByteBuffer.allocate(pending.remaining() + output.size());
+			remaining.put(pending).put(takeOutput()).flip();
+			pending = remaining;
+		}
+		flush();
+	}
+
+	@Override
+	public boolean flush() throws IOException {
+		if (!writePending()) {
+			return false;
+		}
+		if (terminated && !nextTerminated) {
+			nextTerminated = true;
+			next.terminateWrites();
+		}
+		return next.flush();
+	}
+
+	@Override
+	public boolean isWriteShutdown() {
+		return terminated;
+	}
+
+	@Override
+	public void truncateWrites() throws IOException {
+		pending = EMPTY;
+		if (decoder != null && !terminated) {
+			decoder.close();
+		}
+		terminated = true;
+		nextTerminated = true;
+		next.truncateWrites();
+	}
+
+	/**
+	 * @return {@code true} if all pending bytes have been written to the next conduit.
+	 */
+	private boolean writePending() throws IOException {
+		while (pending.hasRemaining()) {
+			if (next.write(pending) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void process(byte[] chunk, int offset, int length) throws IOException {
+		if (decoder == null) {
+			rewriter.rewrite(chunk, offset, length, output);
+		} else {
+			decoder.decode(chunk, offset, length, (data, off, len) -> rewriter.rewrite(data, off, len, output));
+		}
+	}
+
+	private ByteBuffer takeOutput() {
+		ByteBuffer buffer = output.size() > 0 ? ByteBuffer.wrap(output.toByteArray()) : EMPTY;
+		output.reset();
+		return buffer;
+	}
+}
@@ -0,0 +1,195 @@
+package me.cxdev.commerce.proxy.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Resolves the {@link RouteTarget} of a request path against the configured backend contexts.
+ * <p>
+ * The backend contexts (e.g., {@code /occ}, {@code /backoffice}) are compiled once into a
+ * character trie. A lookup walks the request path exactly once and does not allocate, so the
+ * cost is proportional to the path length and independent of the number of web extensions.
+ * Matches respect path segment boundaries: the context {@code /occ} matches {@code /occ} and
+ * {@code /occ/v2/...}, but not {@code /occasion}.
+ * </p>
+ * <p>
+ * Instances are immutable after construction and safe for concurrent use by Undertow IO threads.
+ * </p>
+ */
+public class BackendContextRouter {
+	private final Node root = new Node();
+	private final List<String> contexts;
+	private final int nodeCount;
+
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder backendMatches = new LongAdder();
+
+	/**
+	 * Compiles the given backend contexts into a lookup trie.
+	 *
+	 * @param backendContexts The context paths routed to the backend. Blank entries and the root
+	 *                        context {@code /} are ignored.
+	 */
+	public BackendContextRouter(Collection<String> backendContexts) {
+		List<String> normalizedContexts = new ArrayList<>();
+		int nodes = 1;
+		if (backendContexts != null) {
+			for (String context : backendContexts) {
+				String normalized = normalizeContext(context);
+				if (normalized != null && !normalizedContexts.contains(normalized)) {
+					normalizedContexts.add(normalized);
+					nodes += insert(normalized);
+				}
+			}
+		}
+		this.contexts = Collections.unmodifiableList(normalizedContexts);
+		this.nodeCount = nodes;
+	}
+
+	/**
+	 * Resolves the target for the given request path.
+	 *
+	 * @param path The request path (e.g., {@code /occ/v2/electronics/products}).
+	 * @return {@link RouteTarget#BACKEND} if the path lies within a backend context,
+	 *         {@link RouteTarget#FRONTEND} otherwise.
+	 */
+	public RouteTarget resolve(String path) {
+		lookups.increment();
+		if (isBackendPath(path)) {
+			backendMatches.increment();
+			return RouteTarget.BACKEND;
+		}
+		return RouteTarget.FRONTEND;
+	}
+
+	private boolean isBackendPath(String path) {
+		if (path == null) {
+			return false;
+		}
+
+		Node node = root;
+		int length = path.length();
+		for (int i = 0; i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '/' && node.terminal) {
+				// A complete context is followed by a segment separator
+				return true;
+			}
+			node = node.child(c);
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.terminal;
+	}
+
+	private int insert(String context) {
+		int created = 0;
+		Node node = root;
+		for (int i = 0; i < context.length(); i++) {
+			char c = context.charAt(i);
+			Node next = node.child(c);
+			if (next == null) {
+				next = node.addChild(c);
+				created++;
+			}
+			node = next;
+		}
+		node.terminal = true;
+		return created;
+	}
+
+	private static String normalizeContext(String context) {
+		String normalized = StringUtils.trimToNull(context);
+		if (normalized == null) {
+			return null;
+		}
+		if (!normalized.startsWith("/")) {
+			normalized = "/" + normalized;
+		}
+		normalized = StringUtils.stripEnd(normalized, "/");
+		return normalized.isEmpty() ? null : normalized;
+	}
+
+	/**
+	 * @return The normalized backend contexts this router was compiled from.
+	 */
+	public List<String> getContexts() {
+		return contexts;
+	}
+
+	/**
+	 * @return The number of trie nodes, including the root node.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return The total number of resolved paths since startup.
+	 */
+	public long getLookupCount() {
+		return lookups.sum();
+	}
+
+	/**
+	 * @return The number of resolved paths routed to the backend since startup.
+	 */
+	public long getBackendMatchCount() {
+		return backendMatches.sum();
+	}
+
+	/**
+	 * @return The number of resolved paths routed to the frontend since startup.
+	 */
+	public long getFrontendMatchCount() {
+		return Math.max(0, getLookupCount() - getBackendMatchCount());
+	}
+
+	@Override
+	public String toString() {
+		return "BackendContextRouter[contexts=" + contexts.size() + ", nodes=" + nodeCount
+				+ ", lookups=" + getLookupCount() + ", backend=" + getBackendMatchCount()
+				+ ", frontend=" + getFrontendMatchCount() + "]";
+	}
+
+	/**
+	 * A trie node. Children are kept in small parallel arrays, as the fan-out of URL paths
+	 * is low and a linear scan over a few chars beats hashing.
+	 */
+	private static final class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean terminal;
+
+		Node child(char c) {
+			char[] k = keys;
+			for (int i = 0; i < k.length; i++) {
+				if (k[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			int size = keys.length;
+			char[] newKeys = new char[size + 1];
+			Node[] newChildren = new Node[size + 1];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			System.arraycopy(children, 0, newChildren, 0, size);
+
+			Node child = new Node();
+			newKeys[size] = c;
+			newChildren[size] = child;
+			this.keys = newKeys;
+			this.children = newChildren;
+			return child;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package me.cxdev.commerce.proxy.routing;
+
+/**
+ * The upstream target an incoming request is routed to when no local route handler intercepts it.
+ */
+public enum RouteTarget {
+	/**
+	 * The SAP Commerce backend (local Tomcat).
+	 */
+	BACKEND,
+
+	/**
+	 * The local frontend (e.g., an Angular Dev Server).
+	 */
+	FRONTEND
+}
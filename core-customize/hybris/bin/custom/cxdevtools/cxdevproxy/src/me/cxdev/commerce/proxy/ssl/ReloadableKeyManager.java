@@ -0,0 +1,137 @@
+package me.cxdev.commerce.proxy.ssl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A key manager for the inbound HTTPS listener that can swap its certificates at runtime.
+ * <p>
+ * All calls are delegated to a key manager loaded from the keystore. {@link #reload()} loads the
+ * keystore again and replaces the delegate atomically, so renewed certificates (e.g., by mkcert)
+ * are used for all new handshakes without restarting the listener. If the keystore cannot be
+ * loaded (e.g., while it is still being written), the previous certificates stay active.
+ * </p>
+ * <p>
+ * If an alias is configured, it is preferred for server handshakes as long as the keystore contains it.
+ * </p>
+ */
+public class ReloadableKeyManager extends X509ExtendedKeyManager {
+	private static final Logger LOG = LoggerFactory.getLogger(ReloadableKeyManager.class);
+
+	private final Callable<X509ExtendedKeyManager> loader;
+	private final String alias;
+	private volatile X509ExtendedKeyManager delegate;
+
+	ReloadableKeyManager(Callable<X509ExtendedKeyManager> loader, String alias) throws Exception {
+		this.loader = loader;
+		this.alias = StringUtils.trimToNull(alias);
+		this.delegate = loader.call();
+	}
+
+	/**
+	 * Creates a key manager for a PKCS12 keystore file.
+	 *
+	 * @param keystoreFile The keystore file.
+	 * @param password     The password of the keystore and its keys, may be {@code null}.
+	 * @param alias        The preferred alias of the server certificate, may be {@code null}.
+	 * @return The key manager, loaded with the current content of the keystore.
+	 * @throws Exception If the keystore cannot be loaded.
+	 */
+	public static ReloadableKeyManager forKeystore(File keystoreFile, String password, String alias) throws Exception {
+		return new ReloadableKeyManager(() -> load(keystoreFile, password), alias);
+	}
+
+	private static X509ExtendedKeyManager load(File keystoreFile, String password) throws Exception {
+		char[] passwordChars = password != null ? password.toCharArray() : new char[0];
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		try (InputStream is = new FileInputStream(keystoreFile)) {
+			keyStore.load(is, passwordChars);
+		}
+
+		KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		kmf.init(keyStore, passwordChars);
+		for (KeyManager keyManager : kmf.getKeyManagers()) {
+			if (keyManager instanceof X509ExtendedKeyManager x509KeyManager) {
+				return x509KeyManager;
+			}
+		}
+		throw new IllegalStateException("No X.509 key manager available for keystore " + keystoreFile);
+	}
+
+	/**
+	 * Loads the keystore again and activates its certificates for new handshakes.
+	 *
+	 * @return {@code true} if the keystore has been reloaded, {@code false} if the previous certificates stay active.
+	 */
+	public boolean reload() {
+		try {
+			this.delegate = loader.call();
+			return true;
+		} catch (Exception e) {
+			LOG.warn("Could not reload the proxy keystore, keeping the current certificates: {}", e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+		X509ExtendedKeyManager current = delegate;
+		return hasAlias(current) ? alias : current.chooseServerAlias(keyType, issuers, socket);
+	}
+
+	@Override
+	public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+		X509ExtendedKeyManager current = delegate;
+		return hasAlias(current) ? alias : current.chooseEngineServerAlias(keyType, issuers, engine);
+	}
+
+	private boolean hasAlias(X509ExtendedKeyManager current) {
+		return alias != null && current.getPrivateKey(alias) != null;
+	}
+
+	@Override
+	public String[] getServerAliases(String keyType, Principal[] issuers) {
+		return delegate.getServerAliases(keyType, issuers);
+	}
+
+	@Override
+	public String[] getClientAliases(String keyType, Principal[] issuers) {
+		return delegate.getClientAliases(keyType, issuers);
+	}
+
+	@Override
+	public String chooseClientAlias(String[] keyType, Principal[] issuers, Socket socket) {
+		return delegate.chooseClientAlias(keyType, issuers, socket);
+	}
+
+	@Override
+	public String chooseEngineClientAlias(String[] keyType, Principal[] issuers, SSLEngine engine) {
+		return delegate.chooseEngineClientAlias(keyType, issuers, engine);
+	}
+
+	@Override
+	public X509Certificate[] getCertificateChain(String alias) {
+		return delegate.getCertificateChain(alias);
+	}
+
+	@Override
+	public PrivateKey getPrivateKey(String alias) {
+		return delegate.getPrivateKey(alias);
+	}
+}
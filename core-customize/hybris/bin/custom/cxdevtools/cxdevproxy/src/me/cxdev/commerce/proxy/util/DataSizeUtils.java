@@ -0,0 +1,56 @@
+package me.cxdev.commerce.proxy.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for parsing human-readable data sizes (e.g., "512kb", "32mb", "1gb")
+ * into bytes.
+ */
+public final class DataSizeUtils {
+	private static final Logger LOG = LoggerFactory.getLogger(DataSizeUtils.class);
+
+	private DataSizeUtils() {
+		// Prevent instantiation
+	}
+
+	public static long parseSizeToBytes(String size) {
+		return parseSizeToBytes(size, "DataSizeUtils parser.");
+	}
+
+	/**
+	 * Parses a data size string into bytes.
+	 * Supports 'b', 'kb', 'mb' and 'gb' (binary multiples). Falls back to bytes if no unit is provided.
+	 *
+	 * @param size        The size string from properties (e.g., "32mb").
+	 * @param contextName A descriptive name for logging (e.g., "Static asset cache size").
+	 * @return The parsed size in bytes.
+	 */
+	public static long parseSizeToBytes(String size, String contextName) {
+		if (size == null || size.trim().isEmpty()) {
+			return 0L;
+		}
+
+		String trimmed = size.trim().toLowerCase();
+		long multiplier = 1;
+		long value;
+
+		if (trimmed.endsWith("kb")) {
+			value = Long.parseLong(trimmed.substring(0, trimmed.length() - 2).trim());
+			multiplier = 1024L;
+		} else if (trimmed.endsWith("mb")) {
+			value = Long.parseLong(trimmed.substring(0, trimmed.length() - 2).trim());
+			multiplier = 1024L * 1024L;
+		} else if (trimmed.endsWith("gb")) {
+			value = Long.parseLong(trimmed.substring(0, trimmed.length() - 2).trim());
+			multiplier = 1024L * 1024L * 1024L;
+		} else if (trimmed.endsWith("b")) {
+			value = Long.parseLong(trimmed.substring(0, trimmed.length() - 1).trim());
+		} else {
+			value = Long.parseLong(trimmed); // Default to bytes if no unit
+		}
+		long result = value * multiplier;
+		LOG.debug("Parsed data size for '{}' to {} bytes", contextName, result);
+		return result;
+	}
+}
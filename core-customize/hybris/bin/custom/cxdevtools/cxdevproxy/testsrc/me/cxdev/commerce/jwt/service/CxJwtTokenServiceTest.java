@@ -4,17 +4,28 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.RSAKey;
@@ -22,14 +33,19 @@ import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.SignedJWT;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+
 @ExtendWith(MockitoExtension.class)
 class CxJwtTokenServiceTest {
 	private CxJwtTokenService tokenService;
@@ -50,6 +66,7 @@ class CxJwtTokenServiceTest {
 		tokenService = new CxJwtTokenService();
 		tokenService.setResourceLoader(resourceLoaderMock);
 		tokenService.setTemplatePathPrefix("cxdevproxy/jwt");
+		tokenService.setPrewarmTemplates(false);
 
 		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
 		keyPairGenerator.initialize(2048);
@@ -61,6 +78,11 @@ class CxJwtTokenServiceTest {
 				.build();
 	}
 
+	@AfterEach
+	void tearDown() throws Exception {
+		tokenService.destroy();
+	}
+
 	// --- JWKSource & Initialization Tests ---
 
 	@Test
@@ -170,4 +192,232 @@ class CxJwtTokenServiceTest {
 		assertNotSame(firstCallToken, secondCallToken,
 				"Expired token should be discarded and a completely new one generated");
 	}
+
+	// --- Template & Token Cache Tests ---
+
+	@Test
+	void testGenerateSignedToken_ParsesTemplateOnlyOnceUntilModified() throws Exception {
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		when(resourceLoaderMock.getResource(anyString())).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.lastModified()).thenReturn(1000L, 1000L, 2000L);
+		when(resourceMock.getInputStream()).thenReturn(
+				new ByteArrayInputStream("{\"sub\": \"first\"}".getBytes(StandardCharsets.UTF_8)),
+				new ByteArrayInputStream("{\"sub\": \"second\"}".getBytes(StandardCharsets.UTF_8)));
+
+		String first = tokenService.generateSignedToken("customer", "template.user@example.com");
+		String unchanged = tokenService.generateSignedToken("customer", "template.user@example.com");
+		assertEquals(1, tokenService.getTemplateLoadCount(), "Unchanged templates must not be parsed again");
+		assertEquals(1, tokenService.getTemplateCacheSize());
+
+		String modified = tokenService.generateSignedToken("customer", "template.user@example.com");
+		assertEquals(2, tokenService.getTemplateLoadCount(), "Modified templates must be parsed again");
+
+		assertEquals("first", SignedJWT.parse(first).getJWTClaimsSet().getSubject());
+		assertEquals("first", SignedJWT.parse(unchanged).getJWTClaimsSet().getSubject());
+		assertEquals("second", SignedJWT.parse(modified).getJWTClaimsSet().getSubject());
+		verify(resourceMock, times(2)).getInputStream();
+	}
+
+	@Test
+	void testGetOrGenerateToken_EvictsLeastRecentlyUsedTokens() throws Exception {
+		// A token signed with a 2048 bit key is roughly 500 bytes, so the cache holds two of them
+		tokenService.setTokenCacheMaxSize("2kb");
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		when(resourceLoaderMock.getResource(anyString())).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+
+		tokenService.getOrGenerateToken("customer", "a@example.com");
+		tokenService.getOrGenerateToken("customer", "b@example.com");
+		tokenService.getOrGenerateToken("customer", "a@example.com");
+		tokenService.getOrGenerateToken("customer", "c@example.com");
+
+		assertEquals(2, tokenService.getTokenCache().size());
+		assertEquals(1, tokenService.getTokenCache().getEvictionCount());
+		assertEquals(1, tokenService.getTokenCache().getHitCount());
+		assertEquals(3, tokenService.getTokenCache().getMissCount());
+	}
+
+	@Test
+	void testRefresh_OnlyTokensReadSinceSigningAreResigned() throws Exception {
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		when(resourceLoaderMock.getResource(anyString())).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+
+		String signed = tokenService.getOrGenerateToken("customer", "active@example.com");
+		assertEquals(1, tokenService.getScheduledRefreshCount());
+
+		// Read after signing: the token is refreshed and its refresh is rescheduled
+		assertEquals(signed, tokenService.getOrGenerateToken("customer", "active@example.com"));
+		tokenService.refreshNow("customer", "active@example.com");
+		verify(resourceLoaderMock, times(2)).getResource(anyString());
+		assertEquals(1, tokenService.getScheduledRefreshCount());
+
+		// Not read since the refresh: the refresh stops
+		tokenService.refreshNow("customer", "active@example.com");
+		verify(resourceLoaderMock, times(2)).getResource(anyString());
+		assertEquals(0, tokenService.getScheduledRefreshCount());
+	}
+
+	@Test
+	void testGetOrGenerateToken_ResignedAfterEviction_ReplacesScheduledRefresh() throws Exception {
+		// A token signed with a 2048 bit key is roughly 500 bytes, so the cache holds two of them
+		tokenService.setTokenCacheMaxSize("2kb");
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		when(resourceLoaderMock.getResource(anyString())).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)));
+
+		tokenService.getOrGenerateToken("customer", "a@example.com");
+		tokenService.getOrGenerateToken("customer", "b@example.com");
+		tokenService.getOrGenerateToken("customer", "c@example.com");
+		// Evicted by c, signed again
+		tokenService.getOrGenerateToken("customer", "a@example.com");
+
+		assertEquals(3, tokenService.getScheduledRefreshCount(), "A user id must not get a second refresh chain");
+	}
+
+	// --- Single-Flight & Pre-Warming Tests ---
+
+	@Test
+	void testGetOrGenerateTokenAsync_SignsOnSigningThreadAndServesCachedTokenImmediately() throws Exception {
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		String jsonTemplate = "{\"sub\": \"async.user@example.com\"}";
+		String[] loadingThread = new String[1];
+		when(resourceLoaderMock.getResource(anyString())).thenAnswer(inv -> {
+			loadingThread[0] = Thread.currentThread().getName();
+			return resourceMock;
+		});
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream(jsonTemplate.getBytes(StandardCharsets.UTF_8)));
+
+		String token = tokenService.getOrGenerateTokenAsync("customer", "async.user@example.com").get(5, TimeUnit.SECONDS);
+		assertNotNull(token);
+		assertEquals("CxDevProxy-JwtSigner", loadingThread[0], "The template must be loaded off the calling thread");
+
+		CompletableFuture<String> cached = tokenService.getOrGenerateTokenAsync("customer", "async.user@example.com");
+		assertTrue(cached.isDone(), "Cached tokens must not be handed to the signing thread");
+		assertEquals(token, cached.join());
+		verify(resourceLoaderMock, times(1)).getResource(anyString());
+	}
+
+	@Test
+	void testGetOrGenerateToken_ConcurrentRequestsSignOnlyOnce() throws Exception {
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+		tokenService.afterPropertiesSet();
+
+		String jsonTemplate = "{\"sub\": \"concurrent.user@example.com\"}";
+		CountDownLatch templateRequested = new CountDownLatch(1);
+		CountDownLatch allRequestsStarted = new CountDownLatch(1);
+		when(resourceLoaderMock.getResource(anyString())).thenAnswer(inv -> {
+			templateRequested.countDown();
+			// Hold the signing thread until the other requests are waiting
+			allRequestsStarted.await(5, TimeUnit.SECONDS);
+			return resourceMock;
+		});
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream(jsonTemplate.getBytes(StandardCharsets.UTF_8)));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<String> first = executor.submit(() -> tokenService.getOrGenerateToken("customer", "concurrent.user@example.com"));
+			assertTrue(templateRequested.await(5, TimeUnit.SECONDS));
+			List<Future<String>> others = List.of(
+					executor.submit(() -> tokenService.getOrGenerateToken("customer", "concurrent.user@example.com")),
+					executor.submit(() -> tokenService.getOrGenerateToken("customer", "concurrent.user@example.com")),
+					executor.submit(() -> tokenService.getOrGenerateToken("customer", "concurrent.user@example.com")));
+			Thread.sleep(100);
+			allRequestsStarted.countDown();
+
+			String token = first.get(5, TimeUnit.SECONDS);
+			assertNotNull(token);
+			for (Future<String> other : others) {
+				assertEquals(token, other.get(5, TimeUnit.SECONDS), "Waiting requests must receive the token of the signing request");
+			}
+			verify(resourceLoaderMock, times(1)).getResource(anyString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testAfterPropertiesSet_PrewarmsTokensForAllTemplates(@TempDir Path templateDir) throws Exception {
+		Files.createDirectories(templateDir.resolve("customer"));
+		Files.createDirectories(templateDir.resolve("employee"));
+		Files.writeString(templateDir.resolve("customer/john.doe@example.com.json"), "{\"sub\": \"john.doe@example.com\"}");
+		Files.writeString(templateDir.resolve("employee/admin.json"), "{\"sub\": \"admin\"}");
+
+		DefaultResourceLoader resourceLoader = spy(new DefaultResourceLoader());
+		tokenService.setResourceLoader(resourceLoader);
+		tokenService.setTemplatePathPrefix(templateDir.toUri().toString());
+		tokenService.setPrewarmTemplates(true);
+		tokenService.setJwkSource(jwkSourceMock);
+		when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+
+		tokenService.afterPropertiesSet();
+
+		String templatePath = templateDir.toUri().toString() + "customer/john.doe@example.com.json";
+		verify(resourceLoader, timeout(5000)).getResource(templatePath);
+		verify(resourceLoader, timeout(5000)).getResource(templateDir.toUri().toString() + "employee/admin.json");
+
+		// The request is served from the cache or joins the signing in progress, the template is not read again
+		String token = tokenService.getOrGenerateToken("customer", "john.doe@example.com");
+		verify(resourceLoader, times(1)).getResource(templatePath);
+		assertNotNull(token, "Token must be served from the pre-warmed cache");
+		assertEquals("john.doe@example.com", SignedJWT.parse(token).getJWTClaimsSet().getSubject());
+	}
+
+	@Test
+	void testFileChange_EvictsTokensOfChangedTemplate(@TempDir Path templateDir) throws Exception {
+		Files.createDirectories(templateDir.resolve("customer"));
+		Path template = Files.writeString(templateDir.resolve("customer/john.doe@example.com.json"), "{\"sub\": \"old\"}");
+		Files.writeString(templateDir.resolve("customer/jane.doe@example.com.json"), "{\"sub\": \"jane\"}");
+
+		FileChangeWatcher watcher = new FileChangeWatcher();
+		watcher.setDebounce("50ms");
+		watcher.afterPropertiesSet();
+		try {
+			tokenService.setResourceLoader(new DefaultResourceLoader());
+			tokenService.setTemplatePathPrefix(templateDir.toUri().toString());
+			tokenService.setFileChangeWatcher(watcher);
+			tokenService.setJwkSource(jwkSourceMock);
+			when(jwkSourceMock.get(any(), any())).thenReturn(Collections.singletonList((JWK) testRsaJwk));
+			tokenService.afterPropertiesSet();
+
+			String oldToken = tokenService.getOrGenerateToken("customer", "john.doe@example.com");
+			String janeToken = tokenService.getOrGenerateToken("customer", "jane.doe@example.com");
+			assertEquals("old", SignedJWT.parse(oldToken).getJWTClaimsSet().getSubject());
+
+			Files.writeString(template, "{\"sub\": \"new\"}");
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (tokenService.getTokenCache().size() > 1 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertEquals(1, tokenService.getTokenCache().size(), "Only the tokens of the changed template must be evicted");
+			assertEquals(janeToken, tokenService.getOrGenerateToken("customer", "jane.doe@example.com"));
+			String newToken = tokenService.getOrGenerateToken("customer", "john.doe@example.com");
+			assertEquals("new", SignedJWT.parse(newToken).getJWTClaimsSet().getSubject());
+		} finally {
+			watcher.destroy();
+		}
+	}
 }
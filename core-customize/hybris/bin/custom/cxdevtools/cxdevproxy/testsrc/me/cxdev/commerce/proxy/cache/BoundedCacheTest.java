@@ -0,0 +1,94 @@
+package me.cxdev.commerce.proxy.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+	private BoundedCache<String, String> cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new BoundedCache<>("test", 10, String::length);
+	}
+
+	@Test
+	void testGet_CountsHitsAndMisses() {
+		cache.put("a", "123");
+
+		assertEquals("123", cache.get("a"));
+		assertNull(cache.get("b"));
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void testPut_EvictsLeastRecentlyUsedEntries() {
+		cache.put("a", "1234");
+		cache.put("b", "1234");
+		cache.get("a");
+		cache.put("c", "1234");
+
+		assertNull(cache.get("b"), "The least recently used entry must be evicted");
+		assertEquals("1234", cache.get("a"));
+		assertEquals("1234", cache.get("c"));
+		assertEquals(8, cache.getWeight());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	void testContainsKey_DoesNotAffectStatisticsOrRecency() {
+		cache.put("a", "1234");
+		cache.put("b", "1234");
+
+		assertTrue(cache.containsKey("a"));
+		assertFalse(cache.containsKey("c"));
+		cache.put("c", "1234");
+
+		assertFalse(cache.containsKey("a"), "containsKey must not mark the entry as recently used");
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	void testPut_ReplacingEntryUpdatesWeight() {
+		cache.put("a", "1234");
+		cache.put("a", "12");
+
+		assertEquals(2, cache.getWeight());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testPut_RejectsEntriesHeavierThanMaximum() {
+		assertFalse(cache.put("a", "12345678901"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testRemoveIf_RemovesMatchingKeysAndWeight() {
+		cache.put("/css/a.css", "12");
+		cache.put("/css/b.css", "12");
+		cache.put("/js/c.js", "12");
+
+		assertEquals(2, cache.removeIf(key -> key.startsWith("/css/")));
+		assertEquals(2, cache.getWeight());
+		assertNull(cache.remove("/css/a.css"));
+		assertEquals("12", cache.remove("/js/c.js"));
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	void testDisabledCache_StoresNothing() {
+		BoundedCache<String, String> disabled = new BoundedCache<>("disabled", 0, String::length);
+
+		assertFalse(disabled.isEnabled());
+		assertFalse(disabled.put("a", "1"));
+		assertTrue(cache.isEnabled());
+	}
+}
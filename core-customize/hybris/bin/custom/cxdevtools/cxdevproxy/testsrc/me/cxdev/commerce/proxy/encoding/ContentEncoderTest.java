@@ -0,0 +1,134 @@
+package me.cxdev.commerce.proxy.encoding;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ContentEncoderTest {
+	private static final byte[] LARGE_TEXT = "body { color: red; }\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+	private ContentEncoder encoder;
+
+	@BeforeEach
+	void setUp() {
+		encoder = new ContentEncoder();
+	}
+
+	@Test
+	void testEncode_CompressibleContentAboveMinSize_AddsGzipVariant() throws IOException {
+		EncodedContent content = encoder.encode(LARGE_TEXT, "text/css");
+
+		assertTrue(content.isCompressed());
+		assertTrue(content.getLength(ContentCoding.GZIP) < LARGE_TEXT.length);
+		assertArrayEquals(LARGE_TEXT, gunzip(toBytes(content.getBody(ContentCoding.GZIP))));
+		assertArrayEquals(LARGE_TEXT, toBytes(content.getBody(ContentCoding.IDENTITY)));
+	}
+
+	@Test
+	void testEncode_SmallOrBinaryContent_KeepsIdentityOnly() {
+		assertFalse(encoder.encode("a { }".getBytes(StandardCharsets.UTF_8), "text/css").isCompressed());
+		assertFalse(encoder.encode(LARGE_TEXT, "image/png").isCompressed());
+	}
+
+	@Test
+	void testEncode_Disabled_KeepsIdentityOnly() {
+		encoder = new ContentEncoder(false, "1kb");
+
+		EncodedContent content = encoder.encode(LARGE_TEXT, "text/css", Map.of(ContentCoding.BROTLI, new byte[] { 1 }));
+
+		assertFalse(content.isCompressed());
+	}
+
+	@Test
+	void testEncode_PrecompressedVariants_ArePreferred() {
+		byte[] brotli = { 1, 2, 3 };
+		byte[] gzip = { 4, 5, 6, 7 };
+
+		EncodedContent content = encoder.encode(LARGE_TEXT, "application/javascript",
+				Map.of(ContentCoding.BROTLI, brotli, ContentCoding.GZIP, gzip));
+
+		assertArrayEquals(brotli, toBytes(content.getBody(ContentCoding.BROTLI)));
+		assertArrayEquals(gzip, toBytes(content.getBody(ContentCoding.GZIP)));
+	}
+
+	@Test
+	void testConstructor_ParsesHumanReadableMinSize() {
+		encoder = new ContentEncoder(true, "4kb");
+		assertEquals(4096, encoder.getMinSize());
+		assertFalse(encoder.encode(LARGE_TEXT, "text/css").isCompressed());
+
+		assertEquals(1024, new ContentEncoder(true, "invalid").getMinSize(), "Invalid sizes must fall back to the default");
+	}
+
+	@Test
+	void testEncode_KeepsVariantsOnHeapUntilCached() {
+		EncodedContent content = encoder.encode(LARGE_TEXT, "text/css");
+		assertFalse(content.getBody(ContentCoding.IDENTITY).isDirect());
+
+		EncodedContent cached = content.toDirect();
+		assertTrue(cached.getBody(ContentCoding.IDENTITY).isDirect());
+		assertTrue(cached.getBody(ContentCoding.GZIP).isDirect());
+		assertArrayEquals(LARGE_TEXT, toBytes(cached.getBody(ContentCoding.IDENTITY)));
+		assertEquals(content.getWeight(), cached.getWeight());
+		assertSame(cached, cached.toDirect());
+	}
+
+	@Test
+	void testNegotiate_PrefersBrotliOnEqualQuality() {
+		EncodedContent content = encoder.encode(LARGE_TEXT, "text/css", Map.of(ContentCoding.BROTLI, new byte[] { 1 }));
+
+		assertEquals(ContentCoding.BROTLI, ContentEncoder.negotiate("gzip, deflate, br", content));
+		assertEquals(ContentCoding.GZIP, ContentEncoder.negotiate("gzip", content));
+		assertEquals(ContentCoding.IDENTITY, ContentEncoder.negotiate((String) null, content));
+		assertEquals(ContentCoding.IDENTITY, ContentEncoder.negotiate("deflate", content));
+	}
+
+	@Test
+	void testNegotiate_HonorsQualityValuesAndWildcard() {
+		EncodedContent content = encoder.encode(LARGE_TEXT, "text/css", Map.of(ContentCoding.BROTLI, new byte[] { 1 }));
+
+		assertEquals(ContentCoding.GZIP, ContentEncoder.negotiate("br;q=0.5, gzip;q=0.8", content));
+		assertEquals(ContentCoding.GZIP, ContentEncoder.negotiate("br;q=0, *", content));
+		assertEquals(ContentCoding.IDENTITY, ContentEncoder.negotiate("gzip;q=0, br;q=0", content));
+		assertEquals(ContentCoding.BROTLI, ContentEncoder.negotiate("*", content));
+	}
+
+	@Test
+	void testAddVary_KeepsExistingValues() {
+		HeaderMap headers = new HeaderMap();
+		headers.put(Headers.VARY, "Origin");
+
+		encoder.addVary(headers);
+		encoder.addVary(headers);
+
+		assertEquals(2, headers.get(Headers.VARY).size());
+		assertEquals("Accept-Encoding", headers.get(Headers.VARY).getLast());
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	static byte[] gunzip(byte[] bytes) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readAllBytes();
+		}
+	}
+}
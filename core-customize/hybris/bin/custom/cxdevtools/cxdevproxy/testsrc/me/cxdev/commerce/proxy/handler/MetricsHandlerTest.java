@@ -0,0 +1,113 @@
+package me.cxdev.commerce.proxy.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.undertow.io.Sender;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsHandlerTest {
+	@Mock
+	private HttpServerExchange exchangeMock;
+
+	@Mock
+	private Sender senderMock;
+
+	private ProxyMetrics proxyMetrics;
+	private MetricsHandler handler;
+	private HeaderMap requestHeaders;
+	private HeaderMap responseHeaders;
+	private Map<String, Deque<String>> queryParameters;
+
+	@BeforeEach
+	void setUp() {
+		proxyMetrics = new ProxyMetrics();
+		proxyMetrics.target(ProxyMetrics.TARGET_BACKEND);
+		handler = new MetricsHandler(proxyMetrics);
+		requestHeaders = new HeaderMap();
+		responseHeaders = new HeaderMap();
+		queryParameters = new HashMap<>();
+	}
+
+	@Test
+	void testMatches_OnlyGetRequestsOnConfiguredPath() {
+		handler.setPath(" /_metrics ");
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET, Methods.GET, Methods.POST);
+		when(exchangeMock.getRequestPath()).thenReturn("/_metrics", "/proxy/metrics");
+
+		assertTrue(handler.matches(exchangeMock));
+		assertFalse(handler.matches(exchangeMock));
+		assertFalse(handler.matches(exchangeMock));
+	}
+
+	@Test
+	void testMatches_WhenDisabled_ReturnsFalse() {
+		proxyMetrics.setEnabled(false);
+		assertFalse(handler.matches(exchangeMock));
+	}
+
+	@Test
+	void testHandleRequest_ByDefault_SendsJson() {
+		String body = handle();
+
+		assertEquals("application/json; charset=UTF-8", responseHeaders.getFirst(Headers.CONTENT_TYPE));
+		assertEquals("no-store", responseHeaders.getFirst(Headers.CACHE_CONTROL));
+		assertTrue(body.startsWith("{\"uptimeSeconds\":"), body);
+		assertTrue(body.contains("\"backend\":{"), body);
+	}
+
+	@Test
+	void testHandleRequest_WithFormatParameter_SendsPrometheusText() {
+		queryParameters.put("format", new ArrayDeque<>(List.of("prometheus")));
+
+		String body = handle();
+
+		assertTrue(responseHeaders.getFirst(Headers.CONTENT_TYPE).startsWith("text/plain; version=0.0.4"));
+		assertTrue(body.contains("cxdevproxy_requests_total{target=\"backend\",status=\"5xx\"} 0"), body);
+	}
+
+	@Test
+	void testHandleRequest_AcceptingTextPlain_SendsPrometheusText() {
+		requestHeaders.put(Headers.ACCEPT, "text/plain;version=0.0.4;q=1,*/*;q=0.1");
+
+		String body = handle();
+
+		assertTrue(body.startsWith("# HELP"), body);
+	}
+
+	private String handle() {
+		when(exchangeMock.getQueryParameters()).thenReturn(queryParameters);
+		lenient().when(exchangeMock.getRequestHeaders()).thenReturn(requestHeaders);
+		when(exchangeMock.getResponseHeaders()).thenReturn(responseHeaders);
+		when(exchangeMock.getResponseSender()).thenReturn(senderMock);
+
+		handler.handleRequest(exchangeMock);
+
+		ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+		verify(senderMock).send(captor.capture());
+		return captor.getValue();
+	}
+}
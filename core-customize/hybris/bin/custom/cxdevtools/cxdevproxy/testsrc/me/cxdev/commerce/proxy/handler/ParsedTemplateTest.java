@@ -0,0 +1,70 @@
+package me.cxdev.commerce.proxy.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.configuration2.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+@ExtendWith(MockitoExtension.class)
+class ParsedTemplateTest {
+	@Mock
+	private Configuration configurationMock;
+
+	@Mock
+	private MessageSource messageSourceMock;
+
+	@Test
+	void testParse_SplitsLiteralsAndPlaceholders() {
+		ParsedTemplate template = ParsedTemplate.parse("<h1>#{title}</h1><p>%{a}-%{b:x}</p>");
+
+		assertEquals(7, template.getSegmentCount());
+	}
+
+	@Test
+	void testResolveProperties_UsesDefaultsAndKeyAsFallback() {
+		when(configurationMock.getString("known", null)).thenReturn("value");
+		when(configurationMock.getString("missing", "fallback")).thenReturn("fallback");
+		when(configurationMock.getString("unknown", null)).thenReturn(null);
+
+		ParsedTemplate template = ParsedTemplate.parse("%{known} %{missing:fallback} %{unknown}");
+
+		assertEquals(List.of("value", "fallback", "unknown"), template.resolveProperties(configurationMock));
+	}
+
+	@Test
+	void testRender_ResolvesMessagesInLocale() {
+		when(messageSourceMock.getMessage(eq("title"), isNull(), eq("title"), eq(Locale.GERMAN))).thenReturn("Titel");
+		when(messageSourceMock.getMessage(eq("missing"), isNull(), eq("Default $1"), eq(Locale.GERMAN))).thenReturn("Default $1");
+
+		ParsedTemplate template = ParsedTemplate.parse("<h1>#{title}</h1><p>#{missing:Default $1}</p>");
+
+		assertEquals("<h1>Titel</h1><p>Default $1</p>", template.render(List.of(), messageSourceMock, Locale.GERMAN));
+	}
+
+	@Test
+	void testRender_ResolvesMessagesInPropertyValues() {
+		when(messageSourceMock.getMessage(eq("greeting"), isNull(), any(), eq(Locale.ENGLISH))).thenReturn("Hello");
+
+		ParsedTemplate template = ParsedTemplate.parse("<p>%{welcome}</p>");
+
+		assertEquals("<p>Hello World</p>", template.render(List.of("#{greeting} World"), messageSourceMock, Locale.ENGLISH));
+	}
+
+	@Test
+	void testRender_WithoutPlaceholders_ReturnsTemplate() {
+		String html = "<script>const a = `${b}`;</script>";
+
+		assertEquals(html, ParsedTemplate.parse(html).render(List.of(), messageSourceMock, Locale.ENGLISH));
+	}
+}
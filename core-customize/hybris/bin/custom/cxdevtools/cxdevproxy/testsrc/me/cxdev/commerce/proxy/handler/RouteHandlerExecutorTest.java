@@ -0,0 +1,88 @@
+package me.cxdev.commerce.proxy.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RouteHandlerExecutorTest {
+	private RouteHandlerExecutor executor;
+	private HttpServerExchange exchangeMock;
+	private HttpHandler handlerMock;
+
+	@BeforeEach
+	void setUp() {
+		executor = new RouteHandlerExecutor();
+		exchangeMock = mock(HttpServerExchange.class);
+		handlerMock = mock(HttpHandler.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.destroy();
+	}
+
+	@Test
+	void testWorkerMode_DispatchesToUndertowWorkerPool() {
+		executor.setMode("worker");
+		executor.afterPropertiesSet();
+
+		executor.dispatch(exchangeMock, handlerMock);
+
+		verify(exchangeMock).dispatch(handlerMock);
+		verify(exchangeMock, never()).dispatch(any(Executor.class), any(HttpHandler.class));
+	}
+
+	@Test
+	void testVirtualMode_RunsHandlerOnVirtualThread() throws Exception {
+		executor.setMode("virtual");
+		executor.afterPropertiesSet();
+
+		CompletableFuture<Thread> handlerThread = new CompletableFuture<>();
+		doAnswer(invocation -> {
+			Executor target = invocation.getArgument(0);
+			target.execute(() -> handlerThread.complete(Thread.currentThread()));
+			return exchangeMock;
+		}).when(exchangeMock).dispatch(any(Executor.class), any(HttpHandler.class));
+
+		executor.dispatch(exchangeMock, handlerMock);
+
+		Thread thread = handlerThread.get(5, TimeUnit.SECONDS);
+		assertTrue(thread.isVirtual(), "Handler should run on a virtual thread");
+		assertTrue(thread.getName().startsWith("CxDevProxy-Handler-"));
+		verify(exchangeMock, never()).dispatch(any(HttpHandler.class));
+	}
+
+	@Test
+	void testSetMode_InvalidValue_KeepsCurrentMode() {
+		executor.setMode("virtual");
+		executor.setMode("carrier-pigeon");
+
+		assertEquals(RouteHandlerExecutor.Mode.VIRTUAL, executor.getMode());
+	}
+
+	@Test
+	void testDestroy_FallsBackToWorkerPool() {
+		executor.setMode("virtual");
+		executor.afterPropertiesSet();
+		executor.destroy();
+
+		executor.dispatch(exchangeMock, handlerMock);
+
+		verify(exchangeMock).dispatch(handlerMock);
+	}
+}
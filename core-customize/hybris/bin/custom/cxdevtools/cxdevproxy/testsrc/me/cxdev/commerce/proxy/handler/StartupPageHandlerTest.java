@@ -1,17 +1,40 @@
 package me.cxdev.commerce.proxy.handler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import de.hybris.platform.core.MasterTenant;
 import de.hybris.platform.core.Registry;
 import de.hybris.platform.core.Tenant;
 
 import io.undertow.io.Sender;
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
 import io.undertow.util.StatusCodes;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,6 +45,7 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.xnio.XnioIoThread;
 
 @ExtendWith(MockitoExtension.class)
 class StartupPageHandlerTest {
@@ -35,7 +59,7 @@ class StartupPageHandlerTest {
 	private Sender senderMock;
 
 	@Mock
-	private Tenant masterTenantMock;
+	private MasterTenant masterTenantMock;
 
 	@Mock
 	private Tenant someOtherTenantMock;
@@ -80,10 +104,7 @@ class StartupPageHandlerTest {
 		assertEquals("text/html; charset=UTF-8", responseHeaders.getFirst(Headers.CONTENT_TYPE));
 
 		// Assert 3: The HTML payload is sent
-		ArgumentCaptor<String> htmlCaptor = ArgumentCaptor.forClass(String.class);
-		verify(senderMock).send(htmlCaptor.capture());
-
-		String html = htmlCaptor.getValue();
+		String html = captureSentHtml();
 		assertTrue(html.contains("<!DOCTYPE html>"), "Must be a valid HTML document");
 		assertTrue(html.contains("<meta http-equiv=\"refresh\" content=\"5\">"), "Must auto-refresh");
 
@@ -100,12 +121,11 @@ class StartupPageHandlerTest {
 
 		handler.handleRequest(exchangeMock);
 
-		ArgumentCaptor<String> htmlCaptor = ArgumentCaptor.forClass(String.class);
-		verify(senderMock).send(htmlCaptor.capture());
+		String html = captureSentHtml();
 
 		// If the German bundle is present in the test context, it will use it.
 		// Otherwise, it gracefully uses the fallback. The main goal here is to ensure no exceptions escape.
-		assertTrue(htmlCaptor.getValue().contains("<html lang=\"en\">"));
+		assertTrue(html.contains("<html lang=\"en\">"));
 	}
 
 	@Test
@@ -115,10 +135,254 @@ class StartupPageHandlerTest {
 
 		handler.handleRequest(exchangeMock);
 
-		ArgumentCaptor<String> htmlCaptor = ArgumentCaptor.forClass(String.class);
-		verify(senderMock).send(htmlCaptor.capture());
+		assertTrue(captureSentHtml().contains("Starting up..."), "Should gracefully default to English");
+	}
+
+	@Test
+	void testHandleRequest_SelectsLanguageWithHighestQuality() {
+		requestHeaders.put(Headers.ACCEPT_LANGUAGE, "en;q=0.5, xx-YY, de-CH;q=0.8");
+		setupExchangeMocks();
+
+		handler.handleRequest(exchangeMock);
+
+		assertTrue(captureSentHtml().contains("Server startet..."), "de-CH must fall back to the German page, as it outranks English");
+	}
+
+	@Test
+	void testHandleRequest_WithMalformedAcceptLanguage_DefaultsToEnglish() {
+		requestHeaders.put(Headers.ACCEPT_LANGUAGE, "de;q=invalid");
+		setupExchangeMocks();
+
+		handler.handleRequest(exchangeMock);
+
+		assertTrue(captureSentHtml().contains("Starting up..."));
+	}
+
+	@Test
+	void testHandleRequest_SendsIndependentCopiesOfPrerenderedPage() {
+		setupExchangeMocks();
+
+		handler.handleRequest(exchangeMock);
+		handler.handleRequest(exchangeMock);
+
+		ArgumentCaptor<ByteBuffer> bodyCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock, times(2)).send(bodyCaptor.capture());
+		ByteBuffer first = bodyCaptor.getAllValues().get(0);
+		ByteBuffer second = bodyCaptor.getAllValues().get(1);
+		assertNotSame(first, second, "Each response must get its own buffer position");
+		assertEquals(first, second);
+		assertTrue(first.isReadOnly());
+	}
+
+	// --- Status Endpoint Tests ---
+
+	@Test
+	void testMatches_StatusPathAfterStartup() {
+		when(exchangeMock.getRequestPath()).thenReturn("/proxy/startup/status");
+		withMasterTenant(() -> handler.afterTenantStartUp(masterTenantMock));
+
+		assertTrue(handler.matches(exchangeMock), "The status endpoint must be served after startup as well");
+		when(exchangeMock.getRequestPath()).thenReturn("/occ/v2/electronics");
+		assertFalse(handler.matches(exchangeMock), "Regular requests must be proxied after startup");
+	}
+
+	@Test
+	void testHandleRequest_StatusWithoutWait_RespondsImmediately() {
+		setupExchangeMocks();
+		when(exchangeMock.getRequestPath()).thenReturn("/proxy/startup/status");
+		when(exchangeMock.getQueryParameters()).thenReturn(new HashMap<>());
+
+		handler.handleRequest(exchangeMock);
+
+		verify(exchangeMock).setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+		assertEquals("application/json; charset=UTF-8", responseHeaders.getFirst(Headers.CONTENT_TYPE));
+		ArgumentCaptor<String> jsonCaptor = ArgumentCaptor.forClass(String.class);
+		verify(senderMock).send(jsonCaptor.capture());
+		assertTrue(jsonCaptor.getValue().startsWith("{\"ready\":false,"));
+	}
+
+	@Test
+	void testHandleRequest_LongPollIsReleasedWhenMasterTenantStarts() {
+		XnioIoThread ioThread = parkStatusRequest();
+		verify(senderMock, never()).send(anyString());
+
+		withMasterTenant(() -> {
+			handler.afterTenantStartUp(someOtherTenantMock);
+			verify(ioThread, never()).execute(any(Runnable.class));
+
+			handler.afterTenantStartUp(masterTenantMock);
+		});
+
+		ArgumentCaptor<Runnable> release = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).execute(release.capture());
+		release.getValue().run();
+
+		verify(exchangeMock).setStatusCode(StatusCodes.OK);
+		ArgumentCaptor<String> jsonCaptor = ArgumentCaptor.forClass(String.class);
+		verify(senderMock).send(jsonCaptor.capture());
+		assertTrue(jsonCaptor.getValue().startsWith("{\"ready\":true,"));
+	}
+
+	@Test
+	void testHandleRequest_LongPollTimesOut() {
+		handler.setLongPollTimeout("10s");
+		XnioIoThread ioThread = parkStatusRequest();
+
+		ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).executeAfter(timeout.capture(), eq(10000L), eq(TimeUnit.MILLISECONDS));
+		timeout.getValue().run();
+		// A second release (e.g. by the tenant listener) must not answer the exchange again
+		timeout.getValue().run();
+
+		verify(exchangeMock).setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+		ArgumentCaptor<String> jsonCaptor = ArgumentCaptor.forClass(String.class);
+		verify(senderMock, times(1)).send(jsonCaptor.capture());
+		assertTrue(jsonCaptor.getValue().startsWith("{\"ready\":false,"));
+	}
+
+	// --- API Request Queue Tests ---
+
+	@Test
+	void testHandleRequest_QueuedApiRequestIsPassedOnAfterStartup() {
+		handler.setQueueApiRequests(true);
+		HttpHandler upstreamHandler = mock(HttpHandler.class);
+		XnioIoThread ioThread = parkApiRequest(upstreamHandler);
+		assertEquals(1, handler.getQueuedRequestCount());
+		verify(senderMock, never()).send(any(ByteBuffer.class));
+
+		withMasterTenant(() -> handler.afterTenantStartUp(masterTenantMock));
+
+		ArgumentCaptor<Runnable> release = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).execute(release.capture());
+		release.getValue().run();
+
+		verify(exchangeMock).dispatch(SameThreadExecutor.INSTANCE, upstreamHandler);
+		assertEquals(0, handler.getQueuedRequestCount());
+		verify(senderMock, never()).send(anyString());
+	}
+
+	@Test
+	void testHandleRequest_QueuedApiRequestTimesOutWith503() {
+		handler.setQueueApiRequests(true);
+		handler.setMaxQueueWait("30s");
+		XnioIoThread ioThread = parkApiRequest(mock(HttpHandler.class));
+
+		ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).executeAfter(timeout.capture(), eq(30000L), eq(TimeUnit.MILLISECONDS));
+		timeout.getValue().run();
+
+		verify(exchangeMock).setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+		assertEquals("5", responseHeaders.getFirst(Headers.RETRY_AFTER));
+		verify(senderMock).send(anyString());
+		assertEquals(0, handler.getQueuedRequestCount());
+	}
+
+	@Test
+	void testHandleRequest_CompletedQueuedApiRequestIsRemoved() {
+		handler.setQueueApiRequests(true);
+		XnioIoThread ioThread = parkApiRequest(mock(HttpHandler.class));
+		assertEquals(1, handler.getQueuedRequestCount());
+
+		// The client disconnects while the request is parked
+		ArgumentCaptor<ExchangeCompletionListener> listener = ArgumentCaptor.forClass(ExchangeCompletionListener.class);
+		verify(exchangeMock).addExchangeCompleteListener(listener.capture());
+		ExchangeCompletionListener.NextListener nextListener = mock(ExchangeCompletionListener.NextListener.class);
+		listener.getValue().exchangeEvent(exchangeMock, nextListener);
+
+		verify(nextListener).proceed();
+		assertEquals(0, handler.getQueuedRequestCount());
+
+		ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).executeAfter(timeout.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+		timeout.getValue().run();
+		withMasterTenant(() -> handler.afterTenantStartUp(masterTenantMock));
+
+		verify(ioThread, never()).execute(any(Runnable.class));
+		verify(senderMock, never()).send(anyString());
+		assertEquals(0, handler.getQueuedRequestCount());
+	}
+
+	@Test
+	void testHandleRequest_RejectsApiRequestsBeyondQueueSize() {
+		handler.setQueueApiRequests(true);
+		handler.setMaxQueuedRequests(0);
+		setupExchangeMocks();
+		requestHeaders.put(Headers.ACCEPT, "application/json");
+		when(exchangeMock.getAttachment(ProxyRouteHandler.UPSTREAM_HANDLER)).thenReturn(mock(HttpHandler.class));
+
+		handler.handleRequest(exchangeMock);
+
+		verify(exchangeMock, never()).dispatch(any(Executor.class), any(Runnable.class));
+		verify(exchangeMock).setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+		verify(senderMock).send(anyString());
+		assertEquals(0, handler.getQueuedRequestCount());
+	}
+
+	@Test
+	void testHandleRequest_QueueEnabled_StillServesPageToBrowserNavigation() {
+		handler.setQueueApiRequests(true);
+		setupExchangeMocks();
+		requestHeaders.put(Headers.ACCEPT, "text/html,application/xhtml+xml,*/*;q=0.8");
+
+		handler.handleRequest(exchangeMock);
+
+		assertTrue(captureSentHtml().contains("<!DOCTYPE html>"));
+		assertEquals(0, handler.getQueuedRequestCount());
+	}
+
+	/**
+	 * Sends an API request and runs the dispatched task, which parks the exchange.
+	 */
+	private XnioIoThread parkApiRequest(HttpHandler upstreamHandler) {
+		setupExchangeMocks();
+		requestHeaders.put(Headers.ACCEPT, "application/json");
+		XnioIoThread ioThread = mock(XnioIoThread.class);
+		when(exchangeMock.getIoThread()).thenReturn(ioThread);
+		when(exchangeMock.getRequestPath()).thenReturn("/occ/v2/electronics/cms/pages");
+		when(exchangeMock.getAttachment(ProxyRouteHandler.UPSTREAM_HANDLER)).thenReturn(upstreamHandler);
+
+		handler.handleRequest(exchangeMock);
+
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(exchangeMock).dispatch(eq(SameThreadExecutor.INSTANCE), task.capture());
+		task.getValue().run();
+		return ioThread;
+	}
+
+	/**
+	 * Sends a long-poll status request and runs the dispatched task, which parks the exchange.
+	 */
+	private XnioIoThread parkStatusRequest() {
+		setupExchangeMocks();
+		XnioIoThread ioThread = mock(XnioIoThread.class);
+		when(exchangeMock.getIoThread()).thenReturn(ioThread);
+		when(exchangeMock.getRequestPath()).thenReturn("/proxy/startup/status");
+		Map<String, Deque<String>> queryParameters = new HashMap<>();
+		queryParameters.put("wait", new ArrayDeque<>(List.of("true")));
+		when(exchangeMock.getQueryParameters()).thenReturn(queryParameters);
+
+		handler.handleRequest(exchangeMock);
+
+		ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+		verify(exchangeMock).dispatch(eq(SameThreadExecutor.INSTANCE), task.capture());
+		task.getValue().run();
+		return ioThread;
+	}
+
+	/**
+	 * Runs the action while {@link MasterTenant#getInstance()} returns the master tenant mock.
+	 */
+	private void withMasterTenant(Runnable action) {
+		try (MockedStatic<MasterTenant> masterTenantStatic = Mockito.mockStatic(MasterTenant.class)) {
+			masterTenantStatic.when(MasterTenant::getInstance).thenReturn(masterTenantMock);
+			action.run();
+		}
+	}
 
-		assertTrue(htmlCaptor.getValue().contains("Starting up..."), "Should gracefully default to English");
+	private String captureSentHtml() {
+		ArgumentCaptor<ByteBuffer> bodyCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock).send(bodyCaptor.capture());
+		return StandardCharsets.UTF_8.decode(bodyCaptor.getValue().duplicate()).toString();
 	}
 
 	private void setupExchangeMocks() {
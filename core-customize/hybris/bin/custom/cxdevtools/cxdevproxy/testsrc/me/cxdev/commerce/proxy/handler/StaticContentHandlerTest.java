@@ -4,16 +4,30 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import io.undertow.io.Sender;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.DateUtils;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
 import io.undertow.util.Methods;
@@ -21,12 +35,16 @@ import io.undertow.util.Methods;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+
 @ExtendWith(MockitoExtension.class)
 class StaticContentHandlerTest {
 	private StaticContentHandler handler;
@@ -40,6 +58,10 @@ class StaticContentHandlerTest {
 	@Mock
 	private Resource resourceMock;
 
+	@Mock
+	private Sender senderMock;
+
+	private HeaderMap requestHeaders;
 	private HeaderMap responseHeaders;
 
 	@BeforeEach
@@ -48,6 +70,7 @@ class StaticContentHandlerTest {
 		handler = new StaticContentHandler("classpath:ui/public");
 		handler.setResourceLoader(resourceLoaderMock);
 
+		requestHeaders = new HeaderMap();
 		responseHeaders = new HeaderMap();
 	}
 
@@ -100,15 +123,36 @@ class StaticContentHandlerTest {
 	// --- handleRequest() Tests ---
 
 	@Test
-	void testHandleRequest_InIoThread_DispatchesAndReturns() {
+	void testHandleRequest_UncachedInIoThread_DispatchesAndReturns() {
 		when(exchangeMock.isInIoThread()).thenReturn(true);
+		when(exchangeMock.getRequestPath()).thenReturn("/style.css");
 
 		handler.handleRequest(exchangeMock);
 
 		// Assert that the handler dispatches itself to a worker thread and immediately returns
-		// without trying to read paths or resources (which would block the IO thread).
+		// without trying to read resources (which would block the IO thread).
 		verify(exchangeMock).dispatch(handler);
-		verify(exchangeMock, never()).getRequestPath();
+		verify(resourceLoaderMock, never()).getResource(anyString());
+	}
+
+	@Test
+	void testHandleRequest_UncachedInIoThread_WithVirtualExecutor_DispatchesToExecutor() {
+		RouteHandlerExecutor executor = new RouteHandlerExecutor();
+		executor.setMode("virtual");
+		executor.afterPropertiesSet();
+		handler.setExecutor(executor);
+		when(exchangeMock.isInIoThread()).thenReturn(true);
+		when(exchangeMock.getRequestPath()).thenReturn("/style.css");
+
+		try {
+			handler.handleRequest(exchangeMock);
+
+			// Assert that the handler is dispatched to the virtual thread executor instead of the worker pool
+			verify(exchangeMock).dispatch(any(Executor.class), eq(handler));
+			verify(exchangeMock, never()).dispatch(handler);
+		} finally {
+			executor.destroy();
+		}
 	}
 
 	@Test
@@ -170,10 +214,206 @@ class StaticContentHandlerTest {
 		verify(exchangeMock).setStatusCode(500);
 	}
 
+	// --- Asset Cache Tests ---
+
+	@Test
+	void testHandleRequest_WithEnabledCache_ServesSecondRequestFromIoThread() throws Exception {
+		enableImmutableCache();
+		byte[] content = executeSuccessfulFileDeliveryTest("/app.js", "application/javascript", "console.log('cached');");
+		assertEquals(1, handler.getAssetCache().size());
+
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		assertTrue(handler.matches(exchangeMock), "Cached assets must match without resolving the resource again");
+		handler.handleRequest(exchangeMock);
+
+		verify(resourceLoaderMock, times(1)).getResource("classpath:ui/public/app.js");
+		verify(exchangeMock, never()).dispatch(handler);
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock, times(2)).send(body.capture());
+		assertArrayEquals(content, toBytes(body.getValue()));
+	}
+
+	@Test
+	void testHandleRequest_AssetAboveEntrySize_IsStreamedAndNotCached() throws Exception {
+		handler.setCacheMaxEntrySize("16b");
+		enableImmutableCache();
+		String css = "body { color: red; }\n".repeat(10);
+		when(resourceMock.contentLength()).thenReturn((long) css.length());
+
+		executeStreamedFileDeliveryTest("/big.css", "text/css", css);
+
+		verify(exchangeMock, never()).getResponseSender();
+		assertEquals(0, handler.getAssetCache().size(), "Assets above the entry size must not be cached");
+	}
+
+	@Test
+	void testHandleRequest_WithMatchingETag_Returns304() throws Exception {
+		enableImmutableCache();
+		executeSuccessfulFileDeliveryTest("/main.css", "text/css", "body { color: blue; }");
+		String etag = responseHeaders.getFirst(Headers.ETAG);
+		assertTrue(etag.startsWith("\""), "A strong content-hash ETag must be sent");
+
+		requestHeaders.put(Headers.IF_NONE_MATCH, etag);
+		handler.handleRequest(exchangeMock);
+
+		verify(exchangeMock).setStatusCode(304);
+		verify(exchangeMock).endExchange();
+		verify(senderMock, times(1)).send(any(ByteBuffer.class));
+	}
+
+	@Test
+	void testHandleRequest_WithIfModifiedSince_Returns304() throws Exception {
+		enableImmutableCache();
+		when(resourceMock.lastModified()).thenReturn(1_700_000_000_000L);
+		executeSuccessfulFileDeliveryTest("/logo.svg", "image/svg+xml", "<svg/>");
+
+		requestHeaders.put(Headers.IF_MODIFIED_SINCE, DateUtils.toDateString(new Date(1_700_000_000_000L)));
+		handler.handleRequest(exchangeMock);
+
+		verify(exchangeMock).setStatusCode(304);
+	}
+
+	@Test
+	void testMatches_WithEnabledCache_CachesMissingAssets() {
+		enableImmutableCache();
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		when(exchangeMock.getRequestPath()).thenReturn("/missing.js");
+		when(resourceLoaderMock.getResource("classpath:ui/public/missing.js")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(false);
+
+		assertFalse(handler.matches(exchangeMock));
+		assertFalse(handler.matches(exchangeMock));
+
+		verify(resourceLoaderMock, times(1)).getResource("classpath:ui/public/missing.js");
+		assertEquals(0, handler.getAssetCache().size(), "Missing assets must not occupy the asset cache");
+	}
+
+	@Test
+	void testMatches_WithEnabledCache_DoesNotCacheProxiedPaths() {
+		enableImmutableCache();
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		when(exchangeMock.getRequestPath()).thenReturn("/occ/v2/products");
+		when(resourceLoaderMock.getResource("classpath:ui/public/occ/v2/products")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(false);
+
+		assertFalse(handler.matches(exchangeMock));
+		assertFalse(handler.matches(exchangeMock));
+
+		verify(resourceLoaderMock, times(2)).getResource("classpath:ui/public/occ/v2/products");
+		assertEquals(0, handler.getAssetCache().size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testFileChange_InvalidatesCachedAsset(@TempDir Path tempDir) throws Exception {
+		Resource baseResource = mock(Resource.class);
+		when(resourceLoaderMock.getResource("classpath:ui/public")).thenReturn(baseResource);
+		when(baseResource.getFile()).thenReturn(tempDir.toFile());
+
+		FileChangeWatcher watcher = mock(FileChangeWatcher.class);
+		FileChangeWatcher.Subscription subscription = mock(FileChangeWatcher.Subscription.class);
+		when(subscription.getPath()).thenReturn(tempDir);
+		ArgumentCaptor<Consumer<Path>> listener = ArgumentCaptor.forClass(Consumer.class);
+		when(watcher.watchDirectory(any(File.class), listener.capture())).thenReturn(subscription);
+		handler.setFileChangeWatcher(watcher);
+		handler.afterPropertiesSet();
+
+		executeSuccessfulFileDeliveryTest("/css/site.css", "text/css", "a { }");
+		assertEquals(1, handler.getAssetCache().size());
+
+		listener.getValue().accept(tempDir.resolve("css").resolve("site.css"));
+
+		assertEquals(0, handler.getAssetCache().size(), "Changed files must be evicted from the cache");
+	}
+
+	@Test
+	void testAfterPropertiesSet_WithUnwatchedDirectory_DisablesCache(@TempDir Path tempDir) throws Exception {
+		Resource baseResource = mock(Resource.class);
+		when(resourceLoaderMock.getResource("classpath:ui/public")).thenReturn(baseResource);
+		when(baseResource.getFile()).thenReturn(tempDir.toFile());
+		handler.afterPropertiesSet();
+
+		executeSuccessfulFileDeliveryTest("/file.txt", "text/plain", "uncached");
+
+		assertFalse(handler.getAssetCache().isEnabled());
+		assertEquals(0, handler.getAssetCache().size());
+	}
+
+	// --- Compression Tests ---
+
+	@Test
+	void testHandleRequest_AcceptingGzip_ServesCompressedVariantWithOwnETag() throws Exception {
+		enableImmutableCache();
+		String css = "body { color: red; }\n".repeat(100);
+		executeSuccessfulFileDeliveryTest("/big.css", "text/css", css);
+		String identityETag = responseHeaders.getFirst(Headers.ETAG);
+		assertEquals("Accept-Encoding", responseHeaders.getFirst(Headers.VARY));
+
+		requestHeaders.put(Headers.ACCEPT_ENCODING, "gzip, deflate");
+		handler.handleRequest(exchangeMock);
+
+		assertEquals("gzip", responseHeaders.getFirst(Headers.CONTENT_ENCODING));
+		assertFalse(identityETag.equals(responseHeaders.getFirst(Headers.ETAG)), "Compressed variants need their own ETag");
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock, times(2)).send(body.capture());
+		byte[] gzipped = toBytes(body.getValue());
+		assertEquals(String.valueOf(gzipped.length), responseHeaders.getFirst(Headers.CONTENT_LENGTH));
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			assertArrayEquals(css.getBytes(), in.readAllBytes());
+		}
+	}
+
+	@Test
+	void testHandleRequest_WithPrecompressedBrotliSibling_ServesIt() throws Exception {
+		byte[] brotli = { 1, 2, 3 };
+		Resource sibling = mock(Resource.class);
+		when(resourceMock.getFilename()).thenReturn("app.js");
+		when(resourceMock.createRelative("app.js.br")).thenReturn(sibling);
+		when(sibling.exists()).thenReturn(true);
+		when(sibling.isReadable()).thenReturn(true);
+		when(sibling.getInputStream()).thenReturn(new ByteArrayInputStream(brotli));
+		requestHeaders.put(Headers.ACCEPT_ENCODING, "gzip, br");
+
+		Mockito.lenient().when(exchangeMock.isInIoThread()).thenReturn(false);
+		when(exchangeMock.getRequestPath()).thenReturn("/app.js");
+		when(exchangeMock.getRequestHeaders()).thenReturn(requestHeaders);
+		when(resourceLoaderMock.getResource("classpath:ui/public/app.js")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.isReadable()).thenReturn(true);
+		when(exchangeMock.getResponseHeaders()).thenReturn(responseHeaders);
+		when(exchangeMock.getResponseSender()).thenReturn(senderMock);
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream("console.log('br');".getBytes()));
+
+		handler.handleRequest(exchangeMock);
+
+		assertEquals("br", responseHeaders.getFirst(Headers.CONTENT_ENCODING));
+		assertEquals("3", responseHeaders.getFirst(Headers.CONTENT_LENGTH));
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock).send(body.capture());
+		assertArrayEquals(brotli, toBytes(body.getValue()));
+	}
+
+	private void enableImmutableCache() {
+		Resource baseResource = mock(Resource.class);
+		when(resourceLoaderMock.getResource("classpath:ui/public")).thenReturn(baseResource);
+		try {
+			when(baseResource.getFile()).thenThrow(new IOException("Inside JAR"));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		handler.afterPropertiesSet();
+	}
+
+	private static byte[] toBytes(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
 	/**
-	 * Helper method to simulate a successful file download of a specific type.
+	 * Helper method to simulate a file download that is too large for the cache and therefore streamed.
 	 */
-	private void executeSuccessfulFileDeliveryTest(String requestPath, String expectedMimeType, String fileContent) throws Exception {
+	private void executeStreamedFileDeliveryTest(String requestPath, String expectedMimeType, String fileContent) throws Exception {
 		// 1. Setup Request Phase
 		when(exchangeMock.isInIoThread()).thenReturn(false);
 		when(exchangeMock.getRequestPath()).thenReturn(requestPath);
@@ -203,4 +443,42 @@ class StaticContentHandlerTest {
 		assertArrayEquals(contentBytes, outputStream.toByteArray(),
 				"The file content must be perfectly copied to the Undertow output stream");
 	}
+
+	/**
+	 * Helper method to simulate a successful file download of a specific type.
+	 */
+	private byte[] executeSuccessfulFileDeliveryTest(String requestPath, String expectedMimeType, String fileContent) throws Exception {
+		// 1. Setup Request Phase
+		Mockito.lenient().when(exchangeMock.isInIoThread()).thenReturn(false);
+		when(exchangeMock.getRequestPath()).thenReturn(requestPath);
+		Mockito.lenient().when(exchangeMock.getRequestHeaders()).thenReturn(requestHeaders);
+
+		// 2. Setup Resource Loading
+		when(resourceLoaderMock.getResource("classpath:ui/public" + requestPath)).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.isReadable()).thenReturn(true);
+
+		// 3. Setup Response Sender & Headers
+		Mockito.lenient().when(exchangeMock.getResponseHeaders()).thenReturn(responseHeaders);
+		when(exchangeMock.getResponseSender()).thenReturn(senderMock);
+
+		byte[] contentBytes = fileContent.getBytes();
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream(contentBytes));
+
+		// 4. Execution
+		handler.handleRequest(exchangeMock);
+
+		// 5. Assertions
+		verify(exchangeMock).setStatusCode(200);
+		verify(exchangeMock, never()).startBlocking(); // Small assets are sent asynchronously
+
+		assertEquals(expectedMimeType, responseHeaders.getFirst(Headers.CONTENT_TYPE),
+				"MIME type must correctly map the file extension");
+		assertEquals(String.valueOf(contentBytes.length), responseHeaders.getFirst(Headers.CONTENT_LENGTH));
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock).send(body.capture());
+		assertArrayEquals(contentBytes, toBytes(body.getValue()),
+				"The file content must be perfectly sent to the Undertow response sender");
+		return contentBytes;
+	}
 }
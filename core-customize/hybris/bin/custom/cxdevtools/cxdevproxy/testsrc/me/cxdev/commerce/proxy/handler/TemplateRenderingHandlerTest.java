@@ -1,20 +1,36 @@
 package me.cxdev.commerce.proxy.handler;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import de.hybris.platform.servicelayer.config.ConfigurationService;
+import de.hybris.platform.util.config.ConfigIntf;
 
 import io.undertow.io.Sender;
 import io.undertow.server.HttpServerExchange;
@@ -26,6 +42,7 @@ import org.apache.commons.configuration2.Configuration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -34,6 +51,10 @@ import org.springframework.context.MessageSource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 
+import me.cxdev.commerce.proxy.i18n.ClasspathMergingMessageSource;
+import me.cxdev.commerce.proxy.livecycle.ConfigurationChangeTracker;
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+
 @ExtendWith(MockitoExtension.class)
 class TemplateRenderingHandlerTest {
 
@@ -62,6 +83,7 @@ class TemplateRenderingHandlerTest {
 
 	private HeaderMap requestHeaders;
 	private HeaderMap responseHeaders;
+	private final Map<Object, Object> attachments = new HashMap<>();
 
 	@BeforeEach
 	void setUp() {
@@ -120,6 +142,25 @@ class TemplateRenderingHandlerTest {
 		verify(exchangeMock, never()).getRequestPath();
 	}
 
+	@Test
+	void testHandleRequest_InIoThread_WithVirtualExecutor_DispatchesToExecutor() {
+		RouteHandlerExecutor executor = new RouteHandlerExecutor();
+		executor.setMode("virtual");
+		executor.afterPropertiesSet();
+		handler.setExecutor(executor);
+		when(exchangeMock.isInIoThread()).thenReturn(true);
+
+		try {
+			handler.handleRequest(exchangeMock);
+
+			// Assert that the handler is dispatched to the virtual thread executor instead of the worker pool
+			verify(exchangeMock).dispatch(any(Executor.class), eq(handler));
+			verify(exchangeMock, never()).dispatch(handler);
+		} finally {
+			executor.destroy();
+		}
+	}
+
 	@Test
 	void testHandleRequest_ResourceDisappeared_Returns404() {
 		when(exchangeMock.isInIoThread()).thenReturn(false);
@@ -169,10 +210,7 @@ class TemplateRenderingHandlerTest {
 		// Assertions
 		verify(exchangeMock).setStatusCode(200);
 
-		ArgumentCaptor<String> htmlCaptor = ArgumentCaptor.forClass(String.class);
-		verify(senderMock).send(htmlCaptor.capture());
-
-		String renderedHtml = htmlCaptor.getValue();
+		String renderedHtml = captureHtml();
 
 		// Assert Property Resolution
 		assertTrue(renderedHtml.contains("<div>ResolvedPropValue</div>"), "Should resolve known properties");
@@ -183,6 +221,45 @@ class TemplateRenderingHandlerTest {
 		assertTrue(renderedHtml.contains("<p>Default Msg</p>"), "Should use i18n default values if provided");
 	}
 
+	@Test
+	void testHandleRequest_LargePageAcceptingGzip_SendsCompressedBody() throws Exception {
+		String html = "<p>Lorem ipsum dolor sit amet</p>\n".repeat(100);
+		when(exchangeMock.isInIoThread()).thenReturn(false);
+		when(exchangeMock.getRequestPath()).thenReturn("/large.html");
+		when(resourceLoaderMock.getResource("classpath:ui/templates/large.html")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+		requestHeaders.put(Headers.ACCEPT_ENCODING, "gzip");
+
+		handler.handleRequest(exchangeMock);
+
+		assertEquals("gzip", responseHeaders.getFirst(Headers.CONTENT_ENCODING));
+		assertEquals("Accept-Encoding", responseHeaders.getFirst(Headers.VARY));
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock).send(body.capture());
+		byte[] gzipped = new byte[body.getValue().remaining()];
+		body.getValue().get(gzipped);
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			assertEquals(html, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testHandleRequest_LargePageWithoutAcceptEncoding_SendsPlainText() throws Exception {
+		String html = "<p>Lorem ipsum dolor sit amet</p>\n".repeat(100);
+		when(exchangeMock.isInIoThread()).thenReturn(false);
+		when(exchangeMock.getRequestPath()).thenReturn("/large.html");
+		when(resourceLoaderMock.getResource("classpath:ui/templates/large.html")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)));
+
+		handler.handleRequest(exchangeMock);
+
+		assertFalse(responseHeaders.contains(Headers.CONTENT_ENCODING));
+		assertEquals("Accept-Encoding", responseHeaders.getFirst(Headers.VARY));
+		assertEquals(html, captureHtml());
+	}
+
 	@Test
 	void testHandleRequest_OnIoException_Returns500() throws Exception {
 		when(exchangeMock.isInIoThread()).thenReturn(false);
@@ -214,4 +291,131 @@ class TemplateRenderingHandlerTest {
 		// Verify that the MessageSource is called with Locale.ENGLISH as the ultimate fallback
 		verify(messageSourceMock).getMessage(anyString(), isNull(), anyString(), eq(Locale.ENGLISH));
 	}
+
+	@Test
+	void testParseAcceptLanguage_PrefersHighestQualityValue() {
+		assertEquals(Locale.forLanguageTag("de-DE"), TemplateRenderingHandler.parseAcceptLanguage("en;q=0.5, de-DE;q=0.9, fr;q=0"));
+		assertEquals(Locale.FRENCH, TemplateRenderingHandler.parseAcceptLanguage("*, en;q=0, fr;q=0.3"));
+		assertEquals(Locale.ENGLISH, TemplateRenderingHandler.parseAcceptLanguage("de;q=abc"), "Invalid headers fall back to English");
+	}
+
+	// --- Template Cache Tests ---
+
+	@Test
+	void testHandleRequest_WithEnabledCache_ServesSecondRequestFromIoThread() throws Exception {
+		TemplateRenderingHandler cachingHandler = createCachingHandler();
+		renderCachedPage(cachingHandler, "<h1>%{my.property}</h1><p>#{missing.msg:Welcome}</p>");
+		assertEquals("<h1>Value</h1><p>Welcome</p>", captureHtml());
+
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		when(exchangeMock.getAttachment(any())).thenAnswer(invocation -> attachments.get(invocation.getArgument(0)));
+		assertTrue(cachingHandler.matches(exchangeMock));
+		cachingHandler.handleRequest(exchangeMock);
+
+		verify(exchangeMock, never()).dispatch(cachingHandler);
+		verify(resourceMock, times(1)).getInputStream();
+		verify(senderMock, times(2)).send(any(ByteBuffer.class));
+		assertEquals(1, cachingHandler.getRenderCache().getHitCount());
+	}
+
+	@Test
+	void testMatches_WithChangedProperty_RendersAgain() throws Exception {
+		TemplateRenderingHandler cachingHandler = createCachingHandler();
+		renderCachedPage(cachingHandler, "<h1>%{my.property}</h1>");
+
+		when(configurationMock.getString("my.property", null)).thenReturn("Changed");
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		assertTrue(cachingHandler.matches(exchangeMock));
+		verify(exchangeMock, never()).putAttachment(any(), any());
+
+		when(exchangeMock.isInIoThread()).thenReturn(false);
+		cachingHandler.handleRequest(exchangeMock);
+
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock, times(2)).send(body.capture());
+		assertEquals("<h1>Changed</h1>", StandardCharsets.UTF_8.decode(body.getValue()).toString());
+		verify(resourceMock, times(1)).getInputStream();
+	}
+
+	@Test
+	void testMatches_WithTrackedConfiguration_ComparesVersionOnly() throws Exception {
+		ConfigurationChangeTracker tracker = new ConfigurationChangeTracker();
+		tracker.setConfig(mock(ConfigIntf.class));
+		tracker.afterPropertiesSet();
+		TemplateRenderingHandler cachingHandler = createCachingHandler();
+		cachingHandler.setConfigurationChangeTracker(tracker);
+		renderCachedPage(cachingHandler, "<h1>%{my.property}</h1>");
+
+		clearInvocations(configurationServiceMock, configurationMock, exchangeMock);
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		assertTrue(cachingHandler.matches(exchangeMock));
+		verify(exchangeMock).putAttachment(any(), any());
+		verifyNoInteractions(configurationServiceMock, configurationMock);
+
+		tracker.configChanged("my.property", "Changed");
+		clearInvocations(exchangeMock);
+		assertTrue(cachingHandler.matches(exchangeMock));
+		verify(exchangeMock, never()).putAttachment(any(), any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testFileChange_EvictsParsedTemplate(@TempDir Path tempDir) throws Exception {
+		Resource baseResource = mock(Resource.class);
+		when(resourceLoaderMock.getResource("classpath:ui/templates")).thenReturn(baseResource);
+		when(baseResource.getFile()).thenReturn(tempDir.toFile());
+		FileChangeWatcher watcher = mock(FileChangeWatcher.class);
+		FileChangeWatcher.Subscription subscription = mock(FileChangeWatcher.Subscription.class);
+		when(subscription.getPath()).thenReturn(tempDir);
+		ArgumentCaptor<Consumer<Path>> listener = ArgumentCaptor.forClass(Consumer.class);
+		when(watcher.watchDirectory(any(File.class), listener.capture())).thenReturn(subscription);
+
+		TemplateRenderingHandler cachingHandler = new TemplateRenderingHandler("classpath:ui/templates", configurationServiceMock,
+				new ClasspathMergingMessageSource());
+		cachingHandler.setResourceLoader(resourceLoaderMock);
+		cachingHandler.setFileChangeWatcher(watcher);
+		cachingHandler.afterPropertiesSet();
+		renderCachedPage(cachingHandler, "<h1>%{my.property}</h1>");
+		assertEquals(1, cachingHandler.getRenderCache().size());
+
+		listener.getValue().accept(tempDir.resolve("index.html"));
+
+		assertEquals(0, cachingHandler.getRenderCache().size(), "Changed templates must be evicted");
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		when(resourceMock.isReadable()).thenReturn(true);
+		assertTrue(cachingHandler.matches(exchangeMock));
+		verify(resourceLoaderMock, times(2)).getResource("classpath:ui/templates/index.html");
+	}
+
+	private TemplateRenderingHandler createCachingHandler() throws IOException {
+		Resource baseResource = mock(Resource.class);
+		when(resourceLoaderMock.getResource("classpath:ui/templates")).thenReturn(baseResource);
+		when(baseResource.getFile()).thenThrow(new IOException("Inside JAR"));
+
+		// The merging message source reports changes of its bundles, which enables the render cache
+		TemplateRenderingHandler cachingHandler = new TemplateRenderingHandler("classpath:ui/templates", configurationServiceMock,
+				new ClasspathMergingMessageSource());
+		cachingHandler.setResourceLoader(resourceLoaderMock);
+		cachingHandler.afterPropertiesSet();
+		return cachingHandler;
+	}
+
+	private void renderCachedPage(TemplateRenderingHandler cachingHandler, String rawHtml) throws IOException {
+		when(exchangeMock.isInIoThread()).thenReturn(false);
+		when(exchangeMock.getRequestPath()).thenReturn("/index.html");
+		when(resourceLoaderMock.getResource("classpath:ui/templates/index.html")).thenReturn(resourceMock);
+		when(resourceMock.exists()).thenReturn(true);
+		when(resourceMock.getInputStream()).thenReturn(new ByteArrayInputStream(rawHtml.getBytes(StandardCharsets.UTF_8)));
+		Mockito.lenient().when(configurationMock.getString("my.property", null)).thenReturn("Value");
+		Mockito.lenient().doAnswer(invocation -> attachments.put(invocation.getArgument(0), invocation.getArgument(1)))
+				.when(exchangeMock).putAttachment(any(), any());
+
+		cachingHandler.handleRequest(exchangeMock);
+	}
+
+	private String captureHtml() {
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(senderMock).send(body.capture());
+		return StandardCharsets.UTF_8.decode(body.getValue()).toString();
+	}
 }
@@ -1,9 +1,14 @@
 package me.cxdev.commerce.proxy.i18n;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
@@ -12,16 +17,20 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
+import me.cxdev.commerce.proxy.livecycle.FileChangeWatcher;
+
 @ExtendWith(MockitoExtension.class)
 class ClasspathMergingMessageSourceTest {
 	private ClasspathMergingMessageSource messageSource;
@@ -86,6 +95,12 @@ class ClasspathMergingMessageSourceTest {
 
 			fileContent[0] = "dynamic.key=updatedValue";
 			when(mockFile.lastModified()).thenReturn(2000L);
+			assertEquals("initialValue", messageSource.getMessage("dynamic.key", null, "default", Locale.ENGLISH),
+					"Lookups must not check the filesystem");
+
+			long versionBeforeChange = messageSource.getVersion();
+			messageSource.checkForChanges();
+			assertEquals(versionBeforeChange + 1, messageSource.getVersion(), "Changes must be reported to cached renderings");
 
 			assertEquals("updatedValue", messageSource.getMessage("dynamic.key", null, "default", Locale.ENGLISH),
 					"MessageSource should have detected the file change and reloaded properties");
@@ -93,11 +108,13 @@ class ClasspathMergingMessageSourceTest {
 	}
 
 	@Test
-	void testCacheDebouncingInterval() throws Exception {
-		messageSource.setCacheRefreshIntervalMillis("50ms");
+	void testBackgroundRefresher_DetectsModifiedFile() throws Exception {
+		messageSource.setCacheRefreshIntervalMillis("200ms");
 
 		File mockFile = mock(File.class);
-		when(mockFile.lastModified()).thenReturn(1000L);
+		// The refresher thread reads the modification time, so it is not re-stubbed while the test runs
+		AtomicLong lastModified = new AtomicLong(1000L);
+		when(mockFile.lastModified()).thenAnswer(inv -> lastModified.get());
 		String[] fileContent = new String[] { "debounce.key=oldValue" };
 
 		Resource res = createMockResource(fileContent[0], mockFile);
@@ -109,16 +126,59 @@ class ClasspathMergingMessageSourceTest {
 					when(mockResolver.getResources(anyString())).thenReturn(new Resource[] { res });
 				})) {
 
+			messageSource.afterPropertiesSet();
 			assertEquals("oldValue", messageSource.getMessage("debounce.key", null, "default", Locale.ENGLISH));
 
 			fileContent[0] = "debounce.key=newValue";
-			when(mockFile.lastModified()).thenReturn(2000L);
+			lastModified.set(2000L);
 
 			assertEquals("oldValue", messageSource.getMessage("debounce.key", null, "default", Locale.ENGLISH));
 
-			Thread.sleep(60);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (messageSource.getVersion() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
 
 			assertEquals("newValue", messageSource.getMessage("debounce.key", null, "default", Locale.ENGLISH));
+		} finally {
+			messageSource.destroy();
+		}
+	}
+
+	@Test
+	void testHotReloadingOnFileChangeNotification() throws Exception {
+		FileChangeWatcher watcher = mock(FileChangeWatcher.class);
+		when(watcher.watchFile(any(File.class), any(Runnable.class))).thenReturn(mock(FileChangeWatcher.Subscription.class));
+		messageSource.setFileChangeWatcher(watcher);
+
+		File mockFile = mock(File.class);
+		String[] fileContent = new String[] { "watched.key=initialValue" };
+		Resource res = createMockResource(fileContent[0], mockFile);
+		when(res.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream(fileContent[0].getBytes(StandardCharsets.ISO_8859_1)));
+
+		try (MockedConstruction<PathMatchingResourcePatternResolver> mocked = Mockito.mockConstruction(
+				PathMatchingResourcePatternResolver.class,
+				(mockResolver, context) -> {
+					when(mockResolver.getResources(anyString())).thenReturn(new Resource[] { res });
+				})) {
+
+			assertEquals("initialValue", messageSource.getMessage("watched.key", null, "default", Locale.ENGLISH));
+
+			ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+			verify(watcher).watchFile(eq(mockFile), listener.capture());
+			verify(mockFile, never()).lastModified();
+
+			fileContent[0] = "watched.key=updatedValue";
+			assertEquals("initialValue", messageSource.getMessage("watched.key", null, "default", Locale.ENGLISH),
+					"Without a notification, the cached bundle must be used");
+
+			long versionBeforeChange = messageSource.getVersion();
+			listener.getValue().run();
+			assertEquals(versionBeforeChange + 1, messageSource.getVersion(), "Changes must be reported to cached renderings");
+
+			assertEquals("updatedValue", messageSource.getMessage("watched.key", null, "default", Locale.ENGLISH),
+					"MessageSource should have reloaded the properties after the change notification");
+			verify(watcher, times(1)).watchFile(any(File.class), any(Runnable.class));
 		}
 	}
 
@@ -166,4 +226,56 @@ class ClasspathMergingMessageSourceTest {
 			assertNull(nullFormat, "MessageFormat should be null for missing keys");
 		}
 	}
+
+	@Test
+	void testFallbackChain_MoreSpecificLocaleOverridesLanguage() throws Exception {
+		Resource base = createMockResource("key.base=base\nkey.shared=base", null);
+		Resource german = createMockResource("key.shared=de\nkey.language=de", null);
+		Resource swiss = createMockResource("key.shared=de_CH", null);
+
+		try (MockedConstruction<PathMatchingResourcePatternResolver> mocked = Mockito.mockConstruction(
+				PathMatchingResourcePatternResolver.class,
+				(mockResolver, context) -> {
+					lenient().when(mockResolver.getResources(anyString())).thenReturn(new Resource[0]);
+					lenient().when(mockResolver.getResources("classpath*:cxdevproxy/i18n/messages.properties")).thenReturn(new Resource[] { base });
+					lenient().when(mockResolver.getResources("classpath*:cxdevproxy/i18n/messages_de.properties")).thenReturn(new Resource[] { german });
+					lenient().when(mockResolver.getResources("classpath*:cxdevproxy/i18n/messages_de_CH.properties")).thenReturn(new Resource[] { swiss });
+				})) {
+
+			Locale swissGerman = Locale.of("de", "CH");
+			assertEquals("de_CH", messageSource.getMessage("key.shared", null, "default", swissGerman));
+			assertEquals("de", messageSource.getMessage("key.language", null, "default", swissGerman));
+			assertEquals("base", messageSource.getMessage("key.base", null, "default", swissGerman));
+
+			assertEquals("de", messageSource.getMessage("key.shared", null, "default", Locale.GERMAN));
+			assertEquals("base", messageSource.getMessage("key.shared", null, "default", Locale.FRENCH));
+		}
+	}
+
+	@Test
+	void testResolveCode_CachesMessageFormatUntilFilesChange() throws Exception {
+		FileChangeWatcher watcher = mock(FileChangeWatcher.class);
+		when(watcher.watchFile(any(File.class), any(Runnable.class))).thenReturn(mock(FileChangeWatcher.Subscription.class));
+		messageSource.setFileChangeWatcher(watcher);
+
+		File mockFile = mock(File.class);
+		Resource res = createMockResource("greeting.param=Hello, {0}!", mockFile);
+
+		try (MockedConstruction<PathMatchingResourcePatternResolver> mocked = Mockito.mockConstruction(
+				PathMatchingResourcePatternResolver.class,
+				(mockResolver, context) -> {
+					when(mockResolver.getResources(anyString())).thenReturn(new Resource[] { res });
+				})) {
+
+			MessageFormat first = messageSource.resolveCode("greeting.param", Locale.ENGLISH);
+			assertSame(first, messageSource.resolveCode("greeting.param", Locale.ENGLISH), "Message formats must be cached");
+			assertNotSame(first, messageSource.resolveCode("greeting.param", Locale.GERMAN), "Message formats are cached per locale");
+
+			ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+			verify(watcher).watchFile(eq(mockFile), listener.capture());
+			listener.getValue().run();
+
+			assertNotSame(first, messageSource.resolveCode("greeting.param", Locale.ENGLISH), "Changed files must evict the cached formats");
+		}
+	}
 }
@@ -0,0 +1,180 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.io.Sender;
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.XnioIoThread;
+
+class ConcurrencyLimitInterceptorTest {
+
+	private static HttpServerExchange createExchange() {
+		HttpServerExchange exchange = mock(HttpServerExchange.class);
+		lenient().when(exchange.getRequestPath()).thenReturn("/occ/v2/electronics/users/current/carts");
+		lenient().when(exchange.getResponseHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getRequestHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getResponseSender()).thenReturn(mock(Sender.class));
+		lenient().when(exchange.getIoThread()).thenReturn(mock(XnioIoThread.class));
+		return exchange;
+	}
+
+	/**
+	 * Completes the exchange by calling its registered completion listener.
+	 */
+	private static void complete(HttpServerExchange exchange) {
+		ArgumentCaptor<ExchangeCompletionListener> listener = ArgumentCaptor.forClass(ExchangeCompletionListener.class);
+		verify(exchange).addExchangeCompleteListener(listener.capture());
+		listener.getValue().exchangeEvent(exchange, mock(ExchangeCompletionListener.NextListener.class));
+	}
+
+	@Test
+	void testApply_WithinLimit_PassesRequestsOn() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(2);
+		HttpServerExchange first = createExchange();
+		HttpServerExchange second = createExchange();
+
+		limit.apply(first);
+		limit.apply(second);
+
+		assertEquals(2, limit.getActiveCount());
+		verify(first, never()).dispatch(any(Executor.class), any(Runnable.class));
+		verify(second, never()).setStatusCode(503);
+	}
+
+	@Test
+	void testApply_LimitExceededWithoutQueue_RejectsWith503() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1);
+		limit.apply(createExchange());
+		HttpServerExchange rejected = createExchange();
+
+		limit.apply(rejected);
+
+		verify(rejected).setStatusCode(503);
+		verify(rejected.getResponseSender()).send(anyString());
+		verify(rejected).endExchange();
+		assertEquals("1", rejected.getResponseHeaders().getFirst(Headers.RETRY_AFTER));
+		assertEquals(1, limit.getRejectedCount());
+	}
+
+	@Test
+	void testApply_LimitExceeded_QueuesRequestUntilSlotIsReleased() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1, 10);
+		HttpServerExchange running = createExchange();
+		HttpServerExchange waiting = createExchange();
+		limit.apply(running);
+
+		limit.apply(waiting);
+
+		// The waiting request is suspended without blocking a thread
+		verify(waiting).dispatch(any(Executor.class), any(Runnable.class));
+		assertEquals(1, limit.getQueuedCount());
+
+		complete(running);
+
+		// The slot is handed over, the chain of the waiting request is resumed on its IO thread
+		verify(waiting.getIoThread()).execute(any(Runnable.class));
+		assertEquals(0, limit.getQueuedCount());
+		assertEquals(1, limit.getActiveCount());
+
+		complete(waiting);
+		assertEquals(0, limit.getActiveCount());
+	}
+
+	@Test
+	void testApply_QueueFull_RejectsRequest() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1, 1);
+		limit.apply(createExchange());
+		limit.apply(createExchange());
+		HttpServerExchange rejected = createExchange();
+
+		limit.apply(rejected);
+
+		verify(rejected).setStatusCode(503);
+		assertEquals(1, limit.getQueuedCount());
+	}
+
+	@Test
+	void testApply_QueuedRequestAborted_LeavesQueueWithoutTakingSlot() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1, 10);
+		HttpServerExchange running = createExchange();
+		HttpServerExchange aborted = createExchange();
+		limit.apply(running);
+		limit.apply(aborted);
+
+		complete(aborted);
+		assertEquals(0, limit.getQueuedCount());
+
+		complete(running);
+		verify(aborted.getIoThread(), never()).execute(any(Runnable.class));
+		assertEquals(0, limit.getActiveCount());
+	}
+
+	@Test
+	void testRelease_SkipsCompletedRequestsAndHandsSlotToNext() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1, 10);
+		HttpServerExchange running = createExchange();
+		HttpServerExchange completed = createExchange();
+		HttpServerExchange waiting = createExchange();
+		limit.apply(running);
+		limit.apply(completed);
+		limit.apply(waiting);
+		// Completed, but its completion listener has not been called yet
+		when(completed.isComplete()).thenReturn(true);
+
+		complete(running);
+
+		verify(completed.getIoThread(), never()).execute(any(Runnable.class));
+		verify(waiting.getIoThread()).execute(any(Runnable.class));
+		assertEquals(1, limit.getActiveCount());
+		assertEquals(0, limit.getQueuedCount());
+	}
+
+	@Test
+	void testApply_QueuedRequestExceedingMaxWait_IsRejected() {
+		ConcurrencyLimitInterceptor limit = Interceptors.concurrencyLimit(1, 10, "5s");
+		HttpServerExchange running = createExchange();
+		HttpServerExchange waiting = createExchange();
+		when(waiting.dispatch(any(Executor.class), any(Runnable.class))).thenAnswer(invocation -> {
+			invocation.<Runnable> getArgument(1).run();
+			return waiting;
+		});
+		limit.apply(running);
+		limit.apply(waiting);
+
+		ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+		verify(waiting.getIoThread()).executeAfter(timeout.capture(), eq(5000L), eq(TimeUnit.MILLISECONDS));
+		timeout.getValue().run();
+
+		verify(waiting).setStatusCode(503);
+		assertEquals(0, limit.getQueuedCount());
+		assertEquals(1, limit.getRejectedCount());
+
+		// The slot of the running request is freed, not handed over to the rejected request
+		complete(waiting);
+		complete(running);
+		assertEquals(0, limit.getActiveCount());
+	}
+
+	@Test
+	void testConstructor_NonPositiveLimit_IsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> Interceptors.concurrencyLimit(0));
+	}
+}
@@ -0,0 +1,37 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.ServerConnection;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionResetInterceptorTest {
+	@Mock
+	private HttpServerExchange exchangeMock;
+
+	@Mock
+	private ServerConnection connectionMock;
+
+	@Test
+	void testApply_ClosesConnectionWithoutResponse() throws Exception {
+		when(exchangeMock.getConnection()).thenReturn(connectionMock);
+
+		Interceptors.connectionReset().apply(exchangeMock);
+
+		InOrder order = inOrder(exchangeMock, connectionMock);
+		order.verify(exchangeMock).setPersistent(false);
+		order.verify(connectionMock).close();
+		order.verify(exchangeMock).endExchange();
+		verify(exchangeMock, never()).getResponseSender();
+	}
+}
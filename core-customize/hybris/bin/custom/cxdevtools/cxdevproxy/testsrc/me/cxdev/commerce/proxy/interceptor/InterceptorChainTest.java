@@ -0,0 +1,244 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.Methods;
+import io.undertow.util.SameThreadExecutor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.cxdev.commerce.proxy.interceptor.condition.Conditions;
+import me.cxdev.commerce.proxy.metrics.ProxyMetrics;
+
+@ExtendWith(MockitoExtension.class)
+class InterceptorChainTest {
+	@Mock
+	private HttpServerExchange exchangeMock;
+
+	@Mock
+	private HttpHandler nextMock;
+
+	@Mock
+	private ProxyExchangeInterceptorCondition condition;
+
+	@Mock
+	private ProxyExchangeInterceptor first;
+
+	@Mock
+	private ProxyExchangeInterceptor second;
+
+	@Mock
+	private ProxyExchangeInterceptor third;
+
+	@Test
+	void testCompile_WithNullOrEmptyList_ReturnsEmptyChain() throws Exception {
+		assertSame(InterceptorChain.empty(), InterceptorChain.compile(null));
+		assertSame(InterceptorChain.empty(), InterceptorChain.compile(List.of()));
+
+		InterceptorChain.empty().execute(exchangeMock, nextMock);
+		verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testExecute_RunsInterceptorsInOrderAndCallsNext() throws Exception {
+		InterceptorChain chain = InterceptorChain.compile(List.of(first, second));
+
+		chain.execute(exchangeMock, nextMock);
+
+		InOrder order = inOrder(first, second, nextMock);
+		order.verify(first).apply(exchangeMock);
+		order.verify(second).apply(exchangeMock);
+		order.verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testExecute_StopsWhenResponseIsStarted() throws Exception {
+		when(exchangeMock.isResponseStarted()).thenReturn(true);
+		InterceptorChain chain = InterceptorChain.compile(List.of(first, second));
+
+		chain.execute(exchangeMock, nextMock);
+
+		verify(first).apply(exchangeMock);
+		verify(second, never()).apply(exchangeMock);
+		verify(nextMock, never()).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testCompile_FlattensConditionalInterceptors() throws Exception {
+		ProxyExchangeInterceptor conditional = Interceptors.interceptor()
+				.constrainedBy(condition)
+				.perform(second, third);
+		InterceptorChain chain = InterceptorChain.compile(Arrays.asList(first, conditional, null));
+
+		assertEquals(3, chain.getInterceptorCount(), "Delegates of conditional interceptors must be unrolled");
+		assertEquals(4, chain.getStepCount(), "The condition must be compiled into a single guard step");
+	}
+
+	@Test
+	void testExecute_SkipsGuardedDelegatesIfConditionFails() throws Exception {
+		when(condition.matches(exchangeMock)).thenReturn(false);
+		ProxyExchangeInterceptor conditional = Interceptors.interceptor()
+				.constrainedBy(condition)
+				.perform(first, second);
+		InterceptorChain chain = InterceptorChain.compile(List.of(conditional, third));
+
+		chain.execute(exchangeMock, nextMock);
+
+		verify(first, never()).apply(exchangeMock);
+		verify(second, never()).apply(exchangeMock);
+		verify(third).apply(exchangeMock);
+		verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testExecute_RunsGuardedDelegatesIfConditionMatches() throws Exception {
+		when(condition.matches(exchangeMock)).thenReturn(true);
+		ProxyExchangeInterceptor conditional = Interceptors.interceptor()
+				.constrainedBy(condition)
+				.perform(first, second);
+		InterceptorChain chain = InterceptorChain.compile(List.of(conditional, third));
+
+		chain.execute(exchangeMock, nextMock);
+
+		InOrder order = inOrder(first, second, third);
+		order.verify(first).apply(exchangeMock);
+		order.verify(second).apply(exchangeMock);
+		order.verify(third).apply(exchangeMock);
+	}
+
+	@Test
+	void testExecute_WithNestedConditionalInterceptors() throws Exception {
+		ProxyExchangeInterceptorCondition innerCondition = mock(ProxyExchangeInterceptorCondition.class);
+		when(condition.matches(exchangeMock)).thenReturn(true);
+		when(innerCondition.matches(exchangeMock)).thenReturn(false);
+
+		ProxyExchangeInterceptor inner = Interceptors.interceptor()
+				.constrainedBy(innerCondition)
+				.perform(second);
+		ProxyExchangeInterceptor outer = Interceptors.interceptor()
+				.constrainedBy(condition)
+				.perform(first, inner, third);
+		InterceptorChain chain = InterceptorChain.compile(List.of(outer));
+
+		chain.execute(exchangeMock, nextMock);
+
+		verify(first).apply(exchangeMock);
+		verify(second, never()).apply(exchangeMock);
+		verify(third).apply(exchangeMock);
+		verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testCompile_DropsConditionalInterceptorsWithoutConditionsOrDelegates() {
+		ProxyExchangeInterceptor withoutConditions = Interceptors.interceptor().perform(first);
+		ProxyExchangeInterceptor withoutDelegates = Interceptors.interceptor().constrainedBy(condition).perform();
+
+		InterceptorChain chain = InterceptorChain.compile(List.of(withoutConditions, withoutDelegates));
+
+		assertEquals(0, chain.getStepCount());
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void testExecute_SuspendsOnDispatchAndResumesRemainingSteps() throws Exception {
+		AtomicReference<Object> continuation = new AtomicReference<>();
+		doAnswer(inv -> {
+			continuation.set(inv.getArgument(1));
+			return null;
+		}).when(exchangeMock).putAttachment(any(AttachmentKey.class), any());
+		when(exchangeMock.removeAttachment(any(AttachmentKey.class))).thenAnswer(inv -> continuation.getAndSet(null));
+		when(exchangeMock.isDispatched()).thenReturn(true, false);
+
+		InterceptorChain chain = InterceptorChain.compile(List.of(first, second));
+		chain.execute(exchangeMock, nextMock);
+
+		verify(first).apply(exchangeMock);
+		verify(second, never()).apply(exchangeMock);
+		verify(nextMock, never()).handleRequest(exchangeMock);
+		assertNotNull(continuation.get(), "The chain must remember where to continue");
+
+		AtomicReference<HttpHandler> resumedHandler = new AtomicReference<>();
+		doAnswer(inv -> {
+			resumedHandler.set(inv.getArgument(1));
+			return exchangeMock;
+		}).when(exchangeMock).dispatch(eq(SameThreadExecutor.INSTANCE), any(HttpHandler.class));
+
+		InterceptorChain.resume(exchangeMock);
+		resumedHandler.get().handleRequest(exchangeMock);
+
+		InOrder order = inOrder(first, second, nextMock);
+		order.verify(first).apply(exchangeMock);
+		order.verify(second).apply(exchangeMock);
+		order.verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testCompile_WithMetrics_RecordsExecutionTimePerStep() throws Exception {
+		ProxyMetrics metrics = new ProxyMetrics();
+		ProxyExchangeInterceptor lambda = exchange -> {
+		};
+		when(condition.matches(exchangeMock)).thenReturn(false);
+		ProxyExchangeInterceptor conditional = Interceptors.interceptor()
+				.constrainedBy(condition)
+				.perform(first);
+		InterceptorChain chain = InterceptorChain.compile(List.of(lambda, conditional), "frontend", metrics);
+
+		chain.execute(exchangeMock, nextMock);
+		chain.execute(exchangeMock, nextMock);
+
+		assertEquals(2, metrics.interceptorTimer("frontend", "000 InterceptorChainTest").getCount());
+		verify(first, never()).apply(exchangeMock);
+		verify(nextMock, times(2)).handleRequest(exchangeMock);
+		assertTrue(metrics.toJson().contains("\"step\":\"001 if "), "Guards must be timed as separate steps");
+	}
+
+	@Test
+	void testExecute_SkipsGuardsThatCannotMatchMethodOrPath() throws Exception {
+		when(exchangeMock.getRequestMethod()).thenReturn(Methods.GET);
+		when(exchangeMock.getRequestPath()).thenReturn("/occ/v2/electronics/products/1");
+		List<ProxyExchangeInterceptor> interceptors = List.of(
+				Interceptors.interceptor().constrainedBy(Conditions.pathStartsWith("/backoffice"), condition).perform(first),
+				Interceptors.interceptor().constrainedBy(Conditions.isMethod("POST"), condition).perform(second),
+				Interceptors.interceptor().constrainedBy(Conditions.pathStartsWith("/occ"), condition).perform(third));
+		when(condition.matches(exchangeMock)).thenReturn(true);
+
+		InterceptorChain.compile(interceptors).execute(exchangeMock, nextMock);
+
+		// The mocked condition is only evaluated for the one guard that can match
+		verify(condition, times(1)).matches(exchangeMock);
+		verify(first, never()).apply(exchangeMock);
+		verify(second, never()).apply(exchangeMock);
+		verify(third).apply(exchangeMock);
+		verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testResume_WithoutSuspendedChain_DoesNothing() {
+		InterceptorChain.resume(exchangeMock);
+
+		verify(exchangeMock, never()).dispatch(any(), any(HttpHandler.class));
+	}
+}
@@ -1,15 +1,22 @@
 package me.cxdev.commerce.proxy.interceptor;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
+import io.undertow.conduits.RateLimitingStreamSinkConduit;
+import io.undertow.io.Sender;
+import io.undertow.server.ConduitWrapper;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
 import io.undertow.util.HttpString;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.xnio.conduits.StreamSinkConduit;
 
 import jakarta.ws.rs.HttpMethod;
 
@@ -167,4 +174,47 @@ class InterceptorsTest {
 		verify(cond2, never()).matches(exchangeMock); // Stream.anyMatch short-circuits!
 		verify(delegate1).apply(exchangeMock);
 	}
+
+	// --- 5. Fault Injection ---
+
+	@Test
+	void testWithChance_AppliesDelegatesToMatchingShareOnly() throws Exception {
+		Interceptors.withChance(1.0, delegate1, delegate2).apply(exchangeMock);
+		Interceptors.withChance(0.0, delegate1, delegate2).apply(exchangeMock);
+
+		verify(delegate1, times(1)).apply(exchangeMock);
+		verify(delegate2, times(1)).apply(exchangeMock);
+	}
+
+	@Test
+	void testFailRate_AlwaysFailing_SendsErrorResponse() throws Exception {
+		HeaderMap responseHeaders = new HeaderMap();
+		Sender senderMock = mock(Sender.class);
+		when(exchangeMock.getResponseHeaders()).thenReturn(responseHeaders);
+		when(exchangeMock.getResponseSender()).thenReturn(senderMock);
+
+		Interceptors.failRate(1.0, 503).apply(exchangeMock);
+
+		verify(exchangeMock).setStatusCode(503);
+		verify(senderMock).send(contains("InjectedFaultError"));
+		verify(exchangeMock).endExchange();
+	}
+
+	@Test
+	void testFailRate_NeverFailing_PassesRequestOn() throws Exception {
+		Interceptors.failRate(0.0, 500).apply(exchangeMock);
+
+		verify(exchangeMock, never()).setStatusCode(anyInt());
+		verify(exchangeMock, never()).endExchange();
+	}
+
+	@Test
+	void testSlowDrip_WrapsResponseInRateLimitingConduit() throws Exception {
+		Interceptors.slowDrip(16, "1s").apply(exchangeMock);
+
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+		verify(exchangeMock).addResponseWrapper(wrapper.capture());
+		StreamSinkConduit conduit = wrapper.getValue().wrap(() -> mock(StreamSinkConduit.class), exchangeMock);
+		assertTrue(conduit instanceof RateLimitingStreamSinkConduit);
+	}
 }
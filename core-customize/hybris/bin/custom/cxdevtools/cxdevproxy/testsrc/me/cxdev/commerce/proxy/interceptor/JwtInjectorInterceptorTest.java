@@ -7,6 +7,8 @@ import static org.mockito.Mockito.*;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.Cookie;
@@ -17,10 +19,12 @@ import io.undertow.util.Headers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.xnio.XnioIoThread;
 
 import me.cxdev.commerce.jwt.service.CxJwtTokenService;
 
@@ -60,11 +64,12 @@ class JwtInjectorInterceptorTest {
 		requestCookies.add(new CookieImpl("cxdevproxy_user_type", "customer"));
 
 		// 2. Setup: TokenService liefert ein valides Token
-		when(jwtTokenServiceMock.getOrGenerateToken("customer", "customer@cxdev.me"))
-				.thenReturn("mocked.jwt.token");
+		when(jwtTokenServiceMock.getOrGenerateTokenAsync("customer", "customer@cxdev.me"))
+				.thenReturn(CompletableFuture.completedFuture("mocked.jwt.token"));
 
 		// 3. Ausführung
 		interceptor.apply(exchangeMock);
+		verify(exchangeMock, never()).dispatch(any(Executor.class), any(Runnable.class));
 
 		// 4. Assert: Der Header muss korrekt mit "Bearer " Präfix gesetzt sein
 		assertEquals("Bearer mocked.jwt.token", requestHeaders.getFirst(Headers.AUTHORIZATION),
@@ -79,7 +84,7 @@ class JwtInjectorInterceptorTest {
 		interceptor.apply(exchangeMock);
 
 		// TokenService darf nicht aufgerufen werden
-		verify(jwtTokenServiceMock, never()).getOrGenerateToken(anyString(), anyString());
+		verify(jwtTokenServiceMock, never()).getOrGenerateTokenAsync(anyString(), anyString());
 
 		// Kein Header darf gesetzt werden
 		assertFalse(requestHeaders.contains(Headers.AUTHORIZATION),
@@ -94,7 +99,7 @@ class JwtInjectorInterceptorTest {
 		interceptor.apply(exchangeMock);
 
 		// TokenService darf nicht aufgerufen werden
-		verify(jwtTokenServiceMock, never()).getOrGenerateToken(anyString(), anyString());
+		verify(jwtTokenServiceMock, never()).getOrGenerateTokenAsync(anyString(), anyString());
 
 		// Kein Header darf gesetzt werden
 		assertFalse(requestHeaders.contains(Headers.AUTHORIZATION),
@@ -108,7 +113,7 @@ class JwtInjectorInterceptorTest {
 		requestCookies.add(new CookieImpl("cxdevproxy_user_type", "customer"));
 
 		// TokenService schlägt fehl / findet kein Template und gibt null zurück
-		when(jwtTokenServiceMock.getOrGenerateToken("customer", "invalid@cxdev.me")).thenReturn(null);
+		when(jwtTokenServiceMock.getOrGenerateTokenAsync("customer", "invalid@cxdev.me")).thenReturn(CompletableFuture.completedFuture(null));
 
 		interceptor.apply(exchangeMock);
 
@@ -116,4 +121,28 @@ class JwtInjectorInterceptorTest {
 		assertFalse(requestHeaders.contains(Headers.AUTHORIZATION),
 				"Authorization header should not be set if generated token is null");
 	}
+
+	@Test
+	void testApply_TokenNotSignedYet_SuspendsChainUntilSigned() throws Exception {
+		requestCookies.add(new CookieImpl("cxdevproxy_user_id", "customer@cxdev.me"));
+		requestCookies.add(new CookieImpl("cxdevproxy_user_type", "customer"));
+		CompletableFuture<String> signing = new CompletableFuture<>();
+		when(jwtTokenServiceMock.getOrGenerateTokenAsync("customer", "customer@cxdev.me")).thenReturn(signing);
+		XnioIoThread ioThread = mock(XnioIoThread.class);
+		when(exchangeMock.getIoThread()).thenReturn(ioThread);
+
+		interceptor.apply(exchangeMock);
+
+		// The IO thread is released, nothing is injected before the token is available
+		ArgumentCaptor<Runnable> suspended = ArgumentCaptor.forClass(Runnable.class);
+		verify(exchangeMock).dispatch(any(Executor.class), suspended.capture());
+		suspended.getValue().run();
+		assertFalse(requestHeaders.contains(Headers.AUTHORIZATION));
+
+		signing.complete("mocked.jwt.token");
+		ArgumentCaptor<Runnable> resumed = ArgumentCaptor.forClass(Runnable.class);
+		verify(ioThread).execute(resumed.capture());
+		resumed.getValue().run();
+		assertEquals("Bearer mocked.jwt.token", requestHeaders.getFirst(Headers.AUTHORIZATION));
+	}
 }
@@ -0,0 +1,231 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+import io.undertow.io.Sender;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.XnioIoThread;
+import org.xnio.conduits.StreamSinkConduit;
+
+class RequestCoalescingInterceptorTest {
+	private static final String URI = "/occ/v2/electronics/cms/pages";
+
+	private final RequestCoalescingInterceptor interceptor = Interceptors.coalesce();
+
+	private static HttpServerExchange createExchange(String authorization) {
+		HttpServerExchange exchange = mock(HttpServerExchange.class);
+		XnioIoThread ioThread = mock(XnioIoThread.class);
+		lenient().doAnswer(invocation -> {
+			invocation.<Runnable> getArgument(0).run();
+			return null;
+		}).when(ioThread).execute(any(Runnable.class));
+
+		HeaderMap requestHeaders = new HeaderMap();
+		if (authorization != null) {
+			requestHeaders.put(Headers.AUTHORIZATION, authorization);
+		}
+		lenient().when(exchange.getRequestMethod()).thenReturn(Methods.GET);
+		lenient().when(exchange.getRequestURI()).thenReturn(URI);
+		lenient().when(exchange.getQueryString()).thenReturn("pageType=ContentPage");
+		lenient().when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+		lenient().when(exchange.getResponseHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getResponseSender()).thenReturn(mock(Sender.class));
+		lenient().when(exchange.getIoThread()).thenReturn(ioThread);
+		// Runs the dispatched task immediately, as Undertow does after the handler call has returned
+		lenient().when(exchange.dispatch(any(Executor.class), any(Runnable.class))).thenAnswer(invocation -> {
+			invocation.<Runnable> getArgument(1).run();
+			return exchange;
+		});
+		return exchange;
+	}
+
+	private static void respond(HttpServerExchange leader, int status, String body) throws Exception {
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+		verify(leader).addResponseWrapper(wrapper.capture());
+		when(leader.getStatusCode()).thenReturn(status);
+		leader.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+		when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+			ByteBuffer buffer = invocation.getArgument(0);
+			int remaining = buffer.remaining();
+			buffer.position(buffer.limit());
+			return remaining;
+		});
+		StreamSinkConduit conduit = wrapper.getValue().wrap(() -> next, leader);
+		conduit.write(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+		conduit.terminateWrites();
+		complete(leader);
+	}
+
+	private static void complete(HttpServerExchange leader) {
+		ArgumentCaptor<ExchangeCompletionListener> listener = ArgumentCaptor.forClass(ExchangeCompletionListener.class);
+		verify(leader).addExchangeCompleteListener(listener.capture());
+		listener.getValue().exchangeEvent(leader, mock(ExchangeCompletionListener.NextListener.class));
+	}
+
+	@Test
+	void testApply_IdenticalRequests_AreAnsweredWithSharedResponse() throws Exception {
+		HttpServerExchange leader = createExchange("Bearer a");
+		HttpServerExchange waiter = createExchange("Bearer a");
+
+		interceptor.apply(leader);
+		interceptor.apply(waiter);
+		verify(waiter, never()).addResponseWrapper(any());
+		assertEquals(1, interceptor.getInFlightCount());
+
+		respond(leader, 200, "{\"uid\":\"homepage\"}");
+
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(waiter).setStatusCode(200);
+		verify(waiter.getResponseSender()).send(body.capture());
+		verify(waiter, never()).endExchange();
+		assertEquals("{\"uid\":\"homepage\"}", StandardCharsets.UTF_8.decode(body.getValue()).toString());
+		assertEquals("application/json", waiter.getResponseHeaders().getFirst(Headers.CONTENT_TYPE));
+		assertEquals("true", waiter.getResponseHeaders().getFirst("X-CxDevProxy-Coalesced"));
+		assertEquals(0, interceptor.getInFlightCount());
+		assertEquals(1, interceptor.getUpstreamCount());
+		assertEquals(1, interceptor.getCoalescedCount());
+	}
+
+	@Test
+	void testApply_DifferentIdentity_IsNotCoalesced() {
+		HttpServerExchange first = createExchange("Bearer a");
+		HttpServerExchange second = createExchange("Bearer b");
+
+		interceptor.apply(first);
+		interceptor.apply(second);
+
+		verify(second).addResponseWrapper(any());
+		assertNotEquals(interceptor.createKey(first), interceptor.createKey(second));
+		assertEquals(2, interceptor.getInFlightCount());
+	}
+
+	@Test
+	void testApply_LeaderFails_WaitersContinueUpstream() {
+		HttpServerExchange leader = createExchange(null);
+		HttpServerExchange waiter = createExchange(null);
+
+		interceptor.apply(leader);
+		interceptor.apply(waiter);
+		complete(leader);
+
+		// The waiter resumes its interceptor chain instead of receiving a response
+		verify(waiter).removeAttachment(any());
+		verify(waiter, never()).endExchange();
+		assertEquals(0, interceptor.getInFlightCount());
+	}
+
+	@Test
+	void testApply_LeaderReceives503_WaitersContinueUpstream() throws Exception {
+		HttpServerExchange leader = createExchange(null);
+		HttpServerExchange waiter = createExchange(null);
+
+		interceptor.apply(leader);
+		interceptor.apply(waiter);
+		// e.g. written by the proxy handler if the backend cannot be reached
+		respond(leader, 503, "");
+
+		verify(waiter).removeAttachment(any());
+		verify(waiter, never()).setStatusCode(503);
+		verify(waiter.getResponseSender(), never()).send(any(ByteBuffer.class));
+		assertEquals(0, interceptor.getInFlightCount());
+	}
+
+	@Test
+	void testApply_LeaderReceives304_WaitersContinueUpstream() throws Exception {
+		HttpServerExchange leader = createExchange(null);
+		HttpServerExchange waiter = createExchange(null);
+
+		interceptor.apply(leader);
+		interceptor.apply(waiter);
+		respond(leader, 304, "");
+
+		// The empty body of a 304 must not be handed out as a complete response
+		verify(waiter).removeAttachment(any());
+		verify(waiter, never()).setStatusCode(304);
+		assertEquals(0, interceptor.getInFlightCount());
+	}
+
+	@Test
+	void testApply_ConditionalOrRangeRequest_IsNotCoalesced() {
+		HttpServerExchange conditional = createExchange(null);
+		conditional.getRequestHeaders().put(Headers.IF_NONE_MATCH, "\"v1\"");
+		HttpServerExchange range = createExchange(null);
+		range.getRequestHeaders().put(Headers.RANGE, "bytes=0-99");
+		HttpServerExchange plain = createExchange(null);
+
+		interceptor.apply(conditional);
+		interceptor.apply(range);
+		interceptor.apply(plain);
+
+		verify(conditional, never()).addResponseWrapper(any());
+		verify(range, never()).addResponseWrapper(any());
+		verify(conditional, never()).dispatch(any(Executor.class), any(Runnable.class));
+		verify(range, never()).dispatch(any(Executor.class), any(Runnable.class));
+		// The plain request must not wait for the conditional one and leads its own flight
+		verify(plain).addResponseWrapper(any());
+		assertEquals(1, interceptor.getInFlightCount());
+		assertEquals(0, interceptor.getCoalescedCount());
+	}
+
+	@Test
+	void testApply_LeaderReceivesCookie_WaitersContinueUpstream() throws Exception {
+		HttpServerExchange leader = createExchange(null);
+		HttpServerExchange waiter = createExchange(null);
+
+		interceptor.apply(leader);
+		interceptor.apply(waiter);
+		leader.getResponseHeaders().put(Headers.SET_COOKIE, "JSESSIONID=leader");
+		respond(leader, 200, "{}");
+
+		// The session cookie of the leader must not be shared, the waiter goes upstream itself
+		verify(waiter).removeAttachment(any());
+		verify(waiter, never()).setStatusCode(200);
+		verify(waiter, never()).endExchange();
+		assertEquals(0, interceptor.getInFlightCount());
+	}
+
+	@Test
+	void testApply_AfterCompletion_NextRequestGoesUpstream() throws Exception {
+		HttpServerExchange first = createExchange(null);
+		interceptor.apply(first);
+		respond(first, 200, "{}");
+
+		HttpServerExchange second = createExchange(null);
+		interceptor.apply(second);
+
+		verify(second).addResponseWrapper(any());
+		assertEquals(2, interceptor.getUpstreamCount());
+	}
+
+	@Test
+	void testApply_PostRequest_IsIgnored() {
+		HttpServerExchange exchange = createExchange(null);
+		when(exchange.getRequestMethod()).thenReturn(Methods.POST);
+
+		interceptor.apply(exchange);
+
+		verify(exchange, never()).addResponseWrapper(any());
+		assertEquals(0, interceptor.getInFlightCount());
+	}
+}
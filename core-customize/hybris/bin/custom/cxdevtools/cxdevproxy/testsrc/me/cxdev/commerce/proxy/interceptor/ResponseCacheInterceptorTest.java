@@ -0,0 +1,208 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.undertow.io.Sender;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.conduits.StreamSinkConduit;
+
+class ResponseCacheInterceptorTest {
+	private static final String URI = "/occ/v2/electronics/basesites";
+
+	private final ResponseCacheInterceptor cache = Interceptors.cache("5m", "1mb");
+
+	private static HttpServerExchange createExchange(String uri) {
+		HttpServerExchange exchange = mock(HttpServerExchange.class);
+		lenient().when(exchange.getRequestMethod()).thenReturn(Methods.GET);
+		lenient().when(exchange.getRequestURI()).thenReturn(uri);
+		lenient().when(exchange.getQueryString()).thenReturn("");
+		lenient().when(exchange.getRequestHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getResponseHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getResponseSender()).thenReturn(mock(Sender.class));
+		return exchange;
+	}
+
+	/**
+	 * Lets the exchange pass the cache and simulates the upstream response streamed through the response wrapper.
+	 */
+	private void proxy(HttpServerExchange exchange, int status, String cacheControl, String body) throws Exception {
+		cache.apply(exchange);
+
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+		verify(exchange).addResponseWrapper(wrapper.capture());
+		when(exchange.getStatusCode()).thenReturn(status);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+		if (cacheControl != null) {
+			exchange.getResponseHeaders().put(Headers.CACHE_CONTROL, cacheControl);
+		}
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+		when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+			ByteBuffer buffer = invocation.getArgument(0);
+			int remaining = buffer.remaining();
+			buffer.position(buffer.limit());
+			return remaining;
+		});
+		StreamSinkConduit conduit = wrapper.getValue().wrap(() -> next, exchange);
+		conduit.write(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+		conduit.terminateWrites();
+	}
+
+	private static String sentBody(HttpServerExchange exchange) {
+		ArgumentCaptor<ByteBuffer> body = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(exchange.getResponseSender()).send(body.capture());
+		return StandardCharsets.UTF_8.decode(body.getValue()).toString();
+	}
+
+	@Test
+	void testApply_SecondRequest_IsServedFromCache() throws Exception {
+		HttpServerExchange first = createExchange(URI);
+		proxy(first, 200, null, "{\"baseSites\":[]}");
+		assertEquals("MISS", first.getResponseHeaders().getFirst("X-CxDevProxy-Cache"));
+
+		HttpServerExchange second = createExchange(URI);
+		cache.apply(second);
+
+		verify(second).setStatusCode(200);
+		verify(second, never()).endExchange();
+		verify(second, never()).addResponseWrapper(any());
+		assertEquals("HIT", second.getResponseHeaders().getFirst("X-CxDevProxy-Cache"));
+		assertEquals("application/json", second.getResponseHeaders().getFirst(Headers.CONTENT_TYPE));
+		assertEquals("{\"baseSites\":[]}", sentBody(second));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void testApply_LargeBody_IsSentCompletelyWithoutEndingTheExchange() throws Exception {
+		String body = "x".repeat(256 * 1024);
+		proxy(createExchange(URI), 200, null, body);
+
+		HttpServerExchange hit = createExchange(URI);
+		cache.apply(hit);
+
+		// Ending the exchange while the sender is still writing would truncate the body
+		verify(hit, never()).endExchange();
+		verify(hit).setResponseContentLength(body.length());
+		assertEquals(body, sentBody(hit));
+	}
+
+	@Test
+	void testApply_ConditionalRequest_FillsCacheWithCompleteResponse() throws Exception {
+		HttpServerExchange conditional = createExchange(URI);
+		conditional.getRequestHeaders().put(Headers.IF_NONE_MATCH, "\"abc\"");
+		conditional.getRequestHeaders().put(Headers.IF_MODIFIED_SINCE, "Thu, 01 Jan 2026 00:00:00 GMT");
+
+		cache.apply(conditional);
+
+		assertFalse(conditional.getRequestHeaders().contains(Headers.IF_NONE_MATCH));
+		assertFalse(conditional.getRequestHeaders().contains(Headers.IF_MODIFIED_SINCE));
+	}
+
+	@Test
+	void testApply_NoStoreResponse_IsNotCached() throws Exception {
+		proxy(createExchange(URI), 200, "no-cache, no-store, max-age=0, must-revalidate", "{}");
+
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	void testApply_MaxAgeZero_IsNotCached() throws Exception {
+		proxy(createExchange(URI), 200, "public, max-age=0", "{}");
+
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	void testApply_ServerError_IsNotCached() throws Exception {
+		proxy(createExchange(URI), 500, null, "{}");
+
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	void testApply_AuthorizedRequest_OnlyPublicResponsesAreCached() throws Exception {
+		HttpServerExchange privateExchange = createExchange(URI);
+		privateExchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer token");
+		proxy(privateExchange, 200, null, "{}");
+		assertEquals(0, cache.getSize());
+
+		HttpServerExchange publicExchange = createExchange(URI);
+		publicExchange.getRequestHeaders().put(Headers.AUTHORIZATION, "Bearer token");
+		proxy(publicExchange, 200, "public, max-age=300", "{}");
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	void testApply_Vary_CachesVariantsSeparately() throws Exception {
+		HttpServerExchange english = createExchange(URI);
+		english.getRequestHeaders().put(Headers.ACCEPT_LANGUAGE, "en");
+		english.getResponseHeaders().put(Headers.VARY, "Accept-Language");
+		proxy(english, 200, null, "english");
+
+		HttpServerExchange german = createExchange(URI);
+		german.getRequestHeaders().put(Headers.ACCEPT_LANGUAGE, "de");
+		cache.apply(german);
+		verify(german).addResponseWrapper(any());
+
+		HttpServerExchange englishAgain = createExchange(URI);
+		englishAgain.getRequestHeaders().put(Headers.ACCEPT_LANGUAGE, "en");
+		cache.apply(englishAgain);
+		assertEquals("english", sentBody(englishAgain));
+	}
+
+	@Test
+	void testApply_RequestNoCache_RefreshesEntry() throws Exception {
+		proxy(createExchange(URI), 200, null, "old");
+
+		HttpServerExchange reload = createExchange(URI);
+		reload.getRequestHeaders().put(Headers.CACHE_CONTROL, "no-cache");
+		proxy(reload, 200, null, "new");
+
+		HttpServerExchange next = createExchange(URI);
+		cache.apply(next);
+		assertEquals("new", sentBody(next));
+	}
+
+	@Test
+	void testApply_NonGetRequest_IsIgnored() {
+		HttpServerExchange exchange = createExchange(URI);
+		when(exchange.getRequestMethod()).thenReturn(Methods.POST);
+
+		cache.apply(exchange);
+
+		verify(exchange, never()).addResponseWrapper(any());
+		assertNull(exchange.getResponseHeaders().get(HttpString.tryFromString("X-CxDevProxy-Cache")));
+	}
+
+	@Test
+	void testInvalidate_RemovesMatchingEntries() throws Exception {
+		proxy(createExchange(URI), 200, null, "sites");
+		proxy(createExchange("/occ/v2/electronics/languages"), 200, null, "languages");
+
+		assertEquals(1, cache.invalidate("/occ/v2/electronics/base"));
+		assertEquals(1, cache.getSize());
+
+		cache.invalidator().apply(createExchange("/occ/v2/electronics/users/current/carts"));
+		assertEquals(0, cache.getSize());
+	}
+}
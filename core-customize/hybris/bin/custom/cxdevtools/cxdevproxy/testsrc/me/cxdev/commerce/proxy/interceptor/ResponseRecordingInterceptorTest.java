@@ -0,0 +1,203 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import io.undertow.io.Sender;
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.xnio.conduits.StreamSinkConduit;
+
+import me.cxdev.commerce.proxy.replay.RecordedResponse;
+import me.cxdev.commerce.proxy.replay.ResponseArchive;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseRecordingInterceptorTest {
+	@Mock
+	private HttpServerExchange exchange;
+
+	@Mock
+	private Sender sender;
+
+	@Mock
+	private ResponseArchive archive;
+
+	private HeaderMap requestHeaders;
+	private HeaderMap responseHeaders;
+	private ResponseRecordingInterceptor interceptor;
+
+	@BeforeEach
+	void setUp() {
+		requestHeaders = new HeaderMap();
+		responseHeaders = new HeaderMap();
+		lenient().when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+		lenient().when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+		lenient().when(exchange.getResponseSender()).thenReturn(sender);
+		lenient().when(exchange.getRequestMethod()).thenReturn(Methods.GET);
+		lenient().when(exchange.getRequestPath()).thenReturn("/occ/v2/electronics/products/1");
+		lenient().when(exchange.getRequestURI()).thenReturn("/occ/v2/electronics/products/1");
+		lenient().when(exchange.getQueryString()).thenReturn("");
+
+		interceptor = new ResponseRecordingInterceptor();
+		interceptor.setResponseArchive(archive);
+	}
+
+	@Test
+	void testCreateKey_NormalizesPathAndQuery() {
+		when(exchange.getRequestPath()).thenReturn("/occ//v2/electronics/products/1/");
+		when(exchange.getQueryString()).thenReturn("lang=en&_=1700000000&fields=FULL");
+		requestHeaders.put(Headers.ACCEPT, "application/json");
+		requestHeaders.put(Headers.USER_AGENT, "test");
+
+		assertEquals("GET /occ/v2/electronics/products/1?fields=FULL&lang=en\naccept: application/json", interceptor.createKey(exchange));
+	}
+
+	@Test
+	void testCreateKey_WithConfiguredKeyHeaders() {
+		interceptor.setKeyHeaders("X-Anonymous-Consents");
+		requestHeaders.put(Headers.ACCEPT, "application/json");
+		requestHeaders.put(HttpString.tryFromString("X-Anonymous-Consents"), "none");
+
+		assertEquals("GET /occ/v2/electronics/products/1\nx-anonymous-consents: none", interceptor.createKey(exchange));
+	}
+
+	@Test
+	void testApply_ModeOff_DoesNothing() {
+		interceptor.apply(exchange);
+
+		verifyNoInteractions(archive);
+		verify(exchange, never()).endExchange();
+	}
+
+	@Test
+	void testApply_Replay_WithRecording_SendsRecordedResponse() {
+		interceptor.setMode("replay");
+		RecordedResponse recorded = new RecordedResponse(200, List.of(new RecordedResponse.Header("Content-Type", "application/json")), 0, 2);
+		ByteBuffer body = ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8));
+		when(archive.get("GET /occ/v2/electronics/products/1")).thenReturn(recorded);
+		when(archive.getBody(recorded)).thenReturn(body);
+
+		interceptor.apply(exchange);
+
+		verify(exchange).setStatusCode(200);
+		verify(exchange).setResponseContentLength(2);
+		assertEquals("application/json", responseHeaders.getFirst(Headers.CONTENT_TYPE));
+		assertEquals("hit", responseHeaders.getFirst("X-CxDevProxy-Replay"));
+		verify(sender).send(body);
+		verify(exchange, never()).endExchange();
+	}
+
+	@Test
+	void testApply_Replay_WithoutRecording_SendsNotFound() {
+		interceptor.setMode("replay");
+
+		interceptor.apply(exchange);
+
+		verify(exchange).setStatusCode(404);
+		assertEquals("miss", responseHeaders.getFirst("X-CxDevProxy-Replay"));
+		verify(sender).send(anyString());
+		verify(exchange, never()).endExchange();
+		verify(exchange, never()).addResponseWrapper(any());
+	}
+
+	@Test
+	void testApply_ReplayOrRecord_WithoutRecording_RecordsResponse() {
+		interceptor.setMode("replay-or-record");
+		requestHeaders.put(Headers.IF_NONE_MATCH, "\"etag\"");
+
+		interceptor.apply(exchange);
+
+		verify(exchange).addResponseWrapper(any());
+		verify(exchange, never()).endExchange();
+		assertFalse(requestHeaders.contains(Headers.IF_NONE_MATCH));
+	}
+
+	@Test
+	void testApply_Record_NeverReplays() {
+		interceptor.setMode("record");
+
+		interceptor.apply(exchange);
+
+		verify(archive, never()).get(anyString());
+		verify(exchange).addResponseWrapper(any());
+	}
+
+	@Test
+	void testApply_UnrecordedMethod_IsIgnored() {
+		interceptor.setMode("replay");
+		when(exchange.getRequestMethod()).thenReturn(Methods.POST);
+
+		interceptor.apply(exchange);
+
+		verifyNoInteractions(archive);
+		verify(exchange, never()).endExchange();
+	}
+
+	@Test
+	void testSetMode_InvalidValue_KeepsCurrentMode() {
+		interceptor.setMode("record");
+		interceptor.setMode("rewind");
+
+		assertEquals(ResponseRecordingInterceptor.Mode.RECORD, interceptor.getMode());
+	}
+
+	@Test
+	void testApply_Record_RecordsCapturedBody() throws Exception {
+		interceptor.setMode("record");
+		when(exchange.getStatusCode()).thenReturn(200);
+		responseHeaders.put(Headers.CONTENT_TYPE, "application/json");
+		responseHeaders.put(Headers.SET_COOKIE, "JSESSIONID=1");
+		responseHeaders.put(Headers.CONTENT_LENGTH, 2);
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+
+		interceptor.apply(exchange);
+		verify(exchange).addResponseWrapper(wrapper.capture());
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+		when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+			ByteBuffer buffer = invocation.getArgument(0);
+			int remaining = buffer.remaining();
+			buffer.position(buffer.limit());
+			return remaining;
+		});
+		StreamSinkConduit conduit = wrapper.getValue().wrap(() -> next, exchange);
+		conduit.write(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)));
+		conduit.terminateWrites();
+
+		verify(archive).record("GET /occ/v2/electronics/products/1", 200,
+				List.of(new RecordedResponse.Header("Content-Type", "application/json")), "{}".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testAfterPropertiesSet_OpensArchiveOnlyIfEnabled() {
+		interceptor.afterPropertiesSet();
+		verifyNoInteractions(archive);
+
+		interceptor.setMode("replay");
+		interceptor.afterPropertiesSet();
+		verify(archive).open();
+	}
+}
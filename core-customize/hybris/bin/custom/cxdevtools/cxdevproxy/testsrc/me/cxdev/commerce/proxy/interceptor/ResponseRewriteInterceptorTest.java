@@ -0,0 +1,212 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.conduits.StreamSinkConduit;
+
+import me.cxdev.commerce.proxy.rewrite.BodyRewriter;
+import me.cxdev.commerce.proxy.rewrite.RewritingStreamSinkConduit;
+
+class ResponseRewriteInterceptorTest {
+	private static HttpServerExchange createExchange(String acceptEncoding) {
+		HttpServerExchange exchange = mock(HttpServerExchange.class);
+		HeaderMap requestHeaders = new HeaderMap();
+		if (acceptEncoding != null) {
+			requestHeaders.put(Headers.ACCEPT_ENCODING, acceptEncoding);
+		}
+		lenient().when(exchange.getRequestMethod()).thenReturn(Methods.GET);
+		lenient().when(exchange.getRequestPath()).thenReturn("/index.html");
+		lenient().when(exchange.getRequestHeaders()).thenReturn(requestHeaders);
+		lenient().when(exchange.getResponseHeaders()).thenReturn(new HeaderMap());
+		lenient().when(exchange.getStatusCode()).thenReturn(200);
+		return exchange;
+	}
+
+	private static ConduitWrapper<StreamSinkConduit> applyAndCaptureWrapper(ProxyExchangeInterceptor interceptor, HttpServerExchange exchange) {
+		interceptor.apply(exchange);
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+		verify(exchange).addResponseWrapper(wrapper.capture());
+		return wrapper.getValue();
+	}
+
+	/**
+	 * A next conduit accepting at most the given number of bytes per write, and nothing on every other write.
+	 */
+	private static StreamSinkConduit slowConduit(ByteArrayOutputStream received, int maxBytesPerWrite) throws Exception {
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+		AtomicInteger calls = new AtomicInteger();
+		when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+			ByteBuffer buffer = invocation.getArgument(0);
+			if (calls.incrementAndGet() % 2 == 0) {
+				return 0;
+			}
+			int count = Math.min(maxBytesPerWrite, buffer.remaining());
+			for (int i = 0; i < count; i++) {
+				received.write(buffer.get());
+			}
+			return count;
+		});
+		lenient().when(next.flush()).thenReturn(true);
+		return next;
+	}
+
+	@Test
+	void testApply_ReducesAcceptEncodingToGzip() {
+		HttpServerExchange exchange = createExchange("br, gzip, deflate");
+
+		Interceptors.rewriteBody("a", "b").apply(exchange);
+
+		assertEquals("gzip", exchange.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING));
+	}
+
+	@Test
+	void testApply_WithoutGzipSupport_RequestsIdentity() {
+		HttpServerExchange exchange = createExchange("br");
+
+		Interceptors.rewriteBody("a", "b").apply(exchange);
+
+		assertEquals("identity", exchange.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING));
+	}
+
+	@Test
+	void testApply_HeadRequest_IsIgnored() {
+		HttpServerExchange exchange = createExchange("gzip");
+		when(exchange.getRequestMethod()).thenReturn(Methods.HEAD);
+
+		Interceptors.rewriteBody("a", "b").apply(exchange);
+
+		verify(exchange, never()).addResponseWrapper(any());
+	}
+
+	@Test
+	void testWrap_StreamsRewrittenBodyThroughSlowConduit() throws Exception {
+		Map<String, String> replacements = new LinkedHashMap<>();
+		replacements.put("https://localhost:9002", "https://local.cxdev.me:8080");
+		replacements.put("</head>", "<script src=\"/debug.js\"></script></head>");
+		ProxyExchangeInterceptor interceptor = Interceptors.rewriteBody(replacements);
+		HttpServerExchange exchange = createExchange(null);
+		ConduitWrapper<StreamSinkConduit> wrapper = applyAndCaptureWrapper(interceptor, exchange);
+
+		HeaderMap responseHeaders = exchange.getResponseHeaders();
+		responseHeaders.put(Headers.CONTENT_TYPE, "text/html; charset=UTF-8");
+		responseHeaders.put(Headers.CONTENT_LENGTH, 123);
+		responseHeaders.put(Headers.ETAG, "\"abc\"");
+
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		StreamSinkConduit next = slowConduit(received, 5);
+		StreamSinkConduit conduit = wrapper.wrap(() -> next, exchange);
+		assertTrue(conduit instanceof RewritingStreamSinkConduit);
+		assertFalse(responseHeaders.contains(Headers.CONTENT_LENGTH), "The length of the rewritten body is unknown");
+		assertFalse(responseHeaders.contains(Headers.ETAG), "The upstream ETag does not match the rewritten body");
+
+		String body = "<html><head><link href=\"https://localhost:9002/x.css\"></head><body></body></html>";
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer[] chunks = { ByteBuffer.wrap(bytes, 0, 20), ByteBuffer.wrap(bytes, 20, 13), ByteBuffer.wrap(bytes, 33, bytes.length - 33) };
+		for (ByteBuffer chunk : chunks) {
+			while (chunk.hasRemaining()) {
+				conduit.write(chunk);
+			}
+		}
+		conduit.terminateWrites();
+		while (!conduit.flush()) {
+			// the next conduit accepts bytes on every other write only
+		}
+
+		assertEquals("<html><head><link href=\"https://local.cxdev.me:8080/x.css\"><script src=\"/debug.js\"></script></head><body></body></html>",
+				received.toString(StandardCharsets.UTF_8));
+		verify(next).terminateWrites();
+	}
+
+	@Test
+	void testRewritingConduit_GzipEncodedBody_IsDecodedBeforeRewriting() throws Exception {
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+			gzip.write("{\"url\":\"https://localhost:9002/medias/a.jpg\"}".getBytes(StandardCharsets.UTF_8));
+		}
+		BodyRewriter rewriter = new BodyRewriter(List.of("localhost:9002".getBytes(StandardCharsets.UTF_8)),
+				List.of("local.cxdev.me:8080".getBytes(StandardCharsets.UTF_8)));
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		StreamSinkConduit conduit = new RewritingStreamSinkConduit(slowConduit(received, 1024), rewriter, true);
+
+		ByteBuffer body = ByteBuffer.wrap(gzipped.toByteArray());
+		while (body.hasRemaining()) {
+			conduit.write(body);
+		}
+		conduit.terminateWrites();
+		while (!conduit.flush()) {
+			// the next conduit accepts bytes on every other write only
+		}
+
+		// The next conduit (Undertow's gzip conduit at runtime) receives the rewritten, decoded body
+		assertEquals("{\"url\":\"https://local.cxdev.me:8080/medias/a.jpg\"}", received.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testWrap_NonTextualResponse_IsPassedThrough() {
+		HttpServerExchange exchange = createExchange("gzip");
+		ConduitWrapper<StreamSinkConduit> wrapper = applyAndCaptureWrapper(Interceptors.rewriteBody("a", "b"), exchange);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "image/png");
+		exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, 42);
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+
+		assertSame(next, wrapper.wrap(() -> next, exchange));
+		assertTrue(exchange.getResponseHeaders().contains(Headers.CONTENT_LENGTH));
+	}
+
+	@Test
+	void testWrap_UnsupportedContentEncoding_IsPassedThrough() {
+		HttpServerExchange exchange = createExchange("gzip");
+		ConduitWrapper<StreamSinkConduit> wrapper = applyAndCaptureWrapper(Interceptors.rewriteBody("a", "b"), exchange);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+		exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, "br");
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+
+		assertSame(next, wrapper.wrap(() -> next, exchange));
+	}
+
+	@Test
+	void testWrap_NotModified_IsPassedThrough() {
+		HttpServerExchange exchange = createExchange(null);
+		ConduitWrapper<StreamSinkConduit> wrapper = applyAndCaptureWrapper(Interceptors.rewriteBody("a", "b"), exchange);
+		when(exchange.getStatusCode()).thenReturn(304);
+		exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
+
+		StreamSinkConduit next = mock(StreamSinkConduit.class);
+
+		assertSame(next, wrapper.wrap(() -> next, exchange));
+	}
+
+	@Test
+	void testRewriteBody_EmptySearch_IsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> Interceptors.rewriteBody("", "x"));
+	}
+}
@@ -1,7 +1,11 @@
 package me.cxdev.commerce.proxy.interceptor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
 
 import io.undertow.io.Sender;
 import io.undertow.server.HttpServerExchange;
@@ -93,4 +97,19 @@ class StaticResponseInterceptorTest {
 		assertEquals(MediaType.TEXT_HTML, responseHeaders.getFirst(Headers.CONTENT_TYPE));
 		verify(senderMock).send("<HTML><BODY>TEST</BODY></HTML>");
 	}
+
+	@Test
+	void testApply_LargePayloadAcceptingGzip_SendsCompressedBody() throws Exception {
+		String payload = "{\"code\": \"product\", \"name\": \"Mocked Product\"},".repeat(50);
+		HeaderMap requestHeaders = new HeaderMap();
+		requestHeaders.put(Headers.ACCEPT_ENCODING, "gzip, deflate, br");
+		when(exchangeMock.getRequestHeaders()).thenReturn(requestHeaders);
+
+		Interceptors.jsonResponse(payload).apply(exchangeMock);
+
+		assertEquals("gzip", responseHeaders.getFirst(Headers.CONTENT_ENCODING));
+		assertEquals("Accept-Encoding", responseHeaders.getFirst(Headers.VARY));
+		verify(senderMock).send(any(ByteBuffer.class));
+		verify(exchangeMock).endExchange();
+	}
 }
@@ -0,0 +1,83 @@
+package me.cxdev.commerce.proxy.interceptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.ServerConnection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xnio.conduits.StreamSinkConduit;
+
+class TruncatedBodyInterceptorTest {
+	private HttpServerExchange exchange;
+	private ServerConnection connection;
+	private StreamSinkConduit next;
+	private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		exchange = mock(HttpServerExchange.class);
+		connection = mock(ServerConnection.class);
+		when(exchange.getConnection()).thenReturn(connection);
+		next = mock(StreamSinkConduit.class);
+		when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+			ByteBuffer buffer = invocation.getArgument(0);
+			int count = buffer.remaining();
+			while (buffer.hasRemaining()) {
+				received.write(buffer.get());
+			}
+			return count;
+		});
+		when(next.flush()).thenReturn(true);
+	}
+
+	private StreamSinkConduit wrap(String maxSize) {
+		Interceptors.truncatedBody(maxSize).apply(exchange);
+		ArgumentCaptor<ConduitWrapper<StreamSinkConduit>> wrapper = ArgumentCaptor.captor();
+		verify(exchange).addResponseWrapper(wrapper.capture());
+		return wrapper.getValue().wrap(() -> next, exchange);
+	}
+
+	@Test
+	void testWrite_BodyExceedingLimit_IsCutOffAndConnectionClosed() throws Exception {
+		StreamSinkConduit conduit = wrap("10b");
+		ByteBuffer body = ByteBuffer.wrap("{\"products\":[1,2,3,4,5]}".getBytes(StandardCharsets.UTF_8));
+
+		while (body.hasRemaining()) {
+			assertTrue(conduit.write(body) > 0);
+		}
+		conduit.terminateWrites();
+		assertTrue(conduit.flush());
+
+		assertEquals("{\"products", received.toString(StandardCharsets.UTF_8));
+		verify(next, never()).terminateWrites();
+		verify(exchange).setPersistent(false);
+		verify(connection).close();
+	}
+
+	@Test
+	void testWrite_BodyWithinLimit_IsPassedThrough() throws Exception {
+		StreamSinkConduit conduit = wrap("1kb");
+
+		conduit.write(ByteBuffer.wrap("complete".getBytes(StandardCharsets.UTF_8)));
+		conduit.terminateWrites();
+		conduit.flush();
+
+		assertEquals("complete", received.toString(StandardCharsets.UTF_8));
+		verify(next).terminateWrites();
+		verify(connection, never()).close();
+	}
+}
@@ -0,0 +1,91 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Compares the matching throughput of {@link CompiledAntPattern} with Spring's {@link AntPathMatcher}
+ * (as previously used by {@link PathAntMatcherCondition}) for typical OCC patterns and paths.
+ * <p>
+ * Not part of the regular test run, enable with {@code -Dcxdevproxy.benchmark=true}. Every measured
+ * round has to report the same number of matches as the reference run, so the JIT cannot eliminate
+ * the matching as dead code and both implementations are verified to agree.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "cxdevproxy.benchmark", matches = "true")
+class CompiledAntPatternBenchmark {
+	private static final Logger LOG = LoggerFactory.getLogger(CompiledAntPatternBenchmark.class);
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+	private static final int ITERATIONS = 20_000;
+
+	@Test
+	void benchmarkOccPatterns() {
+		List<String> patterns = CompiledAntPatternTest.PATTERNS;
+		List<String> paths = CompiledAntPatternTest.PATHS;
+
+		// The previous implementation created one AntPathMatcher per condition
+		List<AntPathMatcher> antPathMatchers = patterns.stream().map(pattern -> new AntPathMatcher()).toList();
+		List<CompiledAntPattern> compiled = patterns.stream().map(CompiledAntPattern::new).toList();
+		IndexedMatcher antPathMatcher = (i, path) -> antPathMatchers.get(i).match(patterns.get(i), path);
+		IndexedMatcher compiledMatcher = (i, path) -> compiled.get(i).matches(path);
+
+		long expected = run(patterns.size(), paths, antPathMatcher);
+		assertEquals(expected, run(patterns.size(), paths, compiledMatcher));
+
+		double antOps = measure(patterns.size(), paths, antPathMatcher, expected);
+		double compiledOps = measure(patterns.size(), paths, compiledMatcher, expected);
+
+		LOG.info("AntPathMatcher:     {} matches/s", String.format("%,12.0f", antOps));
+		LOG.info("CompiledAntPattern: {} matches/s ({})", String.format("%,12.0f", compiledOps), String.format("%.1fx", compiledOps / antOps));
+	}
+
+	private static double measure(int patternCount, List<String> paths, IndexedMatcher matcher, long expectedPerRun) {
+		long sink = 0;
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			sink += run(patternCount, paths, matcher);
+		}
+		assertEquals(WARMUP_ROUNDS * expectedPerRun, sink);
+
+		int runsPerRound = ITERATIONS / 100;
+		long operations = 0;
+		sink = 0;
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; round++) {
+			for (int iteration = 0; iteration < runsPerRound; iteration++) {
+				sink += run(patternCount, paths, matcher);
+			}
+			operations += (long) runsPerRound * patternCount * paths.size();
+		}
+		double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+		assertEquals((long) MEASURED_ROUNDS * runsPerRound * expectedPerRun, sink, "Every run must report the same matches");
+		return operations / seconds;
+	}
+
+	private static long run(int patternCount, List<String> paths, IndexedMatcher matcher) {
+		long matched = 0;
+		for (int i = 0; i < patternCount; i++) {
+			for (String path : paths) {
+				if (matcher.matches(i, path)) {
+					matched++;
+				}
+			}
+		}
+		return matched;
+	}
+
+	/**
+	 * Matches a path against the pattern at the given index, without boxing the index.
+	 */
+	@FunctionalInterface
+	private interface IndexedMatcher {
+		boolean matches(int index, String path);
+	}
+}
@@ -0,0 +1,92 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+class CompiledAntPatternTest {
+	static final List<String> PATTERNS = List.of(
+			"/occ/**",
+			"/occ/v2/**",
+			"/occ/v2/*/products/*",
+			"/occ/v2/*/users/*/carts/**",
+			"/occ/v2/**/carts/current",
+			"/occ/v2/**/carts/*/entries/**",
+			"/**/orders",
+			"/**/*.js",
+			"/occ/v2/electronics/products/*.json",
+			"/occ/v2/electronics/products/?",
+			"/occ/v2/*/cms/pages",
+			"/occ/v2/{baseSiteId}/cms/**",
+			"/occ/v2/{baseSiteId:[a-z]+}/products/{code:\\d+}",
+			"/occ/v2/**/**/users",
+			"/occ/v2/electronics/",
+			"/occ/v2/electronics/*",
+			"/*",
+			"/**",
+			"/",
+			"occ/**",
+			"/occ/v2/electronics");
+
+	static final List<String> PATHS = List.of(
+			"/occ",
+			"/occ/",
+			"/occ/v2",
+			"/occ/v2/",
+			"/occ/v2/electronics",
+			"/occ/v2/electronics/",
+			"/occ/v2/electronics/products/1",
+			"/occ/v2/electronics/products/1.json",
+			"/occ/v2/electronics/products/123",
+			"/occ/v2/electronics/products/abc",
+			"/occ/v2/electronics/users/current/carts/current",
+			"/occ/v2/electronics/users/current/carts/00001/entries/0",
+			"/occ/v2/electronics/users/current/orders",
+			"/occ/v2/electronics/cms/pages",
+			"/occ/v2/electronics/cms/components",
+			"/occ/v2/users",
+			"/occ/v2/a/b/users",
+			"/occ//v2//electronics",
+			"/static/main.js",
+			"/static/js/main.js",
+			"/",
+			"",
+			"occ/v2");
+
+	@Test
+	void testMatches_IsEquivalentToAntPathMatcher() {
+		AntPathMatcher antPathMatcher = new AntPathMatcher();
+		for (String pattern : PATTERNS) {
+			CompiledAntPattern compiled = new CompiledAntPattern(pattern);
+			for (String path : PATHS) {
+				assertEquals(antPathMatcher.match(pattern, path), compiled.matches(path), () -> pattern + " vs. " + path);
+			}
+		}
+	}
+
+	@Test
+	void testMatches_TypicalOccPatterns() {
+		assertTrue(new CompiledAntPattern("/occ/**").matches("/occ"));
+		assertTrue(new CompiledAntPattern("/occ/v2/**/carts/current").matches("/occ/v2/electronics/users/current/carts/current"));
+		assertTrue(new CompiledAntPattern("/occ/v2/*/products/*.json").matches("/occ/v2/electronics/products/1.json"));
+		assertFalse(new CompiledAntPattern("/occ/v2/*/products/*").matches("/occ/v2/electronics/products"));
+		assertFalse(new CompiledAntPattern("/occ/v2/electronics/products/?").matches("/occ/v2/electronics/products/12"));
+	}
+
+	@Test
+	void testMatches_NullPath() {
+		assertFalse(new CompiledAntPattern("/**").matches(null));
+	}
+
+	@Test
+	void testMatches_LongPathGrowsSegmentBuffer() {
+		String path = "/a".repeat(100);
+		assertTrue(new CompiledAntPattern("/a/**/a").matches(path));
+		assertFalse(new CompiledAntPattern("/a/**/b").matches(path));
+	}
+}
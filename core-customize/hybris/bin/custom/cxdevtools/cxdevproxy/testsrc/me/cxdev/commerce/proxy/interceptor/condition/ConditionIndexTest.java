@@ -0,0 +1,124 @@
+package me.cxdev.commerce.proxy.interceptor.condition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+import org.junit.jupiter.api.Test;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptorCondition;
+
+class ConditionIndexTest {
+
+	private static HttpServerExchange exchange(HttpString method, String path) {
+		HttpServerExchange exchange = mock(HttpServerExchange.class);
+		when(exchange.getRequestMethod()).thenReturn(method);
+		when(exchange.getRequestPath()).thenReturn(path);
+		return exchange;
+	}
+
+	private static ProxyExchangeInterceptorCondition[] guard(ProxyExchangeInterceptorCondition... conditions) {
+		return conditions;
+	}
+
+	@Test
+	void testSelect_GroupsByMethodAndPrefix() {
+		ProxyExchangeInterceptorCondition[][] guards = {
+				guard(Conditions.pathStartsWith("/occ")),
+				null,
+				guard(Conditions.isMethod("POST"), Conditions.pathMatches("/occ/v2/*/orders")),
+				null,
+				guard(Conditions.pathStartsWith("/backoffice")),
+				null,
+				guard(Conditions.hasHeader("Authorization")),
+				null
+		};
+		ConditionIndex index = ConditionIndex.build(guards, new boolean[] { true, false, true, false, true, false, true, false });
+
+		assertEquals(4, index.getIndexedCount());
+		assertEquals(0, index.getBit(0));
+		assertEquals(-1, index.getBit(1));
+		assertEquals(3, index.getBit(6));
+
+		assertEquals(0b1001, index.select(exchange(Methods.GET, "/occ/v2/electronics/orders")));
+		assertEquals(0b1011, index.select(exchange(Methods.POST, "/occ/v2/electronics/orders")));
+		assertEquals(0b1100, index.select(exchange(Methods.GET, "/backoffice/login.zul")));
+		assertEquals(0b1000, index.select(exchange(Methods.PUT, "/smartedit")));
+	}
+
+	@Test
+	void testSelect_AntPatternWithDoubleWildcard_MatchesParentPath() {
+		ProxyExchangeInterceptorCondition[][] guards = { guard(Conditions.pathMatches("/occ/**")) };
+		ConditionIndex index = ConditionIndex.build(guards, new boolean[] { true });
+
+		assertEquals(1, index.select(exchange(Methods.GET, "/occ")));
+		assertEquals(1, index.select(exchange(Methods.GET, "/occ/v2")));
+		assertEquals(0, index.select(exchange(Methods.GET, "/oc")));
+	}
+
+	@Test
+	void testSelect_DoubleSlashInPath_SelectsGuardsLikeFullEvaluation() {
+		ProxyExchangeInterceptorCondition antMatcher = Conditions.pathMatches("/occ/**");
+		ProxyExchangeInterceptorCondition[][] guards = { guard(antMatcher), guard(Conditions.pathStartsWith("//occ")) };
+		ConditionIndex index = ConditionIndex.build(guards, new boolean[] { true, true });
+
+		HttpServerExchange exchange = exchange(Methods.GET, "//occ/v2/x");
+		assertTrue(antMatcher.matches(exchange));
+		assertEquals(0b11, index.select(exchange));
+		assertEquals(0b11, index.select(exchange(Methods.GET, "/occ//v2")));
+	}
+
+	@Test
+	void testSelect_AnyGuardRequiresAllAlternatives() {
+		ProxyExchangeInterceptorCondition[][] guards = {
+				guard(Conditions.pathStartsWith("/occ"), Conditions.pathStartsWith("/smartedit")),
+				guard(Conditions.pathStartsWith("/occ"), Conditions.hasCookie("user")),
+				guard(Conditions.or(Conditions.isMethod("PUT"), Conditions.isMethod("DELETE")))
+		};
+		ConditionIndex index = ConditionIndex.build(guards, new boolean[] { false, false, true });
+
+		assertEquals(0b010, index.select(exchange(Methods.GET, "/backoffice")));
+		assertEquals(0b011, index.select(exchange(Methods.GET, "/smartedit/index.html")));
+		assertEquals(0b110, index.select(exchange(Methods.DELETE, "/backoffice")));
+	}
+
+	@Test
+	void testSelect_NegatedAndUnsatisfiableConditions() {
+		ProxyExchangeInterceptorCondition[][] guards = {
+				guard(Conditions.not(Conditions.pathStartsWith("/occ"))),
+				guard(Conditions.never()),
+				guard(Conditions.isMethod("GET"), Conditions.isMethod("POST"))
+		};
+		ConditionIndex index = ConditionIndex.build(guards, new boolean[] { true, true, true });
+
+		assertEquals(0b001, index.select(exchange(Methods.GET, "/occ")));
+		assertEquals(0b001, index.select(exchange(Methods.POST, "/occ")));
+	}
+
+	@Test
+	void testBuild_DeduplicatesEqualConditions() {
+		ProxyExchangeInterceptorCondition[][] guards = {
+				guard(Conditions.pathMatches("/occ/**"), Conditions.and(Conditions.hasHeader("Authorization"), Conditions.isMethod("GET"))),
+				guard(Conditions.pathMatches("/occ/**")),
+				guard(Conditions.and(Conditions.hasHeader("Authorization"), Conditions.isMethod("GET")))
+		};
+		ConditionIndex.build(guards, new boolean[] { true, true, true });
+
+		assertSame(guards[0][0], guards[1][0]);
+		assertSame(guards[0][1], guards[2][0]);
+	}
+
+	@Test
+	void testBuild_WithoutGuards_SelectsNothing() {
+		ConditionIndex index = ConditionIndex.build(new ProxyExchangeInterceptorCondition[2][], new boolean[2]);
+
+		assertEquals(0, index.getIndexedCount());
+		assertEquals(-1, index.getBit(0));
+	}
+}
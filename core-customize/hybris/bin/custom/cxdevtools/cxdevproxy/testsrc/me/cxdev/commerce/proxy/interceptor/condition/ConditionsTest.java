@@ -7,6 +7,7 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.undertow.server.HttpServerExchange;
@@ -237,6 +238,105 @@ class ConditionsTest {
 		assertFalse(Conditions.hasParameter("").matches(exchangeMock));
 	}
 
+	// --- Value Conditions (Header, Cookie, Parameter, Host) ---
+
+	@Test
+	void testHeaderEquals() {
+		HeaderMap headers = new HeaderMap();
+		headers.add(new HttpString("Accept"), "text/html");
+		headers.add(new HttpString("Accept"), "application/json");
+		when(exchangeMock.getRequestHeaders()).thenReturn(headers);
+
+		assertTrue(Conditions.headerEquals("accept", "application/json").matches(exchangeMock), "Header names are case-insensitive");
+		assertFalse(Conditions.headerEquals("Accept", "APPLICATION/JSON").matches(exchangeMock), "Values are case-sensitive");
+		assertFalse(Conditions.headerEquals("Authorization", "Bearer token").matches(exchangeMock));
+
+		// Edge cases
+		assertFalse(Conditions.headerEquals(null, "text/html").matches(exchangeMock));
+		assertFalse(Conditions.headerEquals("Accept", null).matches(exchangeMock));
+	}
+
+	@Test
+	void testHeaderMatches() {
+		HeaderMap headers = new HeaderMap();
+		headers.add(new HttpString("User-Agent"), "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X)");
+		when(exchangeMock.getRequestHeaders()).thenReturn(headers);
+
+		assertTrue(Conditions.headerMatches("User-Agent", ".*(Android|iPhone).*").matches(exchangeMock));
+		assertFalse(Conditions.headerMatches("User-Agent", "iPhone").matches(exchangeMock), "The whole value must match");
+		assertFalse(Conditions.headerMatches("X-Missing", ".*").matches(exchangeMock));
+
+		// Edge cases
+		assertFalse(Conditions.headerMatches("User-Agent", null).matches(exchangeMock));
+		assertFalse(Conditions.headerMatches("", ".*").matches(exchangeMock));
+	}
+
+	@Test
+	void testCookieEquals() {
+		when(exchangeMock.getRequestCookie("baseSite")).thenReturn(new CookieImpl("baseSite", "electronics"));
+
+		assertTrue(Conditions.cookieEquals("baseSite", "electronics").matches(exchangeMock));
+		assertFalse(Conditions.cookieEquals("baseSite", "apparel").matches(exchangeMock));
+
+		// Edge cases
+		assertFalse(Conditions.cookieEquals(null, "electronics").matches(exchangeMock));
+		assertFalse(Conditions.cookieEquals("baseSite", null).matches(exchangeMock));
+	}
+
+	@Test
+	void testParameterIn() {
+		Map<String, Deque<String>> queryParams = new HashMap<>();
+		queryParams.put("fields", new ArrayDeque<>(List.of("FULL")));
+		when(exchangeMock.getQueryParameters()).thenReturn(queryParams);
+
+		assertTrue(Conditions.parameterIn("fields", "DEFAULT", "FULL").matches(exchangeMock));
+		assertFalse(Conditions.parameterIn("fields", "BASIC").matches(exchangeMock));
+		assertFalse(Conditions.parameterIn("lang", "en").matches(exchangeMock));
+
+		// Edge cases
+		assertFalse(Conditions.parameterIn("fields").matches(exchangeMock));
+		assertFalse(Conditions.parameterIn(null, "FULL").matches(exchangeMock));
+	}
+
+	@Test
+	void testHostIs() {
+		when(exchangeMock.getHostName()).thenReturn("Local.CxDev.me");
+
+		assertTrue(Conditions.hostIs("local.cxdev.me").matches(exchangeMock));
+		assertTrue(Conditions.hostIs("localhost", " LOCAL.cxdev.me ").matches(exchangeMock));
+		assertFalse(Conditions.hostIs("api.cxdev.me").matches(exchangeMock));
+
+		// Edge cases
+		assertFalse(Conditions.hostIs().matches(exchangeMock));
+		assertFalse(Conditions.hostIs((String[]) null).matches(exchangeMock));
+	}
+
+	@Test
+	void testValueConditions_AreEqualForSameConfiguration() {
+		assertEquals(Conditions.headerEquals("Accept", "text/html"), Conditions.headerEquals("Accept", "text/html"));
+		assertEquals(Conditions.headerMatches("User-Agent", ".*"), Conditions.headerMatches("User-Agent", ".*"));
+		assertEquals(Conditions.parameterIn("fields", "FULL", "DEFAULT"), Conditions.parameterIn("fields", "DEFAULT", "FULL"));
+		assertEquals(Conditions.hostIs("LOCALHOST"), Conditions.hostIs("localhost"));
+		assertNotEquals(Conditions.cookieEquals("baseSite", "electronics"), Conditions.cookieEquals("baseSite", "apparel"));
+	}
+
+	@Test
+	void testChance() {
+		assertTrue(Conditions.chance(1.0).matches(exchangeMock));
+		assertFalse(Conditions.chance(0.0).matches(exchangeMock));
+
+		int matches = 0;
+		ProxyExchangeInterceptorCondition condition = Conditions.chance(0.5);
+		for (int i = 0; i < 1000; i++) {
+			matches += condition.matches(exchangeMock) ? 1 : 0;
+		}
+		assertTrue(matches > 350 && matches < 650, "About half of the requests should match, but were " + matches);
+
+		// Edge cases
+		assertThrows(IllegalArgumentException.class, () -> Conditions.chance(1.5));
+		assertThrows(IllegalArgumentException.class, () -> Conditions.chance(Double.NaN));
+	}
+
 	// --- Static Conditions ---
 
 	@Test
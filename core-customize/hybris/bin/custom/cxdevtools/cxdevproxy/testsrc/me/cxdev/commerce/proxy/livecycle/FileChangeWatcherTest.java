@@ -0,0 +1,167 @@
+package me.cxdev.commerce.proxy.livecycle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileChangeWatcherTest {
+	private FileChangeWatcher watcher;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		watcher = new FileChangeWatcher();
+		watcher.setDebounce("200ms");
+		watcher.afterPropertiesSet();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		watcher.destroy();
+	}
+
+	@Test
+	void testWatchFile_NotifiesOnModification() throws Exception {
+		Path file = Files.writeString(tempDir.resolve("rules.groovy"), "initial");
+		CountDownLatch latch = new CountDownLatch(1);
+		assertNotNull(watcher.watchFile(file.toFile(), latch::countDown));
+
+		Files.writeString(file, "changed");
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS), "Listener must be notified about the modification");
+	}
+
+	@Test
+	void testWatchFile_DebouncesBurstOfWrites() throws Exception {
+		Path file = Files.writeString(tempDir.resolve("messages_en.properties"), "key=0");
+		AtomicInteger notifications = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		watcher.watchFile(file.toFile(), () -> {
+			notifications.incrementAndGet();
+			latch.countDown();
+		});
+
+		for (int i = 1; i <= 5; i++) {
+			Files.writeString(file, "key=" + i);
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		Thread.sleep(500);
+		assertEquals(1, notifications.get(), "A burst of writes must result in a single notification");
+	}
+
+	@Test
+	void testWatchFile_IgnoresSiblingFiles() throws Exception {
+		Path file = Files.writeString(tempDir.resolve("watched.txt"), "a");
+		Path sibling = Files.writeString(tempDir.resolve("sibling.txt"), "a");
+		AtomicInteger notifications = new AtomicInteger();
+		watcher.watchFile(file.toFile(), notifications::incrementAndGet);
+
+		Files.writeString(sibling, "b");
+		Thread.sleep(1000);
+
+		assertEquals(0, notifications.get());
+	}
+
+	@Test
+	void testWatchDirectory_NotifiesChangesInNewSubdirectories() throws Exception {
+		Set<Path> changes = ConcurrentHashMap.newKeySet();
+		CountDownLatch latch = new CountDownLatch(1);
+		watcher.watchDirectory(tempDir.toFile(), changed -> {
+			changes.add(changed);
+			if (changed.getFileName().toString().equals("anonymous.json")) {
+				latch.countDown();
+			}
+		});
+
+		Path subDirectory = Files.createDirectory(tempDir.resolve("customer"));
+		// Give the watcher time to register the newly created directory
+		Thread.sleep(500);
+		Files.write(subDirectory.resolve("anonymous.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS), "Files in newly created subdirectories must be watched");
+		assertTrue(changes.contains(subDirectory.resolve("anonymous.json").toAbsolutePath().normalize()));
+	}
+
+	@Test
+	void testClosedSubscription_IsNotNotified() throws Exception {
+		Path file = Files.writeString(tempDir.resolve("closed.txt"), "a");
+		AtomicInteger notifications = new AtomicInteger();
+		FileChangeWatcher.Subscription subscription = watcher.watchFile(file.toFile(), notifications::incrementAndGet);
+
+		subscription.close();
+		Files.writeString(file, "b");
+		Thread.sleep(1000);
+
+		assertEquals(0, notifications.get());
+	}
+
+	@Test
+	void testClosedSubscription_UnregistersDirectoriesNoLongerNeeded() throws Exception {
+		Path shared = Files.createDirectory(tempDir.resolve("shared"));
+		Path first = Files.writeString(shared.resolve("first.txt"), "a");
+		Path second = Files.writeString(shared.resolve("second.txt"), "a");
+		Path tree = Files.createDirectories(tempDir.resolve("tree/sub"));
+		FileChangeWatcher.Subscription firstSubscription = watcher.watchFile(first.toFile(), () -> {
+		});
+		FileChangeWatcher.Subscription secondSubscription = watcher.watchFile(second.toFile(), () -> {
+		});
+		FileChangeWatcher.Subscription treeSubscription = watcher.watchDirectory(tree.getParent().toFile(), changed -> {
+		});
+		assertEquals(3, watcher.getWatchedDirectoryCount());
+
+		firstSubscription.close();
+		assertEquals(3, watcher.getWatchedDirectoryCount(), "The directory is still needed by the second subscription");
+
+		secondSubscription.close();
+		treeSubscription.close();
+		assertEquals(0, watcher.getWatchedDirectoryCount());
+	}
+
+	@Test
+	void testWatchDirectory_DeletedAndRecreated_IsWatchedAgain() throws Exception {
+		Path directory = Files.createDirectory(tempDir.resolve("templates"));
+		CountDownLatch latch = new CountDownLatch(1);
+		watcher.watchDirectory(directory.toFile(), changed -> {
+			if (changed.getFileName().toString().equals("after.json")) {
+				latch.countDown();
+			}
+		});
+
+		Files.delete(directory);
+		// Give the watcher time to notice the deletion and to watch the parent directory instead
+		Thread.sleep(500);
+		Files.createDirectory(directory);
+		Thread.sleep(500);
+		Files.writeString(directory.resolve("after.json"), "{}");
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS), "A recreated directory must be watched again");
+	}
+
+	@Test
+	void testWatch_WithMissingDirectory_ReturnsNull() {
+		assertNull(watcher.watchDirectory(tempDir.resolve("missing").toFile(), changed -> {
+		}));
+		assertNull(watcher.watchFile(tempDir.resolve("missing/file.txt").toFile(), () -> {
+		}));
+		assertFalse(Files.exists(tempDir.resolve("missing")));
+	}
+}
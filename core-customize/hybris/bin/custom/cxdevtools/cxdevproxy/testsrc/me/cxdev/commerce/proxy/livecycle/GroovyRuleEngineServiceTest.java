@@ -2,6 +2,7 @@ package me.cxdev.commerce.proxy.livecycle;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -161,4 +162,53 @@ class GroovyRuleEngineServiceTest {
 		assertTrue(engineService.evaluateScript(null).isEmpty(), "Null file should return empty list");
 		assertTrue(engineService.evaluateScript(new File("does_not_exist.groovy")).isEmpty(), "Missing file should return empty list");
 	}
+
+	// --- Compilation Cache Tests ---
+
+	@Test
+	void testEvaluateScript_WithUnchangedContent_ReusesCompiledClass(@TempDir Path tempDir) throws Exception {
+		File scriptFile = tempDir.resolve("cached.groovy").toFile();
+		Files.writeString(scriptFile.toPath(), "return [customInterceptorWithoutPrefix]");
+
+		List<ProxyExchangeInterceptor> first = engineService.evaluateScript(scriptFile);
+		List<ProxyExchangeInterceptor> second = engineService.evaluateScript(scriptFile);
+
+		assertEquals(List.of(mockInterceptor), first);
+		assertEquals(List.of(mockInterceptor), second);
+		assertNotSame(first, second, "Every evaluation must run the script again");
+		assertEquals(1, engineService.getCompileCount(), "Unchanged scripts must not be recompiled");
+		assertEquals(1, engineService.getCacheHitCount());
+		assertTrue(engineService.getCompileTimeMs(scriptFile) >= 0, "Compile time must be reported per script");
+	}
+
+	@Test
+	void testEvaluateScript_WithChangedContent_Recompiles(@TempDir Path tempDir) throws Exception {
+		File scriptFile = tempDir.resolve("changing.groovy").toFile();
+		Files.writeString(scriptFile.toPath(), "return [customInterceptorWithoutPrefix]");
+		engineService.evaluateScript(scriptFile);
+
+		Files.writeString(scriptFile.toPath(), "return [jsonResponse('{}')]");
+		List<ProxyExchangeInterceptor> result = engineService.evaluateScript(scriptFile);
+
+		assertEquals(1, result.size());
+		assertNotSame(mockInterceptor, result.get(0));
+		assertEquals(2, engineService.getCompileCount());
+		assertEquals(0, engineService.getCacheHitCount());
+	}
+
+	@Test
+	void testEvaluateScript_WithSyntaxErrorAfterChange_KeepsPreviousCompilation(@TempDir Path tempDir) throws Exception {
+		File scriptFile = tempDir.resolve("broken.groovy").toFile();
+		Files.writeString(scriptFile.toPath(), "return [customInterceptorWithoutPrefix]");
+		engineService.evaluateScript(scriptFile);
+		long compileTime = engineService.getCompileTimeMs(scriptFile);
+
+		Files.writeString(scriptFile.toPath(), "def invalid code structure {");
+		assertTrue(engineService.evaluateScript(scriptFile).isEmpty());
+
+		Files.writeString(scriptFile.toPath(), "return [customInterceptorWithoutPrefix]");
+		assertEquals(List.of(mockInterceptor), engineService.evaluateScript(scriptFile));
+		assertEquals(1, engineService.getCompileCount(), "Reverting to the last valid content must hit the cache");
+		assertEquals(compileTime, engineService.getCompileTimeMs(scriptFile));
+	}
 }
@@ -0,0 +1,107 @@
+package me.cxdev.commerce.proxy.livecycle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import me.cxdev.commerce.proxy.interceptor.ProxyExchangeInterceptor;
+
+@ExtendWith(MockitoExtension.class)
+class VersionedRuleChainTest {
+	private VersionedRuleChain ruleChain;
+
+	@Mock
+	private HttpServerExchange exchangeMock;
+
+	@Mock
+	private HttpHandler nextMock;
+
+	@Mock
+	private ProxyExchangeInterceptor oldInterceptor;
+
+	@Mock
+	private ProxyExchangeInterceptor newInterceptor;
+
+	@BeforeEach
+	void setUp() {
+		ruleChain = new VersionedRuleChain("test");
+	}
+
+	@Test
+	void testHandleRequest_WithoutRules_PassesThrough() throws Exception {
+		ruleChain.handleRequest(exchangeMock, nextMock);
+
+		assertEquals(0, ruleChain.getVersion());
+		verify(nextMock).handleRequest(exchangeMock);
+	}
+
+	@Test
+	void testSwap_NewRulesTakeEffectImmediately() throws Exception {
+		assertEquals(1, ruleChain.swap(List.of(oldInterceptor)));
+		ruleChain.handleRequest(exchangeMock, nextMock);
+		verify(oldInterceptor).apply(exchangeMock);
+
+		assertEquals(2, ruleChain.swap(List.of(newInterceptor)));
+		ruleChain.handleRequest(exchangeMock, nextMock);
+		verify(newInterceptor).apply(exchangeMock);
+		verify(oldInterceptor).apply(exchangeMock);
+	}
+
+	@Test
+	void testSwap_ExchangeInsideOldVersion_FinishesOnOldChain() throws Exception {
+		HttpServerExchange parkedExchange = mock(HttpServerExchange.class);
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			entered.countDown();
+			release.await();
+			return null;
+		}).when(oldInterceptor).apply(parkedExchange);
+
+		ruleChain.swap(List.of(oldInterceptor));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> parkedRequest = executor.submit(() -> {
+				ruleChain.handleRequest(parkedExchange, nextMock);
+				return null;
+			});
+			assertTrue(entered.await(10, TimeUnit.SECONDS), "The exchange must enter the interceptor of version 1");
+
+			// The exchange is still inside version 1 while the swap returns
+			assertEquals(2, ruleChain.swap(List.of(newInterceptor)));
+			assertEquals(2, ruleChain.getVersion());
+			ruleChain.handleRequest(exchangeMock, nextMock);
+			verify(newInterceptor).apply(exchangeMock);
+
+			release.countDown();
+			parkedRequest.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		verify(oldInterceptor).apply(parkedExchange);
+		verify(newInterceptor, never()).apply(parkedExchange);
+		verify(nextMock).handleRequest(parkedExchange);
+		verify(parkedExchange, never()).addExchangeCompleteListener(any());
+	}
+}
@@ -0,0 +1,57 @@
+package me.cxdev.commerce.proxy.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	@Test
+	void testIndexFor_IsMonotonicAndWithinUpperBound() {
+		int previous = -1;
+		for (long micros = 0; micros < 1_000_000; micros += 7) {
+			int index = LatencyHistogram.indexFor(micros);
+			assertTrue(index >= previous, "index must not decrease at " + micros);
+			assertTrue(micros <= LatencyHistogram.upperBoundOf(index), "value must not exceed its bucket at " + micros);
+			previous = index;
+		}
+	}
+
+	@Test
+	void testGetValueAtPercentile_ReturnsValuesWithinRelativeError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1_000_000, histogram.getMaxMicros());
+		assertWithin(500_000, histogram.getValueAtPercentile(50));
+		assertWithin(990_000, histogram.getValueAtPercentile(99));
+		assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+		assertEquals(500_500, histogram.getMeanMicros(), 0.001);
+	}
+
+	@Test
+	void testRecordNanos_IgnoresNegativeValuesAndResets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.recordNanos(-1);
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+
+		histogram.recordNanos(TimeUnit.SECONDS.toNanos(5));
+		assertEquals(1, histogram.getCount());
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSumMicros());
+		assertEquals(0, histogram.getMaxMicros());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected * 0.07, "expected ~" + expected + " but was " + actual);
+	}
+}
@@ -0,0 +1,95 @@
+package me.cxdev.commerce.proxy.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.StatusCodes;
+
+import org.junit.jupiter.api.Test;
+
+class ProxyMetricsTest {
+
+	@Test
+	void testTarget_RecordsLatencyOverheadAndStatusOnCompletion() {
+		ProxyMetrics metrics = new ProxyMetrics();
+		RequestMetrics backend = metrics.target(ProxyMetrics.TARGET_BACKEND);
+		assertSame(backend, metrics.target(ProxyMetrics.TARGET_BACKEND));
+
+		HttpServerExchange exchange = new HttpServerExchange(null);
+		backend.start(exchange, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20));
+		assertEquals(1, backend.getInFlight());
+
+		RequestMetrics.markUpstream(exchange);
+		RequestMetrics.markUpstream(exchange);
+		assertEquals(1, backend.getOverhead().getCount());
+
+		exchange.setStatusCode(StatusCodes.NOT_FOUND);
+		ExchangeCompletionListener.NextListener nextListener = mock(ExchangeCompletionListener.NextListener.class);
+		backend.exchangeEvent(exchange, nextListener);
+
+		verify(nextListener).proceed();
+		assertEquals(0, backend.getInFlight());
+		assertEquals(1, backend.getLatency().getCount());
+		assertTrue(backend.getLatency().getMaxMicros() >= 20_000);
+		assertEquals(1, backend.getStatusCount(3));
+		assertEquals(0, backend.getStatusCount(1));
+	}
+
+	@Test
+	void testMarkUpstream_WithoutTrackedExchange_DoesNothing() {
+		RequestMetrics.markUpstream(new HttpServerExchange(null));
+	}
+
+	@Test
+	void testToJson_ContainsTargetsAndInterceptors() {
+		ProxyMetrics metrics = new ProxyMetrics();
+		metrics.target("handler:Some\"Handler").getLatency().recordNanos(TimeUnit.MILLISECONDS.toNanos(3));
+		metrics.interceptorTimer("frontend", "000 JwtInjectorInterceptor").recordNanos(TimeUnit.MICROSECONDS.toNanos(250));
+
+		String json = metrics.toJson();
+
+		assertTrue(json.contains("\"handler:Some\\\"Handler\":{\"inFlight\":0"), json);
+		assertTrue(json.contains("\"status\":{\"1xx\":0,\"2xx\":0"), json);
+		assertTrue(json.contains("\"chain\":\"frontend\",\"step\":\"000 JwtInjectorInterceptor\""), json);
+		assertTrue(json.contains("\"count\":1,\"meanMs\":0.250"), json);
+		assertTrue(json.contains("\"p99Ms\":"), json);
+		assertTrue(json.contains("\"p99_9Ms\":"), json);
+	}
+
+	@Test
+	void testToPrometheus_RendersCountersAndSummaries() {
+		ProxyMetrics metrics = new ProxyMetrics();
+		metrics.target(ProxyMetrics.TARGET_FRONTEND).getLatency().recordNanos(TimeUnit.MILLISECONDS.toNanos(2));
+		metrics.interceptorTimer("backend", "001 if any(PathCondition)").recordNanos(TimeUnit.MICROSECONDS.toNanos(10));
+
+		String text = metrics.toPrometheus();
+
+		assertTrue(text.contains("# TYPE cxdevproxy_requests_total counter\n"), text);
+		assertTrue(text.contains("cxdevproxy_requests_total{target=\"frontend\",status=\"2xx\"} 0\n"), text);
+		assertTrue(text.contains("cxdevproxy_request_duration_seconds{target=\"frontend\",quantile=\"0.5\"} 0.002000\n"), text);
+		assertTrue(text.contains("cxdevproxy_request_duration_seconds_count{target=\"frontend\"} 1\n"), text);
+		assertFalse(text.contains("cxdevproxy_proxy_overhead_seconds{"), text);
+		assertTrue(text.contains("cxdevproxy_interceptor_duration_seconds_sum{chain=\"backend\",step=\"001 if any(PathCondition)\"} 0.000010\n"), text);
+	}
+
+	@Test
+	void testRemoveInterceptorTimers_OnlyRemovesTimersOfTheChain() {
+		ProxyMetrics metrics = new ProxyMetrics();
+		LatencyHistogram frontend = metrics.interceptorTimer("frontend", "000 A");
+		LatencyHistogram backend = metrics.interceptorTimer("backend", "000 A");
+
+		metrics.removeInterceptorTimers("frontend");
+
+		assertSame(backend, metrics.interceptorTimer("backend", "000 A"));
+		assertNotSame(frontend, metrics.interceptorTimer("frontend", "000 A"));
+	}
+}
@@ -0,0 +1,189 @@
+package me.cxdev.commerce.proxy.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResponseArchiveTest {
+	@TempDir
+	private Path tempDir;
+
+	private ResponseArchive archive;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (archive != null) {
+			archive.destroy();
+		}
+	}
+
+	private ResponseArchive createArchive() {
+		ResponseArchive responseArchive = new ResponseArchive();
+		responseArchive.setArchivePath(tempDir.resolve("data/responses.archive").toString());
+		return responseArchive;
+	}
+
+	private static String body(ResponseArchive responseArchive, RecordedResponse response) {
+		ByteBuffer body = responseArchive.getBody(response);
+		byte[] bytes = new byte[body.remaining()];
+		body.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testAppend_IsIndexedAndServedFromMapping() {
+		archive = createArchive();
+		archive.open();
+		archive.append("GET /occ/v2/products", 200, List.of(new RecordedResponse.Header("Content-Type", "application/json")),
+				"{\"products\":[]}".getBytes(StandardCharsets.UTF_8));
+
+		RecordedResponse response = archive.get("GET /occ/v2/products");
+		assertNotNull(response);
+		assertEquals(200, response.status());
+		assertEquals(List.of(new RecordedResponse.Header("Content-Type", "application/json")), response.headers());
+		assertEquals("{\"products\":[]}", body(archive, response));
+		assertNull(archive.get("GET /occ/v2/unknown"));
+	}
+
+	@Test
+	void testAppend_SameKey_SupersedesPreviousRecording() {
+		archive = createArchive();
+		archive.open();
+		archive.append("key", 200, List.of(), "first".getBytes(StandardCharsets.UTF_8));
+		archive.append("key", 201, List.of(), "second".getBytes(StandardCharsets.UTF_8));
+
+		RecordedResponse response = archive.get("key");
+		assertEquals(201, response.status());
+		assertEquals("second", body(archive, response));
+		assertEquals(1, archive.getRecordCount());
+	}
+
+	@Test
+	void testAppend_UnchangedResponse_IsNotWrittenAgain() throws Exception {
+		archive = createArchive();
+		archive.open();
+		List<RecordedResponse.Header> headers = List.of(new RecordedResponse.Header("Content-Type", "text/plain"));
+		archive.append("key", 200, headers, "same".getBytes(StandardCharsets.UTF_8));
+		RecordedResponse first = archive.get("key");
+
+		archive.append("key", 200, headers, "same".getBytes(StandardCharsets.UTF_8));
+
+		assertSame(first, archive.get("key"));
+		archive.destroy();
+		assertEquals(first.bodyOffset() + first.bodyLength(), Files.size(tempDir.resolve("data/responses.archive")));
+	}
+
+	@Test
+	void testOpen_ExistingArchive_RestoresIndex() throws Exception {
+		archive = createArchive();
+		archive.open();
+		archive.append("one", 200, List.of(new RecordedResponse.Header("X-Test", "1")), "body one".getBytes(StandardCharsets.UTF_8));
+		archive.append("two", 404, List.of(), new byte[0]);
+		archive.destroy();
+
+		archive = createArchive();
+		archive.open();
+		assertEquals("body one", body(archive, archive.get("one")));
+		assertEquals("1", archive.get("one").headers().get(0).value());
+		assertEquals(404, archive.get("two").status());
+		assertEquals(0, archive.get("two").bodyLength());
+	}
+
+	@Test
+	void testOpen_IncompleteRecord_IsTruncated() throws Exception {
+		archive = createArchive();
+		archive.open();
+		archive.append("complete", 200, List.of(), "ok".getBytes(StandardCharsets.UTF_8));
+		archive.destroy();
+
+		Path file = tempDir.resolve("data/responses.archive");
+		long completeSize = Files.size(file);
+		Files.write(file, new byte[] { 0x43, 0x58, 0x52, 0x50, 0, 0, 1, 0, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		archive = createArchive();
+		archive.open();
+		assertEquals("ok", body(archive, archive.get("complete")));
+		assertEquals(completeSize, Files.size(file));
+
+		archive.append("next", 200, List.of(), "appended".getBytes(StandardCharsets.UTF_8));
+		assertEquals("appended", body(archive, archive.get("next")));
+	}
+
+	@Test
+	void testAppend_ExceedingMaxSize_StopsRecording() {
+		archive = createArchive();
+		archive.setMaxSize("100b");
+		archive.open();
+		archive.append("small", 200, List.of(), new byte[10]);
+		archive.append("large", 200, List.of(), new byte[100]);
+		archive.append("small again", 200, List.of(), new byte[10]);
+
+		assertNotNull(archive.get("small"));
+		assertNull(archive.get("large"));
+		assertNull(archive.get("small again"));
+		assertEquals(2, archive.getDroppedCount());
+	}
+
+	@Test
+	void testRecord_IsWrittenAsynchronously() throws Exception {
+		archive = createArchive();
+		archive.open();
+		archive.record("key", 200, List.of(), "async".getBytes(StandardCharsets.UTF_8));
+		archive.destroy();
+
+		archive = createArchive();
+		archive.open();
+		assertEquals("async", body(archive, archive.get("key")));
+	}
+
+	@Test
+	void testGet_NotOpened_DoesNotOpenArchiveOnRequestPath() throws Exception {
+		archive = createArchive();
+		archive.open();
+		archive.append("key", 200, List.of(), "body".getBytes(StandardCharsets.UTF_8));
+		archive.destroy();
+
+		archive = createArchive();
+		assertNull(archive.get("key"));
+		archive.record("other", 200, List.of(), new byte[0]);
+		archive.open();
+		assertNotNull(archive.get("key"));
+		assertNull(archive.get("other"));
+	}
+
+	@Test
+	void testAppend_EarlierBodiesStayReadableAfterGrowth() {
+		archive = createArchive();
+		archive.open();
+		archive.append("first", 200, List.of(), "first body".getBytes(StandardCharsets.UTF_8));
+		ByteBuffer served = archive.getBody(archive.get("first"));
+
+		archive.append("second", 200, List.of(), new byte[4096]);
+
+		byte[] bytes = new byte[served.remaining()];
+		served.get(bytes);
+		assertEquals("first body", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(4096, archive.getBody(archive.get("second")).remaining());
+	}
+
+	@Test
+	void testOpen_WithoutPath_DisablesArchive() {
+		archive = new ResponseArchive();
+		assertFalse(archive.open());
+		archive.record("key", 200, List.of(), new byte[0]);
+		assertNull(archive.get("key"));
+	}
+}
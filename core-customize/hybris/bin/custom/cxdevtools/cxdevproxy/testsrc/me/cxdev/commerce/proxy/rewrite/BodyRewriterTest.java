@@ -0,0 +1,84 @@
+package me.cxdev.commerce.proxy.rewrite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BodyRewriterTest {
+
+	private static BodyRewriter rewriter(String... searchesAndReplacements) {
+		List<byte[]> searches = new ArrayList<>();
+		List<byte[]> replacements = new ArrayList<>();
+		for (int i = 0; i < searchesAndReplacements.length; i += 2) {
+			searches.add(searchesAndReplacements[i].getBytes(StandardCharsets.UTF_8));
+			replacements.add(searchesAndReplacements[i + 1].getBytes(StandardCharsets.UTF_8));
+		}
+		return new BodyRewriter(searches, replacements);
+	}
+
+	/**
+	 * Streams the body through the rewriter in chunks of the given size.
+	 */
+	private static String rewrite(BodyRewriter rewriter, String body, int chunkSize) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			rewriter.rewrite(bytes, offset, Math.min(chunkSize, bytes.length - offset), out);
+		}
+		rewriter.finish(out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testRewrite_SingleChunk_ReplacesAllOccurrences() {
+		BodyRewriter rewriter = rewriter("localhost:9002", "local.cxdev.me:8080");
+
+		String result = rewrite(rewriter, "{\"a\":\"https://localhost:9002/x\",\"b\":\"https://localhost:9002/y\"}", 1024);
+
+		assertEquals("{\"a\":\"https://local.cxdev.me:8080/x\",\"b\":\"https://local.cxdev.me:8080/y\"}", result);
+		assertEquals(2, rewriter.getReplacementCount());
+	}
+
+	@Test
+	void testRewrite_MatchSpanningChunks_IsReplaced() {
+		String body = "<html><head><title>Shop</title></head><body></body></html>";
+		for (int chunkSize = 1; chunkSize <= body.length(); chunkSize++) {
+			String result = rewrite(rewriter("</head>", "<script></script></head>"), body, chunkSize);
+			assertEquals("<html><head><title>Shop</title><script></script></head><body></body></html>", result, "Chunk size " + chunkSize);
+		}
+	}
+
+	@Test
+	void testRewrite_PartialMatchAtEnd_IsEmittedUnchanged() {
+		assertEquals("abc</hea", rewrite(rewriter("</head>", "X"), "abc</hea", 3));
+	}
+
+	@Test
+	void testRewrite_MultipleSearches_FirstMatchingSearchWins() {
+		BodyRewriter rewriter = rewriter("foobar", "1", "foo", "2");
+
+		assertEquals("1 2 1", rewrite(rewriter, "foobar foo foobar", 4));
+	}
+
+	@Test
+	void testRewrite_ReplacementIsNotSearchedAgain() {
+		assertEquals("aaaa", rewrite(rewriter("a", "aa"), "aa", 1));
+	}
+
+	@Test
+	void testRewrite_MultiByteCharacters_AreMatchedAcrossChunks() {
+		assertEquals("Grüße aus Zürich", rewrite(rewriter("Zuerich", "Zürich", "Gruesse", "Grüße"), "Gruesse aus Zuerich", 2));
+		assertEquals("Zurich", rewrite(rewriter("Zürich", "Zurich"), "Zürich", 1));
+	}
+
+	@Test
+	void testConstructor_EmptySearch_IsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> rewriter("", "x"));
+	}
+}
@@ -0,0 +1,101 @@
+package me.cxdev.commerce.proxy.rewrite;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Test;
+
+class GzipDecoderTest {
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] decode(GzipDecoder decoder, byte[] encoded, int chunkSize) throws ZipException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int offset = 0; offset < encoded.length; offset += chunkSize) {
+			decoder.decode(encoded, offset, Math.min(chunkSize, encoded.length - offset), out::write);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	void testDecode_InChunksOfAnySize_RestoresContent() throws IOException {
+		byte[] content = new byte[64 * 1024];
+		new Random(42).nextBytes(content);
+		Arrays.fill(content, 1000, 30000, (byte) 'x');
+		byte[] encoded = gzip(content);
+
+		for (int chunkSize : new int[] { 1, 7, 10, 512, 8192, encoded.length }) {
+			GzipDecoder decoder = new GzipDecoder();
+			assertArrayEquals(content, decode(decoder, encoded, chunkSize), "Chunk size " + chunkSize);
+			assertTrue(decoder.isComplete());
+			decoder.close();
+		}
+	}
+
+	@Test
+	void testDecode_HeaderWithFileName_IsSkipped() throws IOException {
+		byte[] encoded = gzip("hello".getBytes(StandardCharsets.UTF_8));
+		// Set FNAME and insert a zero-terminated file name after the fixed header
+		byte[] name = "index.html\0".getBytes(StandardCharsets.ISO_8859_1);
+		byte[] withName = new byte[encoded.length + name.length];
+		System.arraycopy(encoded, 0, withName, 0, 10);
+		withName[3] = 8;
+		System.arraycopy(name, 0, withName, 10, name.length);
+		System.arraycopy(encoded, 10, withName, 10 + name.length, encoded.length - 10);
+
+		assertEquals("hello", new String(decode(new GzipDecoder(), withName, 3), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testDecode_ConcatenatedMembers_AreDecodedOneAfterAnother() throws IOException {
+		byte[] first = gzip("Hello, ".getBytes(StandardCharsets.UTF_8));
+		byte[] second = gzip("World".getBytes(StandardCharsets.UTF_8));
+		byte[] encoded = new byte[first.length + second.length];
+		System.arraycopy(first, 0, encoded, 0, first.length);
+		System.arraycopy(second, 0, encoded, first.length, second.length);
+
+		assertEquals("Hello, World", new String(decode(new GzipDecoder(), encoded, 5), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testDecode_TruncatedBody_IsNotComplete() throws IOException {
+		byte[] encoded = gzip("truncated".getBytes(StandardCharsets.UTF_8));
+		GzipDecoder decoder = new GzipDecoder();
+
+		decode(decoder, Arrays.copyOf(encoded, encoded.length - 4), 4);
+
+		assertFalse(decoder.isComplete());
+	}
+
+	@Test
+	void testDecode_CorruptChecksum_Throws() throws IOException {
+		byte[] encoded = gzip("checksum".getBytes(StandardCharsets.UTF_8));
+		encoded[encoded.length - 8] ^= (byte) 0xFF;
+
+		assertThrows(ZipException.class, () -> decode(new GzipDecoder(), encoded, encoded.length));
+	}
+
+	@Test
+	void testDecode_PlainContent_Throws() {
+		byte[] plain = "{\"not\":\"gzip\"}".getBytes(StandardCharsets.UTF_8);
+
+		assertThrows(ZipException.class, () -> decode(new GzipDecoder(), plain, plain.length));
+	}
+}
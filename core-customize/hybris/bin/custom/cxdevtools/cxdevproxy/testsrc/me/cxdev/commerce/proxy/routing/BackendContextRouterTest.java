@@ -0,0 +1,86 @@
+package me.cxdev.commerce.proxy.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BackendContextRouterTest {
+	private BackendContextRouter router;
+
+	@BeforeEach
+	void setUp() {
+		router = new BackendContextRouter(List.of("/occ", "/backoffice", "/authorizationserver", "/smartedit/webservices"));
+	}
+
+	@Test
+	void testResolve_ExactContext_RoutesToBackend() {
+		assertEquals(RouteTarget.BACKEND, router.resolve("/occ"));
+		assertEquals(RouteTarget.BACKEND, router.resolve("/backoffice"));
+	}
+
+	@Test
+	void testResolve_PathBelowContext_RoutesToBackend() {
+		assertEquals(RouteTarget.BACKEND, router.resolve("/occ/v2/electronics/products/123"));
+		assertEquals(RouteTarget.BACKEND, router.resolve("/occ/"));
+		assertEquals(RouteTarget.BACKEND, router.resolve("/smartedit/webservices/v1/sites"));
+	}
+
+	@Test
+	void testResolve_RespectsSegmentBoundaries() {
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/occasion"), "A context must not swallow longer segment names");
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/oc"), "A partial context must not match");
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/smartedit"), "A partial multi-segment context must not match");
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/smartedit/webservicesX/foo"));
+	}
+
+	@Test
+	void testResolve_FrontendPaths() {
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/"));
+		assertEquals(RouteTarget.FRONTEND, router.resolve(""));
+		assertEquals(RouteTarget.FRONTEND, router.resolve(null));
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/electronics-spa/en/USD/"));
+		assertEquals(RouteTarget.FRONTEND, router.resolve("/main.js"));
+	}
+
+	@Test
+	void testConstructor_NormalizesAndDeduplicatesContexts() {
+		BackendContextRouter normalizing = new BackendContextRouter(Arrays.asList(" occ/ ", "/occ", "/", "", null, "/hac//"));
+
+		assertEquals(List.of("/occ", "/hac"), normalizing.getContexts());
+		assertEquals(RouteTarget.BACKEND, normalizing.resolve("/occ/v2"));
+		assertEquals(RouteTarget.BACKEND, normalizing.resolve("/hac/monitoring"));
+		assertEquals(RouteTarget.FRONTEND, normalizing.resolve("/index.html"), "The root context must never be routed to the backend");
+	}
+
+	@Test
+	void testConstructor_WithNestedContexts() {
+		BackendContextRouter nested = new BackendContextRouter(List.of("/occ/v2", "/occ"));
+
+		assertEquals(RouteTarget.BACKEND, nested.resolve("/occ/v1/sites"));
+		assertEquals(RouteTarget.BACKEND, nested.resolve("/occ/v2/sites"));
+		assertEquals(8, nested.getNodeCount(), "Shared prefixes must share trie nodes");
+	}
+
+	@Test
+	void testConstructor_WithNoContexts_RoutesEverythingToFrontend() {
+		BackendContextRouter empty = new BackendContextRouter(null);
+
+		assertEquals(RouteTarget.FRONTEND, empty.resolve("/occ/v2"));
+		assertEquals(1, empty.getNodeCount());
+	}
+
+	@Test
+	void testStatistics_CountsLookupsPerTarget() {
+		router.resolve("/occ/v2/users/current");
+		router.resolve("/backoffice/login.zul");
+		router.resolve("/styles.css");
+
+		assertEquals(3, router.getLookupCount());
+		assertEquals(2, router.getBackendMatchCount());
+		assertEquals(1, router.getFrontendMatchCount());
+	}
+}
@@ -0,0 +1,95 @@
+package me.cxdev.commerce.proxy.ssl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ReloadableKeyManagerTest {
+	@Mock
+	private X509ExtendedKeyManager first;
+
+	@Mock
+	private X509ExtendedKeyManager second;
+
+	@Mock
+	private SSLEngine engine;
+
+	@Mock
+	private Callable<X509ExtendedKeyManager> loader;
+
+	@Test
+	void testReload_SwapsDelegate() throws Exception {
+		X509Certificate[] firstChain = new X509Certificate[0];
+		X509Certificate[] secondChain = new X509Certificate[] { mock(X509Certificate.class) };
+		when(loader.call()).thenReturn(first, second);
+		when(first.getCertificateChain("server")).thenReturn(firstChain);
+		when(second.getCertificateChain("server")).thenReturn(secondChain);
+
+		ReloadableKeyManager keyManager = new ReloadableKeyManager(loader, null);
+		assertSame(firstChain, keyManager.getCertificateChain("server"));
+
+		assertTrue(keyManager.reload());
+		assertSame(secondChain, keyManager.getCertificateChain("server"));
+	}
+
+	@Test
+	void testReload_WithBrokenKeystore_KeepsCurrentCertificates() throws Exception {
+		PrivateKey key = mock(PrivateKey.class);
+		when(loader.call()).thenReturn(first).thenThrow(new IOException("keystore is being written"));
+		when(first.getPrivateKey("server")).thenReturn(key);
+
+		ReloadableKeyManager keyManager = new ReloadableKeyManager(loader, null);
+
+		assertFalse(keyManager.reload());
+		assertSame(key, keyManager.getPrivateKey("server"));
+	}
+
+	@Test
+	void testChooseEngineServerAlias_PrefersConfiguredAlias() throws Exception {
+		when(loader.call()).thenReturn(first);
+		when(first.getPrivateKey("local.cxdev.me")).thenReturn(mock(PrivateKey.class));
+
+		ReloadableKeyManager keyManager = new ReloadableKeyManager(loader, " local.cxdev.me ");
+
+		assertEquals("local.cxdev.me", keyManager.chooseEngineServerAlias("RSA", null, engine));
+	}
+
+	@Test
+	void testChooseEngineServerAlias_WithUnknownAlias_DelegatesSelection() throws Exception {
+		when(loader.call()).thenReturn(first);
+		when(first.chooseEngineServerAlias("RSA", null, engine)).thenReturn("other");
+
+		ReloadableKeyManager keyManager = new ReloadableKeyManager(loader, "local.cxdev.me");
+
+		assertEquals("other", keyManager.chooseEngineServerAlias("RSA", null, engine));
+	}
+
+	@Test
+	void testForKeystore_WithInvalidFile_Throws(@TempDir Path tempDir) throws Exception {
+		File keystore = Files.writeString(tempDir.resolve("broken.p12"), "not a keystore").toFile();
+
+		assertThrows(IOException.class, () -> ReloadableKeyManager.forKeystore(keystore, "123456", null));
+	}
+}
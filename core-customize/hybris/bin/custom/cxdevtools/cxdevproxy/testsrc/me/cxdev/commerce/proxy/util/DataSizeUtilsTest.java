@@ -0,0 +1,38 @@
+package me.cxdev.commerce.proxy.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class DataSizeUtilsTest {
+	@Test
+	void testParseSize_WithBytes() {
+		assertEquals(512L, DataSizeUtils.parseSizeToBytes("512b"));
+		assertEquals(800L, DataSizeUtils.parseSizeToBytes("800"));
+	}
+
+	@Test
+	void testParseSize_WithKilobytes() {
+		assertEquals(1024L, DataSizeUtils.parseSizeToBytes("1kb"));
+		assertEquals(512L * 1024L, DataSizeUtils.parseSizeToBytes("512KB"));
+	}
+
+	@Test
+	void testParseSize_WithMegabytesAndGigabytes() {
+		assertEquals(32L * 1024L * 1024L, DataSizeUtils.parseSizeToBytes("32mb"));
+		assertEquals(2L * 1024L * 1024L * 1024L, DataSizeUtils.parseSizeToBytes("2 GB"));
+	}
+
+	@Test
+	void testParseSize_WithNullOrEmpty_ReturnsZero() {
+		assertEquals(0L, DataSizeUtils.parseSizeToBytes(null));
+		assertEquals(0L, DataSizeUtils.parseSizeToBytes("  "));
+	}
+
+	@Test
+	void testParseSize_WithInvalidFormat_ThrowsException() {
+		assertThrows(NumberFormatException.class, () -> DataSizeUtils.parseSizeToBytes("10tb"));
+		assertThrows(NumberFormatException.class, () -> DataSizeUtils.parseSizeToBytes("abc"));
+	}
+}